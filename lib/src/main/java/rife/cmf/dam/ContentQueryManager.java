@@ -459,6 +459,31 @@ public class ContentQueryManager<T> extends GenericQueryManagerDelegate<T> imple
         });
     }
 
+    /**
+     * Saves a collection of beans.
+     * <p>Each bean is saved with {@link #save(Object) save} to correctly
+     * handle the content and ordinal properties, all of them inside a single
+     * transaction.
+     *
+     * @param beans the bean instances that have to be saved
+     * @return the IDs of the saved beans, in the order of the collection;
+     * {@code -1} for the beans that couldn't be saved
+     * @since 1.4
+     */
+    public int[] save(final Collection<T> beans)
+    throws DatabaseException {
+        if (null == beans) throw new IllegalArgumentException("beans can't be null.");
+
+        return dbQueryManager_.inTransaction(() -> {
+            var result = new int[beans.size()];
+            var i = 0;
+            for (var bean : beans) {
+                result[i++] = save(bean);
+            }
+            return result;
+        });
+    }
+
     /**
      * Restores a bean according to its ID.
      * <p>This augments the regular {@code GenericQueryManager}'s
@@ -579,6 +604,33 @@ public class ContentQueryManager<T> extends GenericQueryManagerDelegate<T> imple
         return null != result && result;
     }
 
+    /**
+     * Deletes a collection of beans according to their IDs.
+     * <p>Each bean is deleted with {@link #delete(int) delete} to correctly
+     * handle the content and ordinal properties, all of them inside a single
+     * transaction.
+     *
+     * @param objectIds the IDs of the beans that have to be deleted
+     * @return the number of beans that were deleted
+     * @since 1.4
+     */
+    public int delete(final Collection<Integer> objectIds)
+    throws DatabaseException {
+        if (null == objectIds) throw new IllegalArgumentException("objectIds can't be null.");
+
+        Integer result = dbQueryManager_.inTransaction(() -> {
+            var deleted = 0;
+            for (var object_id : objectIds) {
+                if (delete(object_id)) {
+                    deleted++;
+                }
+            }
+            return deleted;
+        });
+
+        return null == result ? 0 : result;
+    }
+
     /**
      * Checks if there's content available for a certain property of a bean.
      *
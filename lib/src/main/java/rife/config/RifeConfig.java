@@ -19,6 +19,7 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
 import java.util.*;
+import java.util.zip.Deflater;
 
 public class RifeConfig {
     protected RifeConfig() {
@@ -432,9 +433,19 @@ public class RifeConfig {
     public class DatabaseConfig {
         private int transactionTimeout_ = DEFAULT_TRANSACTION_TIMEOUT;
         private boolean sqlDebugTrace_ = DEFAULT_SQL_DEBUG_TRACE;
+        private int batchSize_ = DEFAULT_BATCH_SIZE;
+        private int fetchSize_ = DEFAULT_FETCH_SIZE;
+        private int generatedSqlCacheSize_ = DEFAULT_GENERATED_SQL_CACHE_SIZE;
+        private long slowQueryThreshold_ = DEFAULT_SLOW_QUERY_THRESHOLD;
+        private boolean slowQueryParameterValues_ = DEFAULT_SLOW_QUERY_PARAMETER_VALUES;
 
         private static final int DEFAULT_TRANSACTION_TIMEOUT = 0;    // 0 seconds : turned off
         private static final boolean DEFAULT_SQL_DEBUG_TRACE = false;
+        private static final int DEFAULT_BATCH_SIZE = 1000;
+        private static final int DEFAULT_FETCH_SIZE = 1000;
+        private static final int DEFAULT_GENERATED_SQL_CACHE_SIZE = 1000;
+        private static final long DEFAULT_SLOW_QUERY_THRESHOLD = 0;    // 0 milliseconds : turned off
+        private static final boolean DEFAULT_SLOW_QUERY_PARAMETER_VALUES = false;
 
         public int getTransactionTimeout() {
             return transactionTimeout_;
@@ -453,6 +464,55 @@ public class RifeConfig {
             sqlDebugTrace_ = flag;
             return this;
         }
+
+        public int getBatchSize() {
+            return batchSize_;
+        }
+
+        public DatabaseConfig setBatchSize(int size) {
+            if (size <= 0) throw new IllegalArgumentException("size should be at least 1.");
+            batchSize_ = size;
+            return this;
+        }
+
+        public int getFetchSize() {
+            return fetchSize_;
+        }
+
+        public DatabaseConfig setFetchSize(int size) {
+            if (size < 0) throw new IllegalArgumentException("size can't be negative.");
+            fetchSize_ = size;
+            return this;
+        }
+
+        public int getGeneratedSqlCacheSize() {
+            return generatedSqlCacheSize_;
+        }
+
+        public DatabaseConfig setGeneratedSqlCacheSize(int size) {
+            if (size < 0) throw new IllegalArgumentException("size can't be negative.");
+            generatedSqlCacheSize_ = size;
+            return this;
+        }
+
+        public long getSlowQueryThreshold() {
+            return slowQueryThreshold_;
+        }
+
+        public DatabaseConfig setSlowQueryThreshold(long milliseconds) {
+            if (milliseconds < 0) throw new IllegalArgumentException("milliseconds can't be negative.");
+            slowQueryThreshold_ = milliseconds;
+            return this;
+        }
+
+        public boolean getSlowQueryParameterValues() {
+            return slowQueryParameterValues_;
+        }
+
+        public DatabaseConfig setSlowQueryParameterValues(boolean flag) {
+            slowQueryParameterValues_ = flag;
+            return this;
+        }
     }
 
     public class EngineConfig {
@@ -468,8 +528,13 @@ public class RifeConfig {
         private boolean fileUploadSizeCheck_ = DEFAULT_FILE_UPLOAD_SIZE_CHECK;
         private boolean fileUploadSizeException_ = DEFAULT_FILE_UPLOAD_SIZE_EXCEPTION;
         private boolean globalNoCacheHeaders_ = DEFAULT_GLOBAL_NO_CACHE_HEADERS;
+        private boolean automaticEtag_ = DEFAULT_AUTOMATIC_ETAG;
         private boolean gzipCompression_ = DEFAULT_GZIP_COMPRESSION;
         private Collection<String> gzipCompressionTypes_ = DEFAULT_GZIP_COMPRESSION_TYPES;
+        private boolean gzipCompressionStreaming_ = DEFAULT_GZIP_COMPRESSION_STREAMING;
+        private int gzipCompressionThreshold_ = DEFAULT_GZIP_COMPRESSION_THRESHOLD;
+        private int gzipCompressionLevel_ = DEFAULT_GZIP_COMPRESSION_LEVEL;
+        private int gzipCompressionBufferSize_ = DEFAULT_GZIP_COMPRESSION_BUFFER_SIZE;
         private String proxyRootUrl_ = DEFAULT_PROXY_ROOT_URL;
         private String webappContextPath_ = DEFAULT_WEBAPP_CONTEXT_PATH;
         private Set<String> passThroughSuffixes = DEFAULT_PASS_THROUGH_SUFFIXES;
@@ -485,6 +550,7 @@ public class RifeConfig {
         public static final boolean DEFAULT_FILE_UPLOAD_SIZE_CHECK = true;
         public static final boolean DEFAULT_FILE_UPLOAD_SIZE_EXCEPTION = false;
         public static final boolean DEFAULT_GLOBAL_NO_CACHE_HEADERS = false;
+        public static final boolean DEFAULT_AUTOMATIC_ETAG = false;
         public static final boolean DEFAULT_GZIP_COMPRESSION = true;
         public static final Collection<String> DEFAULT_GZIP_COMPRESSION_TYPES = List.of(
             "text/html",
@@ -496,6 +562,10 @@ public class RifeConfig {
             "application/xhtml+xml",
             "image/svg+xml"
         );
+        public static final boolean DEFAULT_GZIP_COMPRESSION_STREAMING = false;
+        public static final int DEFAULT_GZIP_COMPRESSION_THRESHOLD = 0;
+        public static final int DEFAULT_GZIP_COMPRESSION_LEVEL = Deflater.DEFAULT_COMPRESSION;
+        public static final int DEFAULT_GZIP_COMPRESSION_BUFFER_SIZE = 8192;
         public static final String DEFAULT_PROXY_ROOT_URL = null;
         public static final String DEFAULT_WEBAPP_CONTEXT_PATH = null;
         public static final Set<String> DEFAULT_PASS_THROUGH_SUFFIXES = new HashSet<>() {{
@@ -639,6 +709,15 @@ public class RifeConfig {
             return this;
         }
 
+        public boolean getAutomaticEtag() {
+            return automaticEtag_;
+        }
+
+        public EngineConfig setAutomaticEtag(boolean flag) {
+            automaticEtag_ = flag;
+            return this;
+        }
+
         public boolean getGzipCompression() {
             return gzipCompression_;
         }
@@ -657,6 +736,45 @@ public class RifeConfig {
             return this;
         }
 
+        public boolean getGzipCompressionStreaming() {
+            return gzipCompressionStreaming_;
+        }
+
+        public EngineConfig setGzipCompressionStreaming(boolean flag) {
+            gzipCompressionStreaming_ = flag;
+            return this;
+        }
+
+        public int getGzipCompressionThreshold() {
+            return gzipCompressionThreshold_;
+        }
+
+        public EngineConfig setGzipCompressionThreshold(int threshold) {
+            if (threshold < 0) throw new IllegalArgumentException("threshold can't be negative.");
+            gzipCompressionThreshold_ = threshold;
+            return this;
+        }
+
+        public int getGzipCompressionLevel() {
+            return gzipCompressionLevel_;
+        }
+
+        public EngineConfig setGzipCompressionLevel(int level) {
+            if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) throw new IllegalArgumentException("level should be between -1 and 9.");
+            gzipCompressionLevel_ = level;
+            return this;
+        }
+
+        public int getGzipCompressionBufferSize() {
+            return gzipCompressionBufferSize_;
+        }
+
+        public EngineConfig setGzipCompressionBufferSize(int size) {
+            if (size <= 0) throw new IllegalArgumentException("size should be positive.");
+            gzipCompressionBufferSize_ = size;
+            return this;
+        }
+
         public String getProxyRootUrl() {
             return proxyRootUrl_;
         }
@@ -78,4 +78,30 @@ public abstract class ContinuationsBytecodeTransformer {
 
         return resumable_bytes;
     }
+
+    /**
+     * Indicates whether a class uses continuations functionalities, without
+     * transforming it.
+     *
+     * @param configInstrument the configuration for the instrumentation
+     * @param rawBytes         the raw bytes of the class to inspect
+     * @param classname        the name of the class to inspect
+     * @return {@code true} if the entry method of the class pauses or answers
+     * continuations; or
+     * <p>{@code false} otherwise
+     * @throws ClassNotFoundException when an error occurs during the
+     *                                inspection
+     * @since 1.4
+     */
+    public static boolean isResumable(ContinuationConfigInstrument configInstrument, byte[] rawBytes, String classname)
+    throws ClassNotFoundException {
+        try {
+            var metrics_reader = new ClassReader(rawBytes);
+            var metrics_visitor = new MetricsClassVisitor(configInstrument, classname);
+            metrics_reader.accept(metrics_visitor, ClassReader.SKIP_FRAMES);
+            return metrics_visitor.makeResumable();
+        } catch (Exception e) {
+            throw new ClassNotFoundException(classname, e);
+        }
+    }
 }
@@ -0,0 +1,590 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database;
+
+import rife.database.exceptions.AsyncInTransactionException;
+import rife.database.exceptions.DatabaseException;
+import rife.database.queries.Query;
+import rife.database.queries.ReadQuery;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Executes the queries of a {@link DbQueryManager} asynchronously on the
+ * {@linkplain Datasource#getAsyncExecutor() executor} of its datasource.
+ * <p>This makes it possible to run independent queries concurrently, each
+ * of them in its own connection of the datasource's pool. When all the
+ * connections are in use, the queries wait for one to become available,
+ * exactly like the synchronous methods do.
+ * <h4>Transactions</h4>
+ * <p>Transactions and reserved connections are tied to the thread that
+ * started them, while asynchronous queries are executed by the threads of
+ * the executor. An asynchronous query can thus never be part of the
+ * transaction of the thread that issued it, and all the methods of this
+ * class throw an {@link AsyncInTransactionException} when they're called
+ * while the current thread has reserved a connection or is inside a
+ * transaction. Each asynchronous query is executed in auto-commit mode,
+ * several statements can be executed inside one transaction by starting it
+ * with {@link DbQueryManager#inTransaction(TransactionUser) inTransaction}
+ * inside the function that's provided to {@link #execute(Function)}.
+ * <h4>Example</h4>
+ * <pre>var async = new DbQueryManager(datasource).async();
+ * var person = async.executeFetchFirstBean(select_person, Person.class);
+ * var orders = async.executeFetchAllBeans(select_orders, Order.class);
+ * CompletableFuture.allOf(person, orders).join();
+ * </pre>
+ * <p>When a query fails, its future completes exceptionally with the
+ * {@code DatabaseException} that was thrown. This is the exception that is
+ * provided to the {@code exceptionally} and {@code handle} functions of the
+ * future, while {@code join()} throws it as the cause of a
+ * {@code CompletionException} and {@code get()} as the cause of an
+ * {@code ExecutionException}.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @see DbQueryManager#async()
+ * @see Datasource#setAsyncExecutor(java.util.concurrent.Executor)
+ * @since 1.4
+ */
+public class AsyncDbQueryManager {
+    private final DbQueryManager manager_;
+
+    /**
+     * Instantiates a new {@code AsyncDbQueryManager} that executes the
+     * queries of the provided query manager.
+     *
+     * @param manager the query manager that executes the queries
+     * @since 1.4
+     */
+    public AsyncDbQueryManager(DbQueryManager manager) {
+        if (null == manager) throw new IllegalArgumentException("manager can't be null.");
+
+        manager_ = manager;
+    }
+
+    /**
+     * Retrieves the query manager that executes the queries.
+     *
+     * @return the query manager
+     * @since 1.4
+     */
+    public DbQueryManager getManager() {
+        return manager_;
+    }
+
+    /**
+     * Executes any logic that uses the query manager asynchronously.
+     *
+     * @param operation the logic to execute
+     * @return the future result of the operation
+     * @throws AsyncInTransactionException when the current thread has
+     *                                     reserved a connection or is inside
+     *                                     a transaction
+     * @since 1.4
+     */
+    public <ResultType> CompletableFuture<ResultType> execute(Function<DbQueryManager, ResultType> operation)
+    throws DatabaseException {
+        if (null == operation) throw new IllegalArgumentException("operation can't be null.");
+
+        var datasource = manager_.getDatasource();
+        if (datasource.getPool().hasThreadConnection(Thread.currentThread())) {
+            throw new AsyncInTransactionException(datasource);
+        }
+
+        // the future is completed explicitly so that failures are reported
+        // with the original exception instead of a CompletionException
+        var future = new CompletableFuture<ResultType>();
+        datasource.getAsyncExecutor().execute(() -> {
+            try {
+                future.complete(operation.apply(manager_));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Asynchronously executes an update query.
+     *
+     * @param query the query builder instance that needs to be executed
+     * @return the future row count of the executed query
+     * @see DbQueryManager#executeUpdate(Query)
+     * @since 1.4
+     */
+    public CompletableFuture<Integer> executeUpdate(Query query)
+    throws DatabaseException {
+        return execute(manager -> manager.executeUpdate(query));
+    }
+
+    /**
+     * Asynchronously executes a customizable update query.
+     *
+     * @param query   the query builder instance that needs to be executed
+     * @param handler an instance of {@code PreparedStatementHandler} that
+     *                will be used to customize the query execution; or
+     *                {@code null} if you don't want to customize it at all
+     * @return the future row count of the executed query
+     * @see DbQueryManager#executeUpdate(Query, PreparedStatementHandler)
+     * @since 1.4
+     */
+    public CompletableFuture<Integer> executeUpdate(Query query, PreparedStatementHandler handler)
+    throws DatabaseException {
+        return execute(manager -> manager.executeUpdate(query, handler));
+    }
+
+    /**
+     * Asynchronously checks whether a select query has result rows.
+     *
+     * @param query the query builder instance that needs to be executed
+     * @return whether the query has result rows in the future
+     * @see DbQueryManager#executeHasResultRows(ReadQuery)
+     * @since 1.4
+     */
+    public CompletableFuture<Boolean> executeHasResultRows(ReadQuery query)
+    throws DatabaseException {
+        return execute(manager -> manager.executeHasResultRows(query));
+    }
+
+    /**
+     * Asynchronously checks whether a customizable select query has result
+     * rows.
+     *
+     * @param query   the query builder instance that needs to be executed
+     * @param handler an instance of {@code PreparedStatementHandler} that
+     *                will be used to customize the query execution; or
+     *                {@code null} if you don't want to customize it at all
+     * @return whether the query has result rows in the future
+     * @see DbQueryManager#executeHasResultRows(ReadQuery, PreparedStatementHandler)
+     * @since 1.4
+     */
+    public CompletableFuture<Boolean> executeHasResultRows(ReadQuery query, PreparedStatementHandler handler)
+    throws DatabaseException {
+        return execute(manager -> manager.executeHasResultRows(query, handler));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a select query.
+     *
+     * @param query the query builder instance that needs to be executed
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstString(ReadQuery)
+     * @since 1.4
+     */
+    public CompletableFuture<String> executeGetFirstString(ReadQuery query)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstString(query));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a customizable select
+     * query.
+     *
+     * @param query   the query builder instance that needs to be executed
+     * @param handler an instance of {@code PreparedStatementHandler} that
+     *                will be used to customize the query execution; or
+     *                {@code null} if you don't want to customize it at all
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstString(ReadQuery, PreparedStatementHandler)
+     * @since 1.4
+     */
+    public CompletableFuture<String> executeGetFirstString(ReadQuery query, PreparedStatementHandler handler)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstString(query, handler));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a select query.
+     *
+     * @param query the query builder instance that needs to be executed
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstBoolean(ReadQuery)
+     * @since 1.4
+     */
+    public CompletableFuture<Boolean> executeGetFirstBoolean(ReadQuery query)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstBoolean(query));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a customizable select
+     * query.
+     *
+     * @param query   the query builder instance that needs to be executed
+     * @param handler an instance of {@code PreparedStatementHandler} that
+     *                will be used to customize the query execution; or
+     *                {@code null} if you don't want to customize it at all
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstBoolean(ReadQuery, PreparedStatementHandler)
+     * @since 1.4
+     */
+    public CompletableFuture<Boolean> executeGetFirstBoolean(ReadQuery query, PreparedStatementHandler handler)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstBoolean(query, handler));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a select query.
+     *
+     * @param query the query builder instance that needs to be executed
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstByte(ReadQuery)
+     * @since 1.4
+     */
+    public CompletableFuture<Byte> executeGetFirstByte(ReadQuery query)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstByte(query));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a customizable select
+     * query.
+     *
+     * @param query   the query builder instance that needs to be executed
+     * @param handler an instance of {@code PreparedStatementHandler} that
+     *                will be used to customize the query execution; or
+     *                {@code null} if you don't want to customize it at all
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstByte(ReadQuery, PreparedStatementHandler)
+     * @since 1.4
+     */
+    public CompletableFuture<Byte> executeGetFirstByte(ReadQuery query, PreparedStatementHandler handler)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstByte(query, handler));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a select query.
+     *
+     * @param query the query builder instance that needs to be executed
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstShort(ReadQuery)
+     * @since 1.4
+     */
+    public CompletableFuture<Short> executeGetFirstShort(ReadQuery query)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstShort(query));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a customizable select
+     * query.
+     *
+     * @param query   the query builder instance that needs to be executed
+     * @param handler an instance of {@code PreparedStatementHandler} that
+     *                will be used to customize the query execution; or
+     *                {@code null} if you don't want to customize it at all
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstShort(ReadQuery, PreparedStatementHandler)
+     * @since 1.4
+     */
+    public CompletableFuture<Short> executeGetFirstShort(ReadQuery query, PreparedStatementHandler handler)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstShort(query, handler));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a select query.
+     *
+     * @param query the query builder instance that needs to be executed
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstInt(ReadQuery)
+     * @since 1.4
+     */
+    public CompletableFuture<Integer> executeGetFirstInt(ReadQuery query)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstInt(query));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a customizable select
+     * query.
+     *
+     * @param query   the query builder instance that needs to be executed
+     * @param handler an instance of {@code PreparedStatementHandler} that
+     *                will be used to customize the query execution; or
+     *                {@code null} if you don't want to customize it at all
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstInt(ReadQuery, PreparedStatementHandler)
+     * @since 1.4
+     */
+    public CompletableFuture<Integer> executeGetFirstInt(ReadQuery query, PreparedStatementHandler handler)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstInt(query, handler));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a select query.
+     *
+     * @param query the query builder instance that needs to be executed
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstLong(ReadQuery)
+     * @since 1.4
+     */
+    public CompletableFuture<Long> executeGetFirstLong(ReadQuery query)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstLong(query));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a customizable select
+     * query.
+     *
+     * @param query   the query builder instance that needs to be executed
+     * @param handler an instance of {@code PreparedStatementHandler} that
+     *                will be used to customize the query execution; or
+     *                {@code null} if you don't want to customize it at all
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstLong(ReadQuery, PreparedStatementHandler)
+     * @since 1.4
+     */
+    public CompletableFuture<Long> executeGetFirstLong(ReadQuery query, PreparedStatementHandler handler)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstLong(query, handler));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a select query.
+     *
+     * @param query the query builder instance that needs to be executed
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstFloat(ReadQuery)
+     * @since 1.4
+     */
+    public CompletableFuture<Float> executeGetFirstFloat(ReadQuery query)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstFloat(query));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a customizable select
+     * query.
+     *
+     * @param query   the query builder instance that needs to be executed
+     * @param handler an instance of {@code PreparedStatementHandler} that
+     *                will be used to customize the query execution; or
+     *                {@code null} if you don't want to customize it at all
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstFloat(ReadQuery, PreparedStatementHandler)
+     * @since 1.4
+     */
+    public CompletableFuture<Float> executeGetFirstFloat(ReadQuery query, PreparedStatementHandler handler)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstFloat(query, handler));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a select query.
+     *
+     * @param query the query builder instance that needs to be executed
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstDouble(ReadQuery)
+     * @since 1.4
+     */
+    public CompletableFuture<Double> executeGetFirstDouble(ReadQuery query)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstDouble(query));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a customizable select
+     * query.
+     *
+     * @param query   the query builder instance that needs to be executed
+     * @param handler an instance of {@code PreparedStatementHandler} that
+     *                will be used to customize the query execution; or
+     *                {@code null} if you don't want to customize it at all
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstDouble(ReadQuery, PreparedStatementHandler)
+     * @since 1.4
+     */
+    public CompletableFuture<Double> executeGetFirstDouble(ReadQuery query, PreparedStatementHandler handler)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstDouble(query, handler));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a select query.
+     *
+     * @param query the query builder instance that needs to be executed
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstBytes(ReadQuery)
+     * @since 1.4
+     */
+    public CompletableFuture<byte[]> executeGetFirstBytes(ReadQuery query)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstBytes(query));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a customizable select
+     * query.
+     *
+     * @param query   the query builder instance that needs to be executed
+     * @param handler an instance of {@code PreparedStatementHandler} that
+     *                will be used to customize the query execution; or
+     *                {@code null} if you don't want to customize it at all
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstBytes(ReadQuery, PreparedStatementHandler)
+     * @since 1.4
+     */
+    public CompletableFuture<byte[]> executeGetFirstBytes(ReadQuery query, PreparedStatementHandler handler)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstBytes(query, handler));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a select query.
+     *
+     * @param query the query builder instance that needs to be executed
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstDate(ReadQuery)
+     * @since 1.4
+     */
+    public CompletableFuture<java.sql.Date> executeGetFirstDate(ReadQuery query)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstDate(query));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a customizable select
+     * query.
+     *
+     * @param query   the query builder instance that needs to be executed
+     * @param handler an instance of {@code PreparedStatementHandler} that
+     *                will be used to customize the query execution; or
+     *                {@code null} if you don't want to customize it at all
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstDate(ReadQuery, PreparedStatementHandler)
+     * @since 1.4
+     */
+    public CompletableFuture<java.sql.Date> executeGetFirstDate(ReadQuery query, PreparedStatementHandler handler)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstDate(query, handler));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a select query.
+     *
+     * @param query the query builder instance that needs to be executed
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstTime(ReadQuery)
+     * @since 1.4
+     */
+    public CompletableFuture<java.sql.Time> executeGetFirstTime(ReadQuery query)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstTime(query));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a customizable select
+     * query.
+     *
+     * @param query   the query builder instance that needs to be executed
+     * @param handler an instance of {@code PreparedStatementHandler} that
+     *                will be used to customize the query execution; or
+     *                {@code null} if you don't want to customize it at all
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstTime(ReadQuery, PreparedStatementHandler)
+     * @since 1.4
+     */
+    public CompletableFuture<java.sql.Time> executeGetFirstTime(ReadQuery query, PreparedStatementHandler handler)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstTime(query, handler));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a select query.
+     *
+     * @param query the query builder instance that needs to be executed
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstTimestamp(ReadQuery)
+     * @since 1.4
+     */
+    public CompletableFuture<java.sql.Timestamp> executeGetFirstTimestamp(ReadQuery query)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstTimestamp(query));
+    }
+
+    /**
+     * Asynchronously retrieves the first value of a customizable select
+     * query.
+     *
+     * @param query   the query builder instance that needs to be executed
+     * @param handler an instance of {@code PreparedStatementHandler} that
+     *                will be used to customize the query execution; or
+     *                {@code null} if you don't want to customize it at all
+     * @return the future first value
+     * @see DbQueryManager#executeGetFirstTimestamp(ReadQuery, PreparedStatementHandler)
+     * @since 1.4
+     */
+    public CompletableFuture<java.sql.Timestamp> executeGetFirstTimestamp(ReadQuery query, PreparedStatementHandler handler)
+    throws DatabaseException {
+        return execute(manager -> manager.executeGetFirstTimestamp(query, handler));
+    }
+
+    /**
+     * Asynchronously fetches the first bean of a select query.
+     *
+     * @param query     the query builder instance that needs to be executed
+     * @param beanClass the class of the bean
+     * @return the future first bean; or {@code null} if there are no rows
+     * @see DbQueryManager#executeFetchFirstBean(ReadQuery, Class)
+     * @since 1.4
+     */
+    public <BeanType> CompletableFuture<BeanType> executeFetchFirstBean(ReadQuery query, Class<BeanType> beanClass)
+    throws DatabaseException {
+        return execute(manager -> manager.executeFetchFirstBean(query, beanClass));
+    }
+
+    /**
+     * Asynchronously fetches the first bean of a customizable select query.
+     *
+     * @param query     the query builder instance that needs to be executed
+     * @param beanClass the class of the bean
+     * @param handler   an instance of {@code PreparedStatementHandler}
+     *                  that will be used to customize the query execution; or
+     *                  {@code null} if you don't want to customize it at all
+     * @return the future first bean; or {@code null} if there are no rows
+     * @see DbQueryManager#executeFetchFirstBean(ReadQuery, Class, PreparedStatementHandler)
+     * @since 1.4
+     */
+    public <BeanType> CompletableFuture<BeanType> executeFetchFirstBean(ReadQuery query, Class<BeanType> beanClass, PreparedStatementHandler handler)
+    throws DatabaseException {
+        return execute(manager -> manager.executeFetchFirstBean(query, beanClass, handler));
+    }
+
+    /**
+     * Asynchronously fetches all the beans of a select query.
+     *
+     * @param query     the query builder instance that needs to be executed
+     * @param beanClass the class of the beans
+     * @return the future list of beans
+     * @see DbQueryManager#executeFetchAllBeans(ReadQuery, Class)
+     * @since 1.4
+     */
+    public <BeanType> CompletableFuture<List<BeanType>> executeFetchAllBeans(ReadQuery query, Class<BeanType> beanClass)
+    throws DatabaseException {
+        return execute(manager -> manager.executeFetchAllBeans(query, beanClass));
+    }
+
+    /**
+     * Asynchronously fetches all the beans of a customizable select query.
+     *
+     * @param query     the query builder instance that needs to be executed
+     * @param beanClass the class of the beans
+     * @param handler   an instance of {@code PreparedStatementHandler}
+     *                  that will be used to customize the query execution; or
+     *                  {@code null} if you don't want to customize it at all
+     * @return the future list of beans
+     * @see DbQueryManager#executeFetchAllBeans(ReadQuery, Class, PreparedStatementHandler)
+     * @since 1.4
+     */
+    public <BeanType> CompletableFuture<List<BeanType>> executeFetchAllBeans(ReadQuery query, Class<BeanType> beanClass, PreparedStatementHandler handler)
+    throws DatabaseException {
+        return execute(manager -> manager.executeFetchAllBeans(query, beanClass, handler));
+    }
+}
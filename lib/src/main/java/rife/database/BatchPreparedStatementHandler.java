@@ -0,0 +1,26 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database;
+
+/**
+ * By implementing this interface it's possible to set the parameters of a
+ * {@link DbPreparedStatement} for each item of a batch that is executed by
+ * the {@link DbQueryManager#executeBatch(rife.database.queries.Query, Iterable, BatchPreparedStatementHandler)
+ * executeBatch} methods of {@link DbQueryManager}.
+ * <p>
+ * The {@link #setParameters(DbPreparedStatement, Object) setParameters}
+ * method is called once for every item, the statement is added to the
+ * batch afterwards.
+ *
+ * @param <ItemType> the type of the items of the batch
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @see DbPreparedStatement
+ * @see DbQueryManager
+ * @since 1.4
+ */
+@FunctionalInterface
+public interface BatchPreparedStatementHandler<ItemType> {
+    void setParameters(DbPreparedStatement statement, ItemType item);
+}
@@ -0,0 +1,578 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database;
+
+import rife.database.exceptions.ConnectionPoolTimedOutException;
+import rife.database.exceptions.DatabaseException;
+
+import rife.tools.ExceptionUtils;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * Connection pool that hands out its connections exclusively, without
+ * relying on a global monitor.
+ * <p>Free connections are kept in a concurrent queue and the number of
+ * connections that can be in use at the same time is bounded by a fair
+ * semaphore with one permit per pooled connection. Obtaining and releasing a
+ * connection are constant-time operations and threads that can't obtain a
+ * connection in time get a {@link ConnectionPoolTimedOutException} instead
+ * of waiting indefinitely.
+ * <p>Since connections are exclusive, they have to be closed after use to be
+ * returned to the pool. All the {@link DbQueryManager} methods already take
+ * care of this.
+ * <p>The lifecycle of the connections is managed by a background
+ * housekeeping thread. It retires connections that have been idle for too
+ * long or that exceeded their maximum lifetime, validates the idle
+ * connections with {@link DbConnection#isValid(int)} and creates new
+ * connections ahead of demand to keep a minimum number of them idle. This
+ * ensures that stale connections that were closed by a firewall or by the
+ * database server are detected before they're handed out.
+ * <h4>Example</h4>
+ * <pre>var datasource = new Datasource("org.h2.Driver", "jdbc:h2:mem:app", "sa", "", 20);
+ * var pool = new ConcurrentConnectionPool();
+ * pool.setAcquireTimeout(5000);
+ * pool.setMinimumIdle(5);
+ * pool.setIdleTimeout(300000);
+ * datasource.setPool(pool);</pre>
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @see Datasource#setPool(ConnectionPool)
+ * @since 1.4
+ */
+public class ConcurrentConnectionPool extends ConnectionPool {
+    public static final long DEFAULT_ACQUIRE_TIMEOUT = 30000;
+    public static final long DEFAULT_IDLE_TIMEOUT = 600000;
+    public static final long DEFAULT_MAX_LIFETIME = 1800000;
+    public static final long DEFAULT_HOUSEKEEPING_INTERVAL = 30000;
+    public static final int DEFAULT_VALIDATION_TIMEOUT = 5;
+
+    private final ConcurrentLinkedQueue<DbConnection> idleConnections_ = new ConcurrentLinkedQueue<>();
+    private final Set<DbConnection> activeConnections_ = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<Thread, DbConnection> threadConnections_ = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount_ = new AtomicInteger();
+    private volatile Semaphore permits_ = new Semaphore(0, true);
+    private volatile long acquireTimeout_ = DEFAULT_ACQUIRE_TIMEOUT;
+    private volatile long idleTimeout_ = DEFAULT_IDLE_TIMEOUT;
+    private volatile long maxLifetime_ = DEFAULT_MAX_LIFETIME;
+    private volatile int minimumIdle_ = 0;
+    private volatile long housekeepingInterval_ = DEFAULT_HOUSEKEEPING_INTERVAL;
+    private volatile int validationTimeout_ = DEFAULT_VALIDATION_TIMEOUT;
+    private final AtomicReference<Thread> housekeeper_ = new AtomicReference<>();
+
+    /**
+     * Create a new ConcurrentConnectionPool
+     *
+     * @since 1.4
+     */
+    public ConcurrentConnectionPool() {
+    }
+
+    /**
+     * Retrieves the maximum time that a thread will wait for a connection
+     * to become available.
+     *
+     * @return the acquire timeout in milliseconds
+     * @see #setAcquireTimeout(long)
+     * @since 1.4
+     */
+    public long getAcquireTimeout() {
+        return acquireTimeout_;
+    }
+
+    /**
+     * Sets the maximum time that a thread will wait for a connection to
+     * become available before a {@link ConnectionPoolTimedOutException} is
+     * thrown.
+     *
+     * @param timeout the acquire timeout in milliseconds
+     * @see #getAcquireTimeout()
+     * @since 1.4
+     */
+    public void setAcquireTimeout(long timeout) {
+        if (timeout < 0) throw new IllegalArgumentException("timeout can't be negative.");
+
+        acquireTimeout_ = timeout;
+    }
+
+    /**
+     * Retrieves the time after which an idle connection is retired.
+     *
+     * @return the idle timeout in milliseconds, {@code 0} when idle
+     * connections are never retired
+     * @see #setIdleTimeout(long)
+     * @since 1.4
+     */
+    public long getIdleTimeout() {
+        return idleTimeout_;
+    }
+
+    /**
+     * Sets the time after which an idle connection is retired. Connections
+     * are never retired when that would bring the number of idle connections
+     * below the minimum idle count.
+     * <p>
+     * This defaults to {@code 600000} milliseconds.
+     *
+     * @param timeout the idle timeout in milliseconds, {@code 0} disables
+     *                the retirement of idle connections
+     * @see #getIdleTimeout()
+     * @see #setMinimumIdle(int)
+     * @since 1.4
+     */
+    public void setIdleTimeout(long timeout) {
+        if (timeout < 0) throw new IllegalArgumentException("timeout can't be negative.");
+
+        idleTimeout_ = timeout;
+    }
+
+    /**
+     * Retrieves the maximum time that a connection will be used after its
+     * creation.
+     *
+     * @return the maximum lifetime in milliseconds, {@code 0} when the
+     * lifetime of connections isn't limited
+     * @see #setMaxLifetime(long)
+     * @since 1.4
+     */
+    public long getMaxLifetime() {
+        return maxLifetime_;
+    }
+
+    /**
+     * Sets the maximum time that a connection will be used after its
+     * creation. Connections that are in use are only retired after they have
+     * been handed back to the pool.
+     * <p>
+     * This defaults to {@code 1800000} milliseconds.
+     *
+     * @param lifetime the maximum lifetime in milliseconds, {@code 0}
+     *                 disables the limit
+     * @see #getMaxLifetime()
+     * @since 1.4
+     */
+    public void setMaxLifetime(long lifetime) {
+        if (lifetime < 0) throw new IllegalArgumentException("lifetime can't be negative.");
+
+        maxLifetime_ = lifetime;
+    }
+
+    /**
+     * Retrieves the number of idle connections that the housekeeping
+     * tries to maintain.
+     *
+     * @return the minimum number of idle connections
+     * @see #setMinimumIdle(int)
+     * @since 1.4
+     */
+    public int getMinimumIdle() {
+        return minimumIdle_;
+    }
+
+    /**
+     * Sets the number of idle connections that the housekeeping tries to
+     * maintain, by creating new connections ahead of demand. The number of
+     * connections will never exceed the size of the pool.
+     * <p>
+     * This defaults to {@code 0}.
+     *
+     * @param minimumIdle the minimum number of idle connections
+     * @see #getMinimumIdle()
+     * @since 1.4
+     */
+    public void setMinimumIdle(int minimumIdle) {
+        if (minimumIdle < 0) throw new IllegalArgumentException("minimumIdle can't be negative.");
+
+        minimumIdle_ = minimumIdle;
+    }
+
+    /**
+     * Retrieves the time between two runs of the housekeeping.
+     *
+     * @return the housekeeping interval in milliseconds, {@code 0} when
+     * no housekeeping is performed
+     * @see #setHousekeepingInterval(long)
+     * @since 1.4
+     */
+    public long getHousekeepingInterval() {
+        return housekeepingInterval_;
+    }
+
+    /**
+     * Sets the time between two runs of the housekeeping. The housekeeping
+     * thread is started when the first connection is obtained from the pool
+     * and stopped when the pool is cleaned up.
+     * <p>
+     * This defaults to {@code 30000} milliseconds.
+     *
+     * @param interval the housekeeping interval in milliseconds, {@code 0}
+     *                 disables the housekeeping
+     * @see #getHousekeepingInterval()
+     * @since 1.4
+     */
+    public void setHousekeepingInterval(long interval) {
+        if (interval < 0) throw new IllegalArgumentException("interval can't be negative.");
+
+        housekeepingInterval_ = interval;
+    }
+
+    /**
+     * Retrieves the time the housekeeping waits for the database to
+     * confirm that an idle connection is still valid.
+     *
+     * @return the validation timeout in seconds
+     * @see #setValidationTimeout(int)
+     * @since 1.4
+     */
+    public int getValidationTimeout() {
+        return validationTimeout_;
+    }
+
+    /**
+     * Sets the time the housekeeping waits for the database to confirm that
+     * an idle connection is still valid.
+     * <p>
+     * This defaults to {@code 5} seconds.
+     *
+     * @param timeout the validation timeout in seconds
+     * @see #getValidationTimeout()
+     * @since 1.4
+     */
+    public void setValidationTimeout(int timeout) {
+        if (timeout < 0) throw new IllegalArgumentException("timeout can't be negative.");
+
+        validationTimeout_ = timeout;
+    }
+
+    /**
+     * Retrieves the number of connections that are currently handed out.
+     *
+     * @return the number of active connections
+     * @since 1.4
+     */
+    public int getActiveCount() {
+        return activeConnections_.size();
+    }
+
+    /**
+     * Retrieves the number of connections that are currently waiting in the
+     * pool to be handed out.
+     *
+     * @return the number of idle connections
+     * @since 1.4
+     */
+    public int getIdleCount() {
+        return idleConnections_.size();
+    }
+
+    @Override
+    void setPoolSize(int poolSize) {
+        if (isInitialized()) {
+            cleanup();
+        }
+
+        super.setPoolSize(poolSize);
+        permits_ = new Semaphore(poolSize, true);
+    }
+
+    @Override
+    boolean isInitialized() {
+        return connectionCount_.get() > 0;
+    }
+
+    @Override
+    void preparePool(Datasource datasource)
+    throws DatabaseException {
+        cleanup();
+
+        for (var i = 0; i < getPoolSize(); i++) {
+            idleConnections_.offer(datasource.createConnection());
+            connectionCount_.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void cleanup()
+    throws DatabaseException {
+        var housekeeper = housekeeper_.getAndSet(null);
+        if (housekeeper != null) {
+            housekeeper.interrupt();
+        }
+
+        // hand out a fresh set of permits, connections that are still in
+        // use will not be able to release their stale ones since they're
+        // not active anymore
+        var previous_permits = permits_;
+        permits_ = new Semaphore(getPoolSize(), true);
+        previous_permits.release(previous_permits.getQueueLength());
+
+        DbConnection connection;
+        while ((connection = idleConnections_.poll()) != null) {
+            connection.cleanup();
+        }
+        for (var active : activeConnections_) {
+            activeConnections_.remove(active);
+            active.cleanup();
+        }
+
+        connectionCount_.set(0);
+        threadConnections_.clear();
+    }
+
+    @Override
+    public void close()
+    throws DatabaseException {
+        cleanup();
+    }
+
+    @Override
+    void registerThreadConnection(Thread thread, DbConnection connection) {
+        threadConnections_.put(thread, connection);
+    }
+
+    @Override
+    void unregisterThreadConnection(Thread thread) {
+        threadConnections_.remove(thread);
+    }
+
+    @Override
+    boolean hasThreadConnection(Thread thread) {
+        return threadConnections_.containsKey(thread);
+    }
+
+    @Override
+    void recreateConnection(DbConnection connection)
+    throws DatabaseException {
+        // the connection is broken, free up its slot right away so that
+        // the next thread creates a new one
+        connection.cleanup();
+        if (activeConnections_.remove(connection)) {
+            connectionCount_.decrementAndGet();
+            permits_.release();
+        } else if (idleConnections_.remove(connection)) {
+            connectionCount_.decrementAndGet();
+        }
+    }
+
+    @Override
+    void releaseConnection(DbConnection connection) {
+        // connections that are reserved for the current thread will be
+        // released when the reservation ends
+        if (threadConnections_.get(Thread.currentThread()) == connection) {
+            return;
+        }
+
+        if (activeConnections_.remove(connection)) {
+            if (connection.isCleanedUp()) {
+                connectionCount_.decrementAndGet();
+            } else if (isExpired(connection, System.nanoTime())) {
+                retireConnection(connection);
+            } else {
+                connection.markReleased();
+                idleConnections_.offer(connection);
+            }
+            permits_.release();
+        }
+    }
+
+    @Override
+    DbConnection getConnection(Datasource datasource)
+    throws DatabaseException {
+        // transactions and reservations are continued on the same connection
+        var thread_connection = threadConnections_.get(Thread.currentThread());
+        if (thread_connection != null) {
+            return thread_connection;
+        }
+
+        // if there's no pool, create a new connection
+        if (0 == getPoolSize()) {
+            return datasource.createConnection();
+        }
+
+        startHousekeeping(datasource);
+
+        var permits = acquirePermit(datasource);
+        try {
+            DbConnection connection;
+            while ((connection = idleConnections_.poll()) != null) {
+                if (!connection.isCleanedUp()) {
+                    break;
+                }
+                connectionCount_.decrementAndGet();
+            }
+
+            // no usable idle connection, the permit guarantees that there's
+            // room for a new one
+            if (null == connection) {
+                connection = datasource.createConnection();
+                connectionCount_.incrementAndGet();
+            }
+
+            activeConnections_.add(connection);
+
+            return connection;
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private Semaphore acquirePermit(Datasource datasource)
+    throws ConnectionPoolTimedOutException {
+        var timeout = acquireTimeout_;
+        var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (true) {
+            var permits = permits_;
+            try {
+                if (!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    throw new ConnectionPoolTimedOutException(datasource, timeout);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConnectionPoolTimedOutException(datasource, timeout, e);
+            }
+
+            // the pool was cleaned up while waiting, try again with the
+            // new permits
+            if (permits != permits_) {
+                continue;
+            }
+
+            return permits;
+        }
+    }
+
+    private boolean isExpired(DbConnection connection, long now) {
+        var max_lifetime = maxLifetime_;
+        return max_lifetime > 0 &&
+               now - connection.getCreationTime() > TimeUnit.MILLISECONDS.toNanos(max_lifetime);
+    }
+
+    private void retireConnection(DbConnection connection) {
+        connectionCount_.decrementAndGet();
+        try {
+            connection.cleanup();
+        } catch (DatabaseException e) {
+            // the connection is discarded anyway
+        }
+    }
+
+    private void startHousekeeping(Datasource datasource) {
+        if (housekeeper_.get() != null ||
+            0 == housekeepingInterval_) {
+            return;
+        }
+
+        var housekeeper = new Thread(() -> housekeep(datasource), "CONNECTION_POOL_HOUSEKEEPER");
+        housekeeper.setDaemon(true);
+        if (housekeeper_.compareAndSet(null, housekeeper)) {
+            housekeeper.start();
+        }
+    }
+
+    private void housekeep(Datasource datasource) {
+        var thread = Thread.currentThread();
+        while (housekeeper_.get() == thread) {
+            try {
+                Thread.sleep(housekeepingInterval_);
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            try {
+                performHousekeeping(datasource);
+            } catch (DatabaseException e) {
+                Logger.getLogger("rife.database").warning(ExceptionUtils.getExceptionStackTrace(e));
+            }
+        }
+    }
+
+    /**
+     * Performs one run of the housekeeping: retires idle connections that
+     * expired, validates the remaining ones and creates new connections to
+     * reach the minimum idle count.
+     * <p>Each connection is examined while holding one of the pool's
+     * permits, so that the housekeeping never competes with threads that
+     * need a connection: when the pool is saturated, there are no idle
+     * connections to examine anyway.
+     *
+     * @param datasource the datasource to create new connections with
+     * @throws DatabaseException when an error occurred while creating new
+     *                           connections
+     * @since 1.4
+     */
+    void performHousekeeping(Datasource datasource)
+    throws DatabaseException {
+        var permits = permits_;
+
+        var idle_count = idleConnections_.size();
+        for (var i = 0; i < idle_count; i++) {
+            if (!permits.tryAcquire()) {
+                return;
+            }
+            try {
+                var connection = idleConnections_.poll();
+                if (null == connection) {
+                    break;
+                }
+
+                if (connection.isCleanedUp()) {
+                    connectionCount_.decrementAndGet();
+                    continue;
+                }
+
+                var now = System.nanoTime();
+                var idle_timeout = idleTimeout_;
+                if (isExpired(connection, now) ||
+                    (idle_timeout > 0 &&
+                     now - connection.getReleaseTime() > TimeUnit.MILLISECONDS.toNanos(idle_timeout) &&
+                     idleConnections_.size() >= minimumIdle_)) {
+                    retireConnection(connection);
+                    continue;
+                }
+
+                boolean valid;
+                try {
+                    valid = connection.isValid(validationTimeout_);
+                } catch (DatabaseException e) {
+                    valid = false;
+                }
+
+                if (valid) {
+                    idleConnections_.offer(connection);
+                } else {
+                    retireConnection(connection);
+                }
+            } finally {
+                permits.release();
+            }
+        }
+
+        // refill the pool ahead of demand
+        var minimum_idle = Math.min(minimumIdle_, getPoolSize());
+        while (idleConnections_.size() < minimum_idle &&
+               connectionCount_.get() < getPoolSize()) {
+            if (!permits.tryAcquire()) {
+                return;
+            }
+            try {
+                if (permits != permits_) {
+                    return;
+                }
+                idleConnections_.offer(datasource.createConnection());
+                connectionCount_.incrementAndGet();
+            } finally {
+                permits.release();
+            }
+        }
+    }
+}
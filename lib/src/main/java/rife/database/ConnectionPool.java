@@ -7,12 +7,17 @@ package rife.database;
 import rife.database.exceptions.DatabaseException;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This is a class designed for database connection pooling. By storing
  * connections, along with the thread that they are assigned to, thread-aware
  * operations can be performed safely, securely, and more efficiently.
+ * <p>The connections that are reserved for a thread are tracked without a
+ * global lock, and threads that wait for a free connection don't block on
+ * an object monitor. This makes the pool safe to use from virtual threads.
  *
  * @author JR Boyens (jboyens[remove] at uwyn dot com)
  * @author Geert Bevin (gbevin[remove] at uwyn dot com)
@@ -21,7 +26,9 @@ import java.util.HashMap;
 public class ConnectionPool implements AutoCloseable {
     private int poolSize_ = 0;
     private ArrayList<DbConnection> connectionPool_ = new ArrayList<>();
-    private final HashMap<Thread, DbConnection> threadConnections_ = new HashMap<>();
+    private final ConcurrentHashMap<Thread, DbConnection> threadConnections_ = new ConcurrentHashMap<>();
+    private final ReentrantLock lock_ = new ReentrantLock();
+    private final Condition connectionReleased_ = lock_.newCondition();
 
     /**
      * Create a new ConnectionPool
@@ -38,12 +45,15 @@ public class ConnectionPool implements AutoCloseable {
      * @since 1.0
      */
     void setPoolSize(int poolSize) {
-        synchronized (this) {
+        lock_.lock();
+        try {
             if (connectionPool_.size() > 0) {
                 cleanup();
             }
 
             poolSize_ = poolSize;
+        } finally {
+            lock_.unlock();
         }
     }
 
@@ -79,7 +89,8 @@ public class ConnectionPool implements AutoCloseable {
      */
     void preparePool(Datasource datasource)
     throws DatabaseException {
-        synchronized (this) {
+        lock_.lock();
+        try {
             cleanup();
 
             connectionPool_.ensureCapacity(poolSize_);
@@ -88,7 +99,9 @@ public class ConnectionPool implements AutoCloseable {
             }
 
             assert poolSize_ == connectionPool_.size();
-            this.notifyAll();
+            connectionReleased_.signalAll();
+        } finally {
+            lock_.unlock();
         }
     }
 
@@ -102,7 +115,8 @@ public class ConnectionPool implements AutoCloseable {
      */
     public void cleanup()
     throws DatabaseException {
-        synchronized (this) {
+        lock_.lock();
+        try {
             if (0 == connectionPool_.size()) {
                 return;
             }
@@ -121,6 +135,8 @@ public class ConnectionPool implements AutoCloseable {
             }
 
             threadConnections_.clear();
+        } finally {
+            lock_.unlock();
         }
     }
 
@@ -137,9 +153,7 @@ public class ConnectionPool implements AutoCloseable {
      * @since 1.0
      */
     void registerThreadConnection(Thread thread, DbConnection connection) {
-        synchronized (this) {
-            threadConnections_.put(thread, connection);
-        }
+        threadConnections_.put(thread, connection);
     }
 
     /**
@@ -150,9 +164,13 @@ public class ConnectionPool implements AutoCloseable {
      * @since 1.0
      */
     void unregisterThreadConnection(Thread thread) {
-        synchronized (this) {
-            threadConnections_.remove(thread);
-            this.notifyAll();
+        if (threadConnections_.remove(thread) != null) {
+            lock_.lock();
+            try {
+                connectionReleased_.signalAll();
+            } finally {
+                lock_.unlock();
+            }
         }
     }
 
@@ -164,9 +182,7 @@ public class ConnectionPool implements AutoCloseable {
      * @since 1.0
      */
     boolean hasThreadConnection(Thread thread) {
-        synchronized (this) {
-            return threadConnections_.containsKey(thread);
-        }
+        return threadConnections_.containsKey(thread);
     }
 
     /**
@@ -179,14 +195,31 @@ public class ConnectionPool implements AutoCloseable {
      */
     void recreateConnection(DbConnection connection)
     throws DatabaseException {
-        synchronized (this) {
+        lock_.lock();
+        try {
             if (connectionPool_.remove(connection)) {
                 connectionPool_.add(connection.getDatasource().createConnection());
             }
             connection.cleanup();
+        } finally {
+            lock_.unlock();
         }
     }
 
+    /**
+     * Hands a connection back to the pool after it has been closed by its
+     * user.
+     * <p>Connections of this pool are shared by all the threads that don't
+     * have a transaction active, so nothing needs to happen here. Pools that
+     * hand out connections exclusively use this to make them available
+     * again.
+     *
+     * @param connection the {@link DbConnection} that was closed
+     * @since 1.4
+     */
+    void releaseConnection(DbConnection connection) {
+    }
+
     /**
      * Retrieve this thread's connection.
      * <p>Connections are allocated from the pool and assigned to the
@@ -202,64 +235,63 @@ public class ConnectionPool implements AutoCloseable {
      */
     DbConnection getConnection(Datasource datasource)
     throws DatabaseException {
-        synchronized (this) {
-            // check if the connection threads contains an entry for the
-            // current thread so that transactions are treated in a
-            // continuous fashion
-            if (threadConnections_.containsKey(Thread.currentThread())) {
-                DbConnection connection = threadConnections_.get(Thread.currentThread());
-                if (connection != null) {
-                    return connection;
-                }
-            }
+        // check if the connection threads contains an entry for the
+        // current thread so that transactions are treated in a
+        // continuous fashion
+        var thread_connection = threadConnections_.get(Thread.currentThread());
+        if (thread_connection != null) {
+            return thread_connection;
+        }
 
-            // if there's no pool, create a new connection
-            if (0 == poolSize_) {
-                return datasource.createConnection();
-            }
-            // otherwise, try to obtain a free connection in the pool
-            else {
-                DbConnection connection = null;
-
-                // iterate over the available connections and try to obtain the
-                // first free one
-                DbConnection possible_connection = null;
-                while (null == connection) {
-                    // prepare the pool if it's currently empty
-                    if (connectionPool_.size() < poolSize_) {
-                        preparePool(datasource);
-                    }
+        // if there's no pool, create a new connection
+        if (0 == poolSize_) {
+            return datasource.createConnection();
+        }
+
+        lock_.lock();
+        try {
+            DbConnection connection = null;
 
-                    for (int i = 0; i < connectionPool_.size() && null == connection; i++) {
-                        possible_connection = connectionPool_.get(i);
-                        if (null == possible_connection ||
-                            possible_connection.isCleanedUp()) {
-                            connection = datasource.createConnection();
-                            connectionPool_.set(i, connection);
-                            break;
-                        } else if (null != possible_connection &&
-                                   possible_connection.isFree()) {
-                            connection = possible_connection;
-                            break;
-                        }
+            // iterate over the available connections and try to obtain the
+            // first free one
+            DbConnection possible_connection = null;
+            while (null == connection) {
+                // prepare the pool if it's currently empty
+                if (connectionPool_.size() < poolSize_) {
+                    preparePool(datasource);
+                }
+
+                for (int i = 0; i < connectionPool_.size() && null == connection; i++) {
+                    possible_connection = connectionPool_.get(i);
+                    if (null == possible_connection ||
+                        possible_connection.isCleanedUp()) {
+                        connection = datasource.createConnection();
+                        connectionPool_.set(i, connection);
+                        break;
+                    } else if (null != possible_connection &&
+                               possible_connection.isFree()) {
+                        connection = possible_connection;
+                        break;
                     }
+                }
 
-                    if (null == connection) {
-                        try {
-                            this.wait();
-                        } catch (InterruptedException e) {
-                            Thread.yield();
-                        }
+                if (null == connection) {
+                    try {
+                        connectionReleased_.await();
+                    } catch (InterruptedException e) {
+                        Thread.yield();
                     }
                 }
+            }
 
-                // move the obtained connection to the end of the connection
-                // pool list
-                connectionPool_.remove(connection);
-                connectionPool_.add(connection);
+            // move the obtained connection to the end of the connection
+            // pool list
+            connectionPool_.remove(connection);
+            connectionPool_.add(connection);
 
-                return connection;
-            }
+            return connection;
+        } finally {
+            lock_.unlock();
         }
     }
 
@@ -4,6 +4,7 @@
  */
 package rife.database;
 
+import rife.config.RifeConfig;
 import rife.database.exceptions.*;
 
 import rife.database.capabilities.CapabilitiesCompensator;
@@ -16,6 +17,14 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 import javax.sql.DataSource;
 
@@ -70,6 +79,12 @@ public class Datasource implements Cloneable {
     private CapabilitiesCompensator capabilitiesCompensator_ = null;
     private ConnectionPool connectionPool_ = new ConnectionPool();
     private DataSource dataSource_ = null;
+    private int statementCacheSize_ = 0;
+    private LongAdder statementCacheHits_ = new LongAdder();
+    private LongAdder statementCacheMisses_ = new LongAdder();
+    private QueryResultCache queryResultCache_ = null;
+    private Executor asyncExecutor_ = null;
+    private List<QueryTimingListener> queryTimingListeners_ = new CopyOnWriteArrayList<>();
 
     /**
      * Instantiates a new {@code Datasource} object with no connection
@@ -250,6 +265,45 @@ public class Datasource implements Cloneable {
         return connectionPool_.getConnection(this);
     }
 
+    /**
+     * Retrieves a connection that will only be used to execute a read query.
+     * <p>This is the same as {@link #getConnection()}, datasources that
+     * spread the reads over several databases obtain the connection from
+     * one of them instead.
+     *
+     * @return the connection for the read query
+     * @throws DatabaseException when errors occurred during the creation of
+     *                           the connection
+     * @see ReplicatedDatasource
+     * @since 1.4
+     */
+    DbConnection getReadConnection()
+    throws DatabaseException {
+        return getConnection();
+    }
+
+    /**
+     * Hands back a connection that was obtained through {@link
+     * #getReadConnection()}, after the read query was executed.
+     *
+     * @param connection the connection that was used by the read query
+     * @throws DatabaseException when errors occurred during the closing of
+     *                           the connection
+     * @since 1.4
+     */
+    void releaseReadConnection(DbConnection connection)
+    throws DatabaseException {
+        connection.close();
+    }
+
+    /**
+     * Records that the current thread changed data in this datasource.
+     *
+     * @since 1.4
+     */
+    void recordDataChange() {
+    }
+
     /**
      * Retrieves the fully qualified class name of the jdbc driver that's used
      * by this {@code Datasource}.
@@ -265,7 +319,7 @@ public class Datasource implements Cloneable {
         // make sure that a JNDI connection has been made first, so that the database name can be looked up
         if (dataSource_ != null &&
             null == driver_) {
-            getConnection();
+            getConnection().close();
         }
 
         return driver_;
@@ -483,6 +537,232 @@ public class Datasource implements Cloneable {
         connectionPool_.setPoolSize(poolSize);
     }
 
+    /**
+     * Retrieves the number of prepared statements that are cached for each
+     * connection of this {@code Datasource}.
+     *
+     * @return the size of the statement cache; or
+     * {@code 0} if prepared statements aren't cached
+     * @see #setStatementCacheSize(int)
+     * @since 1.4
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize_;
+    }
+
+    /**
+     * Sets the number of prepared statements that are cached for each
+     * connection of this {@code Datasource}.
+     * <p>When a prepared statement with the same SQL and the same options is
+     * requested again from a connection, the cached JDBC statement will be
+     * reused instead of being prepared again by the database. Closing a
+     * {@code DbPreparedStatement} then puts its JDBC statement back into the
+     * cache after clearing its parameters. When the cache is full, the least
+     * recently used statement is closed.
+     * <p>
+     * This defaults to {@code 0}.
+     *
+     * @param size a positive {@code int} with the size of the cache,
+     *             providing {@code 0} will disable statement caching
+     * @see #getStatementCacheSize()
+     * @see #getStatementCacheHits()
+     * @see #getStatementCacheMisses()
+     * @since 1.4
+     */
+    public void setStatementCacheSize(int size) {
+        if (size < 0) throw new IllegalArgumentException("size can't be negative.");
+
+        statementCacheSize_ = size;
+    }
+
+    /**
+     * Retrieves how many times a prepared statement was found in the
+     * statement cache of a connection of this {@code Datasource}.
+     *
+     * @return the number of statement cache hits
+     * @see #setStatementCacheSize(int)
+     * @since 1.4
+     */
+    public long getStatementCacheHits() {
+        return statementCacheHits_.sum();
+    }
+
+    /**
+     * Retrieves how many times a prepared statement had to be prepared
+     * because it wasn't in the statement cache of a connection of this
+     * {@code Datasource}.
+     *
+     * @return the number of statement cache misses
+     * @see #setStatementCacheSize(int)
+     * @since 1.4
+     */
+    public long getStatementCacheMisses() {
+        return statementCacheMisses_.sum();
+    }
+
+    void recordStatementCacheHit() {
+        statementCacheHits_.increment();
+    }
+
+    void recordStatementCacheMiss() {
+        statementCacheMisses_.increment();
+    }
+
+    /**
+     * Retrieves the cache of query results of this {@code Datasource}.
+     *
+     * @return the query result cache; or
+     * <p>{@code null} if query results aren't cached
+     * @see #setQueryResultCache(QueryResultCache)
+     * @since 1.4
+     */
+    public QueryResultCache getQueryResultCache() {
+        return queryResultCache_;
+    }
+
+    /**
+     * Sets the cache of query results of this {@code Datasource}.
+     * <p>Results are only cached for the query managers that are obtained
+     * through {@link DbQueryManager#withResultCache(long, String...)}, the
+     * changes that are made through any {@code DbQueryManager} of this
+     * {@code Datasource} invalidate the cached results of the modified
+     * tables.
+     * <p>
+     * This defaults to {@code null}.
+     *
+     * @param cache the query result cache; or {@code null} if query results
+     *              shouldn't be cached
+     * @see #getQueryResultCache()
+     * @since 1.4
+     */
+    public void setQueryResultCache(QueryResultCache cache) {
+        queryResultCache_ = cache;
+    }
+
+    /**
+     * Retrieves the executor that runs the asynchronous queries of this
+     * {@code Datasource}.
+     * <p>When no executor has been set, a default one is created the first
+     * time this method is called. It starts a virtual thread for each query
+     * when the Java runtime supports them. Otherwise, it uses as many daemon
+     * threads as there are connections in the pool, or an unbounded number
+     * of them when the {@code Datasource} isn't pooled.
+     *
+     * @return the executor for asynchronous queries
+     * @see #setAsyncExecutor(Executor)
+     * @see AsyncDbQueryManager
+     * @since 1.4
+     */
+    public synchronized Executor getAsyncExecutor() {
+        if (null == asyncExecutor_) {
+            asyncExecutor_ = createDefaultAsyncExecutor();
+        }
+
+        return asyncExecutor_;
+    }
+
+    /**
+     * Sets the executor that runs the asynchronous queries of this
+     * {@code Datasource}.
+     * <p>Each asynchronous query obtains its connection from the pool of
+     * this {@code Datasource}, when all the connections are in use, the
+     * thread of the executor waits for one to become available. Executors
+     * with a bounded number of threads should thus have at least as many
+     * threads as the size of the pool to be able to use all the connections.
+     *
+     * @param executor the executor for asynchronous queries; or {@code null}
+     *                 if the default executor should be used
+     * @see #getAsyncExecutor()
+     * @see AsyncDbQueryManager
+     * @since 1.4
+     */
+    public synchronized void setAsyncExecutor(Executor executor) {
+        asyncExecutor_ = executor;
+    }
+
+    /**
+     * Adds a listener that receives the timings of all the statements that
+     * are executed through the connections of this {@code Datasource}.
+     * <p>Statements are only timed when a listener has been added or when
+     * a {@linkplain rife.config.RifeConfig.DatabaseConfig#setSlowQueryThreshold(long)
+     * slow query threshold} has been configured.
+     *
+     * @param listener the listener that will be notified
+     * @see #removeQueryTimingListener(QueryTimingListener)
+     * @since 1.4
+     */
+    public void addQueryTimingListener(QueryTimingListener listener) {
+        if (null == listener) throw new IllegalArgumentException("listener can't be null.");
+
+        queryTimingListeners_.add(listener);
+    }
+
+    /**
+     * Removes a listener that was receiving the timings of the statements.
+     *
+     * @param listener the listener that will not be notified anymore
+     * @return {@code true} if the listener was removed; or
+     * <p>{@code false} if it wasn't added to this {@code Datasource}
+     * @see #addQueryTimingListener(QueryTimingListener)
+     * @since 1.4
+     */
+    public boolean removeQueryTimingListener(QueryTimingListener listener) {
+        return queryTimingListeners_.remove(listener);
+    }
+
+    boolean isTimingQueries() {
+        return !queryTimingListeners_.isEmpty() ||
+               RifeConfig.database().getSlowQueryThreshold() > 0;
+    }
+
+    void queryTimed(QueryTiming timing) {
+        for (var listener : queryTimingListeners_) {
+            listener.queryTimed(timing);
+        }
+    }
+
+    private Executor createDefaultAsyncExecutor() {
+        // virtual threads are only available starting with Java 21, they
+        // are looked up at runtime since RIFE2 itself targets Java 17
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // fall back to platform threads
+        }
+
+        var counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            var thread = new Thread(runnable, "rife-async-database-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        if (isPooled()) {
+            return Executors.newFixedThreadPool(getPoolSize(), factory);
+        }
+        return Executors.newCachedThreadPool(factory);
+    }
+
+    /**
+     * Replaces the connection pool that is used by this {@code Datasource}.
+     * The size of the current pool is carried over to the new one. It's not
+     * possible to change the pool after a connection has been obtained from
+     * a pooled datasource.
+     *
+     * @param pool the {@code ConnectionPool} that will be used to provide
+     *             connections
+     * @see #getPool()
+     * @see ConcurrentConnectionPool
+     * @since 1.4
+     */
+    public void setPool(ConnectionPool pool) {
+        if (null == pool) throw new IllegalArgumentException("pool can't be null.");
+        if (connectionPool_.isInitialized())
+            throw new IllegalArgumentException("pool can't be changed after the connection pool has been set up.");
+
+        pool.setPoolSize(connectionPool_.getPoolSize());
+        connectionPool_ = pool;
+    }
+
     /**
      * Retrieves the sql to java and java to sql type mapping logic that
      * corresponds to the provide driver class name.
@@ -636,6 +916,7 @@ public class Datasource implements Cloneable {
 
         other.sqlConversion_ = sqlConversion_;
         other.connectionPool_ = connectionPool_;
+        other.queryTimingListeners_ = new CopyOnWriteArrayList<>(queryTimingListeners_);
 
         return other;
     }
@@ -7,15 +7,20 @@ package rife.database;
 import rife.database.exceptions.BeanException;
 import rife.database.exceptions.DatabaseException;
 
-import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class allows a {@link ResultSet} to be easily processed into bean
@@ -30,11 +35,113 @@ import java.util.*;
  * @since 1.0
  */
 public class DbBeanFetcher<BeanType> extends DbRowProcessor {
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ClassValue<BeanBindings> BEAN_BINDINGS = new ClassValue<>() {
+        protected BeanBindings computeValue(Class<?> beanClass) {
+            return new BeanBindings(beanClass);
+        }
+    };
+
     private Datasource datasource_ = null;
     private Class<BeanType> beanClass_ = null;
     private BeanType lastBeanInstance_ = null;
-    private final HashMap<String, PropertyDescriptor> beanProperties_ = new HashMap<>();
+    private final BeanBindings beanBindings_;
     private ArrayList<BeanType> collectedInstances_ = null;
+    private Constructor<BeanType> beanConstructor_ = null;
+    private WeakReference<ResultSet> boundResultSet_ = null;
+    ColumnBinding[] columnBindings_ = null;
+
+    /**
+     * Binds a column of a result set to the bean property it populates.
+     *
+     * @since 1.4
+     */
+    record ColumnBinding(int columnIndex, int columnType, PropertyDescriptor property, MethodHandle setter) {
+    }
+
+    /**
+     * The properties of a bean class and the column bindings of all the
+     * result set layouts that were fetched into it, shared by all the
+     * fetchers of that class.
+     *
+     * @since 1.4
+     */
+    private static final class BeanBindings {
+        private final Class<?> beanClass_;
+        private final HashMap<String, PropertyDescriptor> properties_ = new HashMap<>();
+        private final ConcurrentHashMap<List<Object>, ColumnBinding[]> layouts_ = new ConcurrentHashMap<>();
+
+        private BeanBindings(Class<?> beanClass) {
+            beanClass_ = beanClass;
+            try {
+                for (var property : Introspector.getBeanInfo(beanClass).getPropertyDescriptors()) {
+                    properties_.put(property.getName().toLowerCase(), property);
+                }
+            } catch (IntrospectionException e) {
+                throw new BeanException("Couldn't introspect the bean with class '" + beanClass.getName() + "'.", beanClass, e);
+            }
+        }
+
+        private ColumnBinding[] bindings(ResultSetMetaData meta)
+        throws SQLException {
+            // the layout is described by the name, label and type of each column
+            var column_count = meta.getColumnCount();
+            var layout = new ArrayList<>(column_count * 3);
+            for (var i = 1; i <= column_count; i++) {
+                layout.add(meta.getColumnName(i));
+                layout.add(meta.getColumnLabel(i));
+                layout.add(meta.getColumnType(i));
+            }
+
+            var bindings = layouts_.get(layout);
+            if (null == bindings) {
+                bindings = bind(layout);
+                var existing = layouts_.putIfAbsent(layout, bindings);
+                if (existing != null) {
+                    bindings = existing;
+                }
+            }
+            return bindings;
+        }
+
+        private ColumnBinding[] bind(List<Object> layout) {
+            var bindings = new ArrayList<ColumnBinding>();
+
+            // keep track of the columns that have been set as a bean property,
+            // to prevent later results from overwriting earlier ones
+            var processed_columns = new HashSet<String>();
+
+            // go over all the columns and try to bind them to bean properties
+            var lookup = MethodHandles.lookup();
+            for (var i = 0; i < layout.size() / 3; i++) {
+                var column_name = ((String) layout.get(i * 3)).toLowerCase();
+                var column_label = ((String) layout.get(i * 3 + 1)).toLowerCase();
+                String property_name = null;
+                if (properties_.containsKey(column_name) && !processed_columns.contains(column_name)) {
+                    property_name = column_name;
+                } else if (properties_.containsKey(column_label) && !processed_columns.contains(column_label)) {
+                    property_name = column_label;
+                }
+
+                if (property_name != null) {
+                    processed_columns.add(property_name);
+                    var property = properties_.get(property_name);
+                    var write_method = property.getWriteMethod();
+                    if (write_method != null) {
+                        try {
+                            var setter = lookup.unreflect(write_method).asType(SETTER_TYPE);
+                            bindings.add(new ColumnBinding(i + 1, (Integer) layout.get(i * 3 + 2), property, setter));
+                        } catch (IllegalAccessException e) {
+                            throw new BeanException("No permission to invoke the '" + write_method.getName() + "' method on the bean with class '" + beanClass_.getName() + "'.", beanClass_, e);
+                        }
+                    }
+                }
+            }
+
+            return bindings.toArray(new ColumnBinding[0]);
+        }
+    }
 
     /**
      * Create a new DbBeanFetcher
@@ -67,19 +174,9 @@ public class DbBeanFetcher<BeanType> extends DbRowProcessor {
         if (null == datasource) throw new IllegalArgumentException("datasource can't be null.");
         if (null == beanClass) throw new IllegalArgumentException("beanClass can't be null.");
 
-        BeanInfo bean_info = null;
-
         datasource_ = datasource;
         beanClass_ = beanClass;
-        try {
-            bean_info = Introspector.getBeanInfo(beanClass);
-        } catch (IntrospectionException e) {
-            throw new BeanException("Couldn't introspect the bean with class '" + beanClass_.getName() + "'.", beanClass, e);
-        }
-        var bean_properties = bean_info.getPropertyDescriptors();
-        for (var bean_property : bean_properties) {
-            beanProperties_.put(bean_property.getName().toLowerCase(), bean_property);
-        }
+        beanBindings_ = BEAN_BINDINGS.get(beanClass);
 
         if (collectInstances) {
             collectedInstances_ = new ArrayList<>();
@@ -108,7 +205,10 @@ public class DbBeanFetcher<BeanType> extends DbRowProcessor {
 
         BeanType instance = null;
         try {
-            instance = beanClass_.getDeclaredConstructor().newInstance();
+            if (null == beanConstructor_) {
+                beanConstructor_ = beanClass_.getDeclaredConstructor();
+            }
+            instance = beanConstructor_.newInstance();
         } catch (InvocationTargetException | InstantiationException e) {
             var e2 = new SQLException("Can't instantiate a bean with class '" + beanClass_.getName() + "' : " + e.getMessage());
             e2.initCause(e);
@@ -123,26 +223,17 @@ public class DbBeanFetcher<BeanType> extends DbRowProcessor {
             throw e2;
         }
 
-        var meta = resultSet.getMetaData();
-
-        String column_name;
-        String column_label;
-
-        // keep track of the columns that have been set as a bean property,
-        // to prevent later results from overwriting earlier ones
-        var processed_columns = new HashSet<String>();
-
-        // go over all the columns and try to set them as bean properties
-        for (var i = 1; i <= meta.getColumnCount(); i++) {
-            column_name = meta.getColumnName(i).toLowerCase();
-            column_label = meta.getColumnLabel(i).toLowerCase();
-            if (beanProperties_.containsKey(column_name) && !processed_columns.contains(column_name)) {
-                processed_columns.add(column_name);
-                populateBeanProperty(instance, column_name, meta, resultSet, i);
-            } else if (beanProperties_.containsKey(column_label) && !processed_columns.contains(column_label)) {
-                processed_columns.add(column_label);
-                populateBeanProperty(instance, column_label, meta, resultSet, i);
-            }
+        // the columns are only matched with the bean properties once for
+        // each result set, all its rows have the same layout, the result set
+        // is only weakly referenced to not hold on to it after the fetch
+        if (null == boundResultSet_ ||
+            boundResultSet_.get() != resultSet) {
+            columnBindings_ = beanBindings_.bindings(resultSet.getMetaData());
+            boundResultSet_ = new WeakReference<>(resultSet);
+        }
+
+        for (var binding : columnBindings_) {
+            populateBeanProperty(instance, binding, resultSet);
         }
 
         lastBeanInstance_ = instance;
@@ -155,85 +246,92 @@ public class DbBeanFetcher<BeanType> extends DbRowProcessor {
 
     }
 
-    private void populateBeanProperty(BeanType instance, String propertyName, ResultSetMetaData meta, ResultSet resultSet, int columnIndex)
+    private void populateBeanProperty(BeanType instance, ColumnBinding binding, ResultSet resultSet)
     throws SQLException {
-        var property = beanProperties_.get(propertyName);
+        var property = binding.property();
         var write_method = property.getWriteMethod();
-        if (write_method != null) {
+        var column_index = binding.columnIndex();
+        try {
+            var column_type = binding.columnType();
+            Object typed_object;
             try {
-                var column_type = meta.getColumnType(columnIndex);
-                Object typed_object;
-                try {
-                    typed_object = datasource_.getSqlConversion().getTypedObject(resultSet, columnIndex, column_type, property.getPropertyType());
-                } catch (DatabaseException e) {
-                    var e2 = new SQLException("Data conversion error while obtaining the typed object.");
-                    e2.initCause(e);
-                    throw e2;
-                }
+                typed_object = datasource_.getSqlConversion().getTypedObject(resultSet, column_index, column_type, property.getPropertyType());
+            } catch (DatabaseException e) {
+                var e2 = new SQLException("Data conversion error while obtaining the typed object.");
+                e2.initCause(e);
+                throw e2;
+            }
 
-                // the sql conversion couldn't create a typed value
-                if (null == typed_object) {
-                    // check if the object returned by the result set is of the same type hierarchy as the property type
-                    var column_value = resultSet.getObject(columnIndex);
-                    if (column_value != null &&
-                        property.getPropertyType().isAssignableFrom(column_value.getClass())) {
-                        typed_object = column_value;
-                    }
-                    // otherwise try to call the property type's constructor with a string argument
-                    else {
-                        var column_string_value = resultSet.getString(columnIndex);
-                        if (column_string_value != null) {
-                            try {
-                                var constructor = property.getPropertyType().getConstructor(String.class);
-                                if (constructor != null) {
-                                    typed_object = constructor.newInstance((Object[]) new String[]{column_string_value});
-                                }
-                            } catch (SecurityException e) {
-                                instance = null;
-                                var e2 = new SQLException("No permission to obtain the String constructor of the property with name '" + property.getName() + "' and class '" + property.getPropertyType().getName() + "' of the bean with class '" + beanClass_.getName() + "'.");
-                                e2.initCause(e);
-                                throw e2;
-                            } catch (NoSuchMethodException e) {
-                                instance = null;
-                                var e2 = new SQLException("Couldn't find a String constructor for the property with name '" + property.getName() + "' and class '" + property.getPropertyType().getName() + "' of the bean with class '" + beanClass_.getName() + "'.");
-                                e2.initCause(e);
-                                throw e2;
-                            } catch (InstantiationException e) {
-                                instance = null;
-                                var e2 = new SQLException("Can't instantiate a new instance of the property with name '" + property.getName() + "' and class '" + property.getPropertyType().getName() + "' of the bean with class '" + beanClass_.getName() + "'.");
-                                e2.initCause(e);
-                                throw e2;
+            // the sql conversion couldn't create a typed value
+            if (null == typed_object) {
+                // check if the object returned by the result set is of the same type hierarchy as the property type
+                var column_value = resultSet.getObject(column_index);
+                if (column_value != null &&
+                    property.getPropertyType().isAssignableFrom(column_value.getClass())) {
+                    typed_object = column_value;
+                }
+                // otherwise try to call the property type's constructor with a string argument
+                else {
+                    var column_string_value = resultSet.getString(column_index);
+                    if (column_string_value != null) {
+                        try {
+                            var constructor = property.getPropertyType().getConstructor(String.class);
+                            if (constructor != null) {
+                                typed_object = constructor.newInstance((Object[]) new String[]{column_string_value});
                             }
+                        } catch (SecurityException e) {
+                            instance = null;
+                            var e2 = new SQLException("No permission to obtain the String constructor of the property with name '" + property.getName() + "' and class '" + property.getPropertyType().getName() + "' of the bean with class '" + beanClass_.getName() + "'.");
+                            e2.initCause(e);
+                            throw e2;
+                        } catch (NoSuchMethodException e) {
+                            instance = null;
+                            var e2 = new SQLException("Couldn't find a String constructor for the property with name '" + property.getName() + "' and class '" + property.getPropertyType().getName() + "' of the bean with class '" + beanClass_.getName() + "'.");
+                            e2.initCause(e);
+                            throw e2;
+                        } catch (InstantiationException e) {
+                            instance = null;
+                            var e2 = new SQLException("Can't instantiate a new instance of the property with name '" + property.getName() + "' and class '" + property.getPropertyType().getName() + "' of the bean with class '" + beanClass_.getName() + "'.");
+                            e2.initCause(e);
+                            throw e2;
                         }
                     }
                 }
+            }
 
-                // if the typed object isn't null, set the value
-                if (typed_object != null) {
-                    // stored the property type
-                    write_method.invoke(instance, typed_object);
+            // if the typed object isn't null, set the value
+            if (typed_object != null) {
+                // stored the property type
+                try {
+                    binding.setter().invokeExact((Object) instance, typed_object);
+                } catch (ClassCastException e) {
+                    throw new IllegalArgumentException(e);
+                } catch (Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new InvocationTargetException(e);
                 }
-            } catch (IllegalAccessException e) {
-                instance = null;
-                var e2 = new SQLException("No permission to invoke the '" + write_method.getName() + "' method on the bean with class '" + beanClass_.getName() + "'.");
-                e2.initCause(e);
-                throw e2;
-            } catch (IllegalArgumentException e) {
-                instance = null;
-                var e2 = new SQLException("Invalid arguments while invoking the '" + write_method.getName() + "' method on the bean with class '" + beanClass_.getName() + "'.");
-                e2.initCause(e);
-                throw e2;
-            } catch (InvocationTargetException e) {
-                instance = null;
-                var e2 = new SQLException("The '" + write_method.getName() + "' method of the bean with class '" + beanClass_.getName() + "' has thrown an exception");
-                e2.initCause(e);
-                throw e2;
-            } catch (SQLException e) {
-                instance = null;
-                var e2 = new SQLException("SQLException while invoking the '" + write_method.getName() + "' method of the bean with class '" + beanClass_.getName() + "'");
-                e2.initCause(e);
-                throw e2;
             }
+        } catch (IllegalAccessException e) {
+            instance = null;
+            var e2 = new SQLException("No permission to invoke the '" + write_method.getName() + "' method on the bean with class '" + beanClass_.getName() + "'.");
+            e2.initCause(e);
+            throw e2;
+        } catch (IllegalArgumentException e) {
+            instance = null;
+            var e2 = new SQLException("Invalid arguments while invoking the '" + write_method.getName() + "' method on the bean with class '" + beanClass_.getName() + "'.");
+            e2.initCause(e);
+            throw e2;
+        } catch (InvocationTargetException e) {
+            instance = null;
+            var e2 = new SQLException("The '" + write_method.getName() + "' method of the bean with class '" + beanClass_.getName() + "' has thrown an exception");
+            e2.initCause(e);
+            throw e2;
+        } catch (SQLException e) {
+            instance = null;
+            var e2 = new SQLException("SQLException while invoking the '" + write_method.getName() + "' method of the bean with class '" + beanClass_.getName() + "'");
+            e2.initCause(e);
+            throw e2;
         }
     }
 
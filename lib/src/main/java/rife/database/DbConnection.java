@@ -15,6 +15,8 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 /**
@@ -54,7 +56,15 @@ public class DbConnection implements AutoCloseable {
     private Connection connection_;
     private ArrayList<DbStatement> statements_;
     private int supportsTransactions_ = TRANSACTIONS_SUPPORT_UNKNOWN;
-    private Thread transactionThread_ = null;
+    private volatile Thread transactionThread_ = null;
+    private boolean transactionBinding_ = false;
+    private int restoredIsolation_ = -1;
+    private ArrayList<Runnable> transactionEndActions_ = null;
+    private final long creationTime_ = System.nanoTime();
+    private volatile long releaseTime_ = creationTime_;
+    private volatile DbStatementCache statementCache_ = null;
+    private final ReentrantLock waitLock_ = new ReentrantLock();
+    private final Condition released_ = waitLock_.newCondition();
 
     /**
      * Creates a new {@code DbConnection} instance and binds it to a
@@ -103,9 +113,7 @@ public class DbConnection implements AutoCloseable {
     public void close()
     throws DatabaseException {
         if (isClosed()) {
-            synchronized (this) {
-                this.notifyAll();
-            }
+            signalWaiters();
             return;
         }
 
@@ -126,6 +134,7 @@ public class DbConnection implements AutoCloseable {
                                 statements_.get(0).close();
                             }
                             statements_ = new ArrayList<DbStatement>();
+                            clearStatementCache();
                         } finally {
                             try {
                                 connection_.close();
@@ -137,13 +146,54 @@ public class DbConnection implements AutoCloseable {
                         connection_ = null;
                         supportsTransactions_ = TRANSACTIONS_SUPPORT_UNKNOWN;
                     }
+                } else if (datasource_.isPooled() &&
+                           !hasTransactionThread()) {
+                    datasource_.getPool().releaseConnection(this);
                 }
             } finally {
-                this.notifyAll();
+                signalWaiters();
             }
         }
     }
 
+    /**
+     * Wakes up all the threads that are waiting for this connection to
+     * become free.
+     *
+     * @see #waitUntilFree()
+     * @since 1.4
+     */
+    void signalWaiters() {
+        waitLock_.lock();
+        try {
+            released_.signalAll();
+        } finally {
+            waitLock_.unlock();
+        }
+    }
+
+    /**
+     * Waits until this connection is free to be used by the current thread.
+     * <p>This relies on a lock instead of the object monitor, so that
+     * waiting virtual threads don't pin their carrier thread.
+     *
+     * @throws InterruptedException when the current thread was interrupted
+     *                              while waiting
+     * @see #signalWaiters()
+     * @since 1.4
+     */
+    void waitUntilFree()
+    throws InterruptedException {
+        waitLock_.lock();
+        try {
+            while (!isFree()) {
+                released_.await();
+            }
+        } finally {
+            waitLock_.unlock();
+        }
+    }
+
     /**
      * Indicates whether this {@code DbConnection} instance has been
      * cleaned up or not.
@@ -186,6 +236,8 @@ public class DbConnection implements AutoCloseable {
             transaction_thread = transactionThread_;
             transactionThread_ = null;
         }
+        transactionBinding_ = false;
+        restoredIsolation_ = -1;
 
         try {
             DbStatement statement = null;
@@ -202,6 +254,7 @@ public class DbConnection implements AutoCloseable {
                     }
                 }
                 statements_ = new ArrayList<DbStatement>();
+                clearStatementCache();
             }
 
             // reset the connection state
@@ -225,6 +278,7 @@ public class DbConnection implements AutoCloseable {
             if (transaction_thread != null) {
                 datasource_.getPool().unregisterThreadConnection(transaction_thread);
             }
+            runTransactionEndActions();
         }
     }
 
@@ -241,13 +295,11 @@ public class DbConnection implements AutoCloseable {
     void handleException()
     throws DatabaseException {
         if (!datasource_.isPooled()) {
-            synchronized (datasource_) {
-                synchronized (this) {
-                    // cleanup the connection resources
-                    cleanup();
-                    this.notifyAll();
-                }
+            synchronized (this) {
+                // cleanup the connection resources
+                cleanup();
             }
+            signalWaiters();
         } else {
             // recreate all the pooled connections
             datasource_.getPool().recreateConnection(this);
@@ -416,10 +468,12 @@ public class DbConnection implements AutoCloseable {
         try {
             detectCleanup();
 
-            PreparedStatement prepared_statement = connection_.prepareStatement(sql);
+            var key = new DbStatementCache.Key(sql, DbStatementCache.UNSPECIFIED, DbStatementCache.UNSPECIFIED, DbStatementCache.UNSPECIFIED, DbStatementCache.UNSPECIFIED);
+            PreparedStatement prepared_statement = obtainPreparedStatement(key);
 
             synchronized (this) {
                 DbPreparedStatement db_prepared_statement = new DbPreparedStatement(this, sql, prepared_statement);
+                db_prepared_statement.setStatementCacheKey(statementCacheKey(key));
                 statements_.add(db_prepared_statement);
 
                 return db_prepared_statement;
@@ -473,10 +527,12 @@ public class DbConnection implements AutoCloseable {
         try {
             detectCleanup();
 
-            PreparedStatement prepared_statement = connection_.prepareStatement(sql, autoGeneratedKeys);
+            var key = new DbStatementCache.Key(sql, autoGeneratedKeys, DbStatementCache.UNSPECIFIED, DbStatementCache.UNSPECIFIED, DbStatementCache.UNSPECIFIED);
+            PreparedStatement prepared_statement = obtainPreparedStatement(key);
 
             synchronized (this) {
                 DbPreparedStatement db_prepared_statement = new DbPreparedStatement(this, sql, prepared_statement);
+                db_prepared_statement.setStatementCacheKey(statementCacheKey(key));
                 statements_.add(db_prepared_statement);
 
                 return db_prepared_statement;
@@ -522,10 +578,12 @@ public class DbConnection implements AutoCloseable {
             detectCleanup();
 
             String sql = query.getSql();
-            PreparedStatement prepared_statement = connection_.prepareStatement(sql);
+            var key = new DbStatementCache.Key(sql, DbStatementCache.UNSPECIFIED, DbStatementCache.UNSPECIFIED, DbStatementCache.UNSPECIFIED, DbStatementCache.UNSPECIFIED);
+            PreparedStatement prepared_statement = obtainPreparedStatement(key);
 
             synchronized (this) {
                 DbPreparedStatement db_prepared_statement = new DbPreparedStatement(this, query, prepared_statement);
+                db_prepared_statement.setStatementCacheKey(statementCacheKey(key));
                 statements_.add(db_prepared_statement);
 
                 return db_prepared_statement;
@@ -578,10 +636,12 @@ public class DbConnection implements AutoCloseable {
             detectCleanup();
 
             String sql = query.getSql();
-            PreparedStatement prepared_statement = connection_.prepareStatement(sql, autoGeneratedKeys);
+            var key = new DbStatementCache.Key(sql, autoGeneratedKeys, DbStatementCache.UNSPECIFIED, DbStatementCache.UNSPECIFIED, DbStatementCache.UNSPECIFIED);
+            PreparedStatement prepared_statement = obtainPreparedStatement(key);
 
             synchronized (this) {
                 DbPreparedStatement db_prepared_statement = new DbPreparedStatement(this, query, prepared_statement);
+                db_prepared_statement.setStatementCacheKey(statementCacheKey(key));
                 statements_.add(db_prepared_statement);
 
                 return db_prepared_statement;
@@ -648,10 +708,12 @@ public class DbConnection implements AutoCloseable {
             detectCleanup();
 
             String sql = query.getSql();
-            PreparedStatement prepared_statement = connection_.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+            var key = new DbStatementCache.Key(sql, DbStatementCache.UNSPECIFIED, resultSetType, resultSetConcurrency, resultSetHoldability);
+            PreparedStatement prepared_statement = obtainPreparedStatement(key);
 
             synchronized (this) {
                 DbPreparedStatement db_prepared_statement = new DbPreparedStatement(this, query, prepared_statement);
+                db_prepared_statement.setStatementCacheKey(statementCacheKey(key));
                 statements_.add(db_prepared_statement);
 
                 return db_prepared_statement;
@@ -662,6 +724,94 @@ public class DbConnection implements AutoCloseable {
         }
     }
 
+    private PreparedStatement obtainPreparedStatement(DbStatementCache.Key key)
+    throws SQLException {
+        var cache = getStatementCache();
+        if (cache != null) {
+            var statement = cache.checkout(key);
+            if (statement != null) {
+                return statement;
+            }
+        }
+
+        return key.prepare(connection_);
+    }
+
+    private void clearStatementCache() {
+        var cache = statementCache_;
+        if (cache != null) {
+            statementCache_ = null;
+            cache.clear();
+        }
+    }
+
+    private DbStatementCache.Key statementCacheKey(DbStatementCache.Key key) {
+        return statementCache_ != null ? key : null;
+    }
+
+    private DbStatementCache getStatementCache() {
+        var size = datasource_.getStatementCacheSize();
+        if (0 == size) {
+            return null;
+        }
+
+        synchronized (this) {
+            if (null == statementCache_) {
+                statementCache_ = new DbStatementCache(datasource_, size);
+            }
+
+            return statementCache_;
+        }
+    }
+
+    /**
+     * Puts the JDBC statement of a closed {@code DbPreparedStatement}
+     * back into the statement cache of this connection.
+     *
+     * @param key       the key the statement was cached with
+     * @param statement the JDBC statement to put back
+     * @since 1.4
+     */
+    void releaseCachedStatement(DbStatementCache.Key key, PreparedStatement statement) {
+        var cache = statementCache_;
+        if (null == cache || isCleanedUp()) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                // the statement is discarded anyway
+            }
+            return;
+        }
+
+        cache.checkin(key, statement);
+    }
+
+    /**
+     * Retrieves how many times a prepared statement was found in the
+     * statement cache of this connection.
+     *
+     * @return the number of statement cache hits
+     * @see Datasource#setStatementCacheSize(int)
+     * @since 1.4
+     */
+    public long getStatementCacheHits() {
+        var cache = statementCache_;
+        return null == cache ? 0 : cache.getHits();
+    }
+
+    /**
+     * Retrieves how many times a prepared statement had to be prepared
+     * because it wasn't in the statement cache of this connection.
+     *
+     * @return the number of statement cache misses
+     * @see Datasource#setStatementCacheSize(int)
+     * @since 1.4
+     */
+    public long getStatementCacheMisses() {
+        var cache = statementCache_;
+        return null == cache ? 0 : cache.getMisses();
+    }
+
     /**
      * Removes a {@code DbStatement} instance from the collection of
      * managed statements. If the statement is not present, no error or
@@ -749,6 +899,31 @@ public class DbConnection implements AutoCloseable {
      * @since 1.0
      */
     public boolean beginTransaction()
+    throws DatabaseException {
+        return beginTransaction(-1);
+    }
+
+    /**
+     * Starts a new transaction with a specific isolation level.
+     * <p>The isolation level is applied once this thread claimed the
+     * connection, but before the transaction is started, since drivers
+     * can refuse to change it while a transaction is active. The previous
+     * isolation level is restored when the transaction ends.
+     *
+     * @param isolation the transaction isolation level constant defined in
+     *                  the {@link java.sql.Connection Connection} interface;
+     *                  or {@code -1} to keep the current isolation level
+     * @return {@code true} if the transaction was successfully started;
+     * or
+     * <p>{@code false} if the {@code Datasource} doesn't support
+     * transactions, or if a transaction is already active on this
+     * {@code DbConnection}.
+     * @throws DatabaseException when an error occurred during the creation
+     *                           of the new transaction
+     * @see #beginTransaction()
+     * @since 1.4
+     */
+    boolean beginTransaction(int isolation)
     throws DatabaseException {
         // if the datasource doesn't support transactions,
         // don't start any
@@ -771,17 +946,34 @@ public class DbConnection implements AutoCloseable {
         try {
             detectCleanup();
 
+            if (isolation != -1) {
+                var previous_isolation = connection_.getTransactionIsolation();
+                if (previous_isolation != isolation) {
+                    connection_.setTransactionIsolation(isolation);
+                    restoredIsolation_ = previous_isolation;
+                }
+            }
             connection_.setAutoCommit(false);
         } catch (SQLException e) {
 
             if (transactionThread_ != null) {
                 transactionThread_ = null;
             }
+            try {
+                restoreTransactionIsolation();
+            } catch (SQLException ignored) {
+            }
             handleException();
             throw new TransactionBeginErrorException(datasource_, e);
         }
 
-        datasource_.getPool().registerThreadConnection(transactionThread_, this);
+        // a connection that is already reserved for the thread keeps its
+        // reservation after the transaction ended
+        var pool = datasource_.getPool();
+        if (!pool.hasThreadConnection(transactionThread_)) {
+            pool.registerThreadConnection(transactionThread_, this);
+            transactionBinding_ = true;
+        }
 
         return true;
     }
@@ -837,6 +1029,7 @@ public class DbConnection implements AutoCloseable {
 
             connection_.commit();
             connection_.setAutoCommit(true);
+            restoreTransactionIsolation();
         } catch (SQLException e) {
             handleException();
             throw new TransactionCommitErrorException(datasource_, e);
@@ -845,11 +1038,11 @@ public class DbConnection implements AutoCloseable {
                 if (transactionThread_ != null) {
                     transactionThread_ = null;
                 }
-
-                this.notifyAll();
             }
+            signalWaiters();
 
-            datasource_.getPool().unregisterThreadConnection(Thread.currentThread());
+            releaseTransactionBinding();
+            runTransactionEndActions();
         }
 
         return true;
@@ -906,6 +1099,7 @@ public class DbConnection implements AutoCloseable {
 
             connection_.rollback();
             connection_.setAutoCommit(true);
+            restoreTransactionIsolation();
         } catch (SQLException e) {
             handleException();
             throw new TransactionRollbackErrorException(datasource_, e);
@@ -914,14 +1108,77 @@ public class DbConnection implements AutoCloseable {
                 if (transactionThread_ != null) {
                     transactionThread_ = null;
                 }
+            }
+            signalWaiters();
 
-                this.notifyAll();
+            releaseTransactionBinding();
+            runTransactionEndActions();
+        }
+
+        return true;
+    }
+
+    /**
+     * Registers an action that should run once the transaction that the
+     * current thread is executing on this {@code DbConnection} ended,
+     * regardless of it being committed or rolled back.
+     * <p>The action runs immediately when no such transaction is active.
+     *
+     * @param action the action that should run
+     * @see DbQueryManager#inTransaction(TransactionUser)
+     * @see #commit()
+     * @see #rollback()
+     * @since 1.4
+     */
+    public void afterTransaction(Runnable action) {
+        if (null == action) throw new IllegalArgumentException("action can't be null.");
+
+        synchronized (this) {
+            if (isTransactionValidForThread()) {
+                if (null == transactionEndActions_) {
+                    transactionEndActions_ = new ArrayList<>();
+                }
+                transactionEndActions_.add(action);
+                return;
             }
+        }
+
+        action.run();
+    }
+
+    private void restoreTransactionIsolation()
+    throws SQLException {
+        var isolation = restoredIsolation_;
+        restoredIsolation_ = -1;
+        if (isolation != -1) {
+            connection_.setTransactionIsolation(isolation);
+        }
+    }
 
+    private void releaseTransactionBinding() {
+        boolean binding;
+        synchronized (this) {
+            binding = transactionBinding_;
+            transactionBinding_ = false;
+        }
+
+        if (binding) {
             datasource_.getPool().unregisterThreadConnection(Thread.currentThread());
         }
+    }
 
-        return true;
+    private void runTransactionEndActions() {
+        ArrayList<Runnable> actions;
+        synchronized (this) {
+            actions = transactionEndActions_;
+            transactionEndActions_ = null;
+        }
+
+        if (actions != null) {
+            for (var action : actions) {
+                action.run();
+            }
+        }
     }
 
     /**
@@ -997,6 +1254,67 @@ public class DbConnection implements AutoCloseable {
         }
     }
 
+    /**
+     * Indicates whether this {@code DbConnection}'s connection to the
+     * database is still alive, by letting the JDBC driver verify it.
+     * <p>Contrary to {@link #isClosed()}, this actually contacts the
+     * database when the driver supports it.
+     *
+     * @param timeout the time in seconds to wait for the database to
+     *                respond, {@code 0} means no timeout
+     * @return {@code true} when this {@code DbConnection} is
+     * usable; or
+     * <p>{@code false} if it's closed or not valid anymore.
+     * @throws DatabaseException when an error occurred during the
+     *                           verification of the JDBC connection
+     * @since 1.4
+     */
+    public boolean isValid(int timeout)
+    throws DatabaseException {
+        if (timeout < 0) throw new IllegalArgumentException("timeout can't be negative.");
+
+        try {
+            var connection = connection_;
+            if (null == connection) {
+                return false;
+            }
+
+            return connection.isValid(timeout);
+        } catch (SQLException e) {
+            throw new ConnectionStatusErrorException(datasource_, e);
+        }
+    }
+
+    /**
+     * Retrieves the moment at which this connection was created.
+     *
+     * @return the creation moment in {@link System#nanoTime()} units
+     * @since 1.4
+     */
+    long getCreationTime() {
+        return creationTime_;
+    }
+
+    /**
+     * Retrieves the moment at which this connection was last handed back
+     * to its pool.
+     *
+     * @return the release moment in {@link System#nanoTime()} units
+     * @since 1.4
+     */
+    long getReleaseTime() {
+        return releaseTime_;
+    }
+
+    /**
+     * Remembers that this connection was just handed back to its pool.
+     *
+     * @since 1.4
+     */
+    void markReleased() {
+        releaseTime_ = System.nanoTime();
+    }
+
     /**
      * Indicates whether this {@code DbConnection}'s connection to the
      * database is closed.
@@ -9,7 +9,7 @@ import rife.database.exceptions.*;
 import java.sql.*;
 
 import rife.database.queries.Query;
-import rife.tools.ArrayUtils;
+import rife.database.queries.Select;
 import rife.tools.BeanUtils;
 import rife.tools.exceptions.BeanUtilsException;
 import rife.validation.Constrained;
@@ -19,9 +19,12 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Provides a wrapper around the regular JDBC {@code PreparedStatement}
@@ -64,7 +67,11 @@ public class DbPreparedStatement extends DbStatement {
     private Query query_;
 
     private List<String> parameterNames_ = null;
+    private Map<String, int[]> parameterIndices_ = null;
     private VirtualParameters virtualParameters_ = null;
+    private DbStatementCache.Key statementCacheKey_ = null;
+    private Map<Integer, Object> recordedParameterValues_ = null;
+    private boolean recordedParameterValuesComplete_ = true;
 
     /**
      * Constructs a new {@code DbStatement} from a SQL query string,
@@ -90,6 +97,10 @@ public class DbPreparedStatement extends DbStatement {
 
         sql_ = sql;
         query_ = null;
+
+        if (connection.getDatasource().isTimingQueries()) {
+            recordParameterValues();
+        }
     }
 
     /**
@@ -119,6 +130,10 @@ public class DbPreparedStatement extends DbStatement {
 
         sql_ = sql;
         query_ = query;
+
+        if (connection.getDatasource().isTimingQueries()) {
+            recordParameterValues();
+        }
     }
 
     /**
@@ -169,6 +184,8 @@ public class DbPreparedStatement extends DbStatement {
             cleanResultSet();
 
             long start = startTrace();
+            setSeekParameters();
+            var timing = startTiming(QueryTiming.Kind.QUERY, sql_);
             if (virtualParameters_ != null) {
                 virtualParameters_.callHandler(this);
             }
@@ -176,6 +193,7 @@ public class DbPreparedStatement extends DbStatement {
             outputTrace(start, getSql());
 
             setResultset(resultset);
+            timeResultSet(timing);
             return;
         } catch (SQLException e) {
             handleException();
@@ -205,11 +223,13 @@ public class DbPreparedStatement extends DbStatement {
             waitForConnection();
 
             long start = startTrace();
+            var timing = startTiming(QueryTiming.Kind.UPDATE, sql_);
             if (virtualParameters_ != null) {
                 virtualParameters_.callHandler(this);
             }
             int result = ((PreparedStatement) statement_).executeUpdate();
             outputTrace(start, getSql());
+            finishTiming(timing, result);
 
             return result;
         } catch (SQLException e) {
@@ -259,7 +279,48 @@ public class DbPreparedStatement extends DbStatement {
      */
     public void close()
     throws DatabaseException {
-        super.close();
+        DbStatementCache.Key key;
+        synchronized (this) {
+            key = statementCacheKey_;
+            statementCacheKey_ = null;
+        }
+
+        // statements with customized properties are not reused
+        if (null == key || isModified()) {
+            super.close();
+            return;
+        }
+
+        connection_.releaseStatement(this);
+        try {
+            cleanResultSet();
+        } finally {
+            connection_.releaseCachedStatement(key, (PreparedStatement) statement_);
+        }
+    }
+
+    /**
+     * Sets the key under which the JDBC statement of this
+     * {@code DbPreparedStatement} is put back into the statement cache of
+     * its connection when it's closed.
+     *
+     * @param key the statement cache key; or
+     *            {@code null} if the statement isn't cached
+     * @since 1.4
+     */
+    void setStatementCacheKey(DbStatementCache.Key key) {
+        statementCacheKey_ = key;
+    }
+
+    @Override
+    protected void handleException()
+    throws DatabaseException {
+        // never reuse a statement that caused an error
+        synchronized (this) {
+            statementCacheKey_ = null;
+        }
+
+        super.handleException();
     }
 
     /**
@@ -346,6 +407,7 @@ public class DbPreparedStatement extends DbStatement {
 
         if (null == parameterNames_) {
             parameterNames_ = query_.getParameters().getOrderedNames();
+            parameterIndices_ = query_.getParameters().getOrderedIndices();
             if (virtualParameters_ != null) {
                 virtualParameters_.setup(query_);
             }
@@ -367,7 +429,7 @@ public class DbPreparedStatement extends DbStatement {
     throws UndefinedVirtualParameterException {
         validateParametrizedQuery();
 
-        int[] virtual_indices = getParameterIndices(name);
+        int[] virtual_indices = lookupParameterIndices(name);
 
         if (!virtualParameters_.hasValue(virtual_indices[0])) {
             throw new UndefinedVirtualParameterException(this, name);
@@ -459,9 +521,91 @@ public class DbPreparedStatement extends DbStatement {
      */
     public void setVirtualParameters(VirtualParameters parameters) {
         parameterNames_ = null;
+        parameterIndices_ = null;
         virtualParameters_ = parameters;
     }
 
+    /**
+     * Sets the parameters that bind the seek values of a keyset paginated
+     * {@code Select} query.
+     *
+     * @throws DatabaseException if a database access error occurs
+     * @see Select#getSeekParameterValues()
+     * @since 1.4
+     */
+    void setSeekParameters()
+    throws DatabaseException {
+        if (!(query_ instanceof Select select)) {
+            return;
+        }
+
+        var conversion = getConnection().getDatasource().getSqlConversion();
+        for (var entry : select.getSeekParameterValues().entrySet()) {
+            var value = entry.getValue();
+            for (var index : lookupParameterIndices(entry.getKey())) {
+                conversion.setTypedParameter(this, index, value.getClass(), entry.getKey(), value, null);
+            }
+        }
+    }
+
+    /**
+     * Starts recording the values of the parameters that are set from now
+     * on, which makes it possible to identify the results of the query.
+     *
+     * @see #getRecordedParameterValues()
+     * @since 1.4
+     */
+    void recordParameterValues() {
+        recordedParameterValues_ = new TreeMap<>();
+        recordedParameterValuesComplete_ = true;
+    }
+
+    /**
+     * Retrieves the parameter values that were recorded.
+     *
+     * @return the recorded values, ordered by their parameter index; or
+     * <p>{@code null} if the values weren't recorded or if some of them
+     * can't be compared, like streams and large objects
+     * @see #recordParameterValues()
+     * @since 1.4
+     */
+    Map<Integer, Object> getRecordedParameterValues() {
+        if (null == recordedParameterValues_ ||
+            !recordedParameterValuesComplete_) {
+            return null;
+        }
+
+        return recordedParameterValues_;
+    }
+
+    String getTimedSql() {
+        return sql_;
+    }
+
+    Map<Integer, Object> getTimedParameterValues() {
+        return getRecordedParameterValues();
+    }
+
+    private void recordParameterValue(int parameterIndex, Object value) {
+        if (null == recordedParameterValues_) {
+            return;
+        }
+
+        if (value instanceof InputStream ||
+            value instanceof Reader ||
+            value instanceof Array ||
+            value instanceof Ref ||
+            value instanceof Blob ||
+            value instanceof Clob) {
+            recordedParameterValuesComplete_ = false;
+        } else if (value instanceof byte[] bytes) {
+            // byte arrays are compared by their content
+            recordedParameterValues_.put(parameterIndex, ByteBuffer.wrap(bytes.clone()));
+        } else {
+            recordedParameterValues_.put(parameterIndex, value);
+        }
+    }
+
     /**
      * Retrieves all the parameter indices that correspond to the name of
      * a parameter of the {@code ParametrizedQuery} object that is
@@ -479,23 +623,26 @@ public class DbPreparedStatement extends DbStatement {
      * @since 1.0
      */
     public int[] getParameterIndices(String parameterName)
+    throws DatabaseException {
+        return lookupParameterIndices(parameterName).clone();
+    }
+
+    /**
+     * Looks up the parameter indices in the mapping that is shared by all
+     * the statements of the same query, the returned array should thus
+     * never be modified.
+     *
+     * @since 1.4
+     */
+    private int[] lookupParameterIndices(String parameterName)
     throws DatabaseException {
         if (null == parameterName) throw new IllegalArgumentException("parameterName can't be null.");
         if (0 == parameterName.length()) throw new IllegalArgumentException("parameterName can't be empty.");
 
         validateParametrizedQuery();
 
-        int parameter_index = 1;
-        int[] parameter_indices = new int[0];
-        for (String parameter_name : parameterNames_) {
-            if (parameter_name.equals(parameterName)) {
-                parameter_indices = ArrayUtils.join(parameter_indices, parameter_index);
-            }
-
-            parameter_index++;
-        }
-
-        if (0 == parameter_indices.length) {
+        var parameter_indices = parameterIndices_.get(parameterName);
+        if (null == parameter_indices) {
             throw new ParameterDoesntExistException(this, parameterName);
         }
 
@@ -524,7 +671,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setDouble(String parameterName, double x)
     throws DatabaseException {
-        setDoubles(getParameterIndices(parameterName), x);
+        setDoubles(lookupParameterIndices(parameterName), x);
 
         return this;
     }
@@ -576,6 +723,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setDouble(int parameterIndex, double x)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -621,7 +770,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setShort(String parameterName, short x)
     throws DatabaseException {
-        setShorts(getParameterIndices(parameterName), x);
+        setShorts(lookupParameterIndices(parameterName), x);
 
         return this;
     }
@@ -673,6 +822,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setShort(int parameterIndex, short x)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -719,7 +870,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setNull(String parameterName, int sqlType)
     throws DatabaseException {
-        setNulls(getParameterIndices(parameterName), sqlType);
+        setNulls(lookupParameterIndices(parameterName), sqlType);
 
         return this;
     }
@@ -773,6 +924,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setNull(int parameterIndex, int sqlType)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, null);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -833,7 +986,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setNull(String parameterName, int sqlType, String typeName)
     throws DatabaseException {
-        setNulls(getParameterIndices(parameterName), sqlType, typeName);
+        setNulls(lookupParameterIndices(parameterName), sqlType, typeName);
 
         return this;
     }
@@ -917,6 +1070,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setNull(int parameterIndex, int sqlType, String typeName)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, null);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -962,7 +1117,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setBoolean(String parameterName, boolean x)
     throws DatabaseException {
-        setBooleans(getParameterIndices(parameterName), x);
+        setBooleans(lookupParameterIndices(parameterName), x);
 
         return this;
     }
@@ -1014,6 +1169,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setBoolean(int parameterIndex, boolean x)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -1059,7 +1216,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setByte(String parameterName, byte x)
     throws DatabaseException {
-        setBytes(getParameterIndices(parameterName), x);
+        setBytes(lookupParameterIndices(parameterName), x);
 
         return this;
     }
@@ -1111,6 +1268,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setByte(int parameterIndex, byte x)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -1156,7 +1315,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setDate(String parameterName, Date x)
     throws DatabaseException {
-        setDates(getParameterIndices(parameterName), x);
+        setDates(lookupParameterIndices(parameterName), x);
 
         return this;
     }
@@ -1208,6 +1367,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setDate(int parameterIndex, Date x)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -1261,7 +1422,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setDate(String parameterName, Date x, Calendar cal)
     throws DatabaseException {
-        setDates(getParameterIndices(parameterName), x, cal);
+        setDates(lookupParameterIndices(parameterName), x, cal);
 
         return this;
     }
@@ -1329,6 +1490,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setDate(int parameterIndex, Date x, Calendar cal)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, null == cal ? x : Arrays.asList(x, cal.getTimeZone().getID()));
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -1373,7 +1536,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setInt(String parameterName, int x)
     throws DatabaseException {
-        setInts(getParameterIndices(parameterName), x);
+        setInts(lookupParameterIndices(parameterName), x);
 
         return this;
     }
@@ -1425,6 +1588,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setInt(int parameterIndex, int x)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -1470,7 +1635,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setLong(String parameterName, long x)
     throws DatabaseException {
-        setLongs(getParameterIndices(parameterName), x);
+        setLongs(lookupParameterIndices(parameterName), x);
 
         return this;
     }
@@ -1522,6 +1687,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setLong(int parameterIndex, long x)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -1567,7 +1734,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setFloat(String parameterName, float x)
     throws DatabaseException {
-        setFloats(getParameterIndices(parameterName), x);
+        setFloats(lookupParameterIndices(parameterName), x);
 
         return this;
     }
@@ -1619,6 +1786,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setFloat(int parameterIndex, float x)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -1665,7 +1834,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setBigDecimal(String parameterName, BigDecimal x)
     throws DatabaseException {
-        setBigDecimals(getParameterIndices(parameterName), x);
+        setBigDecimals(lookupParameterIndices(parameterName), x);
 
         return this;
     }
@@ -1719,6 +1888,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setBigDecimal(int parameterIndex, BigDecimal x)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -1766,7 +1937,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setString(String parameterName, String x)
     throws DatabaseException {
-        setStrings(getParameterIndices(parameterName), x);
+        setStrings(lookupParameterIndices(parameterName), x);
 
         return this;
     }
@@ -1822,6 +1993,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setString(int parameterIndex, String x)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -1869,7 +2042,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setBytes(String parameterName, byte x[])
     throws DatabaseException {
-        setBytes(getParameterIndices(parameterName), x);
+        setBytes(lookupParameterIndices(parameterName), x);
 
         return this;
     }
@@ -1925,6 +2098,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setBytes(int parameterIndex, byte x[])
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -1988,7 +2163,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setObject(String parameterName, Object x, int targetSqlType, int scale)
     throws DatabaseException {
-        setObjects(getParameterIndices(parameterName), x, targetSqlType, scale);
+        setObjects(lookupParameterIndices(parameterName), x, targetSqlType, scale);
 
         return this;
     }
@@ -2076,6 +2251,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setObject(int parameterIndex, Object x, int targetSqlType, int scale)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -2123,7 +2300,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setObject(String parameterName, Object x, int targetSqlType)
     throws DatabaseException {
-        setObjects(getParameterIndices(parameterName), x, targetSqlType);
+        setObjects(lookupParameterIndices(parameterName), x, targetSqlType);
 
         return this;
     }
@@ -2181,6 +2358,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setObject(int parameterIndex, Object x, int targetSqlType)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -2224,7 +2403,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setTime(String parameterName, Time x)
     throws DatabaseException {
-        setTimes(getParameterIndices(parameterName), x);
+        setTimes(lookupParameterIndices(parameterName), x);
 
         return this;
     }
@@ -2276,6 +2455,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setTime(int parameterIndex, Time x)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -2329,7 +2510,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setTime(String parameterName, Time x, Calendar cal)
     throws DatabaseException {
-        setTimes(getParameterIndices(parameterName), x, cal);
+        setTimes(lookupParameterIndices(parameterName), x, cal);
 
         return this;
     }
@@ -2397,6 +2578,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setTime(int parameterIndex, Time x, Calendar cal)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, null == cal ? x : Arrays.asList(x, cal.getTimeZone().getID()));
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -2442,7 +2625,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setTimestamp(String parameterName, Timestamp x)
     throws DatabaseException {
-        setTimestamps(getParameterIndices(parameterName), x);
+        setTimestamps(lookupParameterIndices(parameterName), x);
 
         return this;
     }
@@ -2496,6 +2679,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setTimestamp(int parameterIndex, Timestamp x)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -2550,7 +2735,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setTimestamp(String parameterName, Timestamp x, Calendar cal)
     throws DatabaseException {
-        setTimestamps(getParameterIndices(parameterName), x, cal);
+        setTimestamps(lookupParameterIndices(parameterName), x, cal);
 
         return this;
     }
@@ -2620,6 +2805,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setTimestamp(int parameterIndex, Timestamp x, Calendar cal)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, null == cal ? x : Arrays.asList(x, cal.getTimeZone().getID()));
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -2673,7 +2860,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setAsciiStream(String parameterName, InputStream x, int length)
     throws DatabaseException {
-        setAsciiStream(getParameterIndices(parameterName)[0], x, length);
+        setAsciiStream(lookupParameterIndices(parameterName)[0], x, length);
 
         return this;
     }
@@ -2705,6 +2892,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setAsciiStream(int parameterIndex, InputStream x, int length)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -2758,7 +2947,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setCharacterStream(String parameterName, Reader x, int length)
     throws DatabaseException {
-        setCharacterStream(getParameterIndices(parameterName)[0], x, length);
+        setCharacterStream(lookupParameterIndices(parameterName)[0], x, length);
 
         return this;
     }
@@ -2791,6 +2980,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setCharacterStream(int parameterIndex, Reader x, int length)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -2843,7 +3034,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setBinaryStream(String parameterName, InputStream x, int length)
     throws DatabaseException {
-        setBinaryStream(getParameterIndices(parameterName)[0], x, length);
+        setBinaryStream(lookupParameterIndices(parameterName)[0], x, length);
 
         return this;
     }
@@ -2874,6 +3065,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setBinaryStream(int parameterIndex, InputStream x, int length)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -2918,7 +3111,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setArray(String parameterName, Array x)
     throws DatabaseException {
-        setArray(getParameterIndices(parameterName)[0], x);
+        setArray(lookupParameterIndices(parameterName)[0], x);
 
         return this;
     }
@@ -2942,6 +3135,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setArray(int parameterIndex, Array x)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -3005,7 +3200,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setObject(String parameterName, Object x)
     throws DatabaseException {
-        setObjects(getParameterIndices(parameterName), x);
+        setObjects(lookupParameterIndices(parameterName), x);
 
         return this;
     }
@@ -3093,6 +3288,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setObject(int parameterIndex, Object x)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -3139,7 +3336,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setRef(String parameterName, Ref x)
     throws DatabaseException {
-        setRef(getParameterIndices(parameterName)[0], x);
+        setRef(lookupParameterIndices(parameterName)[0], x);
 
         return this;
     }
@@ -3163,6 +3360,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setRef(int parameterIndex, Ref x)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -3208,7 +3407,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setBlob(String parameterName, Blob x)
     throws DatabaseException {
-        setBlob(getParameterIndices(parameterName)[0], x);
+        setBlob(lookupParameterIndices(parameterName)[0], x);
 
         return this;
     }
@@ -3232,6 +3431,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setBlob(int parameterIndex, Blob x)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -3278,7 +3479,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setClob(String parameterName, Clob x)
     throws DatabaseException {
-        setClob(getParameterIndices(parameterName)[0], x);
+        setClob(lookupParameterIndices(parameterName)[0], x);
 
         return this;
     }
@@ -3302,6 +3503,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setClob(int parameterIndex, Clob x)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -3346,7 +3549,7 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setURL(String parameterName, URL x)
     throws DatabaseException {
-        setURLs(getParameterIndices(parameterName), x);
+        setURLs(lookupParameterIndices(parameterName), x);
 
         return this;
     }
@@ -3397,6 +3600,8 @@ public class DbPreparedStatement extends DbStatement {
      */
     public DbPreparedStatement setURL(int parameterIndex, URL x)
     throws DatabaseException {
+        recordParameterValue(parameterIndex, x);
+
         // handle virtual parameters
         if (virtualParameters_ != null &&
             virtualParameters_.hasParameter(parameterIndex)) {
@@ -3438,6 +3643,10 @@ public class DbPreparedStatement extends DbStatement {
     throws DatabaseException {
         try {
             ((PreparedStatement) statement_).clearParameters();
+            if (recordedParameterValues_ != null) {
+                recordedParameterValues_.clear();
+                recordedParameterValuesComplete_ = true;
+            }
         } catch (SQLException e) {
             handleException();
             throw new DatabaseException(e);
@@ -4,11 +4,16 @@
  */
 package rife.database;
 
+import rife.config.RifeConfig;
 import rife.database.exceptions.DatabaseException;
 import rife.database.exceptions.RollbackException;
 import rife.database.exceptions.RowProcessorErrorException;
+import rife.database.queries.Delete;
+import rife.database.queries.Insert;
 import rife.database.queries.Query;
 import rife.database.queries.ReadQuery;
+import rife.database.queries.Select;
+import rife.database.queries.Update;
 import rife.tools.ExceptionUtils;
 import rife.tools.InnerClassException;
 import rife.tools.InputStreamUser;
@@ -20,9 +25,23 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This is a convenience class to make it easy to control the queries that
@@ -40,6 +59,8 @@ import java.util.logging.Logger;
  * <li>{@linkplain #executeUpdate(Query) execute an update query directly}
  * <li>{@linkplain #executeUpdate(Query, PreparedStatementHandler) execute a
  * customizable update query}
+ * <li>{@linkplain #executeBatch(Query, Iterable, BatchPreparedStatementHandler)
+ * execute an update query in batches for many items}
  * <li>{@linkplain #executeQuery(ReadQuery, PreparedStatementHandler) execute a
  * customizable select query}
  * <li>{@linkplain #executeHasResultRows(ReadQuery, PreparedStatementHandler)
@@ -58,6 +79,12 @@ import java.util.logging.Logger;
  * <li>{@linkplain
  * #executeFetchAllBeans(ReadQuery, Class, PreparedStatementHandler) fetch all
  * beans of a customizable select query}
+ * <li>{@linkplain
+ * #executeFetchStream(ReadQuery, Class, PreparedStatementHandler) lazily
+ * stream the beans of a customizable select query}
+ * <li>{@linkplain #withResultCache(long, String...) cache the results} of
+ * select queries
+ * <li>{@linkplain #async() execute queries asynchronously}
  * </ul>
  * <p>Lower-level methods are also available for the sake of repetitive
  * code-reduction. To obtain execute regular statements directly,
@@ -79,6 +106,9 @@ import java.util.logging.Logger;
  */
 public class DbQueryManager implements Cloneable {
     private final Datasource datasource_;
+    private long resultCacheTimeToLive_ = -1;
+    private Set<String> resultCacheTables_ = null;
+    private DbQueryManager uncachedManager_ = null;
 
     /**
      * Instantiates a new {@code DbQueryManager} object and ties it to
@@ -121,7 +151,9 @@ public class DbQueryManager implements Cloneable {
         try {
             var statement = connection.createStatement();
             try {
-                return statement.executeUpdate(sql);
+                var result = statement.executeUpdate(sql);
+                dataChanged(null);
+                return result;
             } finally {
                 defensiveClose(statement);
             }
@@ -159,7 +191,9 @@ public class DbQueryManager implements Cloneable {
         try {
             var statement = connection.createStatement();
             try {
-                return statement.executeUpdate(query);
+                var result = statement.executeUpdate(query);
+                dataChanged(query);
+                return result;
             } finally {
                 defensiveClose(statement);
             }
@@ -239,11 +273,15 @@ public class DbQueryManager implements Cloneable {
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             try {
+                int result;
                 if (null == full_handler) {
-                    return statement.executeUpdate();
+                    result = statement.executeUpdate();
+                } else {
+                    result = full_handler.performUpdate(statement);
                 }
+                dataChanged(query);
 
-                return full_handler.performUpdate(statement);
+                return result;
             } finally {
                 defensiveClose(statement);
             }
@@ -252,6 +290,119 @@ public class DbQueryManager implements Cloneable {
         }
     }
 
+    /**
+     * Safely executes an update query once for every item of a collection by
+     * sending the parameters to the database in batches. The batch size is
+     * obtained from {@link rife.config.RifeConfig.DatabaseConfig#getBatchSize()}.
+     * <p>See {@link #executeBatch(Query, Iterable, BatchPreparedStatementHandler, int)}
+     * for all the details.
+     *
+     * @param query   the query builder instance that needs to be executed
+     * @param items   the items that the query has to be executed for
+     * @param handler an instance of {@code BatchPreparedStatementHandler}
+     *                that sets the parameters of the statement for each item
+     * @return the row counts for each item, in the order of the items
+     * @throws DatabaseException see {@link DbStatement#executeBatch()}
+     * @see #executeBatch(Query, Iterable, BatchPreparedStatementHandler, int)
+     * @since 1.4
+     */
+    public <ItemType> int[] executeBatch(Query query, Iterable<ItemType> items, BatchPreparedStatementHandler<ItemType> handler)
+    throws DatabaseException {
+        return executeBatch(query, items, handler, RifeConfig.database().getBatchSize());
+    }
+
+    /**
+     * Safely executes an update query once for every item of a collection by
+     * sending the parameters to the database in batches. It relies on the
+     * wrapped {@link DbPreparedStatement#addBatch()} and {@link
+     * DbStatement#executeBatch()} methods, which avoids a round trip to the
+     * database for every single item.
+     * <p>The statement is executed inside a transaction, an already active
+     * transaction is simply re-used. When an error occurs, a transaction
+     * that was started by this method is rolled back.
+     * <p>Some drivers don't report the row count of the individual items of
+     * a batch. For these items, the returned count will be
+     * {@link java.sql.Statement#SUCCESS_NO_INFO}.
+     * <h4>Example</h4>
+     * <pre>var manager = new DbQueryManager(datasource);
+     * var insert = new Insert(datasource)
+     *     .into("person").fieldParameter("name");
+     * var counts = manager.executeBatch(insert, List.of("me", "you"),
+     *     (statement, name) -> statement.setString("name", name), 500);
+     * </pre>
+     *
+     * @param query     the query builder instance that needs to be executed
+     * @param items     the items that the query has to be executed for
+     * @param handler   an instance of {@code BatchPreparedStatementHandler}
+     *                  that sets the parameters of the statement for each item
+     * @param batchSize the maximum number of items that are sent to the
+     *                  database at once
+     * @return the row counts for each item, in the order of the items
+     * @throws DatabaseException see {@link DbStatement#executeBatch()}
+     * @see BatchPreparedStatementHandler
+     * @see DbPreparedStatement#addBatch()
+     * @see DbStatement#executeBatch()
+     * @since 1.4
+     */
+    public <ItemType> int[] executeBatch(Query query, Iterable<ItemType> items, BatchPreparedStatementHandler<ItemType> handler, int batchSize)
+    throws DatabaseException {
+        if (null == query) throw new IllegalArgumentException("query can't be null.");
+        if (null == items) throw new IllegalArgumentException("items can't be null.");
+        if (null == handler) throw new IllegalArgumentException("handler can't be null.");
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize should be at least 1.");
+
+        return inTransaction(() -> {
+            var counts = new int[items instanceof Collection<?> c ? c.size() : batchSize];
+            var total = 0;
+            var connection = getConnection();
+            try {
+                var statement = getPreparedStatement(query, null, connection);
+                try {
+                    var pending = 0;
+                    for (var item : items) {
+                        handler.setParameters(statement, item);
+                        statement.addBatch();
+                        if (++pending == batchSize) {
+                            counts = storeBatchCounts(counts, total, statement.executeBatch(), pending);
+                            total += pending;
+                            pending = 0;
+                        }
+                    }
+                    if (pending > 0) {
+                        counts = storeBatchCounts(counts, total, statement.executeBatch(), pending);
+                        total += pending;
+                    }
+                    dataChanged(query);
+                } finally {
+                    defensiveClose(statement);
+                }
+            } finally {
+                connection.close();
+            }
+
+            if (counts.length == total) {
+                return counts;
+            }
+            return Arrays.copyOf(counts, total);
+        });
+    }
+
+    private static int[] storeBatchCounts(int[] counts, int offset, int[] batchCounts, int rows) {
+        if (counts.length < offset + rows) {
+            counts = Arrays.copyOf(counts, Math.max(offset + rows, counts.length * 2));
+        }
+
+        // some drivers return a single or no count at all for a batch,
+        // the individual row counts are unknown then
+        if (null == batchCounts || batchCounts.length != rows) {
+            Arrays.fill(counts, offset, offset + rows, Statement.SUCCESS_NO_INFO);
+        } else {
+            System.arraycopy(batchCounts, 0, counts, offset, rows);
+        }
+
+        return counts;
+    }
+
     private boolean executeHasResultRows(DbPreparedStatement statement, DbPreparedStatementHandler handler) {
         executeQuery(statement, handler);
 
@@ -320,8 +471,12 @@ public class DbQueryManager implements Cloneable {
     throws DatabaseException {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
+        if (resultCacheTimeToLive_ >= 0) {
+            return executeCached(query, handler, "hasResultRows", () -> uncachedManager_.executeHasResultRows(query, handler));
+        }
+
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             try {
@@ -341,7 +496,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -407,8 +562,12 @@ public class DbQueryManager implements Cloneable {
     throws DatabaseException {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
+        if (resultCacheTimeToLive_ >= 0) {
+            return executeCached(query, handler, String.class, () -> uncachedManager_.executeGetFirstString(query, handler));
+        }
+
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             try {
@@ -434,7 +593,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -491,8 +650,12 @@ public class DbQueryManager implements Cloneable {
     throws DatabaseException {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
+        if (resultCacheTimeToLive_ >= 0) {
+            return executeCached(query, handler, boolean.class, () -> uncachedManager_.executeGetFirstBoolean(query, handler));
+        }
+
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             try {
@@ -518,7 +681,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -575,8 +738,12 @@ public class DbQueryManager implements Cloneable {
     throws DatabaseException {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
+        if (resultCacheTimeToLive_ >= 0) {
+            return executeCached(query, handler, byte.class, () -> uncachedManager_.executeGetFirstByte(query, handler));
+        }
+
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             try {
@@ -602,7 +769,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -659,8 +826,12 @@ public class DbQueryManager implements Cloneable {
     throws DatabaseException {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
+        if (resultCacheTimeToLive_ >= 0) {
+            return executeCached(query, handler, short.class, () -> uncachedManager_.executeGetFirstShort(query, handler));
+        }
+
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             try {
@@ -686,7 +857,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -741,8 +912,12 @@ public class DbQueryManager implements Cloneable {
     throws DatabaseException {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
+        if (resultCacheTimeToLive_ >= 0) {
+            return executeCached(query, handler, int.class, () -> uncachedManager_.executeGetFirstInt(query, handler));
+        }
+
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             try {
@@ -768,7 +943,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -825,8 +1000,12 @@ public class DbQueryManager implements Cloneable {
     throws DatabaseException {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
+        if (resultCacheTimeToLive_ >= 0) {
+            return executeCached(query, handler, long.class, () -> uncachedManager_.executeGetFirstLong(query, handler));
+        }
+
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             try {
@@ -852,7 +1031,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -909,8 +1088,12 @@ public class DbQueryManager implements Cloneable {
     throws DatabaseException {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
+        if (resultCacheTimeToLive_ >= 0) {
+            return executeCached(query, handler, float.class, () -> uncachedManager_.executeGetFirstFloat(query, handler));
+        }
+
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             try {
@@ -936,7 +1119,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -993,8 +1176,12 @@ public class DbQueryManager implements Cloneable {
     throws DatabaseException {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
+        if (resultCacheTimeToLive_ >= 0) {
+            return executeCached(query, handler, double.class, () -> uncachedManager_.executeGetFirstDouble(query, handler));
+        }
+
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             try {
@@ -1020,7 +1207,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -1077,8 +1264,12 @@ public class DbQueryManager implements Cloneable {
     throws DatabaseException {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
+        if (resultCacheTimeToLive_ >= 0) {
+            return executeCached(query, handler, byte[].class, () -> uncachedManager_.executeGetFirstBytes(query, handler));
+        }
+
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             try {
@@ -1104,7 +1295,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -1161,8 +1352,12 @@ public class DbQueryManager implements Cloneable {
     throws DatabaseException {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
+        if (resultCacheTimeToLive_ >= 0) {
+            return executeCached(query, handler, java.sql.Date.class, () -> uncachedManager_.executeGetFirstDate(query, handler));
+        }
+
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             try {
@@ -1188,7 +1383,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -1250,7 +1445,7 @@ public class DbQueryManager implements Cloneable {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             try {
@@ -1276,7 +1471,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -1333,8 +1528,12 @@ public class DbQueryManager implements Cloneable {
     throws DatabaseException {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
+        if (resultCacheTimeToLive_ >= 0) {
+            return executeCached(query, handler, java.sql.Time.class, () -> uncachedManager_.executeGetFirstTime(query, handler));
+        }
+
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             try {
@@ -1360,7 +1559,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -1422,7 +1621,7 @@ public class DbQueryManager implements Cloneable {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             try {
@@ -1448,7 +1647,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -1505,8 +1704,12 @@ public class DbQueryManager implements Cloneable {
     throws DatabaseException {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
+        if (resultCacheTimeToLive_ >= 0) {
+            return executeCached(query, handler, java.sql.Timestamp.class, () -> uncachedManager_.executeGetFirstTimestamp(query, handler));
+        }
+
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             try {
@@ -1532,7 +1735,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -1594,7 +1797,7 @@ public class DbQueryManager implements Cloneable {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             try {
@@ -1620,7 +1823,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -1691,7 +1894,7 @@ public class DbQueryManager implements Cloneable {
         if (null == user) throw new IllegalArgumentException("user can't be null.");
 
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             InputStream stream = null;
@@ -1717,7 +1920,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -1788,7 +1991,7 @@ public class DbQueryManager implements Cloneable {
         if (null == user) throw new IllegalArgumentException("user can't be null.");
 
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             Reader reader = null;
@@ -1814,7 +2017,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -1885,7 +2088,7 @@ public class DbQueryManager implements Cloneable {
         if (null == user) throw new IllegalArgumentException("user can't be null.");
 
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             InputStream stream = null;
@@ -1911,7 +2114,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -2004,7 +2207,7 @@ public class DbQueryManager implements Cloneable {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             try {
@@ -2028,7 +2231,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -2125,6 +2328,10 @@ public class DbQueryManager implements Cloneable {
     throws DatabaseException {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
+        if (resultCacheTimeToLive_ >= 0) {
+            return executeCached(query, handler, beanClass, () -> uncachedManager_.executeFetchFirstBean(query, beanClass, handler));
+        }
+
         var full_handler = ensureFullPreparedStatementHandler(handler);
         var bean_fetcher = new DbBeanFetcher<>(getDatasource(), beanClass);
         if (executeFetchFirst(query, bean_fetcher, full_handler)) {
@@ -2221,7 +2428,7 @@ public class DbQueryManager implements Cloneable {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             try {
@@ -2243,7 +2450,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -2341,6 +2548,10 @@ public class DbQueryManager implements Cloneable {
     throws DatabaseException {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
+        if (resultCacheTimeToLive_ >= 0) {
+            return executeCached(query, handler, List.of(List.class, beanClass), () -> uncachedManager_.executeFetchAllBeans(query, beanClass, handler));
+        }
+
         var full_handler = ensureFullPreparedStatementHandler(handler);
         var bean_fetcher = new DbBeanFetcher<>(getDatasource(), beanClass, true);
         executeFetchAll(query, bean_fetcher, full_handler);
@@ -2348,6 +2559,163 @@ public class DbQueryManager implements Cloneable {
         return bean_fetcher.getCollectedInstances();
     }
 
+    /**
+     * Lazily fetches the bean instances from the results of a select query.
+     * <p>See {@link #executeFetchStream(ReadQuery, DbBeanFetcher, PreparedStatementHandler)}
+     * for all the details.
+     *
+     * @param query     the query builder instance that needs to be executed
+     * @param beanClass the class of the bean
+     * @return a {@code Stream} of the beans that has to be closed
+     * @throws DatabaseException see {@link DbBeanFetcher} and {@link
+     *                           DbPreparedStatement#executeQuery()}
+     * @see #executeFetchStream(ReadQuery, DbBeanFetcher, PreparedStatementHandler)
+     * @since 1.4
+     */
+    public <BeanType> Stream<BeanType> executeFetchStream(ReadQuery query, Class<BeanType> beanClass)
+    throws DatabaseException {
+        return executeFetchStream(query, beanClass, null);
+    }
+
+    /**
+     * Lazily fetches the bean instances from the results of a customizable
+     * select query.
+     * <p>See {@link #executeFetchStream(ReadQuery, DbBeanFetcher, PreparedStatementHandler)}
+     * for all the details.
+     *
+     * @param query     the query builder instance that needs to be executed
+     * @param beanClass the class of the bean
+     * @param handler   an instance of {@code PreparedStatementHandler}
+     *                  that will be used to customize the query execution; or
+     *                  {@code null} if you don't want to customize it at all
+     * @return a {@code Stream} of the beans that has to be closed
+     * @throws DatabaseException see {@link DbBeanFetcher} and {@link
+     *                           DbPreparedStatement#executeQuery()}
+     * @see #executeFetchStream(ReadQuery, DbBeanFetcher, PreparedStatementHandler)
+     * @since 1.4
+     */
+    public <BeanType> Stream<BeanType> executeFetchStream(ReadQuery query, Class<BeanType> beanClass, PreparedStatementHandler handler)
+    throws DatabaseException {
+        if (null == beanClass) throw new IllegalArgumentException("beanClass can't be null.");
+
+        return executeFetchStream(query, new DbBeanFetcher<>(getDatasource(), beanClass), handler);
+    }
+
+    /**
+     * Lazily fetches the bean instances from the results of a customizable
+     * select query. Contrary to {@link #executeFetchAllBeans(ReadQuery, Class, PreparedStatementHandler)
+     * executeFetchAllBeans}, the rows are only turned into beans while the
+     * returned stream is being consumed, which makes it possible to process
+     * very large results without keeping them in memory.
+     * <p>The results are read through a forward-only cursor. The number of
+     * rows that the driver fetches at once is obtained from {@link
+     * rife.config.RifeConfig.DatabaseConfig#getFetchSize()}, it can be
+     * changed for an individual query with {@link
+     * DbStatement#setFetchSize(int)} in the handler. Note that some drivers,
+     * like PostgreSQL's, only use a cursor inside a transaction.
+     * <p>The statement and the connection stay in use until the stream is
+     * closed, it's thus important to always close it, for instance with a
+     * try-with-resources statement. Inside a transaction, the connection of
+     * the transaction is used and it stays reserved for the transaction.
+     * <p>When the {@code gotBeanInstance} method of the bean fetcher returns
+     * {@code false}, the stream ends after that bean.
+     * <h4>Example</h4>
+     * <pre>var manager = new DbQueryManager(datasource);
+     * var select = new Select(datasource)
+     *     .from("person").fields(Person.class);
+     * try (var people = manager.executeFetchStream(select,
+     *         new DbBeanFetcher&lt;&gt;(datasource, Person.class), null)) {
+     *     people.forEach(person -&gt; export(person));
+     * }
+     * </pre>
+     *
+     * @param query       the query builder instance that needs to be executed
+     * @param beanFetcher the bean fetcher that will turn each row into a bean
+     * @param handler     an instance of {@code PreparedStatementHandler}
+     *                    that will be used to customize the query execution; or
+     *                    {@code null} if you don't want to customize it at all
+     * @return a {@code Stream} of the beans that has to be closed
+     * @throws DatabaseException see {@link DbBeanFetcher} and {@link
+     *                           DbPreparedStatement#executeQuery()}
+     * @see DbBeanFetcher
+     * @see #executeFetchAllBeans(ReadQuery, Class, PreparedStatementHandler)
+     * @since 1.4
+     */
+    public <BeanType> Stream<BeanType> executeFetchStream(ReadQuery query, DbBeanFetcher<BeanType> beanFetcher, PreparedStatementHandler handler)
+    throws DatabaseException {
+        if (null == query) throw new IllegalArgumentException("query can't be null.");
+        if (null == beanFetcher) throw new IllegalArgumentException("beanFetcher can't be null.");
+
+        var full_handler = ensureFullPreparedStatementHandler(handler);
+        var connection = datasource_.getReadConnection();
+        DbPreparedStatement statement = null;
+        DbResultSet result_set;
+        try {
+            statement = getPreparedStatement(query, full_handler, connection);
+            var fetch_size = RifeConfig.database().getFetchSize();
+            if (fetch_size > 0) {
+                statement.setFetchSize(fetch_size);
+            }
+            executeQuery(statement, full_handler);
+            result_set = getResultSet(statement);
+        } catch (RuntimeException | Error e) {
+            defensiveClose(statement);
+            datasource_.releaseReadConnection(connection);
+            throw e;
+        }
+
+        final var stream_statement = statement;
+        var iterator = new Iterator<BeanType>() {
+            private BeanType next_ = null;
+            private boolean finished_ = false;
+
+            public boolean hasNext() {
+                if (next_ != null) {
+                    return true;
+                }
+                if (finished_ || null == result_set) {
+                    return false;
+                }
+
+                try {
+                    if (!result_set.next()) {
+                        finished_ = true;
+                        return false;
+                    }
+                } catch (SQLException e) {
+                    finished_ = true;
+                    stream_statement.handleException();
+                    throw new DatabaseException(e);
+                }
+
+                finished_ = true;
+                beanFetcher.processRowWrapper(result_set);
+                finished_ = !beanFetcher.wasSuccessful();
+                next_ = beanFetcher.getBeanInstance();
+                return next_ != null;
+            }
+
+            public BeanType next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                var next = next_;
+                next_ = null;
+                return next;
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(() -> {
+                try {
+                    defensiveClose(stream_statement);
+                } finally {
+                    datasource_.releaseReadConnection(connection);
+                }
+            });
+    }
+
     /**
      * Executes a customizable select statement. It relies on the wrapped
      * {@link DbPreparedStatement#executeQuery()} method, but also
@@ -2402,7 +2770,7 @@ public class DbQueryManager implements Cloneable {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
         var full_handler = ensureFullPreparedStatementHandler(handler);
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, full_handler, connection);
             try {
@@ -2421,7 +2789,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -2468,7 +2836,7 @@ public class DbQueryManager implements Cloneable {
     throws DatabaseException {
         if (null == query) throw new IllegalArgumentException("query can't be null.");
 
-        var connection = getConnection();
+        var connection = datasource_.getReadConnection();
         try {
             var statement = getPreparedStatement(query, handler, connection);
             try {
@@ -2488,7 +2856,7 @@ public class DbQueryManager implements Cloneable {
                 defensiveClose(statement);
             }
         } finally {
-            connection.close();
+            datasource_.releaseReadConnection(connection);
         }
     }
 
@@ -2526,16 +2894,19 @@ public class DbQueryManager implements Cloneable {
     throws InnerClassException, DatabaseException {
         if (null == user) throw new IllegalArgumentException("user can't be null.");
 
-        var connection = datasource_.getConnection();
+        // the reservation is only visible to the current thread, so it can
+        // be set up without coordinating with any other thread
         var pool = datasource_.getPool();
-        synchronized (pool) {
-            var does_threadconnection_exist = pool.hasThreadConnection(Thread.currentThread());
-            try {
-                if (!does_threadconnection_exist) pool.registerThreadConnection(Thread.currentThread(), connection);
+        var does_threadconnection_exist = pool.hasThreadConnection(Thread.currentThread());
+        var connection = datasource_.getConnection();
+        try {
+            if (!does_threadconnection_exist) pool.registerThreadConnection(Thread.currentThread(), connection);
 
-                return (ResultType) user.useConnection(connection);
-            } finally {
-                if (!does_threadconnection_exist) pool.unregisterThreadConnection(Thread.currentThread());
+            return (ResultType) user.useConnection(connection);
+        } finally {
+            if (!does_threadconnection_exist) {
+                pool.unregisterThreadConnection(Thread.currentThread());
+                connection.close();
             }
         }
     }
@@ -2601,32 +2972,36 @@ public class DbQueryManager implements Cloneable {
             }
         }
 
+        var isolation = full_user.getTransactionIsolation();
         var started_transaction = false;
+        var bound_to_thread = false;
         DbConnection connection = null;
         try {
-            synchronized (datasource_) {
+            // beginning the transaction atomically claims the connection for
+            // this thread, if another thread claimed it first, simply try
+            // again with another connection of the pool
+            while (true) {
                 connection = datasource_.getConnection();
-                var isolation = full_user.getTransactionIsolation();
-                if (isolation != -1) {
-                    connection.setTransactionIsolation(isolation);
+                bound_to_thread = datasource_.getPool().hasThreadConnection(Thread.currentThread());
+                started_transaction = connection.beginTransaction(isolation);
+                if (started_transaction ||
+                    bound_to_thread ||
+                    !connection.supportsTransactions()) {
+                    break;
                 }
-                started_transaction = connection.beginTransaction();
+
+                connection.close();
+                connection = null;
             }
 
             var result = (ResultType) full_user.useTransaction();
             if (started_transaction) {
                 connection.commit();
-                if (!datasource_.isPooled()) {
-                    connection.close();
-                }
             }
             return result;
         } catch (RollbackException e) {
             if (connection != null) {
                 connection.rollback();
-                if (!datasource_.isPooled()) {
-                    connection.close();
-                }
             }
 
             if (started_transaction) {
@@ -2642,9 +3017,6 @@ public class DbQueryManager implements Cloneable {
                         connection.commit();
                     } else {
                         connection.rollback();
-                        if (!datasource_.isPooled()) {
-                            connection.close();
-                        }
                     }
                 } catch (DatabaseException e2) {
                     // nothing that can be done about this
@@ -2658,9 +3030,6 @@ public class DbQueryManager implements Cloneable {
                 connection != null) {
                 try {
                     connection.rollback();
-                    if (!datasource_.isPooled()) {
-                        connection.close();
-                    }
                 } catch (DatabaseException e2) {
                     // nothing that can be done about this
                     // the connection is probably closed since
@@ -2668,6 +3037,14 @@ public class DbQueryManager implements Cloneable {
                 }
             }
             throw e;
+        } finally {
+            // only release a connection that was obtained for this
+            // transaction, a connection that was already bound to the
+            // thread is released by the code that bound it
+            if (connection != null &&
+                !bound_to_thread) {
+                connection.close();
+            }
         }
     }
 
@@ -2890,6 +3267,177 @@ public class DbQueryManager implements Cloneable {
         return datasource_;
     }
 
+    /**
+     * Obtains a query manager that caches the results of the select queries
+     * it executes in the {@link QueryResultCache} of its datasource.
+     * <p>Results are only cached by the methods that retrieve the first
+     * value of a query, its first bean or all its beans; and not when
+     * they're executed inside a transaction. Results are identified by the
+     * SQL of the query and the values that the {@code
+     * PreparedStatementHandler} sets for its parameters. When a result is
+     * found in the cache, the handler is only used to set these parameters,
+     * the query isn't executed and its results aren't concluded.
+     * <p>Nothing is cached when the datasource doesn't have a query result
+     * cache.
+     * <h4>Example</h4>
+     * <pre>var countries = manager.withResultCache(60000, "country")
+     *     .executeFetchAllBeans(new Select(datasource).from("country"), Country.class);
+     * </pre>
+     *
+     * @param timeToLive the number of milliseconds the results stay cached;
+     *                   or {@code 0} if they're only evicted when the cache
+     *                   is full or when their tables are changed
+     * @param tables     the names of the tables the queries read from, when
+     *                   no tables are provided, the results are invalidated
+     *                   by changes to any table
+     * @return a query manager that caches the results of its queries
+     * @see Datasource#setQueryResultCache(QueryResultCache)
+     * @since 1.4
+     */
+    public DbQueryManager withResultCache(long timeToLive, String... tables) {
+        if (timeToLive < 0) throw new IllegalArgumentException("timeToLive can't be negative.");
+
+        var manager = (DbQueryManager) clone();
+        manager.uncachedManager_ = (uncachedManager_ != null ? uncachedManager_ : this);
+        manager.resultCacheTimeToLive_ = timeToLive;
+        manager.resultCacheTables_ = null;
+        if (tables != null && tables.length > 0) {
+            var lowercased_tables = new HashSet<String>();
+            for (var table : tables) {
+                lowercased_tables.add(table.toLowerCase());
+            }
+            manager.resultCacheTables_ = Collections.unmodifiableSet(lowercased_tables);
+        }
+
+        return manager;
+    }
+
+    /**
+     * Obtains an asynchronous view of this query manager, which executes its
+     * queries on the {@linkplain Datasource#getAsyncExecutor() executor} of
+     * the datasource and returns their results as {@code
+     * CompletableFuture}s.
+     * <p>Asynchronous queries never take part in the transaction of the
+     * calling thread, see {@link AsyncDbQueryManager} for the details.
+     * <h4>Example</h4>
+     * <pre>var async = manager.async();
+     * var count = async.executeGetFirstInt(new Select(datasource).from("person").field("count(*)"));
+     * var people = async.executeFetchAllBeans(new Select(datasource).from("person"), Person.class);
+     * CompletableFuture.allOf(count, people).join();
+     * </pre>
+     *
+     * @return the asynchronous query manager
+     * @see AsyncDbQueryManager
+     * @since 1.4
+     */
+    public AsyncDbQueryManager async() {
+        return new AsyncDbQueryManager(this);
+    }
+
+    /**
+     * Indicates whether the current thread executes its queries on a
+     * connection that is bound to it, which is the case during a
+     * transaction.
+     *
+     * @return {@code true} if a connection is bound to the current thread;
+     * or
+     * <p>{@code false} otherwise
+     * @see #inTransaction(TransactionUser)
+     * @since 1.4
+     */
+    protected boolean hasThreadConnection() {
+        return datasource_.getPool().hasThreadConnection(Thread.currentThread());
+    }
+
+    /**
+     * Runs an action once the transaction that the current thread is
+     * executing ended, or right away when no transaction is active.
+     * <p>This is used to invalidate cached data after the changes of a
+     * transaction became visible to the other threads.
+     *
+     * @param action the action that should run
+     * @see DbConnection#afterTransaction(Runnable)
+     * @since 1.4
+     */
+    protected void afterTransaction(Runnable action) {
+        if (hasThreadConnection()) {
+            getConnection().afterTransaction(action);
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Handles the changes that were made to the data by the execution of a
+     * query. This invalidates the cached results that could have been
+     * changed and lets the datasource know that the current thread wrote
+     * data.
+     *
+     * @param query the query that was executed; or {@code null} if the
+     *              changed tables aren't known
+     * @see Datasource#setQueryResultCache(QueryResultCache)
+     * @see ReplicatedDatasource#setReadYourWritesWindow(long)
+     * @since 1.4
+     */
+    protected void dataChanged(Query query) {
+        datasource_.recordDataChange();
+
+        var cache = datasource_.getQueryResultCache();
+        if (null == cache) {
+            return;
+        }
+
+        String table = null;
+        if (query instanceof Insert insert) {
+            table = insert.getInto();
+        } else if (query instanceof Update update) {
+            table = update.getTable();
+        } else if (query instanceof Delete delete) {
+            table = delete.getFrom();
+        }
+
+        // invalidate again when the transaction ended, a concurrent query
+        // could otherwise cache the results that are being replaced
+        if (null == table) {
+            cache.clear();
+            afterTransaction(cache::clear);
+        } else {
+            final var changed_table = table;
+            cache.invalidateTable(changed_table);
+            afterTransaction(() -> cache.invalidateTable(changed_table));
+        }
+    }
+
+    // the key of a cached result contains its type, which guarantees the type
+    @SuppressWarnings("unchecked")
+    private <ResultType> ResultType executeCached(ReadQuery query, PreparedStatementHandler handler, Object resultType, Supplier<ResultType> execution) {
+        var cache = datasource_.getQueryResultCache();
+        if (null == cache ||
+            hasThreadConnection()) {
+            return execution.get();
+        }
+
+        Map<Integer, Object> parameters = Collections.emptyMap();
+        if (handler != null ||
+            (query instanceof Select select && select.getSeekValues() != null)) {
+            parameters = ParameterValuesRecorder.record(datasource_, query, handler);
+            if (null == parameters) {
+                return execution.get();
+            }
+        }
+
+        var key = new QueryResultCache.Key(query.getSql(), parameters, resultType);
+        var version = cache.getVersion();
+        var entry = cache.get(key);
+        if (entry != null) {
+            return (ResultType) QueryResultCache.copyResult(entry.result());
+        }
+
+        var result = execution.get();
+        cache.put(key, QueryResultCache.copyResult(result), resultCacheTables_, resultCacheTimeToLive_, version);
+        return result;
+    }
+
     /**
      * Simply clones the instance with the default clone method. This creates
      * a shallow copy of all fields and the clone will in fact just be another
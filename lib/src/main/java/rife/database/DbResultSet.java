@@ -24,6 +24,7 @@ public class DbResultSet implements ResultSet, Cloneable {
     protected ResultSet resultSet_;
     protected boolean firstRowSkew_ = false;
     protected boolean hasResultRows_ = false;
+    private int rowCount_ = 0;
 
     DbResultSet(DbStatement statement, ResultSet resultSet) {
         assert statement != null;
@@ -41,6 +42,7 @@ public class DbResultSet implements ResultSet, Cloneable {
         } else if (resultSet_.next()) {
             hasResultRows_ = true;
             firstRowSkew_ = false;
+            rowCount_++;
             return true;
         }
 
@@ -229,10 +231,14 @@ public class DbResultSet implements ResultSet, Cloneable {
 
     public final void close()
     throws SQLException {
+        var statement = statement_;
         statement_ = null;
         if (resultSet_ != null) {
             resultSet_.close();
         }
+        if (statement != null) {
+            statement.resultSetClosed(this, rowCount_);
+        }
         firstRowSkew_ = false;
         hasResultRows_ = false;
     }
@@ -18,6 +18,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -55,9 +57,11 @@ import java.util.logging.Logger;
  */
 public class DbStatement implements Cloneable, AutoCloseable {
     private DbResultSet resultSet_ = null;
+    private QueryTiming resultSetTiming_ = null;
 
     final Statement statement_;
     final DbConnection connection_;
+    private boolean modified_ = false;
 
     /**
      * Constructs a new {@code DbStatement} from an existing
@@ -224,6 +228,136 @@ public class DbStatement implements Cloneable, AutoCloseable {
         }
     }
 
+    QueryTiming startTiming(QueryTiming.Kind kind, String sql) {
+        var datasource = connection_.getDatasource();
+        if (datasource.isTimingQueries()) {
+            return new QueryTiming(datasource, kind, sql);
+        }
+
+        return null;
+    }
+
+    void finishTiming(QueryTiming timing, int rowCount) {
+        if (timing != null) {
+            timing.executed(getTimedParameterValues(), rowCount);
+            reportTiming(timing);
+        }
+    }
+
+    void timeResultSet(QueryTiming timing) {
+        if (timing != null) {
+            timing.executed(getTimedParameterValues(), -1);
+
+            // queries are reported when their result set is closed, which
+            // makes it possible to include the time to consume the rows
+            if (null == resultSet_) {
+                reportTiming(timing);
+            } else {
+                resultSetTiming_ = timing;
+            }
+        }
+    }
+
+    void resultSetClosed(DbResultSet resultSet, int rowCount) {
+        var timing = resultSetTiming_;
+        if (timing != null &&
+            resultSet == resultSet_) {
+            resultSetTiming_ = null;
+            timing.consumed(rowCount);
+            reportTiming(timing);
+        }
+    }
+
+    String getTimedSql() {
+        return null;
+    }
+
+    Map<Integer, Object> getTimedParameterValues() {
+        return null;
+    }
+
+    private static int countBatchRows(int[] counts) {
+        var total = 0;
+        for (var count : counts) {
+            if (count < 0) {
+                return -1;
+            }
+            total += count;
+        }
+        return total;
+    }
+
+    private void reportTiming(QueryTiming timing) {
+        timing.getDatasource().queryTimed(timing);
+
+        var threshold = RifeConfig.database().getSlowQueryThreshold();
+        if (threshold > 0 &&
+            timing.getTotalNanos() >= TimeUnit.MILLISECONDS.toNanos(threshold)) {
+            var logger = Logger.getLogger("rife.database");
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.warning(formatSlowQuery(timing, RifeConfig.database().getSlowQueryParameterValues()));
+            }
+        }
+    }
+
+    static String formatSlowQuery(QueryTiming timing, boolean parameterValues) {
+        var output = new StringBuilder("slow query ");
+        output.append(TimeUnit.NANOSECONDS.toMillis(timing.getTotalNanos()));
+        output.append("ms (execution ");
+        output.append(TimeUnit.NANOSECONDS.toMillis(timing.getExecutionNanos()));
+        output.append("ms");
+        if (QueryTiming.Kind.QUERY == timing.getKind()) {
+            output.append(", consumption ");
+            output.append(TimeUnit.NANOSECONDS.toMillis(timing.getConsumptionNanos()));
+            output.append("ms");
+        }
+        if (timing.getRowCount() >= 0) {
+            output.append(", ");
+            output.append(timing.getRowCount());
+            output.append(" rows");
+        }
+        output.append(")");
+
+        var query_manager = timing.getQueryManager();
+        if (query_manager != null) {
+            output.append(" by ");
+            output.append(query_manager);
+        }
+
+        output.append(" : ");
+        output.append(timing.getSql());
+
+        var parameters = timing.getParameterValues();
+        if (parameters != null && !parameters.isEmpty()) {
+            output.append(" [");
+            var first = true;
+            for (var parameter : parameters.entrySet()) {
+                if (!first) {
+                    output.append(", ");
+                }
+                first = false;
+
+                output.append(parameter.getKey());
+                output.append("=");
+                var value = parameter.getValue();
+                if (null == value) {
+                    output.append("null");
+                } else if (parameterValues) {
+                    output.append(value);
+                } else {
+                    // only reveal the type of the values, they can contain
+                    // personal data or credentials
+                    output.append("<");
+                    output.append(value.getClass().getSimpleName());
+                    output.append(">");
+                }
+            }
+            output.append("]");
+        }
+
+        return output.toString();
+    }
+
     protected void traceBatch(String sql) {
         if (RifeConfig.database().getSqlDebugTrace()) {
             Logger logger = Logger.getLogger("rife.database");
@@ -498,7 +632,11 @@ public class DbStatement implements Cloneable, AutoCloseable {
         try {
             waitForConnection();
 
-            return statement_.executeBatch();
+            var timing = startTiming(QueryTiming.Kind.BATCH, getTimedSql());
+            var result = statement_.executeBatch();
+            finishTiming(timing, countBatchRows(result));
+
+            return result;
         } catch (SQLException e) {
             handleException();
             throw new BatchExecutionErrorException(connection_.getDatasource(), e);
@@ -529,10 +667,12 @@ public class DbStatement implements Cloneable, AutoCloseable {
             cleanResultSet();
 
             long start = startTrace();
+            var timing = startTiming(QueryTiming.Kind.QUERY, sql);
             statement_.execute(sql);
             outputTrace(start, sql);
 
             setResultset(statement_.getResultSet());
+            timeResultSet(timing);
 
             return;
         } catch (SQLException e) {
@@ -587,8 +727,10 @@ public class DbStatement implements Cloneable, AutoCloseable {
             waitForConnection();
 
             long start = startTrace();
+            var timing = startTiming(QueryTiming.Kind.UPDATE, sql);
             int result = statement_.executeUpdate(sql);
             outputTrace(start, sql);
+            finishTiming(timing, result);
 
             return result;
         } catch (SQLException e) {
@@ -1072,6 +1214,7 @@ public class DbStatement implements Cloneable, AutoCloseable {
      */
     public void setFetchDirection(int direction)
     throws DatabaseException {
+        modified_ = true;
         try {
             statement_.setFetchDirection(direction);
         } catch (SQLException e) {
@@ -1100,6 +1243,7 @@ public class DbStatement implements Cloneable, AutoCloseable {
      */
     public void setFetchSize(int rows)
     throws DatabaseException {
+        modified_ = true;
         try {
             statement_.setFetchSize(rows);
         } catch (SQLException e) {
@@ -1129,6 +1273,7 @@ public class DbStatement implements Cloneable, AutoCloseable {
      */
     public void setMaxFieldSize(int max)
     throws DatabaseException {
+        modified_ = true;
         try {
             statement_.setMaxFieldSize(max);
         } catch (SQLException e) {
@@ -1153,6 +1298,7 @@ public class DbStatement implements Cloneable, AutoCloseable {
      */
     public void setMaxRows(int max)
     throws DatabaseException {
+        modified_ = true;
         try {
             statement_.setMaxRows(max);
         } catch (SQLException e) {
@@ -1176,6 +1322,7 @@ public class DbStatement implements Cloneable, AutoCloseable {
      */
     public void setQueryTimeout(int max)
     throws DatabaseException {
+        modified_ = true;
         try {
             statement_.setQueryTimeout(max);
         } catch (SQLException e) {
@@ -1211,21 +1358,25 @@ public class DbStatement implements Cloneable, AutoCloseable {
             throw new DatabaseException("The connection is not open.");
         }
 
-        while (true) {
-            if (!connection_.isFree()) {
-                try {
-                    synchronized (connection_) {
-                        connection_.wait();
-                    }
-                } catch (InterruptedException e) {
-                    throw new DatabaseException("Timeout while waiting for the connection to become available.");
-                }
-            } else {
-                break;
-            }
+        try {
+            connection_.waitUntilFree();
+        } catch (InterruptedException e) {
+            throw new DatabaseException("Timeout while waiting for the connection to become available.");
         }
     }
 
+    /**
+     * Indicates whether any of the properties of the underlying JDBC
+     * statement have been changed from their defaults.
+     *
+     * @return {@code true} if a property setter was called; or
+     * <p>{@code false} otherwise.
+     * @since 1.4
+     */
+    boolean isModified() {
+        return modified_;
+    }
+
     /**
      * Checks if there's a {@code ResultSet} object present.
      *
@@ -1301,9 +1452,7 @@ public class DbStatement implements Cloneable, AutoCloseable {
             if (connection_.isTransactionValidForThread()) {
                 connection_.rollback();
             } else {
-                synchronized (connection_) {
-                    connection_.notifyAll();
-                }
+                connection_.signalWaiters();
             }
         }
     }
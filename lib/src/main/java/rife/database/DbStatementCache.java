@@ -0,0 +1,160 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded least-recently-used cache of the JDBC prepared statements of one
+ * {@link DbConnection}.
+ * <p>Statements are removed from the cache while they're in use and put
+ * back when the {@link DbPreparedStatement} that wraps them is closed,
+ * which makes it possible to use several statements with the same SQL at
+ * the same time. When the cache is full, the least recently used statement
+ * is closed.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @see Datasource#setStatementCacheSize(int)
+ * @since 1.4
+ */
+class DbStatementCache {
+    static final int UNSPECIFIED = -1;
+
+    /**
+     * Identifies a prepared statement by its SQL and by all the options
+     * that were used to prepare it.
+     *
+     * @since 1.4
+     */
+    record Key(String sql, int autoGeneratedKeys, int resultSetType, int resultSetConcurrency, int resultSetHoldability) {
+        PreparedStatement prepare(java.sql.Connection connection)
+        throws SQLException {
+            if (autoGeneratedKeys != UNSPECIFIED) {
+                return connection.prepareStatement(sql, autoGeneratedKeys);
+            }
+            if (resultSetType != UNSPECIFIED) {
+                return connection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+            }
+            return connection.prepareStatement(sql);
+        }
+    }
+
+    private final Datasource datasource_;
+    private final int maximumSize_;
+    private final LinkedHashMap<Key, PreparedStatement> statements_;
+    private long hits_ = 0;
+    private long misses_ = 0;
+    private long evictions_ = 0;
+
+    DbStatementCache(Datasource datasource, int maximumSize) {
+        assert datasource != null;
+        assert maximumSize > 0;
+
+        datasource_ = datasource;
+        maximumSize_ = maximumSize;
+        statements_ = new LinkedHashMap<>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+                if (size() > maximumSize_) {
+                    evictions_++;
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Takes a statement out of the cache.
+     *
+     * @param key the key of the statement
+     * @return the cached statement; or
+     * <p>{@code null} if no statement is cached for this key
+     * @since 1.4
+     */
+    synchronized PreparedStatement checkout(Key key) {
+        var statement = statements_.remove(key);
+        if (statement != null) {
+            hits_++;
+            datasource_.recordStatementCacheHit();
+        } else {
+            misses_++;
+            datasource_.recordStatementCacheMiss();
+        }
+        return statement;
+    }
+
+    /**
+     * Puts a statement that is not used anymore back into the cache. Its
+     * parameters and batch are cleared first, if that fails or when an
+     * identical statement is already cached, the statement is closed
+     * instead.
+     *
+     * @param key       the key of the statement
+     * @param statement the statement to put back
+     * @since 1.4
+     */
+    void checkin(Key key, PreparedStatement statement) {
+        try {
+            statement.clearParameters();
+            statement.clearWarnings();
+            try {
+                statement.clearBatch();
+            } catch (SQLException e) {
+                // batches are optional for drivers
+            }
+        } catch (SQLException e) {
+            closeQuietly(statement);
+            return;
+        }
+
+        synchronized (this) {
+            if (statements_.containsKey(key)) {
+                closeQuietly(statement);
+            } else {
+                statements_.put(key, statement);
+            }
+        }
+    }
+
+    /**
+     * Closes all the cached statements.
+     *
+     * @since 1.4
+     */
+    synchronized void clear() {
+        for (var statement : statements_.values()) {
+            closeQuietly(statement);
+        }
+        statements_.clear();
+    }
+
+    synchronized int size() {
+        return statements_.size();
+    }
+
+    synchronized long getHits() {
+        return hits_;
+    }
+
+    synchronized long getMisses() {
+        return misses_;
+    }
+
+    synchronized long getEvictions() {
+        return evictions_;
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // the statement is discarded anyway
+        }
+    }
+}
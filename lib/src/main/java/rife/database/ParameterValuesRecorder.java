@@ -0,0 +1,69 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database;
+
+import rife.database.queries.Query;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Map;
+
+/**
+ * Records the parameter values that a handler sets on a prepared statement,
+ * without preparing the statement on a database connection.
+ * The seek values of keyset paginated queries are recorded too.
+ * <p>The handler receives a {@link DbPreparedStatement} that is backed by
+ * a JDBC statement which ignores all the calls, it can thus only be used
+ * for handlers that set parameters and nothing else.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.4
+ */
+final class ParameterValuesRecorder {
+    private ParameterValuesRecorder() {
+    }
+
+    /**
+     * Records the parameter values that a handler sets.
+     *
+     * @param datasource the datasource the query will be executed on
+     * @param query      the query whose parameters are set
+     * @param handler    the handler that sets the parameters; or
+     *                   {@code null} if only the seek values are set
+     * @return the recorded values, ordered by their parameter index; or
+     * <p>{@code null} if some of them can't be compared, like streams and
+     * large objects
+     * @since 1.4
+     */
+    static Map<Integer, Object> record(Datasource datasource, Query query, PreparedStatementHandler handler) {
+        var connection = new DbConnection(ignoringProxy(Connection.class), datasource);
+        var statement = new DbPreparedStatement(connection, query, ignoringProxy(PreparedStatement.class));
+        statement.recordParameterValues();
+        if (handler != null) {
+            handler.setParameters(statement);
+        }
+        statement.setSeekParameters();
+        return statement.getRecordedParameterValues();
+    }
+
+    private static <T> T ignoringProxy(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "toString" -> type.getSimpleName() + " recorder";
+            default -> defaultValue(method.getReturnType());
+        }));
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() ||
+            void.class == type) {
+            return null;
+        }
+        return Array.get(Array.newInstance(type, 1), 0);
+    }
+}
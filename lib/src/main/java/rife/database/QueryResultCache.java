@@ -0,0 +1,270 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database;
+
+import rife.database.exceptions.DatabaseException;
+import rife.tools.BeanUtils;
+import rife.tools.ObjectUtils;
+import rife.tools.exceptions.BeanUtilsException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Bounded least-recently-used cache of the results of read queries that
+ * are executed through a {@link DbQueryManager}.
+ * <p>A cache is installed on a datasource with {@link
+ * Datasource#setQueryResultCache(QueryResultCache)}, query managers then
+ * only use it when they're obtained through {@link
+ * DbQueryManager#withResultCache(long, String...)}. Results are identified
+ * by the SQL of the query, the values of its parameters and the type of
+ * the result.
+ * <p>Each result is tagged with the tables it was read from. Executing an
+ * insert, update or delete query for one of these tables through a {@code
+ * DbQueryManager} of the same datasource removes the result from the
+ * cache. Results without tags are removed by any change.
+ * <p>A result is only stored when none of its tables changed since the
+ * query started, so a result that was read concurrently with a change
+ * isn't kept after it.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.4
+ */
+public class QueryResultCache {
+    /**
+     * Identifies a cached result.
+     *
+     * @since 1.4
+     */
+    record Key(String sql, Map<Integer, Object> parameters, Object resultType) {
+    }
+
+    /**
+     * A cached result, which can be {@code null}.
+     *
+     * @since 1.4
+     */
+    record Entry(Object result, Set<String> tables, long expiration) {
+        boolean isTaggedWith(String table) {
+            return null == tables || tables.contains(table);
+        }
+    }
+
+    private final int maximumSize_;
+    private final LinkedHashMap<Key, Entry> entries_;
+    private final HashMap<String, Long> tableVersions_ = new HashMap<>();
+    private long version_ = 0;
+    private long clearedVersion_ = 0;
+    private long hits_ = 0;
+    private long misses_ = 0;
+    private long evictions_ = 0;
+
+    /**
+     * Creates a new query result cache.
+     *
+     * @param maximumSize the maximum number of results that will be cached
+     * @since 1.4
+     */
+    public QueryResultCache(int maximumSize) {
+        if (maximumSize <= 0) throw new IllegalArgumentException("maximumSize should be at least 1.");
+
+        maximumSize_ = maximumSize;
+        entries_ = new LinkedHashMap<>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > maximumSize_) {
+                    evictions_++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Looks up a cached result.
+     *
+     * @param key the key of the result
+     * @return the cached entry; or
+     * <p>{@code null} if the result isn't cached or if it expired
+     * @since 1.4
+     */
+    synchronized Entry get(Key key) {
+        var entry = entries_.get(key);
+        if (entry != null &&
+            entry.expiration() != 0 &&
+            entry.expiration() < System.currentTimeMillis()) {
+            entries_.remove(key);
+            evictions_++;
+            entry = null;
+        }
+
+        if (null == entry) {
+            misses_++;
+        } else {
+            hits_++;
+        }
+
+        return entry;
+    }
+
+    /**
+     * Retrieves the current version of the cache, which increases with each
+     * invalidation.
+     *
+     * @return the current version
+     * @see #put(Key, Object, Set, long, long)
+     * @since 1.4
+     */
+    synchronized long getVersion() {
+        return version_;
+    }
+
+    /**
+     * Stores a result, unless it was invalidated after the version that
+     * was obtained before the query was executed.
+     *
+     * @param key        the key of the result
+     * @param result     the result, it should not be modified afterwards
+     * @param tables     the lowercase names of the tables the result was
+     *                   read from; or {@code null} if they're not known
+     * @param timeToLive the number of milliseconds the result stays cached;
+     *                   or {@code 0} if it's only evicted when the cache is
+     *                   full
+     * @param version    the version of the cache before the query was
+     *                   executed
+     * @return {@code true} if the result was stored; or
+     * <p>{@code false} if it was invalidated in the meantime
+     * @see #getVersion()
+     * @since 1.4
+     */
+    synchronized boolean put(Key key, Object result, Set<String> tables, long timeToLive, long version) {
+        if (isInvalidatedSince(tables, version)) {
+            return false;
+        }
+
+        var expiration = 0L;
+        if (timeToLive > 0) {
+            expiration = System.currentTimeMillis() + timeToLive;
+        }
+        entries_.put(key, new Entry(result, tables, expiration));
+        return true;
+    }
+
+    private boolean isInvalidatedSince(Set<String> tables, long version) {
+        if (clearedVersion_ > version) {
+            return true;
+        }
+
+        // results without tags are invalidated by any change
+        if (null == tables) {
+            return version_ > version;
+        }
+
+        for (var table : tables) {
+            if (tableVersions_.getOrDefault(table, 0L) > version) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes all the results that were read from a table.
+     *
+     * @param table the name of the table
+     * @since 1.4
+     */
+    public synchronized void invalidateTable(String table) {
+        if (null == table) throw new IllegalArgumentException("table can't be null.");
+
+        var lowercased_table = table.toLowerCase();
+        version_++;
+        tableVersions_.put(lowercased_table, version_);
+        entries_.values().removeIf(entry -> entry.isTaggedWith(lowercased_table));
+    }
+
+    /**
+     * Removes all the results from the cache.
+     *
+     * @since 1.4
+     */
+    public synchronized void clear() {
+        version_++;
+        clearedVersion_ = version_;
+        tableVersions_.clear();
+        entries_.clear();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize_;
+    }
+
+    public synchronized int size() {
+        return entries_.size();
+    }
+
+    public synchronized long getHits() {
+        return hits_;
+    }
+
+    public synchronized long getMisses() {
+        return misses_;
+    }
+
+    /**
+     * Retrieves the number of results that were removed from the cache
+     * because it was full or because they expired.
+     *
+     * @return the number of evicted results
+     * @since 1.4
+     */
+    public synchronized long getEvictions() {
+        return evictions_;
+    }
+
+    /**
+     * Copies a result so that neither the cached instance nor the one that
+     * was handed out can be changed by the other.
+     *
+     * @param result the result to copy
+     * @return the copy of the result
+     * @since 1.4
+     */
+    static Object copyResult(Object result) {
+        if (null == result ||
+            result instanceof String ||
+            result instanceof Number ||
+            result instanceof Boolean ||
+            result instanceof Character ||
+            result instanceof Enum ||
+            result instanceof UUID) {
+            return result;
+        }
+
+        if (result instanceof Collection<?> collection) {
+            var copy = new ArrayList<>(collection.size());
+            for (var element : collection) {
+                copy.add(copyResult(element));
+            }
+            return copy;
+        }
+
+        var cloned = ObjectUtils.genericClone(result);
+        if (cloned != null) {
+            return cloned;
+        }
+
+        try {
+            return BeanUtils.copyBean(result);
+        } catch (BeanUtilsException e) {
+            throw new DatabaseException(e);
+        }
+    }
+}
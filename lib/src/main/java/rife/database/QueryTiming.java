@@ -0,0 +1,203 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database;
+
+import rife.database.querymanagers.generic.GenericQueryManager;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Timing of a statement that was executed through a connection of a
+ * {@code Datasource}.
+ * <p>Durations are measured with {@link System#nanoTime()}. The execution
+ * duration covers the execution of the statement by the JDBC driver, the
+ * consumption duration covers the time between the execution of a query and
+ * the moment its result set was closed, which includes reading the rows.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @see QueryTimingListener
+ * @see Datasource#addQueryTimingListener(QueryTimingListener)
+ * @since 1.4
+ */
+public final class QueryTiming {
+    /**
+     * The types of statement executions that are timed.
+     *
+     * @since 1.4
+     */
+    public enum Kind {
+        /**
+         * A statement that returned a result set.
+         */
+        QUERY,
+        /**
+         * A statement that returned an update count.
+         */
+        UPDATE,
+        /**
+         * A batch of statements.
+         */
+        BATCH
+    }
+
+    private final Datasource datasource_;
+    private final Kind kind_;
+    private final String sql_;
+    private final long start_;
+    private long executionNanos_ = 0;
+    private long consumptionNanos_ = 0;
+    private int rowCount_ = -1;
+    private Map<Integer, Object> parameterValues_ = null;
+    private String queryManager_ = null;
+
+    QueryTiming(Datasource datasource, Kind kind, String sql) {
+        assert datasource != null;
+        assert kind != null;
+
+        datasource_ = datasource;
+        kind_ = kind;
+        sql_ = sql;
+        start_ = System.nanoTime();
+    }
+
+    void executed(Map<Integer, Object> parameterValues, int rowCount) {
+        executionNanos_ = System.nanoTime() - start_;
+        if (parameterValues != null) {
+            parameterValues_ = Collections.unmodifiableMap(new TreeMap<>(parameterValues));
+        }
+        rowCount_ = rowCount;
+    }
+
+    void consumed(int rowCount) {
+        consumptionNanos_ = System.nanoTime() - start_ - executionNanos_;
+        rowCount_ = rowCount;
+    }
+
+    /**
+     * Retrieves the datasource that executed the statement.
+     *
+     * @return the datasource
+     * @since 1.4
+     */
+    public Datasource getDatasource() {
+        return datasource_;
+    }
+
+    /**
+     * Retrieves the type of the statement execution.
+     *
+     * @return the kind of execution
+     * @since 1.4
+     */
+    public Kind getKind() {
+        return kind_;
+    }
+
+    /**
+     * Retrieves the SQL of the statement.
+     *
+     * @return the SQL; or
+     * <p>{@code null} for a batch of regular statements, which can each have
+     * their own SQL
+     * @since 1.4
+     */
+    public String getSql() {
+        return sql_;
+    }
+
+    /**
+     * Retrieves the values of the parameters of a prepared statement.
+     * <p>These values aren't redacted, listeners should take care not to
+     * expose them.
+     *
+     * @return the parameter values ordered by their index; or
+     * <p>{@code null} if the statement wasn't prepared or if some values
+     * can't be represented, like streams and large objects
+     * @since 1.4
+     */
+    public Map<Integer, Object> getParameterValues() {
+        return parameterValues_;
+    }
+
+    /**
+     * Retrieves the number of rows of the statement.
+     *
+     * @return the number of rows that were read from the result set of a
+     * query, the update count of an update or the total update count of a
+     * batch; or
+     * <p>{@code -1} if the number of rows isn't known
+     * @since 1.4
+     */
+    public int getRowCount() {
+        return rowCount_;
+    }
+
+    /**
+     * Retrieves the duration of the execution of the statement by the JDBC
+     * driver.
+     *
+     * @return the execution duration in nanoseconds
+     * @since 1.4
+     */
+    public long getExecutionNanos() {
+        return executionNanos_;
+    }
+
+    /**
+     * Retrieves the duration of the consumption of the result set of a
+     * query.
+     *
+     * @return the consumption duration in nanoseconds; or
+     * <p>{@code 0} if the statement didn't return a result set
+     * @since 1.4
+     */
+    public long getConsumptionNanos() {
+        return consumptionNanos_;
+    }
+
+    /**
+     * Retrieves the total duration of the statement, from its execution
+     * until its result set was closed.
+     *
+     * @return the total duration in nanoseconds
+     * @since 1.4
+     */
+    public long getTotalNanos() {
+        return executionNanos_ + consumptionNanos_;
+    }
+
+    /**
+     * Retrieves the query manager method that caused the statement to be
+     * executed. This is the outermost method on the stack of the current
+     * thread that belongs to a {@code DbQueryManager} or to a
+     * {@code GenericQueryManager}.
+     * <p>The stack is only inspected when this method is called, it should
+     * thus be called while the listeners are being notified.
+     *
+     * @return the name of the class and of the method of the query manager;
+     * or
+     * <p>{@code null} if the statement wasn't executed through a query
+     * manager
+     * @since 1.4
+     */
+    public String getQueryManager() {
+        if (null == queryManager_) {
+            queryManager_ = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE).walk(frames -> frames
+                .filter(frame -> DbQueryManager.class.isAssignableFrom(frame.getDeclaringClass()) ||
+                                 GenericQueryManager.class.isAssignableFrom(frame.getDeclaringClass()))
+                .reduce((inner, outer) -> outer)
+                .map(frame -> frame.getClassName() + "." + frame.getMethodName())
+                .orElse(null));
+        }
+
+        return queryManager_;
+    }
+
+    public String toString() {
+        return kind_ + " " + getTotalNanos() + "ns : " + sql_;
+    }
+}
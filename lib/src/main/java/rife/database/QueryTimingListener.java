@@ -0,0 +1,29 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database;
+
+/**
+ * Receives the timings of the statements that are executed through the
+ * connections of a {@code Datasource}.
+ * <p>Listeners are registered with {@link Datasource#addQueryTimingListener},
+ * they're notified in the thread that executed the statement and should
+ * thus return quickly, for instance by only recording the duration in a
+ * histogram.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @see QueryTiming
+ * @since 1.4
+ */
+public interface QueryTimingListener {
+    /**
+     * Called when a statement has been executed. For queries, this happens
+     * when their result set is closed, after all the rows that were needed
+     * have been read.
+     *
+     * @param timing the timing of the statement
+     * @since 1.4
+     */
+    void queryTimed(QueryTiming timing);
+}
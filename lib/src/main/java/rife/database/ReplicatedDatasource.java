@@ -0,0 +1,327 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database;
+
+import rife.database.exceptions.DatabaseException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+/**
+ * Datasource of a primary database that spreads the read queries over
+ * read replicas of that database.
+ * <p>The connection parameters of a {@code ReplicatedDatasource} are those
+ * of the primary database, it can be used everywhere a regular {@code
+ * Datasource} is expected. The replicas are regular {@code Datasource}
+ * instances, for instance obtained from {@link Datasources}, that connect to
+ * copies of the primary database with the same type of driver.
+ * <p>The {@link DbQueryManager} methods that retrieve the results of read
+ * queries, like {@code executeFetch*}, {@code executeGetFirst*} and the
+ * {@code restore} and {@code count} methods of the generic query managers,
+ * use a connection of one of the replicas. All the other queries are
+ * executed by the primary database, as well as all the read queries that
+ * are executed while the current thread has reserved a connection or is
+ * inside a transaction.
+ * <p>Replicas lag behind the primary database, a thread that just changed
+ * data might thus not see its own changes when reading them from a
+ * replica. When a {@linkplain #setReadYourWritesWindow(long) read-your-writes
+ * window} is set, the reads of a thread are sent to the primary database
+ * during that window after each of its changes.
+ * <h4>Example</h4>
+ * <pre>var datasource = new ReplicatedDatasource("org.postgresql.Driver", "jdbc:postgresql://primary/db", "user", "password", 10);
+ * datasource.addReplica(new Datasource("org.postgresql.Driver", "jdbc:postgresql://replica1/db", "user", "password", 10));
+ * datasource.addReplica(new Datasource("org.postgresql.Driver", "jdbc:postgresql://replica2/db", "user", "password", 10));
+ * datasource.setBalancing(ReplicatedDatasource.Balancing.LEAST_ACTIVE);
+ * datasource.setReadYourWritesWindow(2000);
+ * </pre>
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.4
+ */
+public class ReplicatedDatasource extends Datasource {
+    /**
+     * The ways in which a replica is selected for a read query.
+     *
+     * @since 1.4
+     */
+    public enum Balancing {
+        /**
+         * Uses the replicas one after the other.
+         */
+        ROUND_ROBIN,
+        /**
+         * Uses the replica that is executing the fewest read queries.
+         */
+        LEAST_ACTIVE
+    }
+
+    private record Replica(Datasource datasource, AtomicInteger activeReads) {
+    }
+
+    private List<Replica> replicas_ = new CopyOnWriteArrayList<>();
+    private AtomicInteger nextReplica_ = new AtomicInteger();
+    private Balancing balancing_ = Balancing.ROUND_ROBIN;
+    private long readYourWritesWindow_ = 0;
+    private ThreadLocal<Long> lastDataChange_ = new ThreadLocal<>();
+
+    /**
+     * Instantiates a new {@code ReplicatedDatasource} object with no
+     * connection information.
+     *
+     * @see Datasource#Datasource()
+     * @since 1.4
+     */
+    public ReplicatedDatasource() {
+    }
+
+    /**
+     * Instantiates a new {@code ReplicatedDatasource} object with all the
+     * connection parameters of the primary database.
+     *
+     * @param driver   the fully-qualified classname of the jdbc driver that will
+     *                 be used to connect to the database
+     * @param url      the connection url which identifies the primary database
+     * @param user     the user that will be used to connect to the database
+     * @param password the password that will be used to connect to the database
+     * @param poolSize the size of the connection pool, {@code 0} means
+     *                 that the connections will not be pooled
+     * @see Datasource#Datasource(String, String, String, String, int)
+     * @since 1.4
+     */
+    public ReplicatedDatasource(String driver, String url, String user, String password, int poolSize) {
+        super(driver, url, user, password, poolSize);
+    }
+
+    /**
+     * Instantiates a new {@code ReplicatedDatasource} object from the
+     * standard {@code javax.sql.DataSource} of the primary database.
+     *
+     * @param dataSource the standard datasource that will be used to obtain the
+     *                   connections to the primary database
+     * @param poolSize   the size of the connection pool, {@code 0} means
+     *                   that the connections will not be pooled
+     * @see Datasource#Datasource(DataSource, int)
+     * @since 1.4
+     */
+    public ReplicatedDatasource(DataSource dataSource, int poolSize) {
+        super(dataSource, poolSize);
+    }
+
+    /**
+     * Adds a read replica of the primary database.
+     *
+     * @param replica the datasource of the replica
+     * @since 1.4
+     */
+    public void addReplica(Datasource replica) {
+        if (null == replica) throw new IllegalArgumentException("replica can't be null.");
+        if (replica == this) throw new IllegalArgumentException("replica can't be the replicated datasource itself.");
+
+        replicas_.add(new Replica(replica, new AtomicInteger()));
+    }
+
+    /**
+     * Retrieves the read replicas of the primary database.
+     *
+     * @return the datasources of the replicas
+     * @since 1.4
+     */
+    public List<Datasource> getReplicas() {
+        var replicas = new ArrayList<Datasource>(replicas_.size());
+        for (var replica : replicas_) {
+            replicas.add(replica.datasource());
+        }
+        return Collections.unmodifiableList(replicas);
+    }
+
+    /**
+     * Retrieves the number of read queries that are being executed by a
+     * replica.
+     *
+     * @param replica the datasource of the replica
+     * @return the number of active read queries; or
+     * <p>{@code 0} if the datasource isn't a replica of this datasource
+     * @since 1.4
+     */
+    public int getActiveReads(Datasource replica) {
+        for (var candidate : replicas_) {
+            if (candidate.datasource() == replica) {
+                return candidate.activeReads().get();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Retrieves how a replica is selected for a read query.
+     *
+     * @return the balancing of the read queries
+     * @see #setBalancing(Balancing)
+     * @since 1.4
+     */
+    public Balancing getBalancing() {
+        return balancing_;
+    }
+
+    /**
+     * Sets how a replica is selected for a read query.
+     * <p>
+     * This defaults to {@link Balancing#ROUND_ROBIN}.
+     *
+     * @param balancing the balancing of the read queries
+     * @see #getBalancing()
+     * @since 1.4
+     */
+    public void setBalancing(Balancing balancing) {
+        if (null == balancing) throw new IllegalArgumentException("balancing can't be null.");
+
+        balancing_ = balancing;
+    }
+
+    /**
+     * Retrieves the number of milliseconds during which the reads of a
+     * thread are sent to the primary database after it changed data.
+     *
+     * @return the read-your-writes window; or
+     * <p>{@code 0} if reads are always sent to the replicas
+     * @see #setReadYourWritesWindow(long)
+     * @since 1.4
+     */
+    public long getReadYourWritesWindow() {
+        return readYourWritesWindow_;
+    }
+
+    /**
+     * Sets the number of milliseconds during which the reads of a thread are
+     * sent to the primary database after it changed data through a {@link
+     * DbQueryManager}. This makes sure that a thread sees its own changes,
+     * even when the replicas didn't receive them yet.
+     * <p>The window is tracked for each thread, request handlers can end it
+     * early with {@link #resetReadYourWrites()}.
+     * <p>
+     * This defaults to {@code 0}.
+     *
+     * @param window the read-your-writes window in milliseconds; or {@code 0}
+     *               if reads should always be sent to the replicas
+     * @see #getReadYourWritesWindow()
+     * @since 1.4
+     */
+    public void setReadYourWritesWindow(long window) {
+        if (window < 0) throw new IllegalArgumentException("window can't be negative.");
+
+        readYourWritesWindow_ = window;
+    }
+
+    /**
+     * Ends the read-your-writes window of the current thread, its next reads
+     * will be sent to the replicas again.
+     *
+     * @see #setReadYourWritesWindow(long)
+     * @since 1.4
+     */
+    public void resetReadYourWrites() {
+        lastDataChange_.remove();
+    }
+
+    DbConnection getReadConnection()
+    throws DatabaseException {
+        if (replicas_.isEmpty() ||
+            getPool().hasThreadConnection(Thread.currentThread()) ||
+            isReadingOwnWrites()) {
+            return getConnection();
+        }
+
+        var replica = selectReplica();
+        replica.activeReads().incrementAndGet();
+        try {
+            return replica.datasource().getConnection();
+        } catch (RuntimeException | Error e) {
+            replica.activeReads().decrementAndGet();
+            throw e;
+        }
+    }
+
+    void releaseReadConnection(DbConnection connection)
+    throws DatabaseException {
+        for (var replica : replicas_) {
+            if (replica.datasource() == connection.getDatasource()) {
+                try {
+                    connection.close();
+                } finally {
+                    replica.activeReads().decrementAndGet();
+                }
+                return;
+            }
+        }
+
+        connection.close();
+    }
+
+    void recordDataChange() {
+        if (readYourWritesWindow_ > 0) {
+            lastDataChange_.set(System.currentTimeMillis());
+        }
+    }
+
+    private boolean isReadingOwnWrites() {
+        if (0 == readYourWritesWindow_) {
+            return false;
+        }
+
+        var last_data_change = lastDataChange_.get();
+        if (null == last_data_change) {
+            return false;
+        }
+
+        if (System.currentTimeMillis() - last_data_change < readYourWritesWindow_) {
+            return true;
+        }
+
+        lastDataChange_.remove();
+        return false;
+    }
+
+    private Replica selectReplica() {
+        var replicas = replicas_;
+        var size = replicas.size();
+        var start = Math.floorMod(nextReplica_.getAndIncrement(), size);
+        if (Balancing.ROUND_ROBIN == balancing_) {
+            return replicas.get(start);
+        }
+
+        // start looking at the next replica in line, to spread the reads
+        // when several replicas are equally busy
+        Replica selected = null;
+        var selected_reads = Integer.MAX_VALUE;
+        for (var i = 0; i < size; i++) {
+            var replica = replicas.get((start + i) % size);
+            var reads = replica.activeReads().get();
+            if (reads < selected_reads) {
+                selected = replica;
+                selected_reads = reads;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Cleans up all connections that have been reserved by this datasource
+     * and by its replicas.
+     *
+     * @throws DatabaseException when an error occurred during the cleanup
+     * @since 1.4
+     */
+    public void cleanup()
+    throws DatabaseException {
+        super.cleanup();
+        for (var replica : replicas_) {
+            replica.datasource().cleanup();
+        }
+    }
+}
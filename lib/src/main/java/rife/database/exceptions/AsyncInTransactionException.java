@@ -0,0 +1,24 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database.exceptions;
+
+import rife.database.Datasource;
+
+import java.io.Serial;
+
+public class AsyncInTransactionException extends DatabaseException {
+    @Serial private static final long serialVersionUID = 6385224719066128247L;
+
+    private final Datasource datasource_;
+
+    public AsyncInTransactionException(Datasource datasource) {
+        super("Asynchronous queries can't be executed while the current thread has reserved a connection or is inside a transaction, they would run outside of it.");
+        datasource_ = datasource;
+    }
+
+    public Datasource getDatasource() {
+        return datasource_;
+    }
+}
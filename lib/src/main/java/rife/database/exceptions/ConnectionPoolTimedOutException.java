@@ -0,0 +1,34 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database.exceptions;
+
+import rife.database.Datasource;
+
+import java.io.Serial;
+
+public class ConnectionPoolTimedOutException extends DatabaseException {
+    @Serial private static final long serialVersionUID = 2841046732718651220L;
+
+    private final Datasource datasource_;
+    private final long timeout_;
+
+    public ConnectionPoolTimedOutException(Datasource datasource, long timeout) {
+        this(datasource, timeout, null);
+    }
+
+    public ConnectionPoolTimedOutException(Datasource datasource, long timeout, Throwable cause) {
+        super("Couldn't obtain a connection from the pool within " + timeout + "ms.", cause);
+        datasource_ = datasource;
+        timeout_ = timeout;
+    }
+
+    public Datasource getDatasource() {
+        return datasource_;
+    }
+
+    public long getTimeout() {
+        return timeout_;
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database.exceptions;
+
+import java.io.Serial;
+
+public class SeekValuesMismatchException extends DbQueryException {
+    @Serial private static final long serialVersionUID = 4418931467266385127L;
+
+    private final int orderByCount_;
+    private final int valueCount_;
+
+    public SeekValuesMismatchException(int orderByCount, int valueCount) {
+        super("Keyset pagination requires one seek value for each ORDER BY column, got " + valueCount + " values for " + orderByCount + " columns.");
+
+        orderByCount_ = orderByCount;
+        valueCount_ = valueCount;
+    }
+
+    public int getOrderByCount() {
+        return orderByCount_;
+    }
+
+    public int getValueCount() {
+        return valueCount_;
+    }
+}
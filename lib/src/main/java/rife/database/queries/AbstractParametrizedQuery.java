@@ -114,6 +114,14 @@ abstract class AbstractParametrizedQuery extends AbstractQuery implements Query,
         addTypedParameters(QueryParameterType.WHERE, parameters);
     }
 
+    protected void setSeekParameters(List<String> parameters) {
+        clearTypedParameters(QueryParameterType.SEEK);
+        if (parameters != null &&
+            !parameters.isEmpty()) {
+            addTypedParameters(QueryParameterType.SEEK, parameters);
+        }
+    }
+
     protected void setLimitParameter(String limitParameter) {
         addTypedParameter(QueryParameterType.LIMIT, limitParameter);
     }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database.queries;
+
+import rife.database.capabilities.Capabilities;
+
+/**
+ * Immutable snapshot of a read query, as obtained through {@link
+ * Select#freeze()}.
+ * <p>The SQL, the parameters and the capabilities are determined once when
+ * the query is frozen. A frozen query can thus be stored in a constant and
+ * be executed by many threads at the same time, without its SQL ever being
+ * generated again.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.4
+ */
+public final class FrozenQuery implements ReadQuery {
+    private final String sql_;
+    private final QueryParameters parameters_;
+    private final Capabilities capabilities_;
+
+    FrozenQuery(AbstractParametrizedQuery query) {
+        assert query != null;
+
+        // frozen queries are meant to be executed, the capabilities
+        // that aren't supported by the database will be compensated for
+        query.setExcludeUnsupportedCapabilities(true);
+        sql_ = query.getSql();
+
+        var parameters = query.getParameters();
+        if (parameters != null) {
+            parameters = parameters.clone();
+            // calculate the combined parameters now, they're otherwise
+            // lazily calculated by the first thread that needs them
+            parameters.getOrderedNames();
+            parameters.getOrderedNamesArray();
+            parameters.getOrderedIndices();
+        }
+        parameters_ = parameters;
+
+        var capabilities = query.getCapabilities();
+        if (capabilities != null) {
+            capabilities = (Capabilities) capabilities.clone();
+        }
+        capabilities_ = capabilities;
+    }
+
+    /**
+     * Frozen queries can't be cleared.
+     *
+     * @throws UnsupportedOperationException always
+     * @since 1.4
+     */
+    public void clear() {
+        throw new UnsupportedOperationException("A frozen query can't be cleared.");
+    }
+
+    public String getSql() {
+        return sql_;
+    }
+
+    /**
+     * Retrieves the parameters of the frozen query, they should never be
+     * modified.
+     *
+     * @return the parameters; or
+     * <p>{@code null} if the query doesn't have any parameters
+     * @since 1.4
+     */
+    public QueryParameters getParameters() {
+        return parameters_;
+    }
+
+    /**
+     * Retrieves the capabilities of the frozen query, they should never be
+     * modified.
+     *
+     * @return the capabilities; or
+     * <p>{@code null} if the query doesn't need any capabilities
+     * @since 1.4
+     */
+    public Capabilities getCapabilities() {
+        return capabilities_;
+    }
+
+    /**
+     * Frozen queries always exclude the unsupported capabilities from their
+     * SQL, this method thus doesn't do anything.
+     *
+     * @param flag ignored
+     * @since 1.4
+     */
+    public void setExcludeUnsupportedCapabilities(boolean flag) {
+    }
+
+    public String toString() {
+        return sql_;
+    }
+}
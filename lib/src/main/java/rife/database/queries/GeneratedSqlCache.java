@@ -0,0 +1,112 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database.queries;
+
+import rife.config.RifeConfig;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded least-recently-used cache of the SQL that query builders
+ * generated, shared by all the query builder instances.
+ * <p>Lookups don't lock, they only record when an entry was last used.
+ * Once the cache is full, the least recently used entries are evicted in
+ * bulk by one thread at a time.
+ * <p>The SQL is identified by the structure of a query, which contains all
+ * the parts that influence the generated SQL, including the driver of the
+ * datasource. Identical queries that are built over and over again thus
+ * only go through the template engine once.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @see RifeConfig.DatabaseConfig#setGeneratedSqlCacheSize(int)
+ * @since 1.4
+ */
+final class GeneratedSqlCache {
+    /**
+     * The generated SQL together with the state that the query builder
+     * derived from the SQL templates while generating it.
+     *
+     * @since 1.4
+     */
+    record Entry(String sql, int offset, List<String> seekParameters) {
+        Entry(String sql, int offset) {
+            this(sql, offset, null);
+        }
+    }
+
+    private static final class Node {
+        private final Entry entry_;
+        private volatile long lastAccess_ = System.nanoTime();
+
+        private Node(Entry entry) {
+            entry_ = entry;
+        }
+    }
+
+    private static final ConcurrentHashMap<Object, Node> ENTRIES = new ConcurrentHashMap<>();
+    private static final ReentrantLock EVICTION_LOCK = new ReentrantLock();
+
+    private GeneratedSqlCache() {
+    }
+
+    static Entry get(Object structure) {
+        var node = ENTRIES.get(structure);
+        if (null == node) {
+            return null;
+        }
+
+        node.lastAccess_ = System.nanoTime();
+        return node.entry_;
+    }
+
+    static void put(Object structure, Entry entry) {
+        var maximum_size = RifeConfig.database().getGeneratedSqlCacheSize();
+        if (0 == maximum_size) {
+            return;
+        }
+
+        ENTRIES.put(structure, new Node(entry));
+
+        // only one thread evicts at a time, the others don't wait for it
+        if (ENTRIES.size() > maximum_size &&
+            EVICTION_LOCK.tryLock()) {
+            try {
+                evict(maximum_size);
+            } finally {
+                EVICTION_LOCK.unlock();
+            }
+        }
+    }
+
+    private static void evict(int maximumSize) {
+        // the least recently used entries are evicted in bulk, leaving room
+        // for a tenth of the cache, so that the entries don't have to be
+        // sorted again for each new one
+        var target_size = maximumSize - maximumSize / 10;
+        var excess = ENTRIES.size() - target_size;
+        if (excess <= 0) {
+            return;
+        }
+
+        var nodes = new ArrayList<>(ENTRIES.entrySet());
+        nodes.sort(Comparator.comparingLong(node -> node.getValue().lastAccess_));
+        for (var i = 0; i < excess && i < nodes.size(); i++) {
+            var node = nodes.get(i);
+            ENTRIES.remove(node.getKey(), node.getValue());
+        }
+    }
+
+    static int size() {
+        return ENTRIES.size();
+    }
+
+    static void clear() {
+        ENTRIES.clear();
+    }
+}
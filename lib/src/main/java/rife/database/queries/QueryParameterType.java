@@ -10,6 +10,7 @@ public class QueryParameterType extends EnumClass<String> {
     public static final QueryParameterType FIELD = new QueryParameterType("FIELD", false);
     public static final QueryParameterType TABLE = new QueryParameterType("TABLE", false);
     public static final QueryParameterType WHERE = new QueryParameterType("WHERE", false);
+    public static final QueryParameterType SEEK = new QueryParameterType("SEEK", false);
     public static final QueryParameterType UNION = new QueryParameterType("UNION", false);
     public static final QueryParameterType LIMIT = new QueryParameterType("LIMIT", true);
     public static final QueryParameterType OFFSET = new QueryParameterType("OFFSET", true);
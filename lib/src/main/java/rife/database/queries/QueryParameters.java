@@ -15,6 +15,7 @@ public class QueryParameters implements Cloneable {
 
     private List<String> combinedParameters_ = null;
     private String[] combinedParametersArray_ = null;
+    private Map<String, int[]> combinedParametersIndices_ = null;
 
     public QueryParameters(AbstractParametrizedQuery query) {
         if (null == query) throw new IllegalArgumentException("query can't be null");
@@ -36,8 +37,7 @@ public class QueryParameters implements Cloneable {
 
     public void clear() {
         parameters_ = null;
-        combinedParameters_ = null;
-        combinedParametersArray_ = null;
+        clearCombinedParameters();
     }
 
     public boolean hasParameter(QueryParameterType type, String value) {
@@ -118,6 +118,17 @@ public class QueryParameters implements Cloneable {
                     }
                 }
 
+                if (parameters_.containsKey(QueryParameterType.SEEK)) {
+                    if (null == combined_parameters) {
+                        combined_parameters = new ArrayList<>();
+                    }
+
+                    for (var parameter : (List<String>) parameters_.get(QueryParameterType.SEEK)) {
+                        // add the parameter to the combined list
+                        combined_parameters.add(parameter);
+                    }
+                }
+
                 if (parameters_.containsKey(QueryParameterType.UNION)) {
                     if (null == combined_parameters) {
                         combined_parameters = new ArrayList<>();
@@ -181,6 +192,7 @@ public class QueryParameters implements Cloneable {
 
             combinedParameters_ = combined_parameters;
             combinedParametersArray_ = null;
+            combinedParametersIndices_ = null;
         }
 
         return combinedParameters_;
@@ -227,6 +239,12 @@ public class QueryParameters implements Cloneable {
                 }
             }
 
+            if (parameters_.containsKey(QueryParameterType.SEEK)) {
+                for (var parameter : (List<String>) parameters_.get(QueryParameterType.SEEK)) {
+                    addVirtualIndexMapping(virtualParameters, map, parameter_index, real_index, QueryParameterType.SEEK, parameter);
+                }
+            }
+
             if (parameters_.containsKey(QueryParameterType.UNION)) {
                 for (var parameter : (List<String>) parameters_.get(QueryParameterType.UNION)) {
                     addVirtualIndexMapping(virtualParameters, map, parameter_index, real_index, QueryParameterType.UNION, parameter);
@@ -269,21 +287,51 @@ public class QueryParameters implements Cloneable {
         }
 
         if (null == combinedParametersArray_) {
-            var array = new String[0];
+            combinedParametersArray_ = getOrderedNames().toArray(new String[0]);
+        }
 
-            for (var parameter_name : getOrderedNames()) {
-                array = ArrayUtils.join(array, parameter_name);
+        return combinedParametersArray_;
+    }
+
+    /**
+     * Retrieves the positions of all the parameters, grouped by their names.
+     * <p>The positions start at {@code 1} and follow the order of {@link
+     * #getOrderedNames()}. The mapping is only calculated once and shared
+     * until the parameters change, the returned arrays should thus never be
+     * modified.
+     *
+     * @return an unmodifiable map with the indices of each parameter name;
+     * or an empty map if there are no parameters
+     * @since 1.4
+     */
+    public Map<String, int[]> getOrderedIndices() {
+        if (null == combinedParametersIndices_) {
+            var indices = new HashMap<String, int[]>();
+            var ordered_names = getOrderedNames();
+            if (ordered_names != null) {
+                var index = 1;
+                for (var parameter_name : ordered_names) {
+                    var parameter_indices = indices.get(parameter_name);
+                    if (null == parameter_indices) {
+                        parameter_indices = new int[]{index};
+                    } else {
+                        parameter_indices = ArrayUtils.join(parameter_indices, index);
+                    }
+                    indices.put(parameter_name, parameter_indices);
+                    index++;
+                }
             }
 
-            combinedParametersArray_ = array;
+            combinedParametersIndices_ = Collections.unmodifiableMap(indices);
         }
 
-        return combinedParametersArray_;
+        return combinedParametersIndices_;
     }
 
     private void clearCombinedParameters() {
         combinedParameters_ = null;
         combinedParametersArray_ = null;
+        combinedParametersIndices_ = null;
     }
 
     public void clearTypedParameters(QueryParameterType type) {
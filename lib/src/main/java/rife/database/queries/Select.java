@@ -10,14 +10,13 @@ import rife.database.Datasource;
 import rife.database.capabilities.Capabilities;
 import rife.database.capabilities.Capability;
 import rife.database.exceptions.DbQueryException;
+import rife.database.exceptions.SeekValuesMismatchException;
 import rife.database.exceptions.TableNameOrFieldsRequiredException;
 import rife.database.exceptions.UnsupportedSqlFeatureException;
 import rife.datastructures.EnumClass;
 import rife.template.Template;
 import rife.template.TemplateFactory;
 import rife.tools.StringUtils;
-import rife.validation.Constrained;
-import rife.validation.ConstrainedBean;
 import rife.validation.ConstrainedUtils;
 
 /**
@@ -45,6 +44,8 @@ public class Select extends AbstractWhereQuery<Select> implements Cloneable, Rea
     private List<OrderBy> orderBy_ = null;
     private int limit_ = -1;
     private int offset_ = -1;
+    private List<Object> seekValues_ = null;
+    private boolean seekBefore_ = false;
 
     private Capabilities capabilities_ = null;
 
@@ -90,6 +91,8 @@ public class Select extends AbstractWhereQuery<Select> implements Cloneable, Rea
         orderBy_ = new ArrayList<>();
         limit_ = -1;
         offset_ = -1;
+        seekValues_ = null;
+        seekBefore_ = false;
         capabilities_ = null;
     }
 
@@ -139,6 +142,30 @@ public class Select extends AbstractWhereQuery<Select> implements Cloneable, Rea
         return orderBy_;
     }
 
+    /**
+     * Retrieves the order in which the database returns the results. This
+     * is the order of {@link #getOrderBy()}, except when seeking before
+     * values, where the directions of all the columns are inverted.
+     *
+     * @return the effective {@code ORDER BY} columns
+     * @see #seekBefore(Object...)
+     * @since 1.4
+     */
+    public List<OrderBy> getEffectiveOrderBy() {
+        if (!seekBefore_ ||
+            null == seekValues_) {
+            return Collections.unmodifiableList(orderBy_);
+        }
+
+        // the rows that come right before the seek values are found by
+        // going through the results backwards
+        var order_by = new ArrayList<OrderBy>(orderBy_.size());
+        for (var order : orderBy_) {
+            order_by.add(new OrderBy(order.getColumn(), ASC == order.getDirection() ? DESC : ASC));
+        }
+        return order_by;
+    }
+
     public int getLimit() {
         return limit_;
     }
@@ -147,6 +174,60 @@ public class Select extends AbstractWhereQuery<Select> implements Cloneable, Rea
         return offset_;
     }
 
+    /**
+     * Retrieves the values of the {@code ORDER BY} columns that the results
+     * are positioned against.
+     *
+     * @return the seek values; or
+     * <p>{@code null} if no keyset pagination is used
+     * @see #seekAfter(Object...)
+     * @see #seekBefore(Object...)
+     * @since 1.4
+     */
+    public List<Object> getSeekValues() {
+        return seekValues_;
+    }
+
+    /**
+     * Indicates whether the results come before the seek values.
+     *
+     * @return {@code true} if the results come before the seek values; or
+     * <p>{@code false} if they come after them
+     * @see #seekBefore(Object...)
+     * @since 1.4
+     */
+    public boolean isSeekBefore() {
+        return seekBefore_;
+    }
+
+    /**
+     * Retrieves the seek values by the names of the parameters that bind
+     * them in the generated SQL. These parameters are set automatically
+     * when the query is executed.
+     *
+     * @return the seek values by parameter name; or
+     * <p>an empty map if no keyset pagination is used
+     * @see #seekAfter(Object...)
+     * @see #seekBefore(Object...)
+     * @since 1.4
+     */
+    public Map<String, Object> getSeekParameterValues() {
+        if (null == seekValues_) {
+            return Collections.emptyMap();
+        }
+
+        var values = new LinkedHashMap<String, Object>();
+        for (var i = 0; i < seekValues_.size(); i++) {
+            values.put(getSeekParameterName(i), seekValues_.get(i));
+        }
+        return values;
+    }
+
+    private static String getSeekParameterName(int index) {
+        // the colon ensures that the name can't clash with a column
+        return "seek:" + index;
+    }
+
     protected Template getTemplate() {
         return TemplateFactory.SQL.get("sql." + StringUtils.encodeClassname(datasource_.getAliasedDriver()) + ".select");
     }
@@ -195,203 +276,308 @@ public class Select extends AbstractWhereQuery<Select> implements Cloneable, Rea
 
     public String getSql()
     throws DbQueryException {
-        var constrained = ConstrainedUtils.getConstrainedInstance(constrainedClass_);
-
-        // handle constrained beans meta-data that needs to be handled after all the
-        // rest
-        if (constrained != null) {
-            var constrained_bean = constrained.getConstrainedBean();
-            if (constrained_bean != null) {
-                // handle default ordering if no order statements have been
-                // defined yet
-                if (constrained_bean.hasDefaultOrdering() &&
-                    0 == orderBy_.size()) {
-                    var ordering_it = constrained_bean.getDefaultOrdering().iterator();
-                    ConstrainedBean.Order order = null;
-                    while (ordering_it.hasNext()) {
-                        order = ordering_it.next();
-                        orderBy(order.getPropertyName(), OrderByDirection.getDirection(order.getDirection().toString()));
-                    }
-                }
+        // handle the default ordering of constrained beans if no order
+        // statements have been defined yet
+        if (0 == orderBy_.size()) {
+            for (var order : ConstrainedUtils.getDefaultOrdering(constrainedClass_)) {
+                orderBy(order.getPropertyName(), OrderByDirection.getDirection(order.getDirection().toString()));
             }
         }
 
         if (null == from_ &&
             0 == fields_.size()) {
             throw new TableNameOrFieldsRequiredException("Select");
+        } else if (seekValues_ != null &&
+                   seekValues_.size() != orderBy_.size()) {
+            throw new SeekValuesMismatchException(orderBy_.size(), seekValues_.size());
         } else {
             if (null == sql_) {
-                var template = getTemplate();
-                String block = null;
-
-                if (hint_ != null) {
-                    if (!template.hasValueId("HINT")) {
-                        throw new UnsupportedSqlFeatureException("HINT", datasource_.getAliasedDriver());
-                    }
-                    template.setValue("EXPRESSION", hint_);
-                    template.setBlock("HINT", "HINT");
+                var structure = getStructure();
+                var generated = GeneratedSqlCache.get(structure);
+                if (null == generated) {
+                    generated = generateSql();
+                    GeneratedSqlCache.put(structure, generated);
                 }
 
-                if (distinct_) {
-                    if (0 == distinctOn_.size()) {
-                        block = template.getBlock("DISTINCT");
-                        if (0 == block.length()) {
-                            throw new UnsupportedSqlFeatureException("DISTINCT", datasource_.getAliasedDriver());
-                        }
-                        template.setValue("DISTINCT", block);
-                    } else {
-                        if (template.hasValueId("COLUMNS")) {
-                            template.setValue("COLUMNS", StringUtils.join(distinctOn_, template.getBlock("SEPARATOR")));
-                        }
-                        block = template.getBlock("DISTINCTON");
-                        if (0 == block.length()) {
-                            throw new UnsupportedSqlFeatureException("DISTINCT ON", datasource_.getAliasedDriver());
-                        }
-                        template.setValue("DISTINCT", block);
-                    }
-                }
+                sql_ = generated.sql();
+                offset_ = generated.offset();
+                setSeekParameters(generated.seekParameters());
+            }
+        }
 
-                if (0 == fields_.size()) {
-                    template.setValue("FIELDS", template.getBlock("ALLFIELDS"));
-                } else {
-                    template.setValue("FIELDS", StringUtils.join(fields_, template.getBlock("SEPARATOR")));
+        return sql_;
+    }
+
+    private GeneratedSqlCache.Entry generateSql() {
+        var template = getTemplate();
+        String block = null;
+
+        if (hint_ != null) {
+            if (!template.hasValueId("HINT")) {
+                throw new UnsupportedSqlFeatureException("HINT", datasource_.getAliasedDriver());
+            }
+            template.setValue("EXPRESSION", hint_);
+            template.setBlock("HINT", "HINT");
+        }
+
+        if (distinct_) {
+            if (0 == distinctOn_.size()) {
+                block = template.getBlock("DISTINCT");
+                if (0 == block.length()) {
+                    throw new UnsupportedSqlFeatureException("DISTINCT", datasource_.getAliasedDriver());
+                }
+                template.setValue("DISTINCT", block);
+            } else {
+                if (template.hasValueId("COLUMNS")) {
+                    template.setValue("COLUMNS", StringUtils.join(distinctOn_, template.getBlock("SEPARATOR")));
                 }
+                block = template.getBlock("DISTINCTON");
+                if (0 == block.length()) {
+                    throw new UnsupportedSqlFeatureException("DISTINCT ON", datasource_.getAliasedDriver());
+                }
+                template.setValue("DISTINCT", block);
+            }
+        }
+
+        if (0 == fields_.size()) {
+            template.setValue("FIELDS", template.getBlock("ALLFIELDS"));
+        } else {
+            template.setValue("FIELDS", StringUtils.join(fields_, template.getBlock("SEPARATOR")));
+        }
+
+        if (null != from_) {
+            template.setValue("TABLE", from_);
+            block = template.getBlock("FROM");
+            if (0 == block.length()) {
+                throw new UnsupportedSqlFeatureException("FROM", datasource_.getAliasedDriver());
+            }
+            template.setValue("FROM", block);
+        }
+
+        if (joins_.size() > 0) {
+            var join_list = new ArrayList<String>();
+            for (var join : joins_) {
+                join_list.add(join.getSql(template));
+            }
+            template.setValue("JOINS", StringUtils.join(join_list, ""));
+        }
 
-                if (null != from_) {
-                    template.setValue("TABLE", from_);
-                    block = template.getBlock("FROM");
+        List<String> seek_parameters = null;
+        var condition = where_.toString();
+        if (seekValues_ != null) {
+            seek_parameters = new ArrayList<>();
+            var seek_condition = getSeekCondition(template, seek_parameters);
+            if (condition.isEmpty()) {
+                condition = seek_condition;
+            } else {
+                condition = "(" + condition + ") AND " + seek_condition;
+            }
+        }
+        if (condition.length() > 0) {
+            template.setValue("CONDITION", condition);
+            block = template.getBlock("WHERE");
+            if (0 == block.length()) {
+                throw new UnsupportedSqlFeatureException("WHERE", datasource_.getAliasedDriver());
+            }
+            template.setValue("WHERE", block);
+        }
+
+        if (groupBy_.size() > 0) {
+            template.setValue("EXPRESSION", StringUtils.join(groupBy_, template.getBlock("SEPARATOR")));
+            block = template.getBlock("GROUPBY");
+            if (0 == block.length()) {
+                throw new UnsupportedSqlFeatureException("GROUP BY", datasource_.getAliasedDriver());
+            }
+            template.setValue("GROUPBY", block);
+        }
+
+        if (having_.size() > 0) {
+            template.setValue("EXPRESSION", StringUtils.join(having_, template.getBlock("SEPARATOR")));
+            block = template.getBlock("HAVING");
+            if (0 == block.length()) {
+                throw new UnsupportedSqlFeatureException("HAVING", datasource_.getAliasedDriver());
+            }
+            template.setValue("HAVING", block);
+        }
+
+        if (unions_ != null) {
+            for (var union : unions_) {
+                template.setValue("EXPRESSION", union.getExpression());
+                if (union.isAll()) {
+                    block = template.getBlock("UNION_ALL");
                     if (0 == block.length()) {
-                        throw new UnsupportedSqlFeatureException("FROM", datasource_.getAliasedDriver());
+                        throw new UnsupportedSqlFeatureException("UNION_ALL", datasource_.getAliasedDriver());
                     }
-                    template.setValue("FROM", block);
-                }
-
-                if (joins_.size() > 0) {
-                    var join_list = new ArrayList<String>();
-                    for (var join : joins_) {
-                        join_list.add(join.getSql(template));
+                    template.appendBlock("UNION", "UNION_ALL");
+                } else {
+                    block = template.getBlock("UNION");
+                    if (0 == block.length()) {
+                        throw new UnsupportedSqlFeatureException("UNION", datasource_.getAliasedDriver());
                     }
-                    template.setValue("JOINS", StringUtils.join(join_list, ""));
+                    template.appendBlock("UNION", "UNION");
                 }
+            }
+        }
 
-                if (where_.length() > 0) {
-                    template.setValue("CONDITION", where_);
-                    block = template.getBlock("WHERE");
-                    if (0 == block.length()) {
-                        throw new UnsupportedSqlFeatureException("WHERE", datasource_.getAliasedDriver());
-                    }
-                    template.setValue("WHERE", block);
+        if (orderBy_.size() > 0) {
+            var orderby_list = new ArrayList<String>();
+            for (var order_by : getEffectiveOrderBy()) {
+                orderby_list.add(order_by.getSql(template));
+            }
+            template.setValue("ORDERBY_PARTS", StringUtils.join(orderby_list, template.getBlock("SEPARATOR")));
+            block = template.getBlock("ORDERBY");
+            if (0 == block.length()) {
+                throw new UnsupportedSqlFeatureException("ORDER BY", datasource_.getAliasedDriver());
+            }
+            template.setValue("ORDERBY", block);
+        }
+
+        if (limit_ != -1 ||
+            getLimitParameter() != null) {
+            // integrate a default value for offset if that has been provided
+            // by the template
+            if (-1 == offset_ &&
+                template.hasValueId("OFFSET_VALUE")) {
+                var offset_value = template.getValue("OFFSET_VALUE");
+                if (offset_value != null &&
+                    offset_value.trim().length() > 0) {
+                    offset_ = Integer.parseInt(offset_value);
                 }
+            }
 
-                if (groupBy_.size() > 0) {
-                    template.setValue("EXPRESSION", StringUtils.join(groupBy_, template.getBlock("SEPARATOR")));
-                    block = template.getBlock("GROUPBY");
-                    if (0 == block.length()) {
-                        throw new UnsupportedSqlFeatureException("GROUP BY", datasource_.getAliasedDriver());
+            if (offset_ > -1 ||
+                getOffsetParameter() != null) {
+                if (template.hasValueId("OFFSET_VALUE")) {
+                    if (getOffsetParameter() != null) {
+                        template.setValue("OFFSET_VALUE", "?");
+                    } else {
+                        template.setValue("OFFSET_VALUE", offset_);
                     }
-                    template.setValue("GROUPBY", block);
                 }
 
-                if (having_.size() > 0) {
-                    template.setValue("EXPRESSION", StringUtils.join(having_, template.getBlock("SEPARATOR")));
-                    block = template.getBlock("HAVING");
-                    if (0 == block.length()) {
-                        throw new UnsupportedSqlFeatureException("HAVING", datasource_.getAliasedDriver());
+                block = template.getBlock("OFFSET");
+                if (0 == block.length()) {
+                    if (!excludeUnsupportedCapabilities_) {
+                        throw new UnsupportedSqlFeatureException("OFFSET", datasource_.getAliasedDriver());
                     }
-                    template.setValue("HAVING", block);
+                } else {
+                    template.setValue("OFFSET", block);
                 }
+            }
 
-                if (unions_ != null) {
-                    for (var union : unions_) {
-                        template.setValue("EXPRESSION", union.getExpression());
-                        if (union.isAll()) {
-                            block = template.getBlock("UNION_ALL");
-                            if (0 == block.length()) {
-                                throw new UnsupportedSqlFeatureException("UNION_ALL", datasource_.getAliasedDriver());
-                            }
-                            template.appendBlock("UNION", "UNION_ALL");
-                        } else {
-                            block = template.getBlock("UNION");
-                            if (0 == block.length()) {
-                                throw new UnsupportedSqlFeatureException("UNION", datasource_.getAliasedDriver());
-                            }
-                            template.appendBlock("UNION", "UNION");
-                        }
-                    }
+            if (template.hasValueId("LIMIT_VALUE")) {
+                if (getLimitParameter() != null) {
+                    template.setValue("LIMIT_VALUE", "?");
+                } else {
+                    template.setValue("LIMIT_VALUE", limit_);
                 }
+            }
 
-                if (orderBy_.size() > 0) {
-                    var orderby_list = new ArrayList<String>();
-                    for (var order_by : orderBy_) {
-                        orderby_list.add(order_by.getSql(template));
-                    }
-                    template.setValue("ORDERBY_PARTS", StringUtils.join(orderby_list, template.getBlock("SEPARATOR")));
-                    block = template.getBlock("ORDERBY");
-                    if (0 == block.length()) {
-                        throw new UnsupportedSqlFeatureException("ORDER BY", datasource_.getAliasedDriver());
-                    }
-                    template.setValue("ORDERBY", block);
+            block = template.getBlock("LIMIT");
+            if (0 == block.length()) {
+                if (!excludeUnsupportedCapabilities_) {
+                    throw new UnsupportedSqlFeatureException("LIMIT", datasource_.getAliasedDriver());
                 }
+            } else {
+                template.setValue("LIMIT", block);
+            }
+        }
 
-                if (limit_ != -1 ||
-                    getLimitParameter() != null) {
-                    // integrate a default value for offset if that has been provided
-                    // by the template
-                    if (-1 == offset_ &&
-                        template.hasValueId("OFFSET_VALUE")) {
-                        var offset_value = template.getValue("OFFSET_VALUE");
-                        if (offset_value != null &&
-                            offset_value.trim().length() > 0) {
-                            offset_ = Integer.parseInt(offset_value);
-                        }
-                    }
+        var sql = template.getBlock("QUERY");
 
-                    if (offset_ > -1 ||
-                        getOffsetParameter() != null) {
-                        if (template.hasValueId("OFFSET_VALUE")) {
-                            if (getOffsetParameter() != null) {
-                                template.setValue("OFFSET_VALUE", "?");
-                            } else {
-                                template.setValue("OFFSET_VALUE", offset_);
-                            }
-                        }
-
-                        block = template.getBlock("OFFSET");
-                        if (0 == block.length()) {
-                            if (!excludeUnsupportedCapabilities_) {
-                                throw new UnsupportedSqlFeatureException("OFFSET", datasource_.getAliasedDriver());
-                            }
-                        } else {
-                            template.setValue("OFFSET", block);
-                        }
-                    }
+        assert sql != null;
+        assert sql.length() > 0;
 
-                    if (template.hasValueId("LIMIT_VALUE")) {
-                        if (getLimitParameter() != null) {
-                            template.setValue("LIMIT_VALUE", "?");
-                        } else {
-                            template.setValue("LIMIT_VALUE", limit_);
-                        }
-                    }
+        return new GeneratedSqlCache.Entry(sql, offset_, seek_parameters);
+    }
 
-                    block = template.getBlock("LIMIT");
-                    if (0 == block.length()) {
-                        if (!excludeUnsupportedCapabilities_) {
-                            throw new UnsupportedSqlFeatureException("LIMIT", datasource_.getAliasedDriver());
-                        }
-                    } else {
-                        template.setValue("LIMIT", block);
-                    }
-                }
+    private String getSeekCondition(Template template, List<String> parameters) {
+        var columns = new ArrayList<String>(orderBy_.size());
+        var operators = new ArrayList<String>(orderBy_.size());
+        var values = new ArrayList<String>(orderBy_.size());
+        for (var i = 0; i < orderBy_.size(); i++) {
+            var order_by = orderBy_.get(i);
+            columns.add(order_by.getColumn());
+            operators.add((ASC == order_by.getDirection()) != seekBefore_ ? ">" : "<");
+            values.add("?");
+        }
+
+        if (1 == columns.size()) {
+            parameters.add(getSeekParameterName(0));
+            return columns.get(0) + " " + operators.get(0) + " " + values.get(0);
+        }
 
-                sql_ = template.getBlock("QUERY");
+        // compare all the columns at once when the database supports row
+        // values and the columns are ordered in the same direction
+        if (new HashSet<>(operators).size() == 1) {
+            template.setValue("COLUMNS", StringUtils.join(columns, template.getBlock("SEPARATOR")));
+            template.setValue("OPERATOR", operators.get(0));
+            template.setValue("VALUES", StringUtils.join(values, template.getBlock("SEPARATOR")));
+            var row = template.getBlock("SEEK_ROW");
+            template.removeValue("COLUMNS");
+            template.removeValue("OPERATOR");
+            template.removeValue("VALUES");
+            if (row.length() > 0) {
+                for (var i = 0; i < columns.size(); i++) {
+                    parameters.add(getSeekParameterName(i));
+                }
+                return row;
+            }
+        }
 
-                assert sql_ != null;
-                assert sql_.length() > 0;
+        // otherwise, a row comes after the seek values when it's equal for
+        // all the preceding columns and comes after it for the next one
+        var condition = new StringBuilder("(");
+        for (var i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                condition.append(" OR ");
+            }
+            condition.append("(");
+            for (var j = 0; j < i; j++) {
+                condition.append(columns.get(j));
+                condition.append(" = ");
+                condition.append(values.get(j));
+                condition.append(" AND ");
+                parameters.add(getSeekParameterName(j));
             }
+            condition.append(columns.get(i));
+            condition.append(" ");
+            condition.append(operators.get(i));
+            condition.append(" ");
+            condition.append(values.get(i));
+            condition.append(")");
+            parameters.add(getSeekParameterName(i));
         }
+        condition.append(")");
 
-        return sql_;
+        return condition.toString();
+    }
+
+    /**
+     * Collects all the parts of this query that influence its generated SQL.
+     *
+     * @return an object that is equal for queries that generate the same SQL
+     * @since 1.4
+     */
+    private Object getStructure() {
+        var joins = new ArrayList<Object>(joins_.size());
+        for (var join : joins_) {
+            joins.add(join.getStructure());
+        }
+        var unions = new ArrayList<Object>(unions_.size());
+        for (var union : unions_) {
+            unions.add(union.getStructure());
+        }
+        var order_by = new ArrayList<Object>(orderBy_.size());
+        for (var order : orderBy_) {
+            order_by.add(order.getStructure());
+        }
+
+        return Arrays.asList(datasource_.getAliasedDriver(), excludeUnsupportedCapabilities_,
+            hint_, distinct_, new ArrayList<>(distinctOn_), new ArrayList<>(fields_), from_, joins, where_.toString(),
+            new ArrayList<>(groupBy_), new ArrayList<>(having_), unions, order_by,
+            limit_, offset_, getLimitParameter() != null, getOffsetParameter() != null,
+            seekValues_ != null, seekBefore_);
     }
 
     public Select hint(String hint) {
@@ -782,6 +968,59 @@ public class Select extends AbstractWhereQuery<Select> implements Cloneable, Rea
         return this;
     }
 
+    /**
+     * Restricts the results to the rows that come after the provided values
+     * of the {@code ORDER BY} columns. This allows paging through large
+     * results by starting each page right after the last row of the previous
+     * page. Contrary to {@code OFFSET}, the database doesn't have to go
+     * through all the rows of the previous pages, which keeps the cost of a
+     * page the same regardless of how far it is in the results.
+     * <p>One value has to be provided for each {@code ORDER BY} column. The
+     * columns should uniquely identify each row, for instance by ending with
+     * the primary key, and shouldn't contain {@code NULL} values.
+     *
+     * @param values the values of the {@code ORDER BY} columns of the last
+     *               row of the previous page
+     * @return this {@code Select} instance
+     * @see #seekBefore(Object...)
+     * @since 1.4
+     */
+    public Select seekAfter(Object... values) {
+        return seek(false, values);
+    }
+
+    /**
+     * Restricts the results to the rows that come before the provided values
+     * of the {@code ORDER BY} columns, which allows paging backwards through
+     * large results. The directions of the {@code ORDER BY} columns are
+     * inverted in the generated SQL, so that a limit selects the rows that
+     * immediately precede the values. These rows are thus returned in
+     * reverse order.
+     *
+     * @param values the values of the {@code ORDER BY} columns of the first
+     *               row of the next page
+     * @return this {@code Select} instance
+     * @see #seekAfter(Object...)
+     * @since 1.4
+     */
+    public Select seekBefore(Object... values) {
+        return seek(true, values);
+    }
+
+    private Select seek(boolean before, Object... values) {
+        if (null == values) throw new IllegalArgumentException("values can't be null.");
+        if (0 == values.length) throw new IllegalArgumentException("values can't be empty.");
+        for (var value : values) {
+            if (null == value) throw new IllegalArgumentException("values can't contain null.");
+        }
+
+        clearGenerated();
+        seekValues_ = List.of(values);
+        seekBefore_ = before;
+
+        return this;
+    }
+
     protected boolean isLimitBeforeOffset() {
         var template = getTemplate();
         if (!template.hasValueId("OFFSET") ||
@@ -813,6 +1052,22 @@ public class Select extends AbstractWhereQuery<Select> implements Cloneable, Rea
         return this;
     }
 
+    /**
+     * Creates an immutable snapshot of this query that is safe to share
+     * between threads. Later changes to this query don't affect the frozen
+     * query.
+     *
+     * @return the frozen query
+     * @throws DbQueryException when the SQL of the query couldn't be
+     *                          generated
+     * @see FrozenQuery
+     * @since 1.4
+     */
+    public FrozenQuery freeze()
+    throws DbQueryException {
+        return new FrozenQuery(clone());
+    }
+
     public Select clone() {
         var new_instance = super.clone();
         if (new_instance != null) {
@@ -1010,6 +1265,10 @@ public class Select extends AbstractWhereQuery<Select> implements Cloneable, Rea
             mExpression = expression;
         }
 
+        Object getStructure() {
+            return Arrays.asList(getClass(), getData(), getCondition().toString(), getExpression());
+        }
+
         public JoinInner clone() {
             return (JoinInner) super.clone();
         }
@@ -1099,6 +1358,10 @@ public class Select extends AbstractWhereQuery<Select> implements Cloneable, Rea
             mExpression = expression;
         }
 
+        Object getStructure() {
+            return Arrays.asList(getClass(), getData(), getType().toString(), getCondition().toString(), getExpression());
+        }
+
         public JoinOuter clone() {
             return (JoinOuter) super.clone();
         }
@@ -1117,6 +1380,10 @@ public class Select extends AbstractWhereQuery<Select> implements Cloneable, Rea
         abstract String getSql(Template template)
         throws DbQueryException;
 
+        Object getStructure() {
+            return Arrays.asList(getClass(), getData());
+        }
+
         public String getData() {
             return mData;
         }
@@ -1191,6 +1458,10 @@ public class Select extends AbstractWhereQuery<Select> implements Cloneable, Rea
             mDirection = direction;
         }
 
+        Object getStructure() {
+            return Arrays.asList(getColumn(), getDirection().toString());
+        }
+
         public OrderBy clone() {
             OrderBy new_instance = null;
             try {
@@ -1231,6 +1502,10 @@ public class Select extends AbstractWhereQuery<Select> implements Cloneable, Rea
             return mAll;
         }
 
+        Object getStructure() {
+            return Arrays.asList(getExpression(), isAll());
+        }
+
         public Union clone() {
             Union new_instance = null;
             try {
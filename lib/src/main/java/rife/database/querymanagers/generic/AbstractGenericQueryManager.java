@@ -11,7 +11,13 @@ import rife.database.exceptions.MissingManyToOneTableException;
 import rife.database.queries.*;
 
 import java.lang.reflect.*;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import rife.database.exceptions.DatabaseException;
 import rife.database.exceptions.ExecutionErrorException;
@@ -28,6 +34,11 @@ import rife.validation.*;
 import static rife.database.querymanagers.generic.GenericQueryManagerRelationalUtils.*;
 
 public abstract class AbstractGenericQueryManager<BeanType> extends DbQueryManager implements GenericQueryManager<BeanType> {
+    private static final int BATCH_FETCH_SIZE = 500;
+    // the related beans are restored without batch fetching their own
+    // properties, this prevents bidirectional associations from recursing
+    private static final ThreadLocal<Boolean> BATCH_FETCHING = new ThreadLocal<>();
+
     protected Class<BeanType> baseClass_ = null;
     protected String primaryKey_ = null;
     protected Method getPrimaryKeyMethod_ = null;
@@ -35,6 +46,7 @@ public abstract class AbstractGenericQueryManager<BeanType> extends DbQueryManag
     protected boolean sparseIdentifier_ = false;
 
     protected List<GenericQueryManagerListener<BeanType>> listeners_ = null;
+    protected EntityCache<BeanType> entityCache_ = null;
 
     public AbstractGenericQueryManager(Datasource datasource, Class<BeanType> beanClass, String primaryKey)
     throws DatabaseException {
@@ -71,6 +83,31 @@ public abstract class AbstractGenericQueryManager<BeanType> extends DbQueryManag
         return baseClass_;
     }
 
+    /**
+     * Sets the entity cache that is used when beans are restored by their
+     * identifier.
+     *
+     * @param entityCache the entity cache; or {@code null} if beans
+     *                    shouldn't be cached
+     * @see GenericQueryManagerFactory#enableEntityCache(Class, int, long)
+     * @since 1.4
+     */
+    public void setEntityCache(EntityCache<BeanType> entityCache) {
+        entityCache_ = entityCache;
+    }
+
+    /**
+     * Retrieves the entity cache that is used when beans are restored by
+     * their identifier.
+     *
+     * @return the entity cache; or
+     * <p>{@code null} if beans aren't cached
+     * @since 1.4
+     */
+    public EntityCache<BeanType> getEntityCache() {
+        return entityCache_;
+    }
+
     public String getIdentifierName() {
         return primaryKey_;
     }
@@ -374,6 +411,29 @@ public abstract class AbstractGenericQueryManager<BeanType> extends DbQueryManag
         return callbacks;
     }
 
+    private boolean hasCallbacks() {
+        return CallbacksProvider.class.isAssignableFrom(baseClass_) ||
+               Callbacks.class.isAssignableFrom(baseClass_);
+    }
+
+    protected Callbacks<BeanType> getCallbacks() {
+        Callbacks<BeanType> callbacks = null;
+        if (CallbacksProvider.class.isAssignableFrom(baseClass_)) {
+            try {
+                callbacks = ((CallbacksProvider<BeanType>) baseClass_.getDeclaredConstructor().newInstance()).getCallbacks();
+            } catch (IllegalAccessException | InstantiationException | InvocationTargetException | NoSuchMethodException e) {
+                callbacks = null;
+            }
+        } else if (Callbacks.class.isAssignableFrom(baseClass_)) {
+            try {
+                callbacks = (Callbacks<BeanType>) baseClass_.getDeclaredConstructor().newInstance();
+            } catch (IllegalAccessException | InstantiationException | InvocationTargetException | NoSuchMethodException e) {
+                callbacks = null;
+            }
+        }
+        return callbacks;
+    }
+
     protected int _update(final Update saveUpdate, final BeanType bean) {
         // handle before callback
         var callbacks = getCallbacks(bean);
@@ -458,22 +518,10 @@ public abstract class AbstractGenericQueryManager<BeanType> extends DbQueryManag
             throws InnerClassException {
                 storeManyToOne(bean);
 
-                var result = getIdentifierValue(bean);
-                if (!isIdentifierSparse()) {
-                    result = executeGetFirstInt(nextId);
-                }
+                var result = executeInsert(nextId, save, bean);
 
-                final var primary_key_id = result;
-                executeUpdate(save, statement -> {
-                    statement
-                        .setBean(bean)
-                        .setInt(primaryKey_, primary_key_id);
-
-                    setManyToOneJoinParameters(statement, bean);
-                });
-
-                storeManyToOneAssociations(bean, primary_key_id);
-                storeManyToMany(bean, primary_key_id);
+                storeManyToOneAssociations(bean, result);
+                storeManyToMany(bean, result);
 
                 return result;
             }
@@ -493,6 +541,143 @@ public abstract class AbstractGenericQueryManager<BeanType> extends DbQueryManag
         return value;
     }
 
+    private record BatchEntry<BeanType>(int position, BeanType bean, Callbacks<BeanType> callbacks) {
+    }
+
+    private record DeleteEntry<BeanType>(int objectId, Callbacks<BeanType> callbacks) {
+    }
+
+    protected int[] _insert(final SequenceValue nextId, final Insert save, final Collection<BeanType> beans) {
+        if (null == beans) throw new IllegalArgumentException("beans can't be null.");
+
+        final var result = new int[beans.size()];
+        Arrays.fill(result, -1);
+
+        // handle before callbacks
+        final var entries = new ArrayList<BatchEntry<BeanType>>(beans.size());
+        var position = 0;
+        for (var bean : beans) {
+            var callbacks = getCallbacks(bean);
+            if (null == callbacks ||
+                callbacks.beforeInsert(bean)) {
+                entries.add(new BatchEntry<>(position, bean, callbacks));
+            }
+            position++;
+        }
+
+        // perform inserts
+        var identifiers = _insertBatchWithoutCallbacks(nextId, save, entries.stream().map(BatchEntry::bean).toList());
+
+        // handle after callbacks
+        for (var i = 0; i < entries.size(); i++) {
+            var entry = entries.get(i);
+            result[entry.position()] = identifiers[i];
+            if (entry.callbacks() != null) {
+                entry.callbacks().afterInsert(entry.bean(), identifiers[i] != -1);
+            }
+        }
+
+        return result;
+    }
+
+    protected int[] _insertBatchWithoutCallbacks(final SequenceValue nextId, final Insert save, final List<BeanType> beans) {
+        assert nextId != null;
+        assert save != null;
+
+        final var identifiers = new int[beans.size()];
+        if (beans.isEmpty()) {
+            return identifiers;
+        }
+
+        inTransaction(() -> {
+            for (var bean : beans) {
+                storeManyToOne(bean);
+            }
+
+            if (isIdentifierSparse()) {
+                for (var i = 0; i < beans.size(); i++) {
+                    identifiers[i] = getIdentifierValue(beans.get(i));
+                }
+            } else {
+                System.arraycopy(reserveIdentifiers(nextId, beans.size()), 0, identifiers, 0, beans.size());
+            }
+
+            executeBatch(save, IntStream.range(0, beans.size()).boxed().toList(), (statement, i) -> {
+                var bean = beans.get(i);
+                statement
+                    .setBean(bean)
+                    .setInt(primaryKey_, identifiers[i]);
+
+                setManyToOneJoinParameters(statement, bean);
+            });
+
+            for (var i = 0; i < beans.size(); i++) {
+                storeManyToOneAssociations(beans.get(i), identifiers[i]);
+                storeManyToMany(beans.get(i), identifiers[i]);
+            }
+        });
+
+        for (var i = 0; i < beans.size(); i++) {
+            var bean = beans.get(i);
+            try {
+                setPrimaryKeyMethod_.invoke(bean, identifiers[i]);
+            } catch (Throwable e) {
+                throw new DatabaseException(e);
+            }
+
+            // handle listeners
+            fireInserted(bean);
+        }
+
+        return identifiers;
+    }
+
+    protected int[] reserveIdentifiers(final SequenceValue nextId, final int count) {
+        assert nextId != null;
+
+        final var identifiers = new int[count];
+        if (0 == count) {
+            return identifiers;
+        }
+
+        // obtain all the values through the same statement instead of
+        // preparing it again for each value
+        var connection = getConnection();
+        try {
+            var statement = connection.getPreparedStatement(nextId);
+            try {
+                for (var i = 0; i < count; i++) {
+                    statement.executeQuery();
+                    identifiers[i] = statement.getResultSet().getFirstInt();
+                }
+            } finally {
+                statement.close();
+            }
+        } finally {
+            connection.close();
+        }
+
+        return identifiers;
+    }
+
+    protected int executeInsert(final SequenceValue nextId, final Insert save, final BeanType bean) {
+        var result = getIdentifierValue(bean);
+        if (!isIdentifierSparse()) {
+            result = executeGetFirstInt(nextId);
+        }
+
+        final var primary_key_id = result;
+        executeUpdate(save, statement -> {
+            statement
+                .setBean(bean)
+                .setInt(primaryKey_, primary_key_id);
+
+            setManyToOneJoinParameters(statement, bean);
+        });
+
+        return result;
+    }
+
     protected void setManyToOneJoinParameters(final DbPreparedStatement statement, final BeanType bean) {
         final var constrained = ConstrainedUtils.makeConstrainedInstance(bean);
 
@@ -703,98 +888,173 @@ public abstract class AbstractGenericQueryManager<BeanType> extends DbQueryManag
         value = inTransaction(new DbTransactionUser<>() {
             public Integer useTransaction()
             throws InnerClassException {
-                var result = getIdentifierValue(bean);
-                if (isIdentifierSparse()) {
-                    // handle before callback
-                    if (callbacks != null &&
-                        !callbacks.beforeInsert(bean)) {
-                        is_cancelled[0] = true;
-                        return -1;
-                    }
+                return _saveWithoutSaveCallbacks(nextId, save, saveUpdate, bean, callbacks, is_cancelled);
+            }
+        });
 
-                    // try to perform the insert
-                    try {
-                        result = _insertWithoutCallbacks(nextId, save, bean);
-                    } catch (ExecutionErrorException e) {
-                        result = -1;
-                    }
+        // handle after callback
+        if (!is_cancelled[0] &&
+            callbacks != null) {
+            callbacks.afterSave(bean, value != -1);
+        }
 
-                    // handle after callback
-                    if (callbacks != null &&
-                        !callbacks.afterInsert(bean, result != -1)) {
-                        is_cancelled[0] = true;
-                        return result;
-                    }
+        return value;
+    }
 
-                    // perform update if insert failed
-                    if (-1 == result) {
-                        // handle before callback
-                        if (callbacks != null &&
-                            !callbacks.beforeUpdate(bean)) {
-                            is_cancelled[0] = true;
-                            return -1;
-                        }
+    private int _saveWithoutSaveCallbacks(final SequenceValue nextId, final Insert save, final Update saveUpdate, final BeanType bean, final Callbacks<BeanType> callbacks, final boolean[] isCancelled) {
+        var result = getIdentifierValue(bean);
+        if (isIdentifierSparse()) {
+            // handle before callback
+            if (callbacks != null &&
+                !callbacks.beforeInsert(bean)) {
+                isCancelled[0] = true;
+                return -1;
+            }
 
-                        result = _updateWithoutCallbacks(saveUpdate, bean);
+            // try to perform the insert
+            try {
+                result = _insertWithoutCallbacks(nextId, save, bean);
+            } catch (ExecutionErrorException e) {
+                result = -1;
+            }
 
-                        // handle after callback
-                        if (callbacks != null &&
-                            !callbacks.afterUpdate(bean, result != -1)) {
-                            is_cancelled[0] = true;
-                            return result;
-                        }
-                    }
-                } else {
-                    // try to update
-                    if (result >= 0) {
-                        // handle before callback
-                        if (callbacks != null &&
-                            !callbacks.beforeUpdate(bean)) {
-                            is_cancelled[0] = true;
-                            return -1;
-                        }
+            // handle after callback
+            if (callbacks != null &&
+                !callbacks.afterInsert(bean, result != -1)) {
+                isCancelled[0] = true;
+                return result;
+            }
 
-                        result = _updateWithoutCallbacks(saveUpdate, bean);
+            // perform update if insert failed
+            if (-1 == result) {
+                // handle before callback
+                if (callbacks != null &&
+                    !callbacks.beforeUpdate(bean)) {
+                    isCancelled[0] = true;
+                    return -1;
+                }
 
-                        // handle after callback
-                        if (callbacks != null &&
-                            !callbacks.afterUpdate(bean, result != -1)) {
-                            is_cancelled[0] = true;
-                            return result;
-                        }
-                    }
+                result = _updateWithoutCallbacks(saveUpdate, bean);
 
-                    // perform insert if update failed or wasn't appropriate
-                    if (-1 == result) {
-                        // handle before callback
-                        if (callbacks != null &&
-                            !callbacks.beforeInsert(bean)) {
-                            is_cancelled[0] = true;
-                            return -1;
-                        }
+                // handle after callback
+                if (callbacks != null &&
+                    !callbacks.afterUpdate(bean, result != -1)) {
+                    isCancelled[0] = true;
+                    return result;
+                }
+            }
+        } else {
+            // try to update
+            if (result >= 0) {
+                // handle before callback
+                if (callbacks != null &&
+                    !callbacks.beforeUpdate(bean)) {
+                    isCancelled[0] = true;
+                    return -1;
+                }
 
-                        result = _insertWithoutCallbacks(nextId, save, bean);
+                result = _updateWithoutCallbacks(saveUpdate, bean);
 
-                        // handle after callback
-                        if (callbacks != null &&
-                            !callbacks.afterInsert(bean, result != -1)) {
-                            is_cancelled[0] = true;
-                            return result;
-                        }
-                    }
+                // handle after callback
+                if (callbacks != null &&
+                    !callbacks.afterUpdate(bean, result != -1)) {
+                    isCancelled[0] = true;
+                    return result;
+                }
+            }
+
+            // perform insert if update failed or wasn't appropriate
+            if (-1 == result) {
+                // handle before callback
+                if (callbacks != null &&
+                    !callbacks.beforeInsert(bean)) {
+                    isCancelled[0] = true;
+                    return -1;
                 }
 
-                return result;
+                result = _insertWithoutCallbacks(nextId, save, bean);
+
+                // handle after callback
+                if (callbacks != null &&
+                    !callbacks.afterInsert(bean, result != -1)) {
+                    isCancelled[0] = true;
+                    return result;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    protected int[] _save(final SequenceValue nextId, final Insert save, final Update saveUpdate, final Collection<BeanType> beans)
+    throws DatabaseException {
+        assert nextId != null;
+        assert save != null;
+        assert saveUpdate != null;
+        if (null == beans) throw new IllegalArgumentException("beans can't be null.");
+
+        final var result = new int[beans.size()];
+        Arrays.fill(result, -1);
+
+        // handle before callbacks
+        final var entries = new ArrayList<BatchEntry<BeanType>>(beans.size());
+        var position = 0;
+        for (var bean : beans) {
+            var callbacks = getCallbacks(bean);
+            if (null == callbacks ||
+                callbacks.beforeSave(bean)) {
+                entries.add(new BatchEntry<>(position, bean, callbacks));
+            }
+            position++;
+        }
+
+        // cancel indicators
+        final var cancelled = new boolean[beans.size()];
+
+        // perform saves
+        inTransaction(() -> {
+            final var inserts = new ArrayList<BatchEntry<BeanType>>(entries.size());
+            for (var entry : entries) {
+                var bean = entry.bean();
+
+                // only the beans that are certainly new can be inserted
+                // together, the others are saved individually
+                if (isIdentifierSparse() ||
+                    getIdentifierValue(bean) >= 0) {
+                    var is_cancelled = new boolean[]{false};
+                    result[entry.position()] = _saveWithoutSaveCallbacks(nextId, save, saveUpdate, bean, entry.callbacks(), is_cancelled);
+                    cancelled[entry.position()] = is_cancelled[0];
+                } else if (null == entry.callbacks() ||
+                           entry.callbacks().beforeInsert(bean)) {
+                    inserts.add(entry);
+                } else {
+                    cancelled[entry.position()] = true;
+                }
+            }
+
+            // perform inserts
+            var identifiers = _insertBatchWithoutCallbacks(nextId, save, inserts.stream().map(BatchEntry::bean).toList());
+
+            // handle after insert callbacks
+            for (var i = 0; i < inserts.size(); i++) {
+                var entry = inserts.get(i);
+                result[entry.position()] = identifiers[i];
+                if (entry.callbacks() != null &&
+                    !entry.callbacks().afterInsert(entry.bean(), identifiers[i] != -1)) {
+                    cancelled[entry.position()] = true;
+                }
             }
         });
 
-        // handle after callback
-        if (!is_cancelled[0] &&
-            callbacks != null) {
-            callbacks.afterSave(bean, value != -1);
+        // handle after callbacks
+        for (var entry : entries) {
+            if (!cancelled[entry.position()] &&
+                entry.callbacks() != null) {
+                entry.callbacks().afterSave(entry.bean(), result[entry.position()] != -1);
+            }
         }
 
-        return value;
+        return result;
     }
 
     protected boolean _delete(Delete delete)
@@ -807,6 +1067,9 @@ public abstract class AbstractGenericQueryManager<BeanType> extends DbQueryManag
             result = false;
         }
 
+        // the deleted identifiers aren't known
+        clearCachedEntities();
+
         return result;
     }
 
@@ -815,20 +1078,7 @@ public abstract class AbstractGenericQueryManager<BeanType> extends DbQueryManag
         assert delete != null;
 
         // handle before callback
-        Callbacks<BeanType> callbacks = null;
-        if (CallbacksProvider.class.isAssignableFrom(baseClass_)) {
-            try {
-                callbacks = ((CallbacksProvider<BeanType>) baseClass_.getDeclaredConstructor().newInstance()).getCallbacks();
-            } catch (IllegalAccessException | InstantiationException | InvocationTargetException | NoSuchMethodException e) {
-                callbacks = null;
-            }
-        } else if (Callbacks.class.isAssignableFrom(baseClass_)) {
-            try {
-                callbacks = (Callbacks<BeanType>) baseClass_.getDeclaredConstructor().newInstance();
-            } catch (IllegalAccessException | InstantiationException | InvocationTargetException | NoSuchMethodException e) {
-                callbacks = null;
-            }
-        }
+        var callbacks = getCallbacks();
         if (callbacks != null &&
             !callbacks.beforeDelete(objectId)) {
             return false;
@@ -862,6 +1112,90 @@ public abstract class AbstractGenericQueryManager<BeanType> extends DbQueryManag
         return result;
     }
 
+    protected int _delete(final Delete delete, final Collection<Integer> objectIds)
+    throws DatabaseException {
+        return _delete(delete, objectIds, null);
+    }
+
+    /**
+     * Deletes identified beans in batches and reports each identifier whose
+     * bean was actually deleted.
+     *
+     * @param objectIds the identifiers of the beans
+     * @param deleted   the consumer that receives the identifiers of the
+     *                  deleted beans
+     * @return the number of beans that were deleted
+     * @since 1.4
+     */
+    int delete(Collection<Integer> objectIds, IntConsumer deleted)
+    throws DatabaseException {
+        var delete = new Delete(getDatasource())
+            .from(getTable())
+            .whereParameter(primaryKey_, "=");
+        return _delete(delete, objectIds, deleted);
+    }
+
+    private int _delete(final Delete delete, final Collection<Integer> objectIds, final IntConsumer deleted)
+    throws DatabaseException {
+        assert delete != null;
+        if (null == objectIds) throw new IllegalArgumentException("objectIds can't be null.");
+
+        // handle before callbacks, each identifier gets its own callbacks
+        // instance, which is only created when the beans provide callbacks
+        final var has_callbacks = hasCallbacks();
+        final var entries = new ArrayList<DeleteEntry<BeanType>>(objectIds.size());
+        for (var object_id : objectIds) {
+            if (null == object_id) throw new IllegalArgumentException("objectIds can't contain null.");
+
+            var callbacks = has_callbacks ? getCallbacks() : null;
+            if (null == callbacks ||
+                callbacks.beforeDelete(object_id)) {
+                entries.add(new DeleteEntry<>(object_id, callbacks));
+            }
+        }
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        // perform deletes
+        final var ids = entries.stream().map(DeleteEntry::objectId).toList();
+        int[] counts = inTransaction(() -> {
+            for (var object_id : ids) {
+                // remove all many-to-one and many-to-many mappings for this object ID
+                deleteManyToOne(object_id);
+                deleteManyToMany(object_id);
+            }
+
+            // perform the actual deletion of the objects from the database
+            return executeBatch(delete, ids, (statement, object_id) -> statement.setInt(primaryKey_, object_id));
+        });
+
+        var count = 0;
+        for (var i = 0; i < entries.size(); i++) {
+            var entry = entries.get(i);
+            var object_id = entry.objectId();
+
+            // a count that isn't known is reported as SUCCESS_NO_INFO
+            var result = counts[i] != 0;
+            if (result) {
+                count++;
+
+                // handle listeners
+                fireDeleted(object_id);
+                if (deleted != null) {
+                    deleted.accept(object_id);
+                }
+            }
+
+            // handle after callback
+            if (entry.callbacks() != null) {
+                entry.callbacks().afterDelete(object_id, result);
+            }
+        }
+
+        return count;
+    }
+
     protected void deleteManyToOne(final int objectId) {
         final var constrained = ConstrainedUtils.getConstrainedInstance(getBaseClass());
         final var declarations = obtainManyToOneAssociationDeclarations(this, constrained);
@@ -905,9 +1239,13 @@ public abstract class AbstractGenericQueryManager<BeanType> extends DbQueryManag
     }
 
     private boolean processFetchedBean(BeanType instance) {
+        return processFetchedBean(instance, Collections.emptySet());
+    }
+
+    private boolean processFetchedBean(BeanType instance, Set<String> batchFetched) {
         // handle listeners
         if (instance != null) {
-            restoreManyToOne(instance);
+            restoreManyToOne(instance, batchFetched);
             var identifier_value = getIdentifierValue(instance);
             restoreManyToOneAssociations(instance, identifier_value);
             restoreManyToMany(instance, identifier_value);
@@ -926,7 +1264,22 @@ public abstract class AbstractGenericQueryManager<BeanType> extends DbQueryManag
 
         BeanType result = null;
 
-        result = executeFetchFirstBean(restore, baseClass_, s -> s.setInt(primaryKey_, objectId));
+        var cache_version = 0L;
+        if (entityCache_ != null) {
+            cache_version = entityCache_.getVersion();
+            result = entityCache_.get(objectId);
+        }
+
+        if (null == result) {
+            result = executeFetchFirstBean(restore, baseClass_, s -> s.setInt(primaryKey_, objectId));
+            // beans that are read during a transaction could contain
+            // changes that aren't committed yet, they're not cached
+            if (result != null && entityCache_ != null &&
+                !hasThreadConnection()) {
+                entityCache_.put(objectId, result, cache_version);
+            }
+        }
+
         if (!processFetchedBean(result)) {
             return null;
         }
@@ -950,15 +1303,296 @@ public abstract class AbstractGenericQueryManager<BeanType> extends DbQueryManag
     throws DatabaseException {
         assert restore != null;
 
+        final var batch_fetched = Boolean.TRUE.equals(BATCH_FETCHING.get()) ? Collections.<String>emptySet() : obtainBatchFetchedProperties();
+        final var join_columns = obtainBatchFetchedJoinColumns(batch_fetched);
+        final var join_values = new HashMap<String, List<Integer>>();
         var bean_fetcher = new DbBeanFetcher<>(getDatasource(), baseClass_, true) {
+            private Map<String, Integer> joinColumnIndices_ = null;
+
+            public boolean processRow(ResultSet resultSet)
+            throws SQLException {
+                // collect the values of the batch fetched many-to-one join columns
+                // while the beans are restored, to not have to query them again
+                if (!join_columns.isEmpty()) {
+                    if (null == joinColumnIndices_) {
+                        joinColumnIndices_ = findJoinColumnIndices(resultSet.getMetaData(), join_columns);
+                    }
+                    for (var entry : joinColumnIndices_.entrySet()) {
+                        var join_value = resultSet.getInt(entry.getValue());
+                        join_values.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(resultSet.wasNull() ? null : join_value);
+                    }
+                }
+
+                return super.processRow(resultSet);
+            }
+
             public boolean gotBeanInstance(BeanType instance) {
-                return processFetchedBean(instance);
+                return processFetchedBean(instance, batch_fetched);
             }
         };
 
         executeFetchAll(restore, bean_fetcher, null);
 
-        return bean_fetcher.getCollectedInstances();
+        var result = bean_fetcher.getCollectedInstances();
+        batchFetchAssociations(result, batch_fetched, join_values);
+
+        return result;
+    }
+
+    private Map<String, String> obtainBatchFetchedJoinColumns(final Set<String> batchFetched) {
+        if (batchFetched.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        final var join_columns = new HashMap<String, String>();
+        processManyToOneJoinColumns(this, (columnName, propertyName, declaration) -> {
+            if (batchFetched.contains(propertyName)) {
+                join_columns.put(propertyName, columnName);
+            }
+            return true;
+        });
+        return join_columns;
+    }
+
+    private static Map<String, Integer> findJoinColumnIndices(ResultSetMetaData metaData, Map<String, String> joinColumns)
+    throws SQLException {
+        var indices = new HashMap<String, Integer>();
+        for (var i = 1; i <= metaData.getColumnCount(); i++) {
+            var label = metaData.getColumnLabel(i);
+            for (var entry : joinColumns.entrySet()) {
+                if (entry.getValue().equalsIgnoreCase(label)) {
+                    indices.put(entry.getKey(), i);
+                }
+            }
+        }
+        return indices;
+    }
+
+    private Set<String> obtainBatchFetchedProperties() {
+        var constrained = ConstrainedUtils.getConstrainedInstance(baseClass_);
+        if (null == constrained ||
+            !constrained.hasPropertyConstraint(ConstrainedProperty.BATCH_FETCH)) {
+            return Collections.emptySet();
+        }
+
+        var batch_fetched = new HashSet<String>();
+        for (var property : constrained.getConstrainedProperties()) {
+            if (property.isBatchFetch() &&
+                (property.hasManyToOne() || property.hasManyToMany() || property.hasManyToManyAssociation())) {
+                batch_fetched.add(property.getPropertyName());
+            }
+        }
+        return batch_fetched;
+    }
+
+    /**
+     * Fetches the related beans of the batch fetched properties for all the
+     * beans of a restored list, using a few {@code IN} queries instead of
+     * restoring them for each bean individually.
+     *
+     * @param beans        the beans that have been restored
+     * @param batchFetched the names of the properties that are batch fetched
+     * @since 1.4
+     */
+    protected void batchFetchAssociations(final List<BeanType> beans, final Set<String> batchFetched) {
+        batchFetchAssociations(beans, batchFetched, Collections.emptyMap());
+    }
+
+    private void batchFetchAssociations(final List<BeanType> beans, final Set<String> batchFetched, final Map<String, List<Integer>> joinValues) {
+        if (batchFetched.isEmpty() ||
+            null == beans ||
+            beans.isEmpty()) {
+            return;
+        }
+
+        var batch_fetching = BATCH_FETCHING.get();
+        BATCH_FETCHING.set(Boolean.TRUE);
+        try {
+            batchFetchRelatedBeans(beans, batchFetched, joinValues);
+        } finally {
+            if (null == batch_fetching) {
+                BATCH_FETCHING.remove();
+            } else {
+                BATCH_FETCHING.set(batch_fetching);
+            }
+        }
+    }
+
+    private void batchFetchRelatedBeans(final List<BeanType> beans, final Set<String> batchFetched, final Map<String, List<Integer>> joinValues) {
+        final var identifiers = new ArrayList<Integer>(beans.size());
+        for (var bean : beans) {
+            identifiers.add(getIdentifierValue(bean));
+        }
+
+        // handle many-to-one properties
+        processManyToOneJoinColumns(this, (columnName, propertyName, declaration) -> {
+            if (batchFetched.contains(propertyName)) {
+                batchFetchManyToOne(beans, identifiers, columnName, propertyName, declaration, joinValues.get(propertyName));
+            }
+            return true;
+        });
+
+        // handle many-to-many properties
+        var declarations = obtainManyToManyDeclarations(this, ConstrainedUtils.getConstrainedInstance(baseClass_), true);
+        if (declarations != null) {
+            for (var entry : declarations.entrySet()) {
+                if (batchFetched.contains(entry.getKey())) {
+                    batchFetchManyToMany(beans, identifiers, entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    private void batchFetchManyToOne(List<BeanType> beans, List<Integer> identifiers, String columnName, String propertyName, ManyToOneDeclaration declaration, List<Integer> restoredJoinValues) {
+        // obtain the values of the join column for all the beans, they were
+        // usually already retrieved with the beans themselves and only have
+        // to be queried when the join column wasn't part of the restore query
+        final var join_values = new HashMap<Integer, Integer>();
+        if (restoredJoinValues != null &&
+            restoredJoinValues.size() == beans.size()) {
+            for (var i = 0; i < beans.size(); i++) {
+                var join_value = restoredJoinValues.get(i);
+                if (join_value != null) {
+                    join_values.put(identifiers.get(i), join_value);
+                }
+            }
+        } else for (var chunk : chunkIdentifiers(identifiers)) {
+            var select = new Select(getDatasource())
+                .from(getTable())
+                .field(getIdentifierName())
+                .field(columnName)
+                .where(getIdentifierName() + " IN (" + StringUtils.join(chunk, ",") + ")");
+            executeFetchAll(select, resultSet -> {
+                var join_value = resultSet.getInt(2);
+                if (!resultSet.wasNull()) {
+                    join_values.put(resultSet.getInt(1), join_value);
+                }
+            });
+        }
+
+        // restore all the associated beans at once
+        GenericQueryManager<?> association_manager = declaration.getAssociationManager();
+        Class<?> association_type = declaration.getAssociationType();
+        var associated = restoreIdentifiedBeans(association_manager, new HashSet<>(join_values.values()), association_type);
+
+        // set the many-to-one mappings as the property values
+        for (var i = 0; i < beans.size(); i++) {
+            var bean = beans.get(i);
+            var join_value = join_values.get(identifiers.get(i));
+            var property_value = join_value == null ? null : associated.get(join_value);
+
+            var lazyloaded = getLazyLoadedProperties(bean);
+            if (lazyloaded != null) {
+                // the lazy-load map has weak keys, use the same string instance
+                // as the enhanced accessors to ensure that the value is retained
+                lazyloaded.put(propertyName.intern(), property_value);
+            } else {
+                try {
+                    BeanUtils.setPropertyValue(bean, propertyName, property_value);
+                } catch (BeanUtilsException e) {
+                    throw new DatabaseException(e);
+                }
+            }
+        }
+    }
+
+    private void batchFetchManyToMany(List<BeanType> beans, List<Integer> identifiers, String propertyName, ManyToManyDeclaration declaration) {
+        Class<?> association_type = declaration.getAssociationType();
+        var association_manager = createNewManager(association_type);
+        var join_table = generateManyToManyJoinTableName(declaration, this, association_manager);
+        var column1_name = generateManyToManyJoinColumnName(this);
+        var column2_name = generateManyToManyJoinColumnName(association_manager);
+
+        // obtain the mappings of all the beans from the join table
+        final var mappings = new HashMap<Integer, List<Integer>>();
+        final var associated_identifiers = new HashSet<Integer>();
+        for (var chunk : chunkIdentifiers(identifiers)) {
+            var select = new Select(getDatasource())
+                .from(join_table)
+                .field(column1_name)
+                .field(column2_name)
+                .where(column1_name + " IN (" + StringUtils.join(chunk, ",") + ")");
+            executeFetchAll(select, resultSet -> {
+                var associated_identifier = resultSet.getInt(2);
+                mappings.computeIfAbsent(resultSet.getInt(1), k -> new ArrayList<>()).add(associated_identifier);
+                associated_identifiers.add(associated_identifier);
+            });
+        }
+
+        // restore all the associated beans at once
+        var associated = restoreIdentifiedBeans(association_manager, associated_identifiers, association_type);
+
+        // provide the restored beans to the many-to-many collections
+        for (var i = 0; i < beans.size(); i++) {
+            Object collection;
+            try {
+                collection = BeanUtils.getPropertyValue(beans.get(i), propertyName);
+            } catch (BeanUtilsException e) {
+                throw new DatabaseException(e);
+            }
+
+            if (collection instanceof AbstractManyToManyCollection<?> many_to_many) {
+                var restored = new ArrayList<>();
+                var mapping = mappings.get(identifiers.get(i));
+                if (mapping != null) {
+                    for (var associated_identifier : mapping) {
+                        var associated_bean = associated.get(associated_identifier);
+                        if (associated_bean != null) {
+                            restored.add(associated_bean);
+                        }
+                    }
+                }
+                many_to_many.preloadMappings(restored);
+            }
+        }
+    }
+
+    private static <T> Map<Integer, Object> restoreIdentifiedBeans(GenericQueryManager<T> manager, Set<Integer> identifiers, Class<?> type) {
+        var beans = new HashMap<Integer, Object>();
+        for (var chunk : chunkIdentifiers(new ArrayList<>(identifiers))) {
+            var query = manager.getRestoreQuery()
+                .fields(type)
+                .where(manager.getIdentifierName() + " IN (" + StringUtils.join(chunk, ",") + ")");
+            for (var bean : manager.restore(query)) {
+                beans.put(manager.getIdentifierValue(bean), bean);
+            }
+        }
+        return beans;
+    }
+
+    private static List<List<Integer>> chunkIdentifiers(List<Integer> identifiers) {
+        var chunks = new ArrayList<List<Integer>>();
+        for (var i = 0; i < identifiers.size(); i += BATCH_FETCH_SIZE) {
+            chunks.add(identifiers.subList(i, Math.min(i + BATCH_FETCH_SIZE, identifiers.size())));
+        }
+        return chunks;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> getLazyLoadedProperties(BeanType bean) {
+        try {
+            var lazyloaded_field = bean.getClass().getDeclaredField(LazyLoadAccessorsBytecodeTransformer.LAZY_LOADED_VAR_NAME);
+            lazyloaded_field.setAccessible(true);
+            return (Map<String, Object>) lazyloaded_field.get(bean);
+        } catch (NoSuchFieldException e) {
+            // bytecode enhancement hasn't been performed to provide lazy-load functionalities
+            return null;
+        } catch (IllegalAccessException e) {
+            throw new DatabaseException(e);
+        }
+    }
+
+    protected Stream<BeanType> _restoreStream(Select restore)
+    throws DatabaseException {
+        assert restore != null;
+
+        var bean_fetcher = new DbBeanFetcher<>(getDatasource(), baseClass_) {
+            public boolean gotBeanInstance(BeanType instance) {
+                return processFetchedBean(instance);
+            }
+        };
+
+        return executeFetchStream(restore, bean_fetcher, null);
     }
 
     protected boolean _restore(Select restore, DbRowProcessor rowProcessor)
@@ -1013,6 +1647,10 @@ public abstract class AbstractGenericQueryManager<BeanType> extends DbQueryManag
     }
 
     protected void restoreManyToOne(final BeanType bean) {
+        restoreManyToOne(bean, Collections.emptySet());
+    }
+
+    private void restoreManyToOne(final BeanType bean, final Set<String> batchFetched) {
         Field gqm_field = null;
         Field lazyloaded_field = null;
         try {
@@ -1042,6 +1680,11 @@ public abstract class AbstractGenericQueryManager<BeanType> extends DbQueryManag
         // otherwise eagerly load all many-to-one properties
         else {
             processManyToOneJoinColumns(this, (columnName, propertyName, declaration) -> {
+                // batch fetched properties are restored for all the beans at once
+                if (batchFetched.contains(propertyName)) {
+                    return true;
+                }
+
                 var property_value = restoreManyToOneProperty(AbstractGenericQueryManager.this, bean, declaration.getAssociationManager(), columnName, declaration.getAssociationType());
 
                 // set the many-to-one mapping as the property value
@@ -1197,7 +1840,31 @@ public abstract class AbstractGenericQueryManager<BeanType> extends DbQueryManag
         return GenericQueryManagerFactory.instance(getDatasource(), beanClass);
     }
 
+    private void invalidateCachedEntity(final int objectId) {
+        final var cache = entityCache_;
+        if (null == cache) {
+            return;
+        }
+
+        // invalidate again when the transaction ended, a concurrent restore
+        // could otherwise cache the committed bean that is being replaced
+        cache.invalidate(objectId);
+        afterTransaction(() -> cache.invalidate(objectId));
+    }
+
+    private void clearCachedEntities() {
+        final var cache = entityCache_;
+        if (null == cache) {
+            return;
+        }
+
+        cache.clear();
+        afterTransaction(cache::clear);
+    }
+
     protected void fireInstalled() {
+        clearCachedEntities();
+
         if (null == listeners_) {
             return;
         }
@@ -1208,6 +1875,8 @@ public abstract class AbstractGenericQueryManager<BeanType> extends DbQueryManag
     }
 
     protected void fireRemoved() {
+        clearCachedEntities();
+
         if (null == listeners_) {
             return;
         }
@@ -1218,6 +1887,8 @@ public abstract class AbstractGenericQueryManager<BeanType> extends DbQueryManag
     }
 
     protected void fireInserted(BeanType bean) {
+        invalidateCachedEntity(getIdentifierValue(bean));
+
         if (null == listeners_) {
             return;
         }
@@ -1228,6 +1899,8 @@ public abstract class AbstractGenericQueryManager<BeanType> extends DbQueryManag
     }
 
     protected void fireUpdated(BeanType bean) {
+        invalidateCachedEntity(getIdentifierValue(bean));
+
         if (null == listeners_) {
             return;
         }
@@ -1248,6 +1921,8 @@ public abstract class AbstractGenericQueryManager<BeanType> extends DbQueryManag
     }
 
     protected void fireDeleted(int objectId) {
+        invalidateCachedEntity(objectId);
+
         if (null == listeners_) {
             return;
         }
@@ -18,6 +18,7 @@ abstract class AbstractManyToManyCollection<E> implements Collection<E> {
     private final String columnName1_;
     private final int objectId_;
     private final ManyToManyDeclaration declaration_;
+    private List<?> preloadedMappings_ = null;
 
     AbstractManyToManyCollection(AbstractGenericQueryManager manager, String columnName1, int objectId, ManyToManyDeclaration declaration) {
         queryManager_ = manager;
@@ -26,7 +27,18 @@ abstract class AbstractManyToManyCollection<E> implements Collection<E> {
         declaration_ = declaration;
     }
 
+    void preloadMappings(List<?> mappings) {
+        preloadedMappings_ = mappings;
+    }
+
     protected List restoreManyToManyMappings() {
+        // use the mappings that were batch fetched with the other beans of a restored list
+        if (preloadedMappings_ != null) {
+            var mappings = preloadedMappings_;
+            preloadedMappings_ = null;
+            return mappings;
+        }
+
         GenericQueryManager association_manager = queryManager_.createNewManager(declaration_.getAssociationType());
         String join_table = generateManyToManyJoinTableName(declaration_, queryManager_, association_manager);
         final String column2_name = generateManyToManyJoinColumnName(association_manager);
@@ -14,13 +14,16 @@ import rife.database.queries.QueryParameters;
 
 public class DeleteQuery extends AbstractWhereDelegateQuery<DeleteQuery, Delete> implements Query, Cloneable {
     private Delete delegatePristine_ = null;
+    private int shard_ = -1;
 
     public String toString() {
         return getSql();
     }
 
     public DeleteQuery clone() {
-        return new DeleteQuery(delegate_.clone());
+        var new_instance = new DeleteQuery(delegate_.clone());
+        new_instance.shard_ = shard_;
+        return new_instance;
     }
 
     public DeleteQuery(Delete query) {
@@ -28,6 +31,22 @@ public class DeleteQuery extends AbstractWhereDelegateQuery<DeleteQuery, Delete>
         delegatePristine_ = query.clone();
     }
 
+    /**
+     * Restricts the execution of this query to a single shard of a {@link
+     * ShardedGenericQueryManager}, for queries that select beans through
+     * the identifiers of that shard.
+     *
+     * @param shard the index of the shard; or {@code -1} for all the shards
+     * @since 1.4
+     */
+    void setShard(int shard) {
+        shard_ = shard;
+    }
+
+    int getShard() {
+        return shard_;
+    }
+
     public String getSql()
     throws DbQueryException {
         return delegate_.getSql();
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database.querymanagers.generic;
+
+import rife.database.exceptions.DatabaseException;
+import rife.tools.BeanUtils;
+import rife.tools.exceptions.BeanUtilsException;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded least-recently-used cache of the beans that a {@link
+ * GenericQueryManager} restored by their identifier.
+ * <p>The cache is shared by all the generic query managers of the same
+ * datasource, bean class and table. It is set up through {@link
+ * GenericQueryManagerFactory#enableEntityCache(Class, int, long)} and is
+ * meant for small, read-mostly tables.
+ * <p>The beans are copied when they are stored and when they are retrieved,
+ * the cached instances are thus never handed out. Entries are invalidated
+ * when beans are inserted, updated or deleted through a generic query
+ * manager; changes that are made to the table in any other way are only
+ * picked up after the entries expired.
+ * <p>Each invalidation increases the {@linkplain #getVersion() version} of
+ * the cache. A bean that was read from the database is only stored when it
+ * wasn't invalidated since the version that was obtained before reading it,
+ * which prevents a concurrent restore from caching a bean that was changed
+ * in the meantime.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.4
+ */
+public class EntityCache<BeanType> {
+    private record Entry<BeanType>(BeanType bean, long expiration) {
+    }
+
+    private final Class<BeanType> beanClass_;
+    private final int maximumSize_;
+    private final long timeToLive_;
+    private final LinkedHashMap<Integer, Entry<BeanType>> entries_;
+    private final HashMap<Integer, Long> invalidations_ = new HashMap<>();
+    private long version_ = 0;
+    private long clearedVersion_ = 0;
+    private long hits_ = 0;
+    private long misses_ = 0;
+    private long evictions_ = 0;
+
+    /**
+     * Creates a new entity cache.
+     *
+     * @param beanClass   the class of the cached beans
+     * @param maximumSize the maximum number of beans that will be cached
+     * @param timeToLive  the number of milliseconds a bean stays cached; or
+     *                    {@code 0} if beans are only evicted when the
+     *                    cache is full
+     * @since 1.4
+     */
+    public EntityCache(Class<BeanType> beanClass, int maximumSize, long timeToLive) {
+        if (null == beanClass) throw new IllegalArgumentException("beanClass can't be null.");
+        if (maximumSize <= 0) throw new IllegalArgumentException("maximumSize should be at least 1.");
+        if (timeToLive < 0) throw new IllegalArgumentException("timeToLive can't be negative.");
+
+        beanClass_ = beanClass;
+        maximumSize_ = maximumSize;
+        timeToLive_ = timeToLive;
+        entries_ = new LinkedHashMap<>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry<BeanType>> eldest) {
+                if (size() > maximumSize_) {
+                    evictions_++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Retrieves a copy of a cached bean.
+     *
+     * @param objectId the identifier of the bean
+     * @return a copy of the cached bean; or
+     * <p>{@code null} if the bean isn't cached or if it expired
+     * @since 1.4
+     */
+    public BeanType get(int objectId) {
+        Entry<BeanType> entry;
+        synchronized (this) {
+            entry = entries_.get(objectId);
+            if (entry != null &&
+                entry.expiration() != 0 &&
+                entry.expiration() < System.currentTimeMillis()) {
+                entries_.remove(objectId);
+                evictions_++;
+                entry = null;
+            }
+
+            if (null == entry) {
+                misses_++;
+                return null;
+            }
+
+            hits_++;
+        }
+
+        return copy(entry.bean());
+    }
+
+    /**
+     * Retrieves the current version of the cache, which should be obtained
+     * before reading a bean from the database that will be stored with
+     * {@link #put(int, Object, long)}.
+     *
+     * @return the current version
+     * @since 1.4
+     */
+    public synchronized long getVersion() {
+        return version_;
+    }
+
+    /**
+     * Stores a copy of a bean in the cache.
+     *
+     * @param objectId the identifier of the bean
+     * @param bean     the bean to cache
+     * @since 1.4
+     */
+    public void put(int objectId, BeanType bean) {
+        if (null == bean) {
+            return;
+        }
+
+        var expiration = 0L;
+        if (timeToLive_ > 0) {
+            expiration = System.currentTimeMillis() + timeToLive_;
+        }
+        var entry = new Entry<>(copy(bean), expiration);
+
+        synchronized (this) {
+            entries_.put(objectId, entry);
+        }
+    }
+
+    /**
+     * Stores a copy of a bean in the cache, unless the bean was invalidated
+     * after the provided version of the cache.
+     *
+     * @param objectId the identifier of the bean
+     * @param bean     the bean to cache
+     * @param version  the version of the cache that was obtained before the
+     *                 bean was read
+     * @return {@code true} if the bean was stored; or
+     * <p>{@code false} if it was invalidated in the meantime
+     * @see #getVersion()
+     * @since 1.4
+     */
+    public boolean put(int objectId, BeanType bean, long version) {
+        if (null == bean) {
+            return false;
+        }
+
+        var expiration = 0L;
+        if (timeToLive_ > 0) {
+            expiration = System.currentTimeMillis() + timeToLive_;
+        }
+        var entry = new Entry<>(copy(bean), expiration);
+
+        synchronized (this) {
+            if (clearedVersion_ > version ||
+                invalidations_.getOrDefault(objectId, 0L) > version) {
+                return false;
+            }
+
+            entries_.put(objectId, entry);
+            return true;
+        }
+    }
+
+    /**
+     * Removes a bean from the cache.
+     *
+     * @param objectId the identifier of the bean
+     * @since 1.4
+     */
+    public synchronized void invalidate(int objectId) {
+        version_++;
+        entries_.remove(objectId);
+
+        // only the recent invalidations are tracked individually, when there
+        // are too many, they're handled as if the whole cache was cleared
+        invalidations_.put(objectId, version_);
+        if (invalidations_.size() > maximumSize_) {
+            invalidations_.clear();
+            clearedVersion_ = version_;
+        }
+    }
+
+    /**
+     * Removes all the beans from the cache.
+     *
+     * @since 1.4
+     */
+    public synchronized void clear() {
+        version_++;
+        entries_.clear();
+        invalidations_.clear();
+        clearedVersion_ = version_;
+    }
+
+    public Class<BeanType> getBeanClass() {
+        return beanClass_;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize_;
+    }
+
+    public long getTimeToLive() {
+        return timeToLive_;
+    }
+
+    public synchronized int size() {
+        return entries_.size();
+    }
+
+    public synchronized long getHits() {
+        return hits_;
+    }
+
+    public synchronized long getMisses() {
+        return misses_;
+    }
+
+    /**
+     * Retrieves the number of beans that were removed from the cache because
+     * it was full or because they expired.
+     *
+     * @return the number of evicted beans
+     * @since 1.4
+     */
+    public synchronized long getEvictions() {
+        return evictions_;
+    }
+
+    private BeanType copy(BeanType bean) {
+        try {
+            return BeanUtils.copyBean(bean);
+        } catch (BeanUtilsException e) {
+            throw new DatabaseException(e);
+        }
+    }
+}
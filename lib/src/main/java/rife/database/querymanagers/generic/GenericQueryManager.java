@@ -10,7 +10,9 @@ import rife.database.exceptions.DatabaseException;
 import rife.database.queries.CreateTable;
 import rife.validation.ValidationContext;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * A {@code GenericQueryManager} provides features that make it easy to
@@ -162,6 +164,60 @@ public interface GenericQueryManager<BeanType> extends ValidationContext {
     int update(BeanType bean)
     throws DatabaseException;
 
+    /**
+     * Persist a collection of beans.
+     * <p>This method behaves like {@link #save(Object bean)} for each bean.
+     * The default implementation simply saves the beans one by one, the
+     * database implementations save all the beans in a single transaction
+     * and insert the new beans together: their identifiers are reserved in
+     * one go and their rows are sent to the database in batches. Callbacks
+     * and listeners are still notified for each individual bean.
+     *
+     * @param beans the beans to be saved
+     * @return the identifiers assigned to the new/updated beans, in the
+     * order of the collection; {@code -1} for the beans that couldn't be saved
+     * @see #save(Object bean)
+     * @since 1.4
+     */
+    default int[] save(Collection<BeanType> beans)
+    throws DatabaseException {
+        if (null == beans) throw new IllegalArgumentException("beans can't be null.");
+
+        var result = new int[beans.size()];
+        var i = 0;
+        for (var bean : beans) {
+            result[i++] = save(bean);
+        }
+        return result;
+    }
+
+    /**
+     * Insert a collection of beans in the database.
+     * <p>This method behaves like {@link #insert(Object bean)} for each bean.
+     * The default implementation simply inserts the beans one by one, the
+     * database implementations insert all the beans in a single transaction:
+     * their identifiers are reserved in one go and their rows are sent to
+     * the database in batches. Callbacks and listeners are still notified
+     * for each individual bean.
+     *
+     * @param beans the beans to be inserted
+     * @return the identifiers assigned to the new beans, in the order of
+     * the collection; {@code -1} for the beans that couldn't be inserted
+     * @see #insert(Object bean)
+     * @since 1.4
+     */
+    default int[] insert(Collection<BeanType> beans)
+    throws DatabaseException {
+        if (null == beans) throw new IllegalArgumentException("beans can't be null.");
+
+        var result = new int[beans.size()];
+        var i = 0;
+        for (var bean : beans) {
+            result[i++] = insert(bean);
+        }
+        return result;
+    }
+
     /**
      * Restore all the beans persisted under this manager.
      * <p>This method will return a {@link List} of all the beans persisted
@@ -279,6 +335,47 @@ public interface GenericQueryManager<BeanType> extends ValidationContext {
     boolean restore(RestoreQuery query, BeanFetcher<BeanType> beanFetcher)
     throws DatabaseException;
 
+    /**
+     * Restore all the beans persisted under this manager as a lazily
+     * populated {@link Stream}.
+     * <p>See {@link #restoreStream(RestoreQuery)} for all the details.
+     *
+     * @return a {@link Stream} of all the persisted beans that has to be
+     * closed
+     * @see #restoreStream(RestoreQuery)
+     * @since 1.4
+     */
+    default Stream<BeanType> restoreStream()
+    throws DatabaseException {
+        return restoreStream(getRestoreQuery());
+    }
+
+    /**
+     * Restore the beans that match the provided {@link RestoreQuery} as a
+     * lazily populated {@link Stream}.
+     * <p>Contrary to {@link #restore(RestoreQuery)}, the beans are only
+     * restored while the stream is consumed, the rows are retrieved with a
+     * forward-only cursor that uses the fetch size of {@link
+     * rife.config.RifeConfig.DatabaseConfig#getFetchSize()}. This makes it
+     * suitable to process very large result sets.
+     * <p>A database connection is used until the stream is closed, it's
+     * thus important to always close it, for instance with a
+     * try-with-resources statement. When this method is called inside a
+     * transaction, the connection of the transaction is used.
+     * <p>The default implementation isn't lazy, it restores all the beans
+     * with {@link #restore(RestoreQuery)} and streams the resulting list.
+     *
+     * @param query the query the beans should be restored from
+     * @return a {@link Stream} of the restored beans that has to be closed
+     * @see #restore(RestoreQuery)
+     * @see DbQueryManager#executeFetchStream(rife.database.queries.ReadQuery, DbBeanFetcher, PreparedStatementHandler)
+     * @since 1.4
+     */
+    default Stream<BeanType> restoreStream(RestoreQuery query)
+    throws DatabaseException {
+        return restore(query).stream();
+    }
+
     /**
      * Get the query that would be used to install the table.
      * <p>This method will return the query that would be used to install the
@@ -363,6 +460,34 @@ public interface GenericQueryManager<BeanType> extends ValidationContext {
     boolean delete(int objectId)
     throws DatabaseException;
 
+    /**
+     * Delete a collection of identified beans
+     * <p>This method behaves like {@link #delete(int objectId)} for each
+     * identifier. The default implementation simply deletes the beans one by
+     * one, the database implementations delete all the beans in a single
+     * transaction and send the deletions to the database in batches.
+     * Callbacks and listeners are still notified for each individual bean.
+     *
+     * @param objectIds the identifiers of the beans
+     * @return the number of beans that were deleted
+     * @see #delete(int objectId)
+     * @since 1.4
+     */
+    default int delete(Collection<Integer> objectIds)
+    throws DatabaseException {
+        if (null == objectIds) throw new IllegalArgumentException("objectIds can't be null.");
+
+        var deleted = 0;
+        for (var object_id : objectIds) {
+            if (null == object_id) throw new IllegalArgumentException("objectIds can't contain null.");
+
+            if (delete(object_id.intValue())) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
     /**
      * Delete beans selected by the passed in {@link DeleteQuery}
      * <p>This method will delete all beans identified by the passed in {@link
@@ -10,7 +10,9 @@ import rife.database.exceptions.DatabaseException;
 import rife.database.queries.CreateTable;
 import rife.validation.Validated;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class GenericQueryManagerDelegate<T> implements GenericQueryManager<T> {
     private Datasource datasource_ = null;
@@ -82,6 +84,16 @@ public class GenericQueryManagerDelegate<T> implements GenericQueryManager<T> {
         return delegate_.insert(bean);
     }
 
+    public int[] save(Collection<T> beans)
+    throws DatabaseException {
+        return delegate_.save(beans);
+    }
+
+    public int[] insert(Collection<T> beans)
+    throws DatabaseException {
+        return delegate_.insert(beans);
+    }
+
     public int update(T bean)
     throws DatabaseException {
         return delegate_.update(bean);
@@ -127,6 +139,16 @@ public class GenericQueryManagerDelegate<T> implements GenericQueryManager<T> {
         return delegate_.restore(query, beanFetcher);
     }
 
+    public Stream<T> restoreStream()
+    throws DatabaseException {
+        return delegate_.restoreStream();
+    }
+
+    public Stream<T> restoreStream(RestoreQuery query)
+    throws DatabaseException {
+        return delegate_.restoreStream(query);
+    }
+
     public CreateTable getInstallTableQuery()
     throws DatabaseException {
         return delegate_.getInstallTableQuery();
@@ -159,6 +181,11 @@ public class GenericQueryManagerDelegate<T> implements GenericQueryManager<T> {
         return delegate_.delete(objectId);
     }
 
+    public int delete(Collection<Integer> objectIds)
+    throws DatabaseException {
+        return delegate_.delete(objectIds);
+    }
+
     public boolean delete(DeleteQuery query)
     throws DatabaseException {
         return delegate_.delete(query);
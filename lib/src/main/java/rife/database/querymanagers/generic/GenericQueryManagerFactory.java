@@ -19,6 +19,8 @@ import rife.validation.ConstrainedUtils;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class GenericQueryManagerFactory {
     private final static String GENERIC_DRIVER = "generic";
@@ -26,6 +28,108 @@ public class GenericQueryManagerFactory {
     private static DbQueryManagerCache cache_ = new DbQueryManagerCache();
     private static String packageName_ = GenericQueryManagerFactory.class.getPackage().getName() + ".databasedrivers.";
 
+    private record EntityCacheSettings(int maximumSize, long timeToLive) {
+    }
+
+    private record EntityCacheKey(Datasource datasource, Class<?> beanClass, String tableName) {
+    }
+
+    private static final Map<Class<?>, EntityCacheSettings> entityCacheSettings_ = new ConcurrentHashMap<>();
+    private static final Map<EntityCacheKey, EntityCache<?>> entityCaches_ = new ConcurrentHashMap<>();
+
+    /**
+     * Enables the entity cache for a bean class. All the generic query
+     * managers that are obtained afterwards for this bean class will share
+     * an {@link EntityCache} per datasource and table, which is used when
+     * beans are restored by their identifier.
+     *
+     * @param beanClass   the bean class that should be cached
+     * @param maximumSize the maximum number of beans that will be cached per
+     *                    datasource and table
+     * @param timeToLive  the number of milliseconds a bean stays cached; or
+     *                    {@code 0} if beans are only evicted when the
+     *                    cache is full
+     * @since 1.4
+     */
+    public static void enableEntityCache(Class<?> beanClass, int maximumSize, long timeToLive) {
+        if (null == beanClass) throw new IllegalArgumentException("beanClass can't be null.");
+        if (maximumSize <= 0) throw new IllegalArgumentException("maximumSize should be at least 1.");
+        if (timeToLive < 0) throw new IllegalArgumentException("timeToLive can't be negative.");
+
+        entityCacheSettings_.put(beanClass, new EntityCacheSettings(maximumSize, timeToLive));
+        entityCaches_.keySet().removeIf(key -> key.beanClass() == beanClass);
+    }
+
+    /**
+     * Disables the entity cache for a bean class and discards the beans that
+     * were cached for it. Generic query managers that were obtained before
+     * keep using their cache.
+     *
+     * @param beanClass the bean class that shouldn't be cached anymore
+     * @since 1.4
+     */
+    public static void disableEntityCache(Class<?> beanClass) {
+        if (null == beanClass) throw new IllegalArgumentException("beanClass can't be null.");
+
+        entityCacheSettings_.remove(beanClass);
+        entityCaches_.entrySet().removeIf(entry -> {
+            if (entry.getKey().beanClass() == beanClass) {
+                entry.getValue().clear();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Retrieves the entity cache of a bean class that is stored in the
+     * table with its default name.
+     *
+     * @param datasource the datasource of the cache
+     * @param beanClass  the cached bean class
+     * @return the entity cache; or
+     * <p>{@code null} if no beans were cached yet or if the entity cache
+     * isn't enabled for this bean class
+     * @see #enableEntityCache(Class, int, long)
+     * @since 1.4
+     */
+    public static <BeanType> EntityCache<BeanType> getEntityCache(Datasource datasource, Class<BeanType> beanClass) {
+        return getEntityCache(datasource, beanClass, ClassUtils.shortenClassName(beanClass));
+    }
+
+    /**
+     * Retrieves the entity cache of a bean class that is stored in a
+     * specific table.
+     *
+     * @param datasource the datasource of the cache
+     * @param beanClass  the cached bean class
+     * @param tableName  the name of the table
+     * @return the entity cache; or
+     * <p>{@code null} if no beans were cached yet or if the entity cache
+     * isn't enabled for this bean class
+     * @see #enableEntityCache(Class, int, long)
+     * @since 1.4
+     */
+    public static <BeanType> EntityCache<BeanType> getEntityCache(Datasource datasource, Class<BeanType> beanClass, String tableName) {
+        return typedEntityCache(entityCaches_.get(new EntityCacheKey(datasource, beanClass, tableName)));
+    }
+
+    private static <BeanType> EntityCache<BeanType> obtainEntityCache(Datasource datasource, Class<BeanType> beanClass, String tableName) {
+        var settings = entityCacheSettings_.get(beanClass);
+        if (null == settings) {
+            return null;
+        }
+
+        return typedEntityCache(entityCaches_.computeIfAbsent(new EntityCacheKey(datasource, beanClass, tableName),
+            key -> new EntityCache<>(beanClass, settings.maximumSize(), settings.timeToLive())));
+    }
+
+    // the key of each cache contains its bean class, which guarantees the type
+    @SuppressWarnings("unchecked")
+    private static <BeanType> EntityCache<BeanType> typedEntityCache(EntityCache<?> cache) {
+        return (EntityCache<BeanType>) cache;
+    }
+
     public static <BeanType> GenericQueryManager<BeanType> instance(Datasource datasource, Class<BeanType> beanClass)
     throws DatabaseException {
         var short_name = ClassUtils.shortenClassName(beanClass);
@@ -108,6 +212,8 @@ public class GenericQueryManagerFactory {
             }
         }
 
+        query_manager.setEntityCache(obtainEntityCache(datasource, beanClass, tableName));
+
         return query_manager;
     }
 }
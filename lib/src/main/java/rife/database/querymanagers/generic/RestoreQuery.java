@@ -14,13 +14,16 @@ import rife.database.queries.Select;
 
 public class RestoreQuery extends AbstractWhereDelegateQuery<RestoreQuery, Select> implements ReadQuery, Cloneable {
     private Select delegatePristine_ = null;
+    private int shard_ = -1;
 
     public String toString() {
         return getSql();
     }
 
     public RestoreQuery clone() {
-        return new RestoreQuery(delegate_.clone());
+        var new_instance = new RestoreQuery(delegate_.clone());
+        new_instance.shard_ = shard_;
+        return new_instance;
     }
 
     public RestoreQuery(Select query) {
@@ -28,6 +31,22 @@ public class RestoreQuery extends AbstractWhereDelegateQuery<RestoreQuery, Selec
         delegatePristine_ = query.clone();
     }
 
+    /**
+     * Restricts the execution of this query to a single shard of a {@link
+     * ShardedGenericQueryManager}, for queries that select beans through
+     * the identifiers of that shard.
+     *
+     * @param shard the index of the shard; or {@code -1} for all the shards
+     * @since 1.4
+     */
+    void setShard(int shard) {
+        shard_ = shard;
+    }
+
+    int getShard() {
+        return shard_;
+    }
+
     public void clear() {
         delegate_ = delegatePristine_.clone();
     }
@@ -106,6 +125,39 @@ public class RestoreQuery extends AbstractWhereDelegateQuery<RestoreQuery, Selec
         return this;
     }
 
+    /**
+     * Restricts the restored beans to those that come after the provided
+     * values of the {@code ORDER BY} columns.
+     *
+     * @param values the values of the {@code ORDER BY} columns of the last
+     *               bean of the previous page
+     * @return this {@code RestoreQuery} instance
+     * @see Select#seekAfter(Object...)
+     * @since 1.4
+     */
+    public RestoreQuery seekAfter(Object... values) {
+        delegate_.seekAfter(values);
+
+        return this;
+    }
+
+    /**
+     * Restricts the restored beans to those that come before the provided
+     * values of the {@code ORDER BY} columns, they're restored in reverse
+     * order.
+     *
+     * @param values the values of the {@code ORDER BY} columns of the first
+     *               bean of the next page
+     * @return this {@code RestoreQuery} instance
+     * @see Select#seekBefore(Object...)
+     * @since 1.4
+     */
+    public RestoreQuery seekBefore(Object... values) {
+        delegate_.seekBefore(values);
+
+        return this;
+    }
+
     public RestoreQuery orderBy(String column) {
         delegate_.orderBy(column);
 
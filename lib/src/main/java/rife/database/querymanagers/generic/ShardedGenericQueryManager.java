@@ -0,0 +1,925 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database.querymanagers.generic;
+
+import rife.database.Datasource;
+import rife.database.DbRowProcessor;
+import rife.database.exceptions.DatabaseException;
+import rife.database.queries.CreateTable;
+import rife.database.queries.Select;
+import rife.tools.BeanUtils;
+import rife.tools.exceptions.BeanUtilsException;
+import rife.validation.Validated;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+/**
+ * Generic query manager that spreads the beans of a class over several
+ * databases, called shards, that each have the same table structure.
+ * <p>New beans are stored in the shard that corresponds to the hash of
+ * their shard key. This is the value of a property that is provided when
+ * the manager is created, or their identifier by default. Since the
+ * identifier of a new bean is only known after it has been inserted, beans
+ * that are sharded by identifier are spread over the shards one after the
+ * other.
+ * <h4>Identifiers</h4>
+ * <p>Each shard generates its own identifiers, these are translated into
+ * identifiers that are unique across the shards by multiplying them by the
+ * number of shards and adding the index of the shard. The beans that are
+ * handed out by this manager always carry these global identifiers, which
+ * makes it possible to send all the operations on a single identifier
+ * straight to their shard. Note that the rows in the shards contain the
+ * local identifiers, custom queries that refer to identifiers are thus not
+ * supported. The queries of {@link #getRestoreQuery(int)} and {@link
+ * #getDeleteQuery(int)} are only executed by the shard of their bean.
+ * <p>Beans with sparse identifiers keep the identifiers that they are given,
+ * the operations on a single identifier then only go straight to their
+ * shard when the beans are sharded by identifier.
+ * <h4>Queries</h4>
+ * <p>Restore and count queries are executed in parallel by all the shards,
+ * on the {@linkplain Datasource#getAsyncExecutor() executors} of their
+ * datasources. The beans are merged according to the order by clauses of
+ * the query, which should thus refer to bean properties, after which the
+ * offset and the limit of the query are applied to the merged beans. Null
+ * values come last in ascending order. Row processors receive the rows of
+ * each shard one after the other, with the global identifiers. Since rows
+ * can't be merged, ordered or limited queries are rejected for them.
+ * <p>Changes are executed in a transaction of each shard that's involved,
+ * there is no transaction across the shards. Relationships between beans
+ * are only supported within the same shard.
+ * <h4>Example</h4>
+ * <pre>var manager = new ShardedGenericQueryManager&lt;&gt;(List.of(shard1, shard2, shard3), Order.class, null, "customerId");
+ * manager.install();
+ * var id = manager.save(order);
+ * var restored = manager.restore(id);
+ * var latest = manager.restore(manager.getRestoreQuery().orderBy("created", Select.DESC).limit(10));
+ * </pre>
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @see GenericQueryManagerFactory
+ * @since 1.4
+ */
+public class ShardedGenericQueryManager<BeanType> implements GenericQueryManager<BeanType> {
+    private final List<Datasource> datasources_;
+    private final List<GenericQueryManager<BeanType>> shards_;
+    private final Class<BeanType> beanClass_;
+    private final String shardKey_;
+    private final boolean sparseIdentifier_;
+    private final AtomicInteger nextShard_ = new AtomicInteger();
+    private final List<GenericQueryManagerListener<BeanType>> listeners_ = new ArrayList<>();
+
+    /**
+     * Creates a new sharded generic query manager that shards the beans by
+     * identifier.
+     *
+     * @param datasources the datasources of the shards, in a fixed order
+     * @param beanClass   the class of the beans
+     * @since 1.4
+     */
+    public ShardedGenericQueryManager(List<Datasource> datasources, Class<BeanType> beanClass) {
+        this(datasources, beanClass, null, null);
+    }
+
+    /**
+     * Creates a new sharded generic query manager.
+     *
+     * @param datasources the datasources of the shards, in a fixed order
+     *                    that should never change once beans have been
+     *                    stored
+     * @param beanClass   the class of the beans
+     * @param table       the name of the table; or {@code null} if the name
+     *                    should be derived from the bean class
+     * @param shardKey    the name of the property that determines the shard
+     *                    of a new bean, it should never change afterwards;
+     *                    or {@code null} if the beans should be sharded by
+     *                    identifier
+     * @since 1.4
+     */
+    public ShardedGenericQueryManager(List<Datasource> datasources, Class<BeanType> beanClass, String table, String shardKey) {
+        if (null == datasources) throw new IllegalArgumentException("datasources can't be null.");
+        if (datasources.isEmpty()) throw new IllegalArgumentException("datasources can't be empty.");
+        if (null == beanClass) throw new IllegalArgumentException("beanClass can't be null.");
+
+        datasources_ = List.copyOf(datasources);
+        beanClass_ = beanClass;
+
+        var shards = new ArrayList<GenericQueryManager<BeanType>>(datasources_.size());
+        for (var datasource : datasources_) {
+            if (null == table) {
+                shards.add(GenericQueryManagerFactory.instance(datasource, beanClass));
+            } else {
+                shards.add(GenericQueryManagerFactory.instance(datasource, beanClass, table));
+            }
+        }
+        shards_ = Collections.unmodifiableList(shards);
+
+        var first_shard = shards_.get(0);
+        if (null == shardKey) {
+            shardKey_ = first_shard.getIdentifierName();
+        } else {
+            try {
+                BeanUtils.getPropertyType(beanClass, shardKey);
+            } catch (BeanUtilsException e) {
+                throw new IllegalArgumentException("shardKey '" + shardKey + "' isn't a property of " + beanClass.getName() + ".", e);
+            }
+            shardKey_ = shardKey;
+        }
+        sparseIdentifier_ = first_shard instanceof AbstractGenericQueryManager<BeanType> manager && manager.isIdentifierSparse();
+    }
+
+    /**
+     * Retrieves the generic query managers of the shards.
+     *
+     * @return the managers of the shards, in the order of their datasources
+     * @since 1.4
+     */
+    public List<GenericQueryManager<BeanType>> getShards() {
+        return shards_;
+    }
+
+    /**
+     * Retrieves the name of the property that determines the shard of a
+     * bean.
+     *
+     * @return the name of the shard key property
+     * @since 1.4
+     */
+    public String getShardKey() {
+        return shardKey_;
+    }
+
+    /**
+     * Determines the index of the shard in which a bean is stored, or in
+     * which it will be stored when it's new.
+     *
+     * @param bean the bean
+     * @return the index of the shard
+     * @since 1.4
+     */
+    public int getShardIndex(BeanType bean) {
+        if (null == bean) throw new IllegalArgumentException("bean can't be null.");
+
+        if (!sparseIdentifier_) {
+            // beans that were stored before are found through their identifier
+            var id = getIdentifierValue(bean);
+            if (id >= 0) {
+                return getShardIndex(id);
+            }
+            if (isShardedByIdentifier()) {
+                return Math.floorMod(nextShard_.getAndIncrement(), shards_.size());
+            }
+        }
+
+        try {
+            return hashShardKey(BeanUtils.getPropertyValue(bean, shardKey_));
+        } catch (BeanUtilsException e) {
+            throw new DatabaseException(e);
+        }
+    }
+
+    /**
+     * Determines the index of the shard in which the bean with an
+     * identifier is stored.
+     *
+     * @param objectId the global identifier of the bean
+     * @return the index of the shard; or
+     * <p>{@code -1} if this can't be determined from the identifier
+     * @since 1.4
+     */
+    public int getShardIndex(int objectId) {
+        if (!sparseIdentifier_) {
+            return Math.floorMod(objectId, shards_.size());
+        }
+        if (isShardedByIdentifier()) {
+            return hashShardKey(objectId);
+        }
+        return -1;
+    }
+
+    private boolean isShardedByIdentifier() {
+        return shardKey_.equals(getIdentifierName());
+    }
+
+    private int hashShardKey(Object key) {
+        // the hashes of strings and numbers are the same in every JVM,
+        // other values are hashed by their string representation
+        int hash;
+        if (null == key) {
+            hash = 0;
+        } else if (key instanceof Number number) {
+            hash = Long.hashCode(number.longValue());
+        } else {
+            hash = String.valueOf(key).hashCode();
+        }
+        return Math.floorMod(hash, shards_.size());
+    }
+
+    private int toLocalIdentifier(int objectId) {
+        if (sparseIdentifier_ || objectId < 0) {
+            return objectId;
+        }
+        return Math.floorDiv(objectId, shards_.size());
+    }
+
+    private int toGlobalIdentifier(int localId, int shard) {
+        if (sparseIdentifier_ || localId < 0) {
+            return localId;
+        }
+        try {
+            return Math.addExact(Math.multiplyExact(localId, shards_.size()), shard);
+        } catch (ArithmeticException e) {
+            throw new DatabaseException("The identifier " + localId + " of shard " + shard + " is too large to be translated into a global identifier.", e);
+        }
+    }
+
+    private void setIdentifierValue(BeanType bean, int objectId) {
+        try {
+            BeanUtils.setPropertyValue(bean, getIdentifierName(), objectId);
+        } catch (BeanUtilsException e) {
+            throw new DatabaseException(e);
+        }
+    }
+
+    private BeanType globalize(BeanType bean, int shard) {
+        if (bean != null) {
+            setIdentifierValue(bean, toGlobalIdentifier(getIdentifierValue(bean), shard));
+            fireRestored(bean);
+        }
+        return bean;
+    }
+
+    public Class<BeanType> getBaseClass() {
+        return beanClass_;
+    }
+
+    public String getTable() {
+        return shards_.get(0).getTable();
+    }
+
+    public String getIdentifierName() {
+        return shards_.get(0).getIdentifierName();
+    }
+
+    public int getIdentifierValue(BeanType bean)
+    throws DatabaseException {
+        return shards_.get(0).getIdentifierValue(bean);
+    }
+
+    public void validate(Validated validated) {
+        shards_.get(0).validate(validated);
+    }
+
+    public void install()
+    throws DatabaseException {
+        for (var shard : shards_) {
+            shard.install();
+        }
+        fireInstalled();
+    }
+
+    public void install(CreateTable query)
+    throws DatabaseException {
+        for (var shard : shards_) {
+            shard.install(query);
+        }
+        fireInstalled();
+    }
+
+    public void remove()
+    throws DatabaseException {
+        for (var shard : shards_) {
+            shard.remove();
+        }
+        fireRemoved();
+    }
+
+    public int save(BeanType bean)
+    throws DatabaseException {
+        return store(bean, GenericQueryManager::save);
+    }
+
+    public int insert(BeanType bean)
+    throws DatabaseException {
+        return store(bean, GenericQueryManager::insert);
+    }
+
+    public int update(BeanType bean)
+    throws DatabaseException {
+        return store(bean, GenericQueryManager::update);
+    }
+
+    private int store(BeanType bean, BiFunction<GenericQueryManager<BeanType>, BeanType, Integer> operation) {
+        if (null == bean) throw new IllegalArgumentException("bean can't be null.");
+
+        var original_id = getIdentifierValue(bean);
+        var existed = (original_id >= 0);
+        var shard = getShardIndex(bean);
+
+        var result = -1;
+        setIdentifierValue(bean, toLocalIdentifier(original_id));
+        try {
+            result = toGlobalIdentifier(operation.apply(shards_.get(shard), bean), shard);
+        } finally {
+            setIdentifierValue(bean, result != -1 ? result : original_id);
+        }
+
+        if (result != -1) {
+            if (existed && result == original_id) {
+                fireUpdated(bean);
+            } else {
+                fireInserted(bean);
+            }
+        }
+
+        return result;
+    }
+
+    public int[] save(Collection<BeanType> beans)
+    throws DatabaseException {
+        return store(beans, GenericQueryManager::save);
+    }
+
+    public int[] insert(Collection<BeanType> beans)
+    throws DatabaseException {
+        return store(beans, GenericQueryManager::insert);
+    }
+
+    private int[] store(Collection<BeanType> beans, BiFunction<GenericQueryManager<BeanType>, Collection<BeanType>, int[]> operation) {
+        if (null == beans) throw new IllegalArgumentException("beans can't be null.");
+
+        var beans_list = new ArrayList<>(beans);
+        var original_ids = new int[beans_list.size()];
+        var positions = new ArrayList<List<Integer>>(shards_.size());
+        for (var i = 0; i < shards_.size(); i++) {
+            positions.add(new ArrayList<>());
+        }
+        for (var i = 0; i < beans_list.size(); i++) {
+            var bean = beans_list.get(i);
+            original_ids[i] = getIdentifierValue(bean);
+            positions.get(getShardIndex(bean)).add(i);
+        }
+
+        var results = new int[beans_list.size()];
+        Arrays.fill(results, -1);
+        try {
+            for (var shard = 0; shard < shards_.size(); shard++) {
+                var shard_positions = positions.get(shard);
+                if (shard_positions.isEmpty()) {
+                    continue;
+                }
+
+                var shard_beans = new ArrayList<BeanType>(shard_positions.size());
+                for (var position : shard_positions) {
+                    var bean = beans_list.get(position);
+                    setIdentifierValue(bean, toLocalIdentifier(original_ids[position]));
+                    shard_beans.add(bean);
+                }
+
+                var shard_results = operation.apply(shards_.get(shard), shard_beans);
+                for (var i = 0; i < shard_positions.size(); i++) {
+                    results[shard_positions.get(i)] = toGlobalIdentifier(shard_results[i], shard);
+                }
+            }
+        } finally {
+            for (var i = 0; i < beans_list.size(); i++) {
+                setIdentifierValue(beans_list.get(i), results[i] != -1 ? results[i] : original_ids[i]);
+            }
+        }
+
+        for (var i = 0; i < beans_list.size(); i++) {
+            if (results[i] != -1) {
+                if (original_ids[i] >= 0 && results[i] == original_ids[i]) {
+                    fireUpdated(beans_list.get(i));
+                } else {
+                    fireInserted(beans_list.get(i));
+                }
+            }
+        }
+
+        return results;
+    }
+
+    public List<BeanType> restore()
+    throws DatabaseException {
+        return restore(getRestoreQuery());
+    }
+
+    public BeanType restore(int objectId)
+    throws DatabaseException {
+        var shard = getShardIndex(objectId);
+        if (shard != -1) {
+            return globalize(shards_.get(shard).restore(toLocalIdentifier(objectId)), shard);
+        }
+
+        for (var bean : fanOut((manager, index) -> globalize(manager.restore(objectId), index))) {
+            if (bean != null) {
+                return bean;
+            }
+        }
+        return null;
+    }
+
+    public boolean restore(DbRowProcessor rowProcessor)
+    throws DatabaseException {
+        return restore(getRestoreQuery(), rowProcessor);
+    }
+
+    public boolean restore(BeanFetcher<BeanType> beanFetcher)
+    throws DatabaseException {
+        return restore(getRestoreQuery(), beanFetcher);
+    }
+
+    public BeanType restoreFirst(RestoreQuery query)
+    throws DatabaseException {
+        if (null == query) throw new IllegalArgumentException("query can't be null.");
+
+        var first_query = query.clone();
+        if (first_query.getDelegate().getLimit() < 1) {
+            first_query.limit(1);
+        }
+
+        var beans = restore(first_query);
+        if (beans.isEmpty()) {
+            return null;
+        }
+        return beans.get(0);
+    }
+
+    public List<BeanType> restore(RestoreQuery query)
+    throws DatabaseException {
+        if (null == query) throw new IllegalArgumentException("query can't be null.");
+
+        var shard_query = query.clone();
+        var select = shard_query.getDelegate();
+
+        // generating the SQL applies the default ordering of constrained beans
+        select.getSql();
+        var order_by = select.getEffectiveOrderBy();
+        var limit = select.getLimit();
+        var offset = Math.max(select.getOffset(), 0);
+
+        // each shard has to provide all the beans up to the end of the
+        // requested page, since it's only known after merging which shard
+        // provides which beans of the page
+        if (limit > 0 && -1 == query.getShard()) {
+            select.limit(offset + limit);
+            select.offset(0);
+        }
+
+        // queries that are routed to a single shard don't need to be merged
+        if (query.getShard() != -1) {
+            var beans = shards_.get(query.getShard()).restore(shard_query);
+            for (var bean : beans) {
+                globalize(bean, query.getShard());
+            }
+            return beans;
+        }
+
+        var merged = new ArrayList<BeanType>();
+        for (var beans : fanOut((manager, index) -> {
+            var beans = manager.restore(shard_query.clone());
+            for (var bean : beans) {
+                globalize(bean, index);
+            }
+            return beans;
+        })) {
+            merged.addAll(beans);
+        }
+
+        if (!order_by.isEmpty() && shards_.size() > 1) {
+            merged.sort(createComparator(order_by));
+        }
+
+        if (limit > 0) {
+            var from = Math.min(offset, merged.size());
+            var to = Math.min(from + limit, merged.size());
+            return new ArrayList<>(merged.subList(from, to));
+        }
+
+        return merged;
+    }
+
+    private Comparator<BeanType> createComparator(List<Select.OrderBy> orderBy) {
+        Comparator<BeanType> comparator = null;
+        for (var order : orderBy) {
+            var column = order.getColumn();
+            var property = column.substring(column.lastIndexOf('.') + 1);
+            Comparator<BeanType> property_comparator = (bean1, bean2) -> compareValues(getPropertyValue(bean1, property), getPropertyValue(bean2, property));
+            if (Select.DESC == order.getDirection()) {
+                property_comparator = property_comparator.reversed();
+            }
+
+            if (null == comparator) {
+                comparator = property_comparator;
+            } else {
+                comparator = comparator.thenComparing(property_comparator);
+            }
+        }
+        return comparator;
+    }
+
+    private static Object getPropertyValue(Object bean, String property) {
+        try {
+            return BeanUtils.getPropertyValue(bean, property);
+        } catch (BeanUtilsException e) {
+            throw new DatabaseException("The beans of the shards can only be merged when they're ordered by their properties.", e);
+        }
+    }
+
+    // the values of the same property have the same type, the cast thus
+    // can't fail once a value is known to be comparable
+    @SuppressWarnings("unchecked")
+    private static int compareValues(Object value1, Object value2) {
+        // null values come last in ascending order, like they do in most
+        // databases
+        if (value1 == value2) {
+            return 0;
+        }
+        if (null == value1) {
+            return 1;
+        }
+        if (null == value2) {
+            return -1;
+        }
+        if (!(value1 instanceof Comparable)) {
+            throw new DatabaseException("The beans of the shards can't be merged, the values of type " + value1.getClass().getName() + " can't be compared.");
+        }
+        return ((Comparable<Object>) value1).compareTo(value2);
+    }
+
+    public boolean restore(RestoreQuery query, DbRowProcessor rowProcessor)
+    throws DatabaseException {
+        if (null == query) throw new IllegalArgumentException("query can't be null.");
+
+        if (-1 == query.getShard() && shards_.size() > 1) {
+            // generating the SQL applies the default ordering of constrained beans
+            var select = query.clone().getDelegate();
+            select.getSql();
+            if (!select.getOrderBy().isEmpty() ||
+                select.getLimit() > 0 ||
+                select.getOffset() > 0 ||
+                select.getLimitParameter() != null ||
+                select.getOffsetParameter() != null) {
+                throw new IllegalArgumentException("The rows of the shards can't be merged, ordered or limited queries can only be restored as beans.");
+            }
+        }
+
+        var result = false;
+        for (var index = 0; index < shards_.size(); index++) {
+            if (query.getShard() != -1 && query.getShard() != index) {
+                continue;
+            }
+            if (shards_.get(index).restore(query.clone(), new ShardRowProcessor(rowProcessor, index))) {
+                result = true;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Hands the rows of a shard to a row processor, with the identifiers
+     * translated into global identifiers.
+     */
+    private class ShardRowProcessor extends DbRowProcessor {
+        private final DbRowProcessor rowProcessor_;
+        private final int shard_;
+        private ResultSet resultSet_ = null;
+        private ResultSet globalResultSet_ = null;
+
+        private ShardRowProcessor(DbRowProcessor rowProcessor, int shard) {
+            if (null == rowProcessor) throw new IllegalArgumentException("rowProcessor can't be null.");
+
+            rowProcessor_ = rowProcessor;
+            shard_ = shard;
+        }
+
+        public boolean processRow(ResultSet resultSet)
+        throws SQLException {
+            if (resultSet != resultSet_) {
+                resultSet_ = resultSet;
+                globalResultSet_ = globalizeIdentifiers(resultSet, shard_);
+            }
+            return rowProcessor_.processRow(globalResultSet_);
+        }
+    }
+
+    private ResultSet globalizeIdentifiers(ResultSet resultSet, int shard)
+    throws SQLException {
+        if (sparseIdentifier_) {
+            return resultSet;
+        }
+
+        var identifier_name = getIdentifierName();
+        int identifier_index;
+        try {
+            identifier_index = resultSet.findColumn(identifier_name);
+        } catch (SQLException e) {
+            // the identifiers aren't part of the restored rows
+            return resultSet;
+        }
+
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+            Object result;
+            try {
+                result = method.invoke(resultSet, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            if (null == result ||
+                null == args ||
+                args.length != 1 ||
+                !(args[0] instanceof Integer index && index == identifier_index ||
+                  args[0] instanceof String label && label.equalsIgnoreCase(identifier_name))) {
+                return result;
+            }
+
+            if (!method.getName().equals("getInt") &&
+                !method.getName().equals("getLong") &&
+                !method.getName().equals("getObject") ||
+                resultSet.wasNull()) {
+                return result;
+            }
+            if (result instanceof Integer id) {
+                return toGlobalIdentifier(id, shard);
+            }
+            if (result instanceof Long id) {
+                return (long) toGlobalIdentifier(id.intValue(), shard);
+            }
+            return result;
+        });
+    }
+
+    public boolean restore(RestoreQuery query, BeanFetcher<BeanType> beanFetcher)
+    throws DatabaseException {
+        if (null == beanFetcher) throw new IllegalArgumentException("beanFetcher can't be null.");
+
+        var beans = restore(query);
+        for (var bean : beans) {
+            beanFetcher.gotBeanInstance(bean);
+        }
+        return !beans.isEmpty();
+    }
+
+    public Stream<BeanType> restoreStream()
+    throws DatabaseException {
+        return restoreStream(getRestoreQuery());
+    }
+
+    public Stream<BeanType> restoreStream(RestoreQuery query)
+    throws DatabaseException {
+        if (null == query) throw new IllegalArgumentException("query can't be null.");
+
+        // ordered and limited results have to be merged, only the others
+        // can be streamed shard after shard
+        var select = query.clone().getDelegate();
+        select.getSql();
+        if (!select.getOrderBy().isEmpty() || select.getLimit() > 0 || query.getShard() != -1) {
+            return restore(query).stream();
+        }
+
+        Stream<BeanType> stream = Stream.empty();
+        for (var i = 0; i < shards_.size(); i++) {
+            final var index = i;
+            final var shard = shards_.get(i);
+            stream = Stream.concat(stream, Stream.of(index).flatMap(ignored -> shard.restoreStream(query.clone()).map(bean -> globalize(bean, index))));
+        }
+        return stream;
+    }
+
+    public CreateTable getInstallTableQuery()
+    throws DatabaseException {
+        return shards_.get(0).getInstallTableQuery();
+    }
+
+    public RestoreQuery getRestoreQuery() {
+        return shards_.get(0).getRestoreQuery();
+    }
+
+    public RestoreQuery getRestoreQuery(int objectId) {
+        var shard = getShardIndex(objectId);
+        if (-1 == shard) {
+            return shards_.get(0).getRestoreQuery(objectId);
+        }
+
+        var query = shards_.get(shard).getRestoreQuery(toLocalIdentifier(objectId));
+        query.setShard(shard);
+        return query;
+    }
+
+    public int count()
+    throws DatabaseException {
+        return count(getCountQuery());
+    }
+
+    public int count(CountQuery query)
+    throws DatabaseException {
+        if (null == query) throw new IllegalArgumentException("query can't be null.");
+
+        var count = 0;
+        for (var shard_count : fanOut((manager, index) -> manager.count(query.clone()))) {
+            count += shard_count;
+        }
+        return count;
+    }
+
+    public CountQuery getCountQuery() {
+        return shards_.get(0).getCountQuery();
+    }
+
+    public boolean delete(int objectId)
+    throws DatabaseException {
+        var result = false;
+        var shard = getShardIndex(objectId);
+        if (shard != -1) {
+            result = shards_.get(shard).delete(toLocalIdentifier(objectId));
+        } else {
+            for (var manager : shards_) {
+                if (manager.delete(objectId)) {
+                    result = true;
+                }
+            }
+        }
+
+        if (result) {
+            fireDeleted(objectId);
+        }
+        return result;
+    }
+
+    public int delete(Collection<Integer> objectIds)
+    throws DatabaseException {
+        if (null == objectIds) throw new IllegalArgumentException("objectIds can't be null.");
+
+        // the local identifiers of each shard, mapped to their global ones
+        var local_ids = new ArrayList<Map<Integer, Integer>>(shards_.size());
+        for (var i = 0; i < shards_.size(); i++) {
+            local_ids.add(new LinkedHashMap<>());
+        }
+        for (var object_id : objectIds) {
+            if (null == object_id) throw new IllegalArgumentException("objectIds can't contain null.");
+
+            var shard = getShardIndex(object_id);
+            if (shard != -1) {
+                local_ids.get(shard).put(toLocalIdentifier(object_id), object_id);
+            } else {
+                for (var ids : local_ids) {
+                    ids.put(object_id, object_id);
+                }
+            }
+        }
+
+        // only the beans that were actually deleted are reported
+        var count = 0;
+        var deleted = new LinkedHashSet<Integer>();
+        for (var shard = 0; shard < shards_.size(); shard++) {
+            var ids = local_ids.get(shard);
+            if (ids.isEmpty()) {
+                continue;
+            }
+
+            var manager = shards_.get(shard);
+            if (manager instanceof AbstractGenericQueryManager<BeanType> abstract_manager) {
+                count += abstract_manager.delete(ids.keySet(), local_id -> deleted.add(ids.get(local_id)));
+            } else {
+                for (var entry : ids.entrySet()) {
+                    if (manager.delete(entry.getKey())) {
+                        count++;
+                        deleted.add(entry.getValue());
+                    }
+                }
+            }
+        }
+
+        for (var object_id : deleted) {
+            fireDeleted(object_id);
+        }
+        return count;
+    }
+
+    public boolean delete(DeleteQuery query)
+    throws DatabaseException {
+        if (null == query) throw new IllegalArgumentException("query can't be null.");
+
+        var result = false;
+        for (var index = 0; index < shards_.size(); index++) {
+            if (query.getShard() != -1 && query.getShard() != index) {
+                continue;
+            }
+            if (shards_.get(index).delete(query.clone())) {
+                result = true;
+            }
+        }
+        return result;
+    }
+
+    public DeleteQuery getDeleteQuery() {
+        return shards_.get(0).getDeleteQuery();
+    }
+
+    public DeleteQuery getDeleteQuery(int objectId) {
+        var shard = getShardIndex(objectId);
+        if (-1 == shard) {
+            return shards_.get(0).getDeleteQuery(objectId);
+        }
+
+        var query = shards_.get(shard).getDeleteQuery(toLocalIdentifier(objectId));
+        query.setShard(shard);
+        return query;
+    }
+
+    private <ResultType> List<ResultType> fanOut(BiFunction<GenericQueryManager<BeanType>, Integer, ResultType> operation) {
+        var futures = new ArrayList<CompletableFuture<ResultType>>(shards_.size());
+        for (var i = 0; i < shards_.size(); i++) {
+            final var index = i;
+            final var shard = shards_.get(i);
+            futures.add(CompletableFuture.supplyAsync(() -> operation.apply(shard, index), datasources_.get(i).getAsyncExecutor()));
+        }
+
+        var results = new ArrayList<ResultType>(futures.size());
+        for (var future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw new DatabaseException(e.getCause());
+            }
+        }
+        return results;
+    }
+
+    public synchronized void addListener(GenericQueryManagerListener<BeanType> listener) {
+        if (null == listener) {
+            return;
+        }
+
+        listeners_.add(listener);
+    }
+
+    public synchronized void removeListeners() {
+        listeners_.clear();
+    }
+
+    private synchronized List<GenericQueryManagerListener<BeanType>> getListeners() {
+        if (listeners_.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(listeners_);
+    }
+
+    private void fireInstalled() {
+        for (var listener : getListeners()) {
+            listener.installed();
+        }
+    }
+
+    private void fireRemoved() {
+        for (var listener : getListeners()) {
+            listener.removed();
+        }
+    }
+
+    private void fireInserted(BeanType bean) {
+        for (var listener : getListeners()) {
+            listener.inserted(bean);
+        }
+    }
+
+    private void fireUpdated(BeanType bean) {
+        for (var listener : getListeners()) {
+            listener.updated(bean);
+        }
+    }
+
+    private void fireRestored(BeanType bean) {
+        for (var listener : getListeners()) {
+            listener.restored(bean);
+        }
+    }
+
+    private void fireDeleted(int objectId) {
+        for (var listener : getListeners()) {
+            listener.deleted(objectId);
+        }
+    }
+
+    public <OtherBeanType> GenericQueryManager<OtherBeanType> createNewManager(Class<OtherBeanType> beanClass) {
+        return new ShardedGenericQueryManager<>(datasources_, beanClass);
+    }
+}
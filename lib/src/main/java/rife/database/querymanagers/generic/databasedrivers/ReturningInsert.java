@@ -0,0 +1,62 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database.querymanagers.generic.databasedrivers;
+
+import rife.database.capabilities.Capabilities;
+import rife.database.exceptions.DbQueryException;
+import rife.database.queries.Insert;
+import rife.database.queries.QueryParameters;
+import rife.database.queries.ReadQuery;
+
+/**
+ * Turns an {@code Insert} query into a query that returns the value of a
+ * column of the inserted row, so that the identifier of a new bean can be
+ * obtained in the same round trip as the insert itself.
+ * <p>The database-specific SQL is provided as a format whose first argument
+ * is the SQL of the insert and whose second argument is the column name.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.4
+ */
+class ReturningInsert implements ReadQuery {
+    private final Insert insert_;
+    private final String format_;
+    private final String column_;
+
+    ReturningInsert(Insert insert, String format, String column) {
+        assert insert != null;
+        assert format != null;
+        assert column != null;
+
+        insert_ = insert;
+        format_ = format;
+        column_ = column;
+    }
+
+    public void clear() {
+        insert_.clear();
+    }
+
+    public String getSql()
+    throws DbQueryException {
+        return String.format(format_, insert_.getSql(), column_);
+    }
+
+    public QueryParameters getParameters() {
+        return insert_.getParameters();
+    }
+
+    public Capabilities getCapabilities() {
+        return insert_.getCapabilities();
+    }
+
+    public void setExcludeUnsupportedCapabilities(boolean flag) {
+        insert_.setExcludeUnsupportedCapabilities(flag);
+    }
+
+    public String toString() {
+        return getSql();
+    }
+}
@@ -17,6 +17,7 @@ import rife.database.querymanagers.generic.Callbacks;
 import rife.database.querymanagers.generic.GenericQueryManager;
 
 import java.sql.Types;
+import java.util.Collection;
 
 public class com_mysql_cj_jdbc_Driver<BeanType> extends generic<BeanType> implements GenericQueryManager<BeanType> {
     private CreateTable createTableMysql_ = null;
@@ -115,6 +116,36 @@ public class com_mysql_cj_jdbc_Driver<BeanType> extends generic<BeanType> implem
         return _insert(getInternalLastIdQuery(), getInternalSaveQuery(), bean);
     }
 
+    public int[] save(Collection<BeanType> beans)
+    throws DatabaseException {
+        if (null == beans) throw new IllegalArgumentException("beans can't be null.");
+
+        // the generated keys can only be obtained one row at a time
+        return inTransaction(() -> {
+            var result = new int[beans.size()];
+            var i = 0;
+            for (var bean : beans) {
+                result[i++] = save(bean);
+            }
+            return result;
+        });
+    }
+
+    public int[] insert(Collection<BeanType> beans)
+    throws DatabaseException {
+        if (null == beans) throw new IllegalArgumentException("beans can't be null.");
+
+        // the generated keys can only be obtained one row at a time
+        return inTransaction(() -> {
+            var result = new int[beans.size()];
+            var i = 0;
+            for (var bean : beans) {
+                result[i++] = insert(bean);
+            }
+            return result;
+        });
+    }
+
     protected int _insert(final Select lastId, final Insert save, final BeanType bean) {
         // handle before callback
         Callbacks callbacks = getCallbacks(bean);
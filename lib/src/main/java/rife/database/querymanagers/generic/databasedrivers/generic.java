@@ -11,9 +11,11 @@ import rife.database.querymanagers.generic.*;
 
 import rife.database.exceptions.DatabaseException;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 public class generic<BeanType> extends AbstractGenericQueryManager<BeanType> implements GenericQueryManager<BeanType> {
     private CreateTable createTable_ = null;
@@ -249,6 +251,16 @@ public class generic<BeanType> extends AbstractGenericQueryManager<BeanType> imp
         return _insert(getInternalGetNextIdQuery(), getInternalSaveQuery(), bean);
     }
 
+    public int[] save(Collection<BeanType> beans)
+    throws DatabaseException {
+        return _save(getInternalGetNextIdQuery(), getInternalSaveQuery(), getInternalSaveUpdateQuery(), beans);
+    }
+
+    public int[] insert(Collection<BeanType> beans)
+    throws DatabaseException {
+        return _insert(getInternalGetNextIdQuery(), getInternalSaveQuery(), beans);
+    }
+
     public int update(BeanType bean)
     throws DatabaseException {
         return _update(getInternalSaveUpdateQuery(), bean);
@@ -264,6 +276,11 @@ public class generic<BeanType> extends AbstractGenericQueryManager<BeanType> imp
         return _delete(getInternalDeleteQuery(), objectId);
     }
 
+    public int delete(Collection<Integer> objectIds)
+    throws DatabaseException {
+        return _delete(getInternalDeleteQuery(), objectIds);
+    }
+
     public int count()
     throws DatabaseException {
         return _count(getInternalCountQuery());
@@ -314,6 +331,16 @@ public class generic<BeanType> extends AbstractGenericQueryManager<BeanType> imp
         return _restoreFirst(query.getDelegate());
     }
 
+    public Stream<BeanType> restoreStream()
+    throws DatabaseException {
+        return _restoreStream(getInternalRestoreListQuery());
+    }
+
+    public Stream<BeanType> restoreStream(RestoreQuery query)
+    throws DatabaseException {
+        return _restoreStream(query.getDelegate());
+    }
+
     public void remove()
     throws DatabaseException {
         remove_(getInternalDropSequenceQuery(), getInternalDropTableQuery());
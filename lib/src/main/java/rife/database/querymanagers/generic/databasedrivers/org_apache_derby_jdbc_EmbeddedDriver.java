@@ -18,6 +18,7 @@ import rife.database.queries.SequenceValue;
 import rife.database.querymanagers.generic.GenericQueryManager;
 
 import java.sql.Statement;
+import java.util.List;
 
 public class org_apache_derby_jdbc_EmbeddedDriver<BeanType> extends generic<BeanType> implements GenericQueryManager<BeanType> {
     private CreateTable createTableDerby_ = null;
@@ -94,6 +95,19 @@ public class org_apache_derby_jdbc_EmbeddedDriver<BeanType> extends generic<Bean
         fireRemoved();
     }
 
+    protected int[] _insertBatchWithoutCallbacks(final SequenceValue nextId, final Insert save, final List<BeanType> beans) {
+        final var result = new int[beans.size()];
+
+        // the generated keys can only be obtained one row at a time
+        inTransaction(() -> {
+            for (var i = 0; i < beans.size(); i++) {
+                result[i] = _insertWithoutCallbacks(nextId, save, beans.get(i));
+            }
+        });
+
+        return result;
+    }
+
     protected int _insertWithoutCallbacks(final SequenceValue nextId, final Insert save, final BeanType bean)
     throws DatabaseException {
         final int[] result = new int[]{getIdentifierValue(bean)};
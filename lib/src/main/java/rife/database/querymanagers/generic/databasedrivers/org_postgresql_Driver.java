@@ -0,0 +1,80 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database.querymanagers.generic.databasedrivers;
+
+import rife.database.Datasource;
+import rife.database.exceptions.DatabaseException;
+import rife.database.exceptions.MissingResultsException;
+import rife.database.queries.Insert;
+import rife.database.queries.ReadQuery;
+import rife.database.queries.Select;
+import rife.database.queries.SequenceValue;
+import rife.database.querymanagers.generic.GenericQueryManager;
+
+import java.util.Arrays;
+
+public class org_postgresql_Driver<BeanType> extends generic<BeanType> implements GenericQueryManager<BeanType> {
+    private ReturningInsert saveReturning_ = null;
+
+    public org_postgresql_Driver(Datasource datasource, String tableName, String primaryKey, Class<BeanType> beanClass, boolean hasIdentifier)
+    throws DatabaseException {
+        super(datasource, tableName, primaryKey, beanClass, hasIdentifier);
+    }
+
+    protected ReadQuery getInternalSaveReturningQuery() {
+        if (null == saveReturning_) {
+            final var query = new Insert(getDatasource())
+                .into(tableName_)
+                .fieldsParametersExcluded(baseClass_, new String[]{primaryKey_})
+                .fieldCustom(primaryKey_, "nextval('" + getSequenceName() + "')");
+
+            addSaveManyToOneFields(query);
+
+            saveReturning_ = new ReturningInsert(query, "%1$s RETURNING %2$s", primaryKey_);
+        }
+
+        return saveReturning_;
+    }
+
+    protected int executeInsert(final SequenceValue nextId, final Insert save, final BeanType bean) {
+        if (isIdentifierSparse()) {
+            return super.executeInsert(nextId, save, bean);
+        }
+
+        // obtain the next sequence value as part of the insert itself
+        var result = executeGetFirstInt(getInternalSaveReturningQuery(), statement -> {
+            statement
+                .setBean(bean);
+
+            setManyToOneJoinParameters(statement, bean);
+        });
+        dataChanged(save);
+
+        return result;
+    }
+
+    protected int[] reserveIdentifiers(final SequenceValue nextId, final int count) {
+        if (count <= 1) {
+            return super.reserveIdentifiers(nextId, count);
+        }
+
+        // obtain the whole block of sequence values with a single query
+        var query = new Select(getDatasource())
+            .field("nextval('" + nextId.getName() + "')")
+            .from("generate_series(1, " + count + ")");
+
+        final var identifiers = new int[count];
+        final var index = new int[]{0};
+        executeFetchAll(query, resultSet -> {
+            identifiers[index[0]++] = resultSet.getInt(1);
+        });
+        if (index[0] != count) {
+            throw new MissingResultsException(getDatasource());
+        }
+        Arrays.sort(identifiers);
+
+        return identifiers;
+    }
+}
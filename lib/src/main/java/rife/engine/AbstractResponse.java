@@ -11,12 +11,11 @@ import rife.template.InternalString;
 import rife.template.Template;
 import rife.tools.HttpUtils;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.zip.GZIPOutputStream;
+import java.util.zip.CRC32C;
 
 /**
  * This abstract class implements parts of the {@link Response} interface to
@@ -33,10 +32,10 @@ public abstract class AbstractResponse implements Response {
     protected String contentType_ = null;
     protected Element lastElement_ = null;
     protected boolean textBufferEnabled_ = true;
+    protected boolean automaticEtagEnabled_ = RifeConfig.engine().getAutomaticEtag();
     protected ArrayList<CharSequence> textBuffer_ = null;
     protected OutputStream responseOutputStream_ = null;
-    protected ByteArrayOutputStream gzipByteOutputStream_ = null;
-    protected GZIPOutputStream gzipOutputStream_ = null;
+    private CompressedOutputStream compressedOutputStream_ = null;
     protected OutputStream outputStream_ = null;
 
     /**
@@ -125,6 +124,14 @@ public abstract class AbstractResponse implements Response {
         return textBufferEnabled_;
     }
 
+    public void enableAutomaticEtag(boolean enabled) {
+        automaticEtagEnabled_ = enabled;
+    }
+
+    public boolean isAutomaticEtagEnabled() {
+        return automaticEtagEnabled_;
+    }
+
     public void print(Template template)
     throws EngineException {
         if (null == template) return;
@@ -208,18 +215,11 @@ public abstract class AbstractResponse implements Response {
 
         ensureOutputStream();
 
-        String encoding = getCharacterEncoding();
         try {
             outputStream_.flush();
 
             // write the content to the output stream
-            for (CharSequence charsequence : deferredContent) {
-                if (charsequence instanceof rife.template.InternalString) {
-                    outputStream_.write(((InternalString) charsequence).getBytes(encoding));
-                } else if (charsequence instanceof java.lang.String) {
-                    outputStream_.write(((String) charsequence).getBytes(encoding));
-                }
-            }
+            writeEncodedContent(deferredContent, outputStream_);
 
             outputStream_.flush();
         } catch (IOException e) {
@@ -228,6 +228,18 @@ public abstract class AbstractResponse implements Response {
         }
     }
 
+    private void writeEncodedContent(Collection<CharSequence> content, OutputStream out)
+    throws IOException {
+        String encoding = getCharacterEncoding();
+        for (CharSequence charsequence : content) {
+            if (charsequence instanceof InternalString internal_string) {
+                out.write(internal_string.getBytes(encoding));
+            } else if (charsequence instanceof String string) {
+                out.write(string.getBytes(encoding));
+            }
+        }
+    }
+
     public void clearBuffer() {
         if (textBuffer_ != null &&
             textBuffer_.size() > 0) {
@@ -256,41 +268,119 @@ public abstract class AbstractResponse implements Response {
 
     public void close()
     throws EngineException {
-        flush();
-
-        if (outputStream_ != null) {
-            try {
-                if (gzipOutputStream_ != null) {
-                    gzipOutputStream_.flush();
-                    gzipOutputStream_.finish();
+        try {
+            if (automaticEtagEnabled_) {
+                writeBufferWithEtag();
+            }
 
-                    byte[] bytes = gzipByteOutputStream_.toByteArray();
+            flush();
 
-                    gzipOutputStream_ = null;
-                    gzipByteOutputStream_ = null;
+            if (outputStream_ != null) {
+                try {
+                    if (compressedOutputStream_ != null) {
+                        compressedOutputStream_.finish();
+                        compressedOutputStream_ = null;
+                        outputStream_ = responseOutputStream_;
+                    }
 
-                    setContentLength(bytes.length);
-                    addHeader("Content-Encoding", "gzip");
-                    responseOutputStream_.write(bytes);
-                    outputStream_ = responseOutputStream_;
-                }
+                    try {
+                        outputStream_.flush();
+                        outputStream_.close();
+                    } catch (IOException e) {
+                        // don't do anything, the response stream has probably been
+                        // closed or reset
+                    }
 
-                try {
-                    outputStream_.flush();
-                    outputStream_.close();
+                    outputStream_ = null;
                 } catch (IOException e) {
                     // don't do anything, the response stream has probably been
                     // closed or reset
                 }
+            }
+        } finally {
+            abortCompression();
+        }
+    }
 
-                outputStream_ = null;
-            } catch (IOException e) {
-                // don't do anything, the response stream has probably been
-                // closed or reset
+    /**
+     * Releases the resources of the compressed content when the response
+     * is abandoned before it was closed, for instance when it's redirected.
+     *
+     * @since 1.4
+     */
+    void abortCompression() {
+        if (compressedOutputStream_ != null) {
+            compressedOutputStream_.abort();
+            compressedOutputStream_ = null;
+            if (outputStream_ != null) {
+                outputStream_ = responseOutputStream_;
             }
         }
     }
 
+    private void writeBufferWithEtag()
+    throws EngineException {
+        // the ETag can only be computed when the text buffer holds all
+        // the content of a successful response and nothing has been
+        // written yet
+        if (null == textBuffer_ ||
+            textBuffer_.isEmpty() ||
+            responseOutputStream_ != null ||
+            getStatus() != 200 ||
+            containsHeader("ETag")) {
+            return;
+        }
+
+        var method = request_.getMethod();
+        if (method != RequestMethod.GET &&
+            method != RequestMethod.HEAD) {
+            return;
+        }
+
+        // the content is hashed as it's encoded, without being retained,
+        // template content caches its encoded bytes which makes encoding
+        // it again for the response cheap
+        var checksum = new ChecksumOutputStream();
+        try {
+            writeEncodedContent(textBuffer_, checksum);
+        } catch (IOException e) {
+            throw new EngineException(e);
+        }
+
+        var etag = "W/\"" + Long.toHexString(checksum.getLength()) + "-" + Long.toHexString(checksum.getValue()) + "\"";
+        setHeader("ETag", etag);
+
+        if (HttpUtils.matchesEtag(request_.getHeader("If-None-Match"), etag)) {
+            textBuffer_.clear();
+            setStatus(304);
+        }
+    }
+
+    private static class ChecksumOutputStream extends OutputStream {
+        private final CRC32C checksum_ = new CRC32C();
+        private long length_ = 0;
+
+        @Override
+        public void write(int b) {
+            checksum_.update(b);
+            length_ += 1;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            checksum_.update(b, off, len);
+            length_ += len;
+        }
+
+        long getLength() {
+            return length_;
+        }
+
+        long getValue() {
+            return checksum_.getValue();
+        }
+    }
+
     public OutputStream getOutputStream()
     throws EngineException {
         ensureOutputStream();
@@ -308,14 +398,25 @@ public abstract class AbstractResponse implements Response {
                     if (contentType_ != null) {
                         String content_type = HttpUtils.extractMimeTypeFromContentType(contentType_);
 
-                        // check if the content type should be gzip encoded
-                        if (RifeConfig.engine().getGzipCompression() &&
-                            RifeConfig.engine().getGzipCompressionTypes().contains(content_type)) {
+                        // check if the content type should be gzip or deflate encoded
+                        var config = RifeConfig.engine();
+                        if (config.getGzipCompression() &&
+                            config.getGzipCompressionTypes().contains(content_type)) {
+                            // pick the encoding with the highest quality, a quality of 0
+                            // means that the encoding isn't acceptable
                             String accept_encoding = request_.getHeader("Accept-Encoding");
-                            if (accept_encoding != null &&
-                                accept_encoding.contains("gzip")) {
-                                gzipByteOutputStream_ = new ByteArrayOutputStream();
-                                gzipOutputStream_ = new GZIPOutputStream(gzipByteOutputStream_);
+                            String encoding = null;
+                            var gzip_quality = HttpUtils.getAcceptQuality(accept_encoding, CompressedOutputStream.GZIP);
+                            var deflate_quality = HttpUtils.getAcceptQuality(accept_encoding, CompressedOutputStream.DEFLATE);
+                            if (gzip_quality > 0 && gzip_quality >= deflate_quality) {
+                                encoding = CompressedOutputStream.GZIP;
+                            } else if (deflate_quality > 0) {
+                                encoding = CompressedOutputStream.DEFLATE;
+                            }
+                            if (encoding != null) {
+                                compressedOutputStream_ = new CompressedOutputStream(this, responseOutputStream_, encoding,
+                                    config.getGzipCompressionStreaming(), config.getGzipCompressionThreshold(),
+                                    config.getGzipCompressionLevel(), config.getGzipCompressionBufferSize());
                             }
                         }
                     }
@@ -324,8 +425,8 @@ public abstract class AbstractResponse implements Response {
                 }
             }
 
-            if (gzipOutputStream_ != null) {
-                outputStream_ = gzipOutputStream_;
+            if (compressedOutputStream_ != null) {
+                outputStream_ = compressedOutputStream_;
             } else {
                 outputStream_ = responseOutputStream_;
             }
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses the content of a response with the gzip or deflate content
+ * encoding.
+ * <p>Content is only compressed once it's larger than a threshold, smaller
+ * content is sent as-is when the stream is finished. Compressed content is
+ * either buffered in memory, to be able to provide the content length of the
+ * response, or streamed to the response as soon as it's compressed, in which
+ * case the response is sent with chunked transfer encoding.
+ * <p>The {@code Deflater} instances are reused across responses, they're
+ * released when the stream is finished, when writing fails, or when the
+ * response is aborted.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.4
+ */
+final class CompressedOutputStream extends OutputStream {
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+
+    private static final int DEFLATER_POOL_SIZE = 64;
+    private static final ArrayBlockingQueue<Deflater> GZIP_DEFLATERS = new ArrayBlockingQueue<>(DEFLATER_POOL_SIZE);
+    private static final ArrayBlockingQueue<Deflater> DEFLATE_DEFLATERS = new ArrayBlockingQueue<>(DEFLATER_POOL_SIZE);
+    private static final byte[] GZIP_HEADER = new byte[]{0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private final AbstractResponse response_;
+    private final OutputStream out_;
+    private final String encoding_;
+    private final boolean streaming_;
+    private final int threshold_;
+    private final int level_;
+
+    private byte[] pending_;
+    private int pendingCount_ = 0;
+    private Deflater deflater_ = null;
+    private OutputStream target_ = null;
+    private ByteArrayOutputStream compressed_ = null;
+    private byte[] deflated_ = null;
+    private final CRC32 crc_ = new CRC32();
+    private boolean unflushed_ = false;
+    private boolean finished_ = false;
+
+    CompressedOutputStream(AbstractResponse response, OutputStream out, String encoding, boolean streaming, int threshold, int level, int bufferSize) {
+        response_ = response;
+        out_ = out;
+        encoding_ = encoding;
+        streaming_ = streaming;
+        threshold_ = threshold;
+        level_ = level;
+        pending_ = new byte[Math.max(1, Math.min(threshold, bufferSize))];
+        deflated_ = new byte[Math.max(512, bufferSize)];
+    }
+
+    @Override
+    public void write(int b)
+    throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len)
+    throws IOException {
+        if (finished_) throw new IOException("stream is finished");
+
+        if (null == deflater_) {
+            // hold on to the content until it's larger than the threshold
+            if (pendingCount_ + len <= threshold_) {
+                if (pendingCount_ + len > pending_.length) {
+                    pending_ = Arrays.copyOf(pending_, Math.min(threshold_, Math.max(pendingCount_ + len, pending_.length * 2)));
+                }
+                System.arraycopy(b, off, pending_, pendingCount_, len);
+                pendingCount_ += len;
+                return;
+            }
+        }
+
+        try {
+            if (null == deflater_) {
+                startCompression();
+                deflate(pending_, 0, pendingCount_);
+                pending_ = null;
+                pendingCount_ = 0;
+            }
+
+            deflate(b, off, len);
+        } catch (IOException | RuntimeException e) {
+            abort();
+            throw e;
+        }
+    }
+
+    @Override
+    public void flush()
+    throws IOException {
+        // only streamed content can be flushed, flushing compressed content
+        // reduces the compression ratio, so this is only done when
+        // content was written since the last flush
+        if (streaming_ && deflater_ != null && unflushed_) {
+            try {
+                drain(Deflater.SYNC_FLUSH);
+            } catch (IOException | RuntimeException e) {
+                abort();
+                throw e;
+            }
+            unflushed_ = false;
+            out_.flush();
+        }
+    }
+
+    /**
+     * Writes all the remaining content to the response and sets the headers
+     * that describe it.
+     * <p>The underlying output stream isn't closed.
+     *
+     * @throws IOException when an error occurred while writing to the
+     *                     response
+     * @since 1.4
+     */
+    void finish()
+    throws IOException {
+        if (finished_) {
+            return;
+        }
+        finished_ = true;
+
+        if (null == deflater_) {
+            // the content is too small to be compressed
+            response_.setContentLength(pendingCount_);
+            out_.write(pending_, 0, pendingCount_);
+            pending_ = null;
+            return;
+        }
+
+        try {
+            deflater_.finish();
+            while (!deflater_.finished()) {
+                var count = deflater_.deflate(deflated_, 0, deflated_.length, Deflater.NO_FLUSH);
+                target_.write(deflated_, 0, count);
+            }
+
+            if (GZIP.equals(encoding_)) {
+                writeIntLE(target_, (int) crc_.getValue());
+                writeIntLE(target_, (int) deflater_.getBytesRead());
+            }
+        } finally {
+            releaseDeflater(deflater_, encoding_);
+            deflater_ = null;
+        }
+
+        if (!streaming_) {
+            response_.setContentLength(compressed_.size());
+            response_.addHeader("Content-Encoding", encoding_);
+            compressed_.writeTo(out_);
+            compressed_ = null;
+        }
+    }
+
+    /**
+     * Discards the content that hasn't been written to the response yet and
+     * releases the {@code Deflater}.
+     * <p>This is used when the response is aborted before the stream is
+     * finished, nothing can be written afterwards.
+     *
+     * @since 1.4
+     */
+    void abort() {
+        finished_ = true;
+        pending_ = null;
+        pendingCount_ = 0;
+        compressed_ = null;
+        if (deflater_ != null) {
+            releaseDeflater(deflater_, encoding_);
+            deflater_ = null;
+        }
+    }
+
+    @Override
+    public void close()
+    throws IOException {
+        try {
+            finish();
+        } finally {
+            abort();
+            out_.close();
+        }
+    }
+
+    private void startCompression()
+    throws IOException {
+        deflater_ = obtainDeflater(encoding_, level_);
+        if (streaming_) {
+            // the headers need to be set before anything is written to the response
+            response_.addHeader("Content-Encoding", encoding_);
+            target_ = out_;
+        } else {
+            compressed_ = new ByteArrayOutputStream();
+            target_ = compressed_;
+        }
+
+        if (GZIP.equals(encoding_)) {
+            target_.write(GZIP_HEADER);
+        }
+    }
+
+    private void deflate(byte[] b, int off, int len)
+    throws IOException {
+        if (0 == len) {
+            return;
+        }
+
+        if (GZIP.equals(encoding_)) {
+            crc_.update(b, off, len);
+        }
+        deflater_.setInput(b, off, len);
+        drain(Deflater.NO_FLUSH);
+        unflushed_ = true;
+    }
+
+    private void drain(int flush)
+    throws IOException {
+        // the deflater has to consume all its input before returning since it
+        // only holds on to the provided array
+        int count;
+        do {
+            count = deflater_.deflate(deflated_, 0, deflated_.length, flush);
+            target_.write(deflated_, 0, count);
+        }
+        while (count == deflated_.length || !deflater_.needsInput());
+    }
+
+    private static void writeIntLE(OutputStream out, int value)
+    throws IOException {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
+    }
+
+    private static Deflater obtainDeflater(String encoding, int level) {
+        var pool = GZIP.equals(encoding) ? GZIP_DEFLATERS : DEFLATE_DEFLATERS;
+        var deflater = pool.poll();
+        if (null == deflater) {
+            // gzip provides its own header and trailer around raw deflate data
+            deflater = new Deflater(level, GZIP.equals(encoding));
+        } else {
+            deflater.setLevel(level);
+        }
+        return deflater;
+    }
+
+    private static void releaseDeflater(Deflater deflater, String encoding) {
+        deflater.reset();
+        var pool = GZIP.equals(encoding) ? GZIP_DEFLATERS : DEFLATE_DEFLATERS;
+        if (!pool.offer(deflater)) {
+            deflater.end();
+        }
+    }
+}
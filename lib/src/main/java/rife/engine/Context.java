@@ -16,6 +16,7 @@ import rife.template.TemplateFactory;
 import rife.template.exceptions.TemplateException;
 import rife.tools.*;
 import rife.tools.exceptions.BeanUtilsException;
+import rife.tools.exceptions.ControlFlowRuntimeException;
 
 import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
@@ -40,6 +41,12 @@ public class Context {
      */
     public static final int SC_NOT_MODIFIED = 304;
 
+    /**
+     * Status code (412) indicating that the precondition given in one or more of the request-header fields evaluated to false when it was tested on the server.
+     *
+     * @since 1.4
+     */
+    public static final int SC_PRECONDITION_FAILED = 412;
 
     /**
      * Status code (500) indicating an error inside the HTTP server which prevented it from fulfilling the request.
@@ -66,19 +73,9 @@ public class Context {
         routeMatch_ = routeMatch;
 
         var params = new LinkedHashMap<>(request_.getParameters());
-        if (routeMatch_ != null) {
-            if (routeMatch_.route().pathInfoHandling().type() == PathInfoType.MAP) {
-                for (var mapping : routeMatch_.route().pathInfoHandling().mappings()) {
-                    var matcher = mapping.regexp().matcher(pathInfo());
-                    if (matcher.matches()) {
-                        var i = 1;
-                        for (var param : mapping.parameters()) {
-                            params.put(param, new String[]{matcher.group(i++)});
-                        }
-                        break;
-                    }
-                }
-            }
+        // the parameters of path info mappings were captured when the route was found
+        if (routeMatch_ != null && routeMatch_.pathInfoParameters() != null) {
+            params.putAll(routeMatch_.pathInfoParameters());
         }
         parametersIn_ = params;
         parametersOut_ = null;
@@ -135,21 +132,34 @@ public class Context {
         response_.setLastElement(element);
 
         // process the element with this context
+        var failed = false;
         try {
             element.process(this);
         } catch (NextException ignored) {
             // this element is done processing
             // move on to the next one
+        } catch (Throwable e) {
+            // control flow exceptions end the processing without failing
+            failed = !(e instanceof ControlFlowRuntimeException);
+            throw e;
         } finally {
             route.finalizeElementInstance(element, this);
             ContinuationContext.clearActiveContext();
+
+            // elements that failed are never reused, their state is unknown
+            if (!failed &&
+                route instanceof RouteAnnotated annotated) {
+                annotated.releaseElementInstance(element);
+            }
         }
     }
 
     private Element setupContinuationContext(Route route)
     throws Exception {
         // continuations are only supported on element class routes, not element instance routes
-        if (route instanceof RouteInstance) {
+        // or routes that reuse their element instances
+        if (route instanceof RouteInstance ||
+            (route instanceof RouteAnnotated annotated && annotated.reusesElementInstances())) {
             return null;
         }
 
@@ -2505,6 +2515,121 @@ public class Context {
         return response_.isTextBufferEnabled();
     }
 
+    /**
+     * Enables or disables the automatic ETag of the response.
+     * <p>When enabled, a weak ETag is computed from the content of the text
+     * buffer after the element was processed. If it matches the
+     * {@code If-None-Match} header of the request, a
+     * {@code 304 Not Modified} response is sent without any content.
+     * <p>This only applies to successful {@code GET} and {@code HEAD}
+     * responses whose content is entirely in the text buffer, and that
+     * don't have an ETag header already.
+     * <p>The automatic ETag is disabled by default, this can be changed for
+     * all responses with {@link rife.config.RifeConfig.EngineConfig#setAutomaticEtag}.
+     *
+     * @param enabled {@code true} to enable the automatic ETag; or
+     *                <p>{@code false} to disable it
+     * @see #automaticEtagEnabled()
+     * @see #etag(String)
+     * @since 1.4
+     */
+    public void enableAutomaticEtag(boolean enabled) {
+        response_.enableAutomaticEtag(enabled);
+    }
+
+    /**
+     * Indicates whether the automatic ETag of the response is enabled.
+     *
+     * @return {@code true} if the automatic ETag is enabled; or
+     * <p>{@code false} if it is disabled
+     * @see #enableAutomaticEtag(boolean)
+     * @since 1.4
+     */
+    public boolean automaticEtagEnabled() {
+        return response_.isAutomaticEtagEnabled();
+    }
+
+    /**
+     * Sets the ETag header of the response to a validator that is known
+     * before the content is generated, for instance a version number.
+     * <p>When the ETag matches the {@code If-None-Match} header of the
+     * request, the execution is interrupted and a response is sent
+     * immediately. For {@code GET} and {@code HEAD} requests this is a
+     * {@code 304 Not Modified} response, for the other methods this is a
+     * {@code 412 Precondition Failed} response.
+     *
+     * @param etag the opaque entity tag, it will be quoted if it isn't already
+     * @throws RespondException an exception that is used to immediately interrupt the execution, don't
+     *                          catch this exception
+     * @see #lastModified(long)
+     * @since 1.4
+     */
+    public void etag(String etag) {
+        if (null == etag) throw new IllegalArgumentException("etag can't be null.");
+
+        if (!etag.endsWith("\"")) {
+            etag = "\"" + etag + "\"";
+        }
+        response_.setHeader("ETag", etag);
+
+        if (HttpUtils.matchesEtag(request_.getHeader("If-None-Match"), etag)) {
+            response_.clearBuffer();
+            if (isSafeMethod()) {
+                response_.setStatus(SC_NOT_MODIFIED);
+            } else {
+                response_.setStatus(SC_PRECONDITION_FAILED);
+            }
+            respond();
+        }
+    }
+
+    /**
+     * Sets the Last-Modified header of the response to a validator that is
+     * known before the content is generated, for instance the modification
+     * date of a database row.
+     * <p>When the {@code If-Modified-Since} header of the request isn't
+     * older than the modification date, a {@code 304 Not Modified}
+     * response is sent immediately and the execution is interrupted. The
+     * header is only evaluated for {@code GET} and {@code HEAD} requests,
+     * and it's ignored when the request has an {@code If-None-Match}
+     * header.
+     *
+     * @param date the modification date in milliseconds since the epoch,
+     *             it will be truncated to seconds
+     * @throws RespondException an exception that is used to immediately interrupt the execution, don't
+     *                          catch this exception
+     * @see #etag(String)
+     * @since 1.4
+     */
+    public void lastModified(long date) {
+        var last_modified = (date / 1000) * 1000;
+        response_.setDateHeader("Last-Modified", last_modified);
+
+        if (!isSafeMethod() ||
+            request_.getHeader("If-None-Match") != null) {
+            return;
+        }
+
+        long if_modified_since;
+        try {
+            if_modified_since = request_.getDateHeader("If-Modified-Since");
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        if (if_modified_since > 0 &&
+            if_modified_since >= last_modified) {
+            response_.clearBuffer();
+            response_.setStatus(SC_NOT_MODIFIED);
+            respond();
+        }
+    }
+
+    private boolean isSafeMethod() {
+        var method = request_.getMethod();
+        return method == RequestMethod.GET ||
+               method == RequestMethod.HEAD;
+    }
+
     /**
      * Clears the text buffer is it's enabled.
      * <p>If the text buffer is disabled, this method does nothing.
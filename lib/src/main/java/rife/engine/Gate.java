@@ -97,6 +97,9 @@ public class Gate {
             context.process();
             response.close();
         } catch (RedirectException e) {
+            if (response instanceof AbstractResponse abstract_response) {
+                abstract_response.abortCompression();
+            }
             response.sendRedirect(e.getUrl());
         } catch (DeferException e) {
             return false;
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+import rife.engine.annotations.*;
+import rife.engine.exceptions.EngineException;
+import rife.tools.BeanUtils;
+import rife.tools.Convert;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * The annotated fields of an element class, resolved once into the
+ * injections and outjections that are performed for each request.
+ * <p>The annotations of the fields are inspected when the plan is created,
+ * which determines what each field is injected from or outjected to, under
+ * which name, and how its value is accessed through method handles.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.4
+ */
+final class InjectionPlan {
+    /**
+     * The sources and targets of field values.
+     *
+     * @since 1.4
+     */
+    enum Kind {
+        ACTIVE_SITE,
+        PARAMETER,
+        PARAMETERS_BEAN,
+        PROPERTY,
+        HEADER,
+        BODY,
+        PATH_INFO,
+        FILE_UPLOAD,
+        COOKIE,
+        REQUEST_ATTRIBUTE,
+        SESSION_ATTRIBUTE
+    }
+
+    /**
+     * The injection or outjection of a single field.
+     *
+     * @param kind         the source or target of the value
+     * @param name         the name of the value, or the prefix of a
+     *                     parameters bean
+     * @param type         the type of the field
+     * @param defaultValue the value that is injected when a value can't be
+     *                     converted to the type of the field
+     * @param getter       the getter of the field, with an
+     *                     {@code (Object)Object} type
+     * @param setter       the setter of the field, with an
+     *                     {@code (Object,Object)void} type
+     * @since 1.4
+     */
+    record FieldInjection(Kind kind, String name, Class<?> type, Object defaultValue, MethodHandle getter, MethodHandle setter) {
+        Object get(Object element)
+        throws Throwable {
+            return (Object) getter.invokeExact(element);
+        }
+
+        void set(Object element, Object value)
+        throws Throwable {
+            setter.invokeExact(element, value);
+        }
+    }
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ClassValue<InjectionPlan> PLANS = new ClassValue<>() {
+        protected InjectionPlan computeValue(Class<?> elementClass) {
+            return new InjectionPlan(elementClass);
+        }
+    };
+
+    private final FieldInjection[] injections_;
+    private final FieldInjection[] injectionsWithoutPathInfo_;
+    private final FieldInjection[] outjections_;
+    private final FieldInjection[] outParameters_;
+    private final Set<String> inParameters_;
+    private final List<String> fieldNames_;
+
+    private InjectionPlan(Class<?> elementClass) {
+        var injections = new ArrayList<FieldInjection>();
+        var injections_without_path_info = new ArrayList<FieldInjection>();
+        var outjections = new ArrayList<FieldInjection>();
+        var out_parameters = new ArrayList<FieldInjection>();
+        var in_parameters = new HashSet<String>();
+        var field_names = new ArrayList<String>();
+
+        try {
+            var lookup = MethodHandles.lookup();
+            Class<?> klass = elementClass;
+            while (klass != null && klass != Element.class) {
+                for (var field : klass.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) ||
+                        Modifier.isFinal(field.getModifiers()) ||
+                        Modifier.isTransient(field.getModifiers())) {
+                        continue;
+                    }
+
+                    var in = inKind(field, true);
+                    var in_without_path_info = inKind(field, false);
+                    var out = outKind(field);
+                    var out_parameter = outParameterKind(field);
+                    if (null == in && null == in_without_path_info && null == out && null == out_parameter) {
+                        continue;
+                    }
+
+                    field_names.add(field.getName());
+                    field.setAccessible(true);
+                    var getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+                    var setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+                    var type = field.getType();
+                    var default_value = Convert.getDefaultValue(type);
+
+                    if (in != null) {
+                        injections.add(new FieldInjection(in, name(field, in), type, default_value, getter, setter));
+                    }
+                    if (in_without_path_info != null) {
+                        injections_without_path_info.add(new FieldInjection(in_without_path_info, name(field, in_without_path_info), type, default_value, getter, setter));
+                    }
+                    if (out != null) {
+                        outjections.add(new FieldInjection(out, name(field, out), type, default_value, getter, setter));
+                    }
+                    if (out_parameter != null) {
+                        out_parameters.add(new FieldInjection(out_parameter, name(field, out_parameter), type, default_value, getter, setter));
+                    }
+
+                    if (in == Kind.PARAMETER) {
+                        in_parameters.add(name(field, in));
+                    } else if (in == Kind.PARAMETERS_BEAN) {
+                        in_parameters.addAll(BeanUtils.getPropertyNames(type, null, null, name(field, in)));
+                    }
+                }
+
+                klass = klass.getSuperclass();
+            }
+        } catch (Exception e) {
+            throw new EngineException(e);
+        }
+
+        injections_ = injections.toArray(new FieldInjection[0]);
+        injectionsWithoutPathInfo_ = injections_without_path_info.toArray(new FieldInjection[0]);
+        outjections_ = outjections.toArray(new FieldInjection[0]);
+        outParameters_ = out_parameters.toArray(new FieldInjection[0]);
+        inParameters_ = Collections.unmodifiableSet(in_parameters);
+        fieldNames_ = Collections.unmodifiableList(field_names);
+    }
+
+    /**
+     * Retrieves the injection plan of an element class, which is created
+     * the first time it's needed.
+     *
+     * @param elementClass the class of the element
+     * @return the injection plan of the element class
+     * @since 1.4
+     */
+    static InjectionPlan get(Class<?> elementClass) {
+        return PLANS.get(elementClass);
+    }
+
+    /**
+     * Retrieves the fields that are injected into an element instance.
+     *
+     * @param pathInfo {@code true} if the route of the element handles path
+     *                 info; or {@code false} otherwise
+     * @return the injected fields in the order of the class hierarchy
+     * @since 1.4
+     */
+    FieldInjection[] injections(boolean pathInfo) {
+        return pathInfo ? injections_ : injectionsWithoutPathInfo_;
+    }
+
+    /**
+     * Retrieves the fields that are outjected as headers, body, cookies
+     * and attributes after an element instance was processed.
+     *
+     * @return the outjected fields
+     * @since 1.4
+     */
+    FieldInjection[] outjections() {
+        return outjections_;
+    }
+
+    /**
+     * Retrieves the fields that are outjected as parameters and parameters
+     * beans.
+     *
+     * @return the fields with outjected parameters
+     * @since 1.4
+     */
+    FieldInjection[] outParameters() {
+        return outParameters_;
+    }
+
+    /**
+     * Retrieves the names of the parameters that are injected into an
+     * element instance.
+     *
+     * @return the unmodifiable set of parameter names
+     * @since 1.4
+     */
+    Set<String> inParameters() {
+        return inParameters_;
+    }
+
+    /**
+     * Retrieves the names of the annotated fields.
+     *
+     * @return the unmodifiable list of field names
+     * @since 1.4
+     */
+    List<String> fieldNames() {
+        return fieldNames_;
+    }
+
+    private static Kind inKind(Field field, boolean pathInfo) {
+        if (field.isAnnotationPresent(ActiveSite.class)) {
+            return Kind.ACTIVE_SITE;
+        }
+        if (isIn(field, Parameter.class)) {
+            return Kind.PARAMETER;
+        }
+        if (isIn(field, ParametersBean.class)) {
+            return Kind.PARAMETERS_BEAN;
+        }
+        if (field.isAnnotationPresent(Property.class)) {
+            return Kind.PROPERTY;
+        }
+        if (isIn(field, Header.class)) {
+            return Kind.HEADER;
+        }
+        if (isIn(field, Body.class)) {
+            return Kind.BODY;
+        }
+        if (pathInfo && field.isAnnotationPresent(PathInfo.class)) {
+            return Kind.PATH_INFO;
+        }
+        if (field.isAnnotationPresent(FileUpload.class)) {
+            return Kind.FILE_UPLOAD;
+        }
+        if (isIn(field, Cookie.class)) {
+            return Kind.COOKIE;
+        }
+        if (isIn(field, RequestAttribute.class)) {
+            return Kind.REQUEST_ATTRIBUTE;
+        }
+        if (isIn(field, SessionAttribute.class)) {
+            return Kind.SESSION_ATTRIBUTE;
+        }
+        return null;
+    }
+
+    private static Kind outKind(Field field) {
+        if (isOut(field, Header.class)) {
+            return Kind.HEADER;
+        }
+        if (isOut(field, Body.class)) {
+            return Kind.BODY;
+        }
+        if (isOut(field, Cookie.class)) {
+            return Kind.COOKIE;
+        }
+        if (isOut(field, RequestAttribute.class)) {
+            return Kind.REQUEST_ATTRIBUTE;
+        }
+        if (isOut(field, SessionAttribute.class)) {
+            return Kind.SESSION_ATTRIBUTE;
+        }
+        return null;
+    }
+
+    private static Kind outParameterKind(Field field) {
+        if (isOut(field, Parameter.class)) {
+            return Kind.PARAMETER;
+        }
+        if (isOut(field, ParametersBean.class)) {
+            return Kind.PARAMETERS_BEAN;
+        }
+        return null;
+    }
+
+    private static boolean isIn(Field field, Class<? extends Annotation> annotationClass) {
+        var flow = flow(field, annotationClass);
+        return flow == FlowDirection.IN || flow == FlowDirection.IN_OUT;
+    }
+
+    private static boolean isOut(Field field, Class<? extends Annotation> annotationClass) {
+        var flow = flow(field, annotationClass);
+        return flow == FlowDirection.OUT || flow == FlowDirection.IN_OUT;
+    }
+
+    private static FlowDirection flow(Field field, Class<? extends Annotation> annotationClass) {
+        var annotation = field.getAnnotation(annotationClass);
+        if (annotation instanceof Parameter parameter) return parameter.flow();
+        if (annotation instanceof ParametersBean bean) return bean.flow();
+        if (annotation instanceof Header header) return header.flow();
+        if (annotation instanceof Body body) return body.flow();
+        if (annotation instanceof Cookie cookie) return cookie.flow();
+        if (annotation instanceof RequestAttribute attribute) return attribute.flow();
+        if (annotation instanceof SessionAttribute attribute) return attribute.flow();
+        return null;
+    }
+
+    private static String name(Field field, Kind kind) {
+        var name = switch (kind) {
+            case PARAMETER -> field.getAnnotation(Parameter.class).value();
+            case PARAMETERS_BEAN -> field.getAnnotation(ParametersBean.class).prefix();
+            case PROPERTY -> field.getAnnotation(Property.class).value();
+            case HEADER -> field.getAnnotation(Header.class).value();
+            case FILE_UPLOAD -> field.getAnnotation(FileUpload.class).value();
+            case COOKIE -> field.getAnnotation(Cookie.class).value();
+            case REQUEST_ATTRIBUTE -> field.getAnnotation(RequestAttribute.class).value();
+            case SESSION_ATTRIBUTE -> field.getAnnotation(SessionAttribute.class).value();
+            case ACTIVE_SITE, BODY, PATH_INFO -> null;
+        };
+
+        // the prefix of a parameters bean is used as-is, also when it's empty
+        if (kind != Kind.PARAMETERS_BEAN && (null == name || name.isEmpty())) {
+            return field.getName();
+        }
+        return name;
+    }
+}
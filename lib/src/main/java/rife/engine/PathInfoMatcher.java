@@ -0,0 +1,86 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Matches a path info against all the path info mappings of a list of
+ * routes at once.
+ * <p>The regular expressions of the mappings are combined into a single
+ * alternation, in the order of the routes and of their mappings. Each
+ * alternative is wrapped in a group, the group that participated in the
+ * match thus identifies both the route and the mapping, and the groups it
+ * contains provide the values of the parameters of the mapping.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.4
+ */
+final class PathInfoMatcher {
+    private final Pattern pattern_;
+    private final int[] groups_;
+    private final Route[] routes_;
+    private final PathInfoMapping[] mappings_;
+
+    PathInfoMatcher(List<Route> routes) {
+        var regexp = new StringBuilder();
+        var groups = new ArrayList<Integer>();
+        var matched_routes = new ArrayList<Route>();
+        var mappings = new ArrayList<PathInfoMapping>();
+
+        var group = 1;
+        for (var route : routes) {
+            for (var mapping : route.pathInfoHandling().mappings()) {
+                var mapping_regexp = mapping.regexp();
+                if (!regexp.isEmpty()) {
+                    regexp.append('|');
+                }
+                regexp.append('(').append(mapping_regexp.pattern()).append(')');
+
+                groups.add(group);
+                matched_routes.add(route);
+                mappings.add(mapping);
+                group += 1 + mapping_regexp.matcher("").groupCount();
+            }
+        }
+
+        pattern_ = Pattern.compile(regexp.toString());
+        groups_ = groups.stream().mapToInt(Integer::intValue).toArray();
+        routes_ = matched_routes.toArray(new Route[0]);
+        mappings_ = mappings.toArray(new PathInfoMapping[0]);
+    }
+
+    /**
+     * Matches a path info against the mappings.
+     *
+     * @param pathInfo the path info that should be matched
+     * @return the route of the first mapping that matches, with the values
+     * of the parameters of that mapping; or
+     * <p>{@code null} if no mapping matches the path info
+     * @since 1.4
+     */
+    RouteMatch match(String pathInfo) {
+        var matcher = pattern_.matcher(pathInfo);
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        for (var i = 0; i < groups_.length; i++) {
+            var group = groups_[i];
+            if (matcher.start(group) != -1) {
+                var parameters = new LinkedHashMap<String, String[]>();
+                for (var parameter : mappings_[i].parameters()) {
+                    parameters.put(parameter, new String[]{matcher.group(++group)});
+                }
+                return new RouteMatch(routes_[i], pathInfo, parameters);
+            }
+        }
+
+        return null;
+    }
+}
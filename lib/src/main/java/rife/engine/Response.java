@@ -63,6 +63,28 @@ public interface Response {
      */
     boolean isTextBufferEnabled();
 
+    /**
+     * Enables or disables the automatic ETag of buffered responses.
+     * <p>When enabled, a weak ETag is computed from the content of the text
+     * buffer when the response is closed, and a {@code 304 Not Modified}
+     * response without content is sent when it matches the
+     * {@code If-None-Match} header of the request.
+     *
+     * @param enabled {@code true} to enable the automatic ETag; or
+     *                <p>{@code false} to disable it
+     * @since 1.4
+     */
+    void enableAutomaticEtag(boolean enabled);
+
+    /**
+     * Indicates whether the automatic ETag of buffered responses is enabled.
+     *
+     * @return {@code true} when the automatic ETag is enabled; or
+     * <p>{@code false} when it is disabled.
+     * @since 1.4
+     */
+    boolean isAutomaticEtagEnabled();
+
     /**
      * Prints the content of a template to the request text output.
      *
@@ -291,6 +313,13 @@ public interface Response {
      */
     void setStatus(int statusCode);
 
+    /**
+     * See {@link HttpServletResponse#getStatus()}.
+     *
+     * @since 1.4
+     */
+    int getStatus();
+
     /**
      * See {@link HttpServletResponse#encodeURL(String)}.
      *
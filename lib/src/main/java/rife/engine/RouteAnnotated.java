@@ -4,15 +4,18 @@
  */
 package rife.engine;
 
-import rife.engine.annotations.*;
+import rife.engine.annotations.Lifecycle;
+import rife.engine.annotations.LifecycleType;
+import rife.continuations.instrument.ContinuationsBytecodeTransformer;
 import rife.engine.exceptions.EngineException;
+import rife.engine.exceptions.ReusedElementContinuationException;
+import rife.engine.exceptions.ReusedElementFieldException;
 import rife.tools.*;
 import rife.tools.exceptions.ConversionException;
 
 import java.io.File;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
 
 abstract class RouteAnnotated implements Route {
     protected final Router router_;
@@ -20,7 +23,10 @@ abstract class RouteAnnotated implements Route {
     protected String path_;
     protected final PathInfoHandling pathInfoHandling_;
     protected final Class<? extends Element> elementClass_;
-    protected List<Field> fields_ = null;
+    protected InjectionPlan plan_ = null;
+    protected final LifecycleType lifecycle_;
+    private final ArrayBlockingQueue<Element> pool_;
+    private volatile Element singleton_ = null;
 
     RouteAnnotated(Router router, RequestMethod[] methods, String path, PathInfoHandling pathInfoHandling, Class<? extends Element> elementClass) {
         router_ = router;
@@ -34,6 +40,112 @@ abstract class RouteAnnotated implements Route {
             pathInfoHandling = PathInfoHandling.NONE;
         }
         pathInfoHandling_ = pathInfoHandling;
+
+        var lifecycle = elementClass.getAnnotation(Lifecycle.class);
+        if (null == lifecycle) {
+            lifecycle_ = LifecycleType.PER_REQUEST;
+        } else {
+            lifecycle_ = lifecycle.value();
+        }
+
+        // reused element instances can't hold any request state
+        if (lifecycle_ != LifecycleType.PER_REQUEST) {
+            var fields = getInjectionPlan().fieldNames();
+            if (!fields.isEmpty()) {
+                throw new ReusedElementFieldException(this, lifecycle_, fields.get(0));
+            }
+            if (usesContinuations(elementClass_)) {
+                throw new ReusedElementContinuationException(this, lifecycle_);
+            }
+        }
+
+        if (lifecycle_ == LifecycleType.POOLED) {
+            pool_ = new ArrayBlockingQueue<>(Math.max(1, lifecycle.poolSize()));
+        } else {
+            pool_ = null;
+        }
+    }
+
+    private static boolean usesContinuations(Class<?> elementClass) {
+        var config = new EngineContinuationConfigInstrument();
+        try {
+            // the process method can be inherited from a parent element,
+            // the classes of the JDK don't need to be inspected
+            var klass = elementClass;
+            while (klass != null && klass.getClassLoader() != null) {
+                var bytes = new ClassBytesLoader(klass.getClassLoader()).getClassBytes(klass.getName().replace('.', '/') + ".class");
+                if (bytes != null &&
+                    ContinuationsBytecodeTransformer.isResumable(config, bytes, klass.getName())) {
+                    return true;
+                }
+                klass = klass.getSuperclass();
+            }
+        } catch (ClassNotFoundException e) {
+            throw new EngineException(e);
+        }
+
+        return false;
+    }
+
+    /**
+     * Creates a new instance of the element of this route.
+     *
+     * @return the new element instance
+     * @since 1.4
+     */
+    abstract Element createElementInstance();
+
+    /**
+     * Indicates whether the element instances of this route are reused
+     * across requests.
+     *
+     * @return {@code true} if element instances are reused; or
+     * <p>{@code false} if a new element instance is created for each request
+     * @since 1.4
+     */
+    boolean reusesElementInstances() {
+        return lifecycle_ != LifecycleType.PER_REQUEST;
+    }
+
+    /**
+     * Makes an element instance that was successfully processed available
+     * to later requests. Pooled elements are dropped when enough elements
+     * are already idle.
+     *
+     * @param element the element instance
+     * @since 1.4
+     */
+    void releaseElementInstance(Element element) {
+        if (pool_ != null) {
+            pool_.offer(element);
+        }
+    }
+
+    @Override
+    public Element obtainElementInstance(Context context) {
+        switch (lifecycle_) {
+            case SINGLETON -> {
+                var element = singleton_;
+                if (null == element) {
+                    synchronized (this) {
+                        element = singleton_;
+                        if (null == element) {
+                            element = createElementInstance();
+                            singleton_ = element;
+                        }
+                    }
+                }
+                return element;
+            }
+            case POOLED -> {
+                var element = pool_.poll();
+                if (element != null) {
+                    return element;
+                }
+            }
+        }
+
+        return createElementInstance();
     }
 
     @Override
@@ -56,55 +168,13 @@ abstract class RouteAnnotated implements Route {
         return pathInfoHandling_;
     }
 
-    private static boolean shouldProcessInFlow(FlowDirection flow) {
-        return flow == FlowDirection.IN || flow == FlowDirection.IN_OUT;
-    }
-
-    private static boolean shouldProcessOutFlow(FlowDirection flow) {
-        return flow == FlowDirection.OUT || flow == FlowDirection.IN_OUT;
-    }
-
-    private List<Field> getAnnotatedFields() {
-        if (fields_ != null) {
-            return fields_;
+    private InjectionPlan getInjectionPlan() {
+        if (plan_ != null) {
+            return plan_;
         }
 
-        List<Field> fields = new ArrayList<>();
-        try {
-            Class klass = elementClass_;
-            while (klass != null && klass != Element.class) {
-                for (var field : klass.getDeclaredFields()) {
-                    field.setAccessible(true);
-
-                    if (Modifier.isStatic(field.getModifiers()) ||
-                        Modifier.isFinal(field.getModifiers()) ||
-                        Modifier.isTransient(field.getModifiers())) {
-                        continue;
-                    }
-
-                    if (field.isAnnotationPresent(ActiveSite.class) ||
-                        field.isAnnotationPresent(Body.class) ||
-                        field.isAnnotationPresent(Cookie.class) ||
-                        field.isAnnotationPresent(FileUpload.class) ||
-                        field.isAnnotationPresent(Header.class) ||
-                        field.isAnnotationPresent(Parameter.class) ||
-                        field.isAnnotationPresent(ParametersBean.class) ||
-                        field.isAnnotationPresent(PathInfo.class) ||
-                        field.isAnnotationPresent(Property.class) ||
-                        field.isAnnotationPresent(RequestAttribute.class) ||
-                        field.isAnnotationPresent(SessionAttribute.class)) {
-                        fields.add(field);
-                    }
-                }
-
-                klass = klass.getSuperclass();
-            }
-        } catch (Exception e) {
-            throw new EngineException(e);
-        }
-
-        fields_ = fields;
-        return fields;
+        plan_ = InjectionPlan.get(elementClass_);
+        return plan_;
     }
 
     static Map<String, String[]> getAnnotatedOutParameters(Context context) {
@@ -112,32 +182,14 @@ abstract class RouteAnnotated implements Route {
             var parameters = new LinkedHashMap<String, String[]>();
 
             if (context.processedRoute() instanceof RouteAnnotated route) {
-                for (var field : route.getAnnotatedFields()) {
-                    field.setAccessible(true);
-
-                    if (Modifier.isStatic(field.getModifiers()) ||
-                        Modifier.isFinal(field.getModifiers()) ||
-                        Modifier.isTransient(field.getModifiers())) {
-                        continue;
-                    }
-
-                    var name = field.getName();
+                for (var field : route.getInjectionPlan().outParameters()) {
                     var value = field.get(context.processedElement());
 
                     if (value != null) {
-                        if (field.isAnnotationPresent(Parameter.class) &&
-                            shouldProcessOutFlow(field.getAnnotation(Parameter.class).flow())) {
-                            var annotation_name = field.getAnnotation(Parameter.class).value();
-                            if (annotation_name != null && !annotation_name.isEmpty()) {
-                                name = annotation_name;
-                            }
-
-                            parameters.put(name, ArrayUtils.createStringArray(value, null));
-                        } else if (field.isAnnotationPresent(ParametersBean.class) &&
-                                   shouldProcessOutFlow(field.getAnnotation(ParametersBean.class).flow())) {
-                            var annotation_prefix = field.getAnnotation(ParametersBean.class).prefix();
-
-                            BeanUtils.processPropertyValues(value, null, null, annotation_prefix, (propertyName, descriptor, propertyValue, constrainedProperty) -> {
+                        if (field.kind() == InjectionPlan.Kind.PARAMETER) {
+                            parameters.put(field.name(), ArrayUtils.createStringArray(value, null));
+                        } else {
+                            BeanUtils.processPropertyValues(value, null, null, field.name(), (propertyName, descriptor, propertyValue, constrainedProperty) -> {
                                 if (propertyValue != null) {
                                     parameters.put(propertyName, ArrayUtils.createStringArray(propertyValue, constrainedProperty));
                                 }
@@ -148,214 +200,108 @@ abstract class RouteAnnotated implements Route {
             }
 
             return parameters;
-        } catch (Exception e) {
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw new EngineException(e);
         }
     }
 
     Set<String> getAnnotatedInParameters() {
-        try {
-            var parameters = new HashSet<String>();
-
-            for (var field : getAnnotatedFields()) {
-                field.setAccessible(true);
-
-                if (Modifier.isStatic(field.getModifiers()) ||
-                    Modifier.isFinal(field.getModifiers()) ||
-                    Modifier.isTransient(field.getModifiers())) {
-                    continue;
-                }
-
-                var name = field.getName();
-
-                if (field.isAnnotationPresent(Parameter.class) &&
-                    shouldProcessInFlow(field.getAnnotation(Parameter.class).flow())) {
-                    var annotation_name = field.getAnnotation(Parameter.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-
-                    parameters.add(name);
-                } else if (field.isAnnotationPresent(ParametersBean.class) &&
-                           shouldProcessInFlow(field.getAnnotation(ParametersBean.class).flow())) {
-                    var type = field.getType();
-                    var annotation_prefix = field.getAnnotation(ParametersBean.class).prefix();
-
-                    parameters.addAll(BeanUtils.getPropertyNames(type, null, null, annotation_prefix));
-                }
-            }
+        return getInjectionPlan().inParameters();
+    }
 
-            return parameters;
-        } catch (Exception e) {
-            throw new EngineException(e);
+    private static Object convert(Object value, InjectionPlan.FieldInjection field) {
+        try {
+            return Convert.toType(value, field.type());
+        } catch (ConversionException e) {
+            return field.defaultValue();
         }
     }
 
     @Override
     public void prepareElementInstance(Element element, Context context) {
         try {
-            for (var field : getAnnotatedFields()) {
-                var name = field.getName();
-                var type = field.getType();
-
-                if (field.isAnnotationPresent(ActiveSite.class)) {
-                    if (type.isAssignableFrom(context.site().getClass())) {
-                        field.set(element, context.site());
-                    }
-                } else if (field.isAnnotationPresent(Parameter.class) &&
-                           shouldProcessInFlow(field.getAnnotation(Parameter.class).flow())) {
-                    var params = context.parameters();
-                    var annotation_name = field.getAnnotation(Parameter.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-                    var values = params.get(name);
-                    if (values != null && values.length > 0) {
-                        Object value;
-                        try {
-                            value = Convert.toType(values[0], type);
-                        } catch (ConversionException e) {
-                            value = Convert.getDefaultValue(type);
+            for (var field : getInjectionPlan().injections(pathInfoHandling_.type() != PathInfoType.NONE)) {
+                var name = field.name();
+                var type = field.type();
+
+                switch (field.kind()) {
+                    case ACTIVE_SITE -> {
+                        if (type.isAssignableFrom(context.site().getClass())) {
+                            field.set(element, context.site());
                         }
-                        field.set(element, value);
                     }
-                } else if (field.isAnnotationPresent(ParametersBean.class) &&
-                           shouldProcessInFlow(field.getAnnotation(ParametersBean.class).flow())) {
-                    var annotation_prefix = field.getAnnotation(ParametersBean.class).prefix();
-                    Object bean = field.get(element);
-                    if (bean == null) {
-                        field.set(element, context.parametersBean(type, annotation_prefix));
-                    } else {
-                        context.parametersBean(bean, annotation_prefix);
-                    }
-                } else if (field.isAnnotationPresent(Property.class)) {
-                    var properties = context.properties();
-                    var annotation_name = field.getAnnotation(Property.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-                    var prop_value = properties.getValue(name);
-                    if (prop_value != null) {
-                        Object value;
-                        try {
-                            value = Convert.toType(prop_value, type);
-                        } catch (ConversionException e) {
-                            value = Convert.getDefaultValue(type);
+                    case PARAMETER -> {
+                        var values = context.parameters().get(name);
+                        if (values != null && values.length > 0) {
+                            field.set(element, convert(values[0], field));
                         }
-                        field.set(element, value);
-                    }
-                } else if (field.isAnnotationPresent(Header.class) &&
-                           shouldProcessInFlow(field.getAnnotation(Header.class).flow())) {
-                    var annotation_name = field.getAnnotation(Header.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
                     }
-                    var header = context.header(name);
-                    if (header != null) {
-                        Object value;
-                        try {
-                            value = Convert.toType(header, type);
-                        } catch (ConversionException e) {
-                            value = Convert.getDefaultValue(type);
+                    case PARAMETERS_BEAN -> {
+                        var bean = field.get(element);
+                        if (bean == null) {
+                            field.set(element, context.parametersBean(type, name));
+                        } else {
+                            context.parametersBean(bean, name);
                         }
-                        field.set(element, value);
-                    }
-                } else if (field.isAnnotationPresent(Body.class) &&
-                           shouldProcessInFlow(field.getAnnotation(Body.class).flow())) {
-                    var body = context.body();
-                    Object value;
-                    try {
-                        value = Convert.toType(body, type);
-                    } catch (ConversionException e) {
-                        value = Convert.getDefaultValue(type);
-                    }
-                    field.set(element, value);
-                } else if (field.isAnnotationPresent(PathInfo.class) &&
-                           pathInfoHandling_.type() != PathInfoType.NONE) {
-                    var path_info = context.pathInfo();
-                    Object value;
-                    try {
-                        value = Convert.toType(path_info, type);
-                    } catch (ConversionException e) {
-                        value = Convert.getDefaultValue(type);
                     }
-                    field.set(element, value);
-                } else if (field.isAnnotationPresent(FileUpload.class)) {
-                    var annotation_name = field.getAnnotation(FileUpload.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-
-                    var uploaded_file = context.file(name);
-                    if (uploaded_file != null) {
-                        Object value;
-                        if (UploadedFile.class.isAssignableFrom(type)) {
-                            value = uploaded_file;
-                        } else if (File.class.isAssignableFrom(type)) {
-                            value = uploaded_file.getFile();
-                        } else {
-                            try {
-                                value = Convert.toType(uploaded_file.getFile().getAbsolutePath(), type);
-                            } catch (ConversionException e) {
-                                value = Convert.getDefaultValue(type);
-                            }
+                    case PROPERTY -> {
+                        var prop_value = context.properties().getValue(name);
+                        if (prop_value != null) {
+                            field.set(element, convert(prop_value, field));
                         }
-                        field.set(element, value);
                     }
-                } else if (field.isAnnotationPresent(Cookie.class) &&
-                           shouldProcessInFlow(field.getAnnotation(Cookie.class).flow())) {
-                    var annotation_name = field.getAnnotation(Cookie.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
+                    case HEADER -> {
+                        var header = context.header(name);
+                        if (header != null) {
+                            field.set(element, convert(header, field));
+                        }
                     }
-                    if (context.hasCookie(name)) {
-                        String cookie_value = context.cookieValue(name);
-                        if (cookie_value != null) {
+                    case BODY -> field.set(element, convert(context.body(), field));
+                    case PATH_INFO -> field.set(element, convert(context.pathInfo(), field));
+                    case FILE_UPLOAD -> {
+                        var uploaded_file = context.file(name);
+                        if (uploaded_file != null) {
                             Object value;
-                            try {
-                                value = Convert.toType(cookie_value, type);
-                            } catch (ConversionException e) {
-                                value = Convert.getDefaultValue(type);
+                            if (UploadedFile.class.isAssignableFrom(type)) {
+                                value = uploaded_file;
+                            } else if (File.class.isAssignableFrom(type)) {
+                                value = uploaded_file.getFile();
+                            } else {
+                                value = convert(uploaded_file.getFile().getAbsolutePath(), field);
                             }
                             field.set(element, value);
                         }
                     }
-                } else if (field.isAnnotationPresent(RequestAttribute.class) &&
-                           shouldProcessInFlow(field.getAnnotation(RequestAttribute.class).flow())) {
-                    var annotation_name = field.getAnnotation(RequestAttribute.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-                    var value = context.attribute(name);
-                    if (value != null) {
-                        try {
-                            value = Convert.toType(value, type);
-                        } catch (ConversionException e) {
-                            value = Convert.getDefaultValue(type);
+                    case COOKIE -> {
+                        if (context.hasCookie(name)) {
+                            var cookie_value = context.cookieValue(name);
+                            if (cookie_value != null) {
+                                field.set(element, convert(cookie_value, field));
+                            }
                         }
-                        field.set(element, value);
-                    }
-                } else if (field.isAnnotationPresent(SessionAttribute.class) &&
-                           shouldProcessInFlow(field.getAnnotation(SessionAttribute.class).flow())) {
-                    var annotation_name = field.getAnnotation(SessionAttribute.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
                     }
-                    var session = context.session(false);
-                    if (session != null) {
-                        var value = session.attribute(name);
+                    case REQUEST_ATTRIBUTE -> {
+                        var value = context.attribute(name);
                         if (value != null) {
-                            try {
-                                value = Convert.toType(value, type);
-                            } catch (ConversionException e) {
-                                value = Convert.getDefaultValue(type);
+                            field.set(element, convert(value, field));
+                        }
+                    }
+                    case SESSION_ATTRIBUTE -> {
+                        var session = context.session(false);
+                        if (session != null) {
+                            var value = session.attribute(name);
+                            if (value != null) {
+                                field.set(element, convert(value, field));
                             }
-                            field.set(element, value);
                         }
                     }
                 }
             }
-        } catch (Exception e) {
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw new EngineException(e);
         }
     }
@@ -363,54 +309,23 @@ abstract class RouteAnnotated implements Route {
     @Override
     public void finalizeElementInstance(Element element, Context context) {
         try {
-            for (var field : getAnnotatedFields()) {
-                field.setAccessible(true);
-
-                if (Modifier.isStatic(field.getModifiers()) ||
-                    Modifier.isFinal(field.getModifiers()) ||
-                    Modifier.isTransient(field.getModifiers())) {
-                    continue;
-                }
-
-                var name = field.getName();
+            for (var field : getInjectionPlan().outjections()) {
+                var name = field.name();
                 var value = field.get(element);
 
-                if (field.isAnnotationPresent(Header.class) &&
-                    shouldProcessOutFlow(field.getAnnotation(Header.class).flow())) {
-                    var annotation_name = field.getAnnotation(Header.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-                    context.addHeader(name, Convert.toString(value));
-                } else if (field.isAnnotationPresent(Body.class) &&
-                           shouldProcessOutFlow(field.getAnnotation(Body.class).flow())) {
-                    context.print(value);
-                } else if (field.isAnnotationPresent(Cookie.class) &&
-                           shouldProcessOutFlow(field.getAnnotation(Cookie.class).flow())) {
-                    var annotation_name = field.getAnnotation(Cookie.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-                    var builder = new CookieBuilder(name, Convert.toString(value));
-                    context.addCookie(builder);
-                } else if (field.isAnnotationPresent(RequestAttribute.class) &&
-                           shouldProcessOutFlow(field.getAnnotation(RequestAttribute.class).flow())) {
-                    var annotation_name = field.getAnnotation(RequestAttribute.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-                    context.setAttribute(name, value);
-                } else if (field.isAnnotationPresent(SessionAttribute.class) &&
-                           shouldProcessOutFlow(field.getAnnotation(SessionAttribute.class).flow())) {
-                    var annotation_name = field.getAnnotation(SessionAttribute.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
+                switch (field.kind()) {
+                    case HEADER -> context.addHeader(name, Convert.toString(value));
+                    case BODY -> context.print(value);
+                    case COOKIE -> context.addCookie(new CookieBuilder(name, Convert.toString(value)));
+                    case REQUEST_ATTRIBUTE -> context.setAttribute(name, value);
+                    case SESSION_ATTRIBUTE -> context.request().getSession().setAttribute(name, value);
+                    default -> {
                     }
-                    var session = context.request().getSession();
-                    session.setAttribute(name, value);
                 }
             }
-        } catch (Exception e) {
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw new EngineException(e);
         }
     }
@@ -6,7 +6,11 @@ package rife.engine;
 
 import rife.engine.exceptions.EngineException;
 
+import java.lang.reflect.Constructor;
+
 class RouteClass extends RouteAnnotated {
+    private Constructor<? extends Element> constructor_ = null;
+
     RouteClass(Router router, Class<? extends Element> elementClass) {
         this(router, null, null, null, elementClass);
     }
@@ -28,9 +32,14 @@ class RouteClass extends RouteAnnotated {
     }
 
     @Override
-    public Element obtainElementInstance(Context context) {
+    Element createElementInstance() {
         try {
-            return elementClass_.getDeclaredConstructor().newInstance();
+            var constructor = constructor_;
+            if (null == constructor) {
+                constructor = elementClass_.getDeclaredConstructor();
+                constructor_ = constructor;
+            }
+            return constructor.newInstance();
         } catch (Exception e) {
             throw new EngineException(e);
         }
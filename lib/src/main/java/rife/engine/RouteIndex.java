@@ -0,0 +1,290 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+import rife.tools.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable radix tree of the routes of a deployed site.
+ * <p>The tree is keyed by the characters of the route paths, each node
+ * holds the routes and the fallback that were registered for its path. A
+ * request URL is resolved by descending the tree once, the longest matching
+ * route path is then selected first while going back up, and the fallback
+ * of the longest matching path is used when no route handles the URL.
+ * <p>The path info mappings of the routes of each path are compiled into a
+ * {@link PathInfoMatcher}, which also captures the values of the parameters
+ * of the mapping that matches.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.4
+ */
+final class RouteIndex {
+    private static final char[] NO_CHARS = new char[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    private final Node root_;
+    private final Node slash_;
+
+    RouteIndex(Map<String, List<Route>> routes, Map<String, List<Route>> pathInfoRoutes, Map<String, Route> fallbackRoutes) {
+        root_ = new Node("");
+        for (var entry : routes.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                insert(entry.getKey()).routes_ = entry.getValue().toArray(new Route[0]);
+            }
+        }
+        for (var entry : pathInfoRoutes.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                var node = insert(entry.getKey());
+                node.pathInfoRoutes_ = entry.getValue().toArray(new Route[0]);
+                node.pathInfoMatchers_ = compileMatchers(node.pathInfoRoutes_);
+            }
+        }
+        for (var entry : fallbackRoutes.entrySet()) {
+            insert(entry.getKey()).fallback_ = entry.getValue();
+        }
+
+        // the empty URL prefix corresponds to the root path
+        slash_ = lookup("/");
+    }
+
+    private Node insert(String path) {
+        var node = root_;
+        var position = 0;
+        while (position < path.length()) {
+            var index = node.indexOfChild(path.charAt(position));
+            if (index < 0) {
+                var child = new Node(path.substring(position));
+                node.addChild(-(index + 1), child);
+                return child;
+            }
+
+            var child = node.children_[index];
+            var label = child.label_;
+            var common = 0;
+            while (common < label.length() &&
+                   position + common < path.length() &&
+                   label.charAt(common) == path.charAt(position + common)) {
+                common++;
+            }
+
+            if (common < label.length()) {
+                // split the edge to the child at the end of the common part
+                var middle = new Node(label.substring(0, common));
+                child.label_ = label.substring(common);
+                middle.addChild(0, child);
+                node.children_[index] = middle;
+                child = middle;
+            }
+
+            node = child;
+            position += common;
+        }
+
+        return node;
+    }
+
+    private Node lookup(String path) {
+        var node = root_;
+        var position = 0;
+        while (node != null && position < path.length()) {
+            node = node.child(path, position);
+            if (node != null) {
+                position += node.label_.length();
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Finds the route that handles a request.
+     *
+     * @param method the method of the request
+     * @param url    the URL of the element
+     * @return the matching route with its path info; or
+     * <p>{@code null} if no route or fallback handles the request
+     * @since 1.4
+     */
+    RouteMatch find(RequestMethod method, String url) {
+        if (url.isEmpty()) {
+            url = "/";
+        }
+
+        var match = find(root_, 0, url, method);
+        // fallbacks are found with a null path info to distinguish them
+        // from actual matches, while going up the tree
+        if (match != null && null == match.pathInfo()) {
+            return new RouteMatch(match.route(), "");
+        }
+        return match;
+    }
+
+    private RouteMatch find(Node node, int end, String url, RequestMethod method) {
+        RouteMatch deeper = null;
+        if (end < url.length()) {
+            var child = node.child(url, end);
+            if (child != null) {
+                deeper = find(child, end + child.label_.length(), url, method);
+                if (deeper != null && deeper.pathInfo() != null) {
+                    return deeper;
+                }
+            }
+        }
+
+        if (end == url.length()) {
+            var route = node.resolveExact(method);
+            if (route != null) {
+                return new RouteMatch(route, "");
+            }
+        } else if ('/' == url.charAt(end)) {
+            // the rest of the URL is the path info of this node
+            var candidate = (0 == end ? slash_ : node);
+            if (candidate != null && candidate.pathInfoRoutes_ != null) {
+                var path_info = StringUtils.stripFromFront(url.substring(end), "/");
+                var match = candidate.resolvePathInfo(method, path_info);
+                if (match != null) {
+                    return match;
+                }
+            }
+        }
+
+        if (deeper != null) {
+            return deeper;
+        }
+        if (node.fallback_ != null) {
+            return new RouteMatch(node.fallback_, null);
+        }
+        return null;
+    }
+
+    private static PathInfoMatcher[] compileMatchers(Route[] routes) {
+        // compile the mappings of the routes that handle each method, routes
+        // that handle the same methods share their matcher
+        PathInfoMatcher[] matchers = null;
+        var compiled = new HashMap<List<Route>, PathInfoMatcher>();
+        for (var method : RequestMethod.values()) {
+            var mapped_routes = new ArrayList<Route>();
+            for (var route : routes) {
+                if (route.pathInfoHandling().type() == PathInfoType.MAP && routeHandlesMethod(route, method)) {
+                    mapped_routes.add(route);
+                }
+            }
+
+            if (!mapped_routes.isEmpty()) {
+                if (null == matchers) {
+                    matchers = new PathInfoMatcher[RequestMethod.values().length];
+                }
+                matchers[method.ordinal()] = compiled.computeIfAbsent(mapped_routes, PathInfoMatcher::new);
+            }
+        }
+
+        return matchers;
+    }
+
+    static boolean routeHandlesMethod(Route route, RequestMethod method) {
+        if (route.methods() == null) {
+            return true;
+        }
+        for (var m : route.methods()) {
+            if (m == method) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Node {
+        private String label_;
+        private char[] childChars_ = NO_CHARS;
+        private Node[] children_ = NO_NODES;
+        private Route[] routes_ = null;
+        private Route[] pathInfoRoutes_ = null;
+        private PathInfoMatcher[] pathInfoMatchers_ = null;
+        private Route fallback_ = null;
+
+        Node(String label) {
+            label_ = label;
+        }
+
+        int indexOfChild(char c) {
+            return Arrays.binarySearch(childChars_, c);
+        }
+
+        void addChild(int index, Node child) {
+            var chars = new char[childChars_.length + 1];
+            var children = new Node[children_.length + 1];
+            System.arraycopy(childChars_, 0, chars, 0, index);
+            System.arraycopy(children_, 0, children, 0, index);
+            chars[index] = child.label_.charAt(0);
+            children[index] = child;
+            System.arraycopy(childChars_, index, chars, index + 1, childChars_.length - index);
+            System.arraycopy(children_, index, children, index + 1, children_.length - index);
+            childChars_ = chars;
+            children_ = children;
+        }
+
+        Node child(String url, int position) {
+            var index = indexOfChild(url.charAt(position));
+            if (index < 0) {
+                return null;
+            }
+
+            var child = children_[index];
+            if (!url.startsWith(child.label_, position)) {
+                return null;
+            }
+            return child;
+        }
+
+        Route resolveExact(RequestMethod method) {
+            if (routes_ != null) {
+                for (var route : routes_) {
+                    if (routeHandlesMethod(route, method)) {
+                        return route;
+                    }
+                }
+            }
+
+            return resolveCapture(method);
+        }
+
+        RouteMatch resolvePathInfo(RequestMethod method, String pathInfo) {
+            // the first route with a path info mapping that matches
+            if (pathInfoMatchers_ != null) {
+                var matcher = pathInfoMatchers_[method.ordinal()];
+                if (matcher != null) {
+                    var match = matcher.match(pathInfo);
+                    if (match != null) {
+                        return match;
+                    }
+                }
+            }
+
+            var route = resolveCapture(method);
+            if (route != null) {
+                return new RouteMatch(route, pathInfo);
+            }
+            return null;
+        }
+
+        Route resolveCapture(RequestMethod method) {
+            // the first route that captures any path info
+            if (pathInfoRoutes_ != null) {
+                for (var route : pathInfoRoutes_) {
+                    if (route.pathInfoHandling().type() == PathInfoType.CAPTURE && routeHandlesMethod(route, method)) {
+                        return route;
+                    }
+                }
+            }
+
+            return null;
+        }
+    }
+}
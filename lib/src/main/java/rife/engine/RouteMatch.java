@@ -4,5 +4,10 @@
  */
 package rife.engine;
 
-record RouteMatch(Route route, String pathInfo) {
+import java.util.Map;
+
+record RouteMatch(Route route, String pathInfo, Map<String, String[]> pathInfoParameters) {
+    RouteMatch(Route route, String pathInfo) {
+        this(route, pathInfo, null);
+    }
 }
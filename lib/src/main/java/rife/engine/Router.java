@@ -42,7 +42,7 @@ public class Router {
     public void setup() {
     }
 
-    final void deploy() {
+    void deploy() {
         if (parent_ != null) {
             before_.addAll(0, parent_.before_);
             after_.addAll(parent_.after_);
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Declares how the instances of an element class are reused across
+ * requests.
+ * <p>By default, a new element instance is created for each request. Elements
+ * that hold no state between requests can be reused instead, which avoids
+ * their creation for each request. Such elements can't have annotated fields
+ * or use continuations, which is verified when their routes are registered.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.4
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+@Documented
+public @interface Lifecycle {
+    /**
+     * The lifecycle of the element instances.
+     *
+     * @since 1.4
+     */
+    LifecycleType value();
+
+    /**
+     * The maximum number of idle instances that are kept for reuse by
+     * {@link LifecycleType#POOLED} elements.
+     *
+     * @since 1.4
+     */
+    int poolSize() default 32;
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine.annotations;
+
+/**
+ * The lifecycle of the instances of an element class.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @see Lifecycle
+ * @since 1.4
+ */
+public enum LifecycleType {
+    /**
+     * A new instance will be created for each request.
+     */
+    PER_REQUEST,
+    /**
+     * A single instance will be shared by all requests, also concurrently.
+     */
+    SINGLETON,
+    /**
+     * Instances will be reused by later requests, each instance handles only
+     * one request at a time.
+     */
+    POOLED
+}
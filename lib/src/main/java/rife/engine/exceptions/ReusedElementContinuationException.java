@@ -0,0 +1,33 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine.exceptions;
+
+import rife.engine.Route;
+import rife.engine.annotations.LifecycleType;
+
+import java.io.Serial;
+
+public class ReusedElementContinuationException extends EngineException {
+    @Serial
+    private static final long serialVersionUID = -2697310548816274953L;
+
+    private Route route_ = null;
+    private LifecycleType lifecycle_ = null;
+
+    public ReusedElementContinuationException(Route route, LifecycleType lifecycle) {
+        super("The route '" + route.path() + "' uses an element '" + route.getElementClass().getName() + "' with a " + lifecycle + " lifecycle that uses continuations. Use the " + LifecycleType.PER_REQUEST + " lifecycle for this element instead, otherwise the continuations can't be resumed.");
+
+        route_ = route;
+        lifecycle_ = lifecycle;
+    }
+
+    public Route getRoute() {
+        return route_;
+    }
+
+    public LifecycleType getLifecycle() {
+        return lifecycle_;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine.exceptions;
+
+import rife.engine.Route;
+import rife.engine.annotations.LifecycleType;
+
+import java.io.Serial;
+
+public class ReusedElementFieldException extends EngineException {
+    @Serial
+    private static final long serialVersionUID = 5381949726409138275L;
+
+    private Route route_ = null;
+    private LifecycleType lifecycle_ = null;
+    private String field_ = null;
+
+    public ReusedElementFieldException(Route route, LifecycleType lifecycle, String field) {
+        super("The route '" + route.path() + "' uses an element '" + route.getElementClass().getName() + "' with a " + lifecycle + " lifecycle and an annotated field '" + field + "'. Use the " + LifecycleType.PER_REQUEST + " lifecycle for this element instead, otherwise the same field will be shared across multiple requests.");
+
+        route_ = route;
+        lifecycle_ = lifecycle;
+        field_ = field;
+    }
+
+    public Route getRoute() {
+        return route_;
+    }
+
+    public LifecycleType getLifecycle() {
+        return lifecycle_;
+    }
+
+    public String getField() {
+        return field_;
+    }
+}
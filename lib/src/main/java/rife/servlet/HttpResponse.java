@@ -107,6 +107,11 @@ public class HttpResponse extends AbstractResponse {
         response_.setStatus(statusCode);
     }
 
+    @Override
+    public int getStatus() {
+        return response_.getStatus();
+    }
+
     @Override
     public String encodeURL(String url) {
         return response_.encodeURL(url);
@@ -291,6 +291,48 @@ public final class BeanUtils {
         throw new BeanUtilsException("The bean '" + bean_class + "' doesn't contain property '" + name + "'", bean_class);
     }
 
+    /**
+     * Creates a copy of a bean through its default constructor and its
+     * properties that have both a getter and a setter. Cloneable property
+     * values are cloned, all the others are shared with the original bean.
+     *
+     * @param bean the bean to copy
+     * @return the copy of the bean; or
+     * <p>{@code null} if the bean was {@code null}
+     * @throws BeanUtilsException when the bean couldn't be instantiated or
+     *                            when its properties couldn't be copied
+     * @since 1.4
+     */
+    public static <BeanType> BeanType copyBean(BeanType bean)
+    throws BeanUtilsException {
+        if (null == bean) return null;
+        if (bean instanceof Class)
+            throw new IllegalArgumentException("bean should be a bean instance, not a bean class.");
+
+        // getClass() returns the erased type, but it's the class of the bean instance
+        @SuppressWarnings("unchecked")
+        var bean_class = (Class<BeanType>) bean.getClass();
+        final BeanType copy;
+        try {
+            copy = bean_class.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new BeanUtilsException("The bean '" + bean_class + "' couldn't be instantiated.", bean_class, e);
+        }
+
+        processProperties(GETTERS_SETTERS, bean_class, null, null, null, (name, descriptor) -> {
+            var read_method = descriptor.getReadMethod();
+            var write_method = descriptor.getWriteMethod();
+            if (read_method != null && write_method != null) {
+                var value = read_method.invoke(bean);
+                var cloned_value = ObjectUtils.genericClone(value);
+                write_method.invoke(copy, cloned_value != null ? cloned_value : value);
+            }
+            return true;
+        });
+
+        return copy;
+    }
+
     public static Class getPropertyType(Class beanClass, String name)
     throws BeanUtilsException {
         if (null == beanClass) throw new IllegalArgumentException("beanClass can't be null.");
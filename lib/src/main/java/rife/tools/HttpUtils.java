@@ -35,5 +35,138 @@ public final class HttpUtils {
 
         return contentType;
     }
-}
 
+    /**
+     * Checks whether an entity tag matches the value of an
+     * {@code If-None-Match} HTTP header.
+     * <p>The header can contain a comma-separated list of entity tags or
+     * {@code *}, which matches any entity tag. The tags are compared with the
+     * weak comparison function, which means that the {@code W/} prefix of
+     * weak entity tags is ignored.
+     *
+     * @param ifNoneMatch the value of the If-None-Match header, can be
+     *                    {@code null}
+     * @param etag        the quoted entity tag, optionally prefixed with
+     *                    {@code W/}
+     * @return {@code true} if the entity tag matches the header; or
+     * <p>{@code false} otherwise
+     * @since 1.4
+     */
+    public static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (null == ifNoneMatch || null == etag) {
+            return false;
+        }
+
+        var opaque_tag = stripWeakPrefix(etag);
+        var length = ifNoneMatch.length();
+        var i = 0;
+        while (i < length) {
+            var c = ifNoneMatch.charAt(i);
+            if (' ' == c || '\t' == c || ',' == c) {
+                i++;
+                continue;
+            }
+
+            if ('*' == c) {
+                return true;
+            }
+
+            // the opaque tag is quoted and can contain commas
+            var start = i;
+            if (ifNoneMatch.startsWith("W/", i)) {
+                start = i + 2;
+            }
+            int end;
+            if (start < length && '"' == ifNoneMatch.charAt(start)) {
+                end = ifNoneMatch.indexOf('"', start + 1);
+                if (-1 == end) {
+                    return false;
+                }
+                end += 1;
+            } else {
+                end = ifNoneMatch.indexOf(',', start);
+                if (-1 == end) {
+                    end = length;
+                }
+            }
+
+            if (ifNoneMatch.regionMatches(start, opaque_tag, 0, opaque_tag.length()) &&
+                end - start == opaque_tag.length()) {
+                return true;
+            }
+
+            i = end;
+        }
+
+        return false;
+    }
+
+    /**
+     * Determines the quality value that an {@code Accept}-style HTTP header,
+     * like {@code Accept-Encoding}, assigns to a token.
+     * <p>The header contains a comma-separated list of tokens that can each
+     * have a {@code q} parameter with their quality value. Tokens without
+     * {@code q} parameter have a quality of {@code 1}. When the token isn't
+     * listed, the quality of the {@code *} wildcard is used, if present.
+     * Tokens are compared case-insensitively.
+     *
+     * @param header the value of the header, can be {@code null}
+     * @param token  the token to look for
+     * @return the quality of the token between {@code 0} and {@code 1},
+     * where {@code 0} means that the token isn't acceptable
+     * @since 1.4
+     */
+    public static double getAcceptQuality(String header, String token) {
+        if (null == header || null == token) {
+            return 0;
+        }
+
+        var wildcard_quality = 0d;
+        for (var element : header.split(",")) {
+            var parameters_index = element.indexOf(';');
+            var name = (-1 == parameters_index ? element : element.substring(0, parameters_index)).trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+
+            var quality = 1d;
+            if (parameters_index != -1) {
+                for (var parameter : element.substring(parameters_index + 1).split(";")) {
+                    var equals_index = parameter.indexOf('=');
+                    if (equals_index != -1 &&
+                        parameter.substring(0, equals_index).trim().equalsIgnoreCase("q")) {
+                        quality = parseQuality(parameter.substring(equals_index + 1).trim());
+                    }
+                }
+            }
+
+            if (name.equalsIgnoreCase(token)) {
+                return quality;
+            }
+            if ("*".equals(name)) {
+                wildcard_quality = quality;
+            }
+        }
+
+        return wildcard_quality;
+    }
+
+    private static double parseQuality(String value) {
+        try {
+            var quality = Double.parseDouble(value);
+            if (quality >= 0 && quality <= 1) {
+                return quality;
+            }
+        } catch (NumberFormatException e) {
+            // an invalid quality value makes the token unacceptable
+        }
+        return 0;
+    }
+
+    private static String stripWeakPrefix(String etag) {
+        if (etag.startsWith("W/")) {
+            return etag.substring(2);
+        }
+        return etag;
+    }
+}
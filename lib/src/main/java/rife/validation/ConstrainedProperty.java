@@ -100,6 +100,7 @@ public class ConstrainedProperty implements Cloneable {
     public static final String MANY_TO_ONE_ASSOCIATION = "MANY_TO_ONE_ASSOCIATION";
     public static final String MANY_TO_MANY = "MANY_TO_MANY";
     public static final String MANY_TO_MANY_ASSOCIATION = "MANY_TO_MANY_ASSOCIATION";
+    public static final String BATCH_FETCH = "BATCH_FETCH";
     public static final String FORMAT = "FORMAT";
     public static final String SPARSE = "SPARSE";
 
@@ -1270,6 +1271,35 @@ public class ConstrainedProperty implements Cloneable {
         return constraints_.containsKey(MANY_TO_MANY_ASSOCIATION);
     }
 
+    /**
+     * Indicates whether the values of a {@code manyToOne}, {@code manyToMany}
+     * or {@code manyToManyAssociation} property should be fetched for all
+     * the beans of a restored list at once.
+     * <p>Instead of restoring the related beans one bean at a time, the
+     * {@code GenericQueryManager} gathers the identifiers of all the
+     * restored beans and obtains the related beans with a few {@code IN}
+     * queries.
+     *
+     * @param batchFetch {@code true} if the related beans should be fetched
+     *                   in batches; or {@code false} if they should be
+     *                   restored for each bean individually
+     * @return this {@code ConstrainedProperty} instance
+     * @since 1.4
+     */
+    public ConstrainedProperty batchFetch(boolean batchFetch) {
+        setBatchFetch(batchFetch);
+
+        return this;
+    }
+
+    public void setBatchFetch(boolean batchFetch) {
+        setConstraint(BATCH_FETCH, batchFetch);
+    }
+
+    public boolean isBatchFetch() {
+        return Convert.toBoolean(constraints_.get(BATCH_FETCH), false);
+    }
+
     public ConstrainedProperty format(Format format) {
         setFormat(format);
 
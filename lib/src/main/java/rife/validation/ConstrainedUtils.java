@@ -8,9 +8,51 @@ import rife.tools.BeanUtils;
 import rife.tools.ClassUtils;
 import rife.tools.exceptions.BeanUtilsException;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class ConstrainedUtils {
+    /**
+     * The constraints of a bean class that never change between its
+     * instances, gathered once from a single instance.
+     *
+     * @since 1.4
+     */
+    private record ClassMetaData(List<ConstrainedBean.Order> defaultOrdering, String identityProperty) {
+        private static final ClassMetaData UNCONSTRAINED = new ClassMetaData(Collections.emptyList(), null);
+    }
+
+    private static final ClassValue<ClassMetaData> CLASS_META_DATA = new ClassValue<>() {
+        protected ClassMetaData computeValue(Class<?> beanClass) {
+            var constrained = getConstrainedInstance(beanClass);
+            if (null == constrained) {
+                return ClassMetaData.UNCONSTRAINED;
+            }
+
+            List<ConstrainedBean.Order> default_ordering = Collections.emptyList();
+            var constrained_bean = constrained.getConstrainedBean();
+            if (constrained_bean != null &&
+                constrained_bean.hasDefaultOrdering()) {
+                var ordering = new ArrayList<ConstrainedBean.Order>();
+                for (var order : constrained_bean.getDefaultOrdering()) {
+                    ordering.add(order.clone());
+                }
+                default_ordering = Collections.unmodifiableList(ordering);
+            }
+
+            String identity_property = null;
+            for (var property : constrained.getConstrainedProperties()) {
+                if (property.isIdentifier()) {
+                    identity_property = property.getPropertyName();
+                    break;
+                }
+            }
+
+            return new ClassMetaData(default_ordering, identity_property);
+        }
+    };
+
     public static Constrained getConstrainedInstance(Class beanClass) {
         if (null == beanClass) {
             return null;
@@ -55,20 +97,31 @@ public class ConstrainedUtils {
         return constrained_property;
     }
 
+    /**
+     * Retrieves the default ordering of a constrained bean class.
+     * <p>The ordering is obtained from a single instance of the class and
+     * remembered afterwards, it should thus be the same for all the
+     * instances.
+     *
+     * @param beanClass the class of the constrained bean
+     * @return the unmodifiable default ordering; or
+     * <p>an empty list if the class doesn't have a default ordering or isn't
+     * constrained
+     * @since 1.4
+     */
+    public static List<ConstrainedBean.Order> getDefaultOrdering(Class<?> beanClass) {
+        if (null == beanClass) {
+            return Collections.emptyList();
+        }
+
+        return CLASS_META_DATA.get(beanClass).defaultOrdering();
+    }
+
     public static String getIdentityProperty(Class beanClass) {
         String identity_property = null;
 
-        var constrained_bean = getConstrainedInstance(beanClass);
-        if (constrained_bean != null) {
-            var properties_it = constrained_bean.getConstrainedProperties().iterator();
-            ConstrainedProperty property;
-            while (properties_it.hasNext()) {
-                property = properties_it.next();
-                if (property.isIdentifier()) {
-                    identity_property = property.getPropertyName();
-                    break;
-                }
-            }
+        if (beanClass != null) {
+            identity_property = CLASS_META_DATA.get(beanClass).identityProperty();
         }
 
         if (null == identity_property) {
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.web;
+
+import rife.database.queries.Select;
+import rife.database.querymanagers.generic.RestoreQuery;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Opaque position in paged results for keyset pagination.
+ * <p>A cursor holds the values of the {@code ORDER BY} columns of a row,
+ * and whether a page starts after or ends before that row. It's encoded as
+ * a URL-safe string that can be used as a parameter of the navigation
+ * links, as done by {@link PagedNavigation#generate(rife.engine.Context, rife.template.Template, PageCursor, PageCursor)}.
+ * <p>Only the types that are commonly used for {@code ORDER BY} columns can
+ * be encoded: strings, characters, numbers, booleans, dates, times and
+ * UUIDs. Cursors are decoded into values of these types only, it's thus safe
+ * to decode cursors that are provided by the users of a web application.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @see Select#seekAfter(Object...)
+ * @see Select#seekBefore(Object...)
+ * @since 1.4
+ */
+public final class PageCursor {
+    private static final char AFTER = 'a';
+    private static final char BEFORE = 'b';
+
+    private final boolean before_;
+    private final Object[] values_;
+
+    private PageCursor(boolean before, Object[] values) {
+        if (null == values) throw new IllegalArgumentException("values can't be null.");
+        if (0 == values.length) throw new IllegalArgumentException("values can't be empty.");
+
+        before_ = before;
+        values_ = values.clone();
+        for (var value : values_) {
+            if (null == value) throw new IllegalArgumentException("values can't contain null.");
+            if (null == getTypeCode(value)) throw new IllegalArgumentException("values can't contain instances of " + value.getClass().getName() + ".");
+        }
+    }
+
+    /**
+     * Creates a cursor for the page that starts after a row.
+     *
+     * @param values the values of the {@code ORDER BY} columns of the last
+     *               row of the current page
+     * @return the new cursor
+     * @since 1.4
+     */
+    public static PageCursor after(Object... values) {
+        return new PageCursor(false, values);
+    }
+
+    /**
+     * Creates a cursor for the page that ends before a row.
+     *
+     * @param values the values of the {@code ORDER BY} columns of the first
+     *               row of the current page
+     * @return the new cursor
+     * @since 1.4
+     */
+    public static PageCursor before(Object... values) {
+        return new PageCursor(true, values);
+    }
+
+    /**
+     * Indicates whether the page ends before the values of this cursor.
+     *
+     * @return {@code true} if the page ends before the values; or
+     * <p>{@code false} if the page starts after them
+     * @since 1.4
+     */
+    public boolean isBefore() {
+        return before_;
+    }
+
+    /**
+     * Retrieves the values of the {@code ORDER BY} columns of this cursor.
+     *
+     * @return the values
+     * @since 1.4
+     */
+    public Object[] getValues() {
+        return values_.clone();
+    }
+
+    /**
+     * Restricts a query to the page of this cursor.
+     * <p>When the page ends before the values of the cursor, the rows are
+     * retrieved in reverse order.
+     *
+     * @param select the query whose {@code ORDER BY} columns correspond to
+     *               the values of this cursor
+     * @return the provided query
+     * @since 1.4
+     */
+    public Select applyTo(Select select) {
+        if (before_) {
+            return select.seekBefore(values_);
+        }
+        return select.seekAfter(values_);
+    }
+
+    /**
+     * Restricts a restore query to the page of this cursor.
+     * <p>When the page ends before the values of the cursor, the beans are
+     * restored in reverse order.
+     *
+     * @param query the query whose {@code ORDER BY} columns correspond to
+     *              the values of this cursor
+     * @return the provided query
+     * @since 1.4
+     */
+    public RestoreQuery applyTo(RestoreQuery query) {
+        if (before_) {
+            return query.seekBefore(values_);
+        }
+        return query.seekAfter(values_);
+    }
+
+    /**
+     * Encodes this cursor into an opaque URL-safe string.
+     *
+     * @return the encoded cursor
+     * @see #decode(String)
+     * @since 1.4
+     */
+    public String encode() {
+        var result = new StringBuilder();
+        result.append(before_ ? BEFORE : AFTER);
+        for (var value : values_) {
+            var text = getText(value);
+            result.append(getTypeCode(value));
+            result.append(text.length());
+            result.append(':');
+            result.append(text);
+        }
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(result.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor that was encoded with {@link #encode()}.
+     *
+     * @param cursor the encoded cursor
+     * @return the decoded cursor; or
+     * <p>{@code null} if no cursor was provided or if it isn't valid
+     * @since 1.4
+     */
+    public static PageCursor decode(String cursor) {
+        if (null == cursor ||
+            cursor.isEmpty()) {
+            return null;
+        }
+
+        try {
+            var text = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            boolean before;
+            switch (text.charAt(0)) {
+                case AFTER -> before = false;
+                case BEFORE -> before = true;
+                default -> {
+                    return null;
+                }
+            }
+
+            var values = new ArrayList<>();
+            var position = 1;
+            while (position < text.length()) {
+                var type = text.charAt(position);
+                var colon = text.indexOf(':', position + 1);
+                var length = Integer.parseInt(text.substring(position + 1, colon));
+                var end = colon + 1 + length;
+                var value = getValue(type, text.substring(colon + 1, end));
+                if (null == value) {
+                    return null;
+                }
+                values.add(value);
+                position = end;
+            }
+
+            return new PageCursor(before, values.toArray());
+        } catch (RuntimeException e) {
+            // the cursor is provided by the user and could be anything
+            return null;
+        }
+    }
+
+    private static Character getTypeCode(Object value) {
+        if (value instanceof String) return 's';
+        if (value instanceof Character) return 'c';
+        if (value instanceof Integer) return 'i';
+        if (value instanceof Long) return 'l';
+        if (value instanceof Short) return 'h';
+        if (value instanceof Byte) return 'y';
+        if (value instanceof Double) return 'd';
+        if (value instanceof Float) return 'f';
+        if (value instanceof BigDecimal) return 'n';
+        if (value instanceof Boolean) return 'z';
+        if (value instanceof Timestamp) return 'T';
+        if (value instanceof java.sql.Date) return 'D';
+        if (value instanceof Time) return 'M';
+        if (value instanceof Date) return 'u';
+        if (value instanceof Instant) return 'I';
+        if (value instanceof LocalDate) return 'L';
+        if (value instanceof LocalDateTime) return 'X';
+        if (value instanceof UUID) return 'U';
+        return null;
+    }
+
+    private static String getText(Object value) {
+        if (value instanceof Timestamp timestamp) return timestamp.toInstant().toString();
+        if (value instanceof java.sql.Date || value instanceof Time) return value.toString();
+        if (value instanceof Date date) return String.valueOf(date.getTime());
+        return value.toString();
+    }
+
+    private static Object getValue(char type, String text) {
+        return switch (type) {
+            case 's' -> text;
+            case 'c' -> text.charAt(0);
+            case 'i' -> Integer.valueOf(text);
+            case 'l' -> Long.valueOf(text);
+            case 'h' -> Short.valueOf(text);
+            case 'y' -> Byte.valueOf(text);
+            case 'd' -> Double.valueOf(text);
+            case 'f' -> Float.valueOf(text);
+            case 'n' -> new BigDecimal(text);
+            case 'z' -> Boolean.valueOf(text);
+            case 'T' -> Timestamp.from(Instant.parse(text));
+            case 'D' -> java.sql.Date.valueOf(text);
+            case 'M' -> Time.valueOf(text);
+            case 'u' -> new Date(Long.parseLong(text));
+            case 'I' -> Instant.parse(text);
+            case 'L' -> LocalDate.parse(text);
+            case 'X' -> LocalDateTime.parse(text);
+            case 'U' -> UUID.fromString(text);
+            default -> null;
+        };
+    }
+
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof PageCursor cursor)) {
+            return false;
+        }
+        return before_ == cursor.before_ &&
+               Arrays.equals(values_, cursor.values_);
+    }
+
+    public int hashCode() {
+        return 31 * Boolean.hashCode(before_) + Arrays.hashCode(values_);
+    }
+
+    public String toString() {
+        return encode();
+    }
+}
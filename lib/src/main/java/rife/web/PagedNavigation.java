@@ -143,6 +143,23 @@ import rife.template.Template;
  * <p><code>Pages: 9 ( &lt;&lt; &lt; <u>&gt;</u> <u>&gt;&gt;</u> | 1 <u>2</u>
  * <u>3</u> <u>4</u> <u>5</u> <u>6</u> <u>7</u> <u>8</u> <u>9</u> )</code>
  *
+ * <p>Paging with offsets requires the database to go through all the rows
+ * of the previous pages, which becomes slow for pages that are far in large
+ * results. Keyset pagination instead positions each page relatively to a
+ * row of the current page with a {@link PageCursor}. Only the first, previous
+ * and next ranges can then be navigated to, the last and absolute ranges are
+ * always disabled:
+ * <pre>
+ * var cursor = PageCursor.decode(c.parameter("cursor"));
+ * var query = manager.getRestoreQuery().orderBy("name").orderBy("id").limit(11);
+ * if (cursor != null) cursor.applyTo(query);
+ * var beans = manager.restore(query);
+ * // detect the adjacent pages with the additional row, reverse the beans
+ * // when cursor.isBefore() and create the cursors from the first and last
+ * // beans that are shown
+ * PagedNavigation.generate(c, t, previous, next);
+ * </pre>
+ *
  * @author Geert Bevin (gbevin[remove] at uwyn dot com)
  * @since 1.1
  */
@@ -170,6 +187,7 @@ public class PagedNavigation {
     public static String ID_LAST_RANGE_DISABLED = PREFIX_NAV + "lastRange" + SUFFIX_DISABLED;
 
     public static String DEFAULT_PARAMETER = "offset";
+    public static String DEFAULT_CURSOR_PARAMETER = "cursor";
 
     /**
      * Generates the paged navigation for the given context, template and
@@ -298,5 +316,64 @@ public class PagedNavigation {
 
         template.removeValue(ID_ABSOLUTE_RANGE_TEXT);
     }
-}
 
+    /**
+     * Generates the navigation for the given context and template with
+     * keyset pagination. The default parameter <code>cursor</code> will be
+     * used when generating the links.
+     *
+     * @param context  The context that is populating the template.
+     * @param template The template that will be used for the generation of
+     *                 the navigation.
+     * @param previous The cursor of the previous page, or {@code null} when
+     *                 the current page is the first one.
+     * @param next     The cursor of the next page, or {@code null} when the
+     *                 current page is the last one.
+     * @since 1.4
+     */
+    public static void generate(Context context, Template template, PageCursor previous, PageCursor next) {
+        generate(context, template, previous, next, DEFAULT_CURSOR_PARAMETER);
+    }
+
+    /**
+     * Generates the navigation for the given context and template with
+     * keyset pagination. This version allows you to provide your own name
+     * for the parameter that will be used when generating the links.
+     * <p>The cost of each page stays the same, regardless of how far it is
+     * in the results. Since the number of ranges isn't known, the last and
+     * absolute ranges are disabled, and the range count isn't set.
+     *
+     * @param context   The context that is populating the template.
+     * @param template  The template that will be used for the generation of
+     *                  the navigation.
+     * @param previous  The cursor of the previous page, or {@code null} when
+     *                  the current page is the first one.
+     * @param next      The cursor of the next page, or {@code null} when the
+     *                  current page is the last one.
+     * @param parameter The name of the parameter that will contain the
+     *                  encoded cursor when the url is followed.
+     * @since 1.4
+     */
+    public static void generate(Context context, Template template, PageCursor previous, PageCursor next, String parameter) {
+        if (null == previous) {
+            template.setBlock(ID_FIRST_RANGE, ID_FIRST_RANGE_DISABLED);
+            template.setBlock(ID_PREVIOUS_RANGE, ID_PREVIOUS_RANGE_DISABLED);
+        } else {
+            template.setValue(ID_ROUTE_OFFSET, context.urlFor(context.route()));
+            template.setBlock(ID_FIRST_RANGE, ID_FIRST_RANGE);
+
+            template.setValue(ID_ROUTE_OFFSET, context.urlFor(context.route()).param(parameter, previous.encode()));
+            template.setBlock(ID_PREVIOUS_RANGE, ID_PREVIOUS_RANGE);
+        }
+
+        if (null == next) {
+            template.setBlock(ID_NEXT_RANGE, ID_NEXT_RANGE_DISABLED);
+        } else {
+            template.setValue(ID_ROUTE_OFFSET, context.urlFor(context.route()).param(parameter, next.encode()));
+            template.setBlock(ID_NEXT_RANGE, ID_NEXT_RANGE);
+        }
+
+        template.setBlock(ID_LAST_RANGE, ID_LAST_RANGE_DISABLED);
+        template.setValue(ID_ABSOLUTE_RANGES, "");
+    }
+}
@@ -27,5 +27,6 @@
 {{b ORDERBY_PART}}{{v COLUMN/}} {{v DIRECTION/}}{{/b}}
 {{b ORDERBY_ASC}}ASC{{/b}}
 {{b ORDERBY_DESC}}DESC{{/b}}
+{{b SEEK_ROW}}({{v COLUMNS/}}) {{v OPERATOR/}} ({{v VALUES/}}){{/b}}
 {{b LIMIT}} LIMIT {{v LIMIT_VALUE/}}{{v OFFSET}}{{/v}}{{/b}}
 {{b OFFSET}} OFFSET {{v OFFSET_VALUE/}}{{/b}}
@@ -26,5 +26,6 @@
 {{b ORDERBY_PART}}{{v COLUMN/}} {{v DIRECTION/}}{{/b}}
 {{b ORDERBY_ASC}}ASC{{/b}}
 {{b ORDERBY_DESC}}DESC{{/b}}
+{{b SEEK_ROW}}{{/b}}
 {{b LIMIT}}{{/b}}
 {{b OFFSET}}{{/b}}
@@ -26,5 +26,6 @@
 {{b ORDERBY_PART}}{{v COLUMN/}} {{v DIRECTION/}}{{/b}}
 {{b ORDERBY_ASC}}ASC{{/b}}
 {{b ORDERBY_DESC}}DESC{{/b}}
+{{b SEEK_ROW}}({{v COLUMNS/}}) {{v OPERATOR/}} ({{v VALUES/}}){{/b}}
 {{b LIMIT}} LIMIT {{v OFFSET}}{{/v}}{{v LIMIT_VALUE/}}{{/b}}
 {{b OFFSET}}{{v OFFSET_VALUE}}0{{/v}} {{/b}}
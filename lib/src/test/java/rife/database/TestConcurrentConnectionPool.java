@@ -0,0 +1,321 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database;
+
+import org.junit.jupiter.api.Test;
+import rife.database.exceptions.ConnectionPoolTimedOutException;
+import rife.database.queries.Select;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestConcurrentConnectionPool {
+    private Datasource createDatasource(String name, int poolSize) {
+        var datasource = new Datasource("org.h2.Driver", "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "", poolSize);
+        var pool = new ConcurrentConnectionPool();
+        pool.setAcquireTimeout(200);
+        datasource.setPool(pool);
+        return datasource;
+    }
+
+    @Test
+    void testSetPool() {
+        var datasource = createDatasource("setpool", 3);
+        try {
+            assertTrue(datasource.getPool() instanceof ConcurrentConnectionPool);
+            assertEquals(3, datasource.getPoolSize());
+            assertTrue(datasource.isPooled());
+
+            datasource.getConnection().close();
+            try {
+                datasource.setPool(new ConcurrentConnectionPool());
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertTrue(true);
+            }
+        } finally {
+            datasource.cleanup();
+        }
+    }
+
+    @Test
+    void testExclusiveConnections() {
+        var datasource = createDatasource("exclusive", 2);
+        var pool = (ConcurrentConnectionPool) datasource.getPool();
+        try {
+            var connection1 = datasource.getConnection();
+            var connection2 = datasource.getConnection();
+            assertNotSame(connection1, connection2);
+            assertEquals(2, pool.getActiveCount());
+            assertEquals(0, pool.getIdleCount());
+
+            try {
+                datasource.getConnection();
+                fail();
+            } catch (ConnectionPoolTimedOutException e) {
+                assertSame(datasource, e.getDatasource());
+                assertEquals(200, e.getTimeout());
+            }
+
+            connection1.close();
+            assertEquals(1, pool.getActiveCount());
+            assertEquals(1, pool.getIdleCount());
+
+            // closing twice doesn't release twice
+            connection1.close();
+            assertEquals(1, pool.getIdleCount());
+
+            var connection3 = datasource.getConnection();
+            assertSame(connection1, connection3);
+            connection2.close();
+            connection3.close();
+            assertEquals(0, pool.getActiveCount());
+            assertEquals(2, pool.getIdleCount());
+        } finally {
+            datasource.cleanup();
+        }
+    }
+
+    @Test
+    void testTransactionConnection() {
+        var datasource = createDatasource("transaction", 1);
+        var pool = (ConcurrentConnectionPool) datasource.getPool();
+        var manager = new DbQueryManager(datasource);
+        try {
+            manager.executeUpdate("CREATE TABLE tbltest (id INTEGER)");
+            manager.inTransaction(() -> {
+                var connection = manager.getConnection();
+                manager.executeUpdate("INSERT INTO tbltest VALUES (1)");
+                assertSame(connection, manager.getConnection());
+                assertEquals(1, manager.executeGetFirstInt(new Select(datasource).from("tbltest").field("count(*)")));
+                assertEquals(1, pool.getActiveCount());
+            });
+            assertEquals(0, pool.getActiveCount());
+            assertEquals(1, pool.getIdleCount());
+
+            manager.reserveConnection(new DbConnectionUser<>() {
+                public Object useConnection(DbConnection connection) {
+                    assertSame(connection, manager.getConnection());
+                    assertEquals(1, manager.executeGetFirstInt(new Select(datasource).from("tbltest").field("count(*)")));
+                    return null;
+                }
+            });
+            assertEquals(0, pool.getActiveCount());
+            assertEquals(1, pool.getIdleCount());
+        } finally {
+            manager.executeUpdate("DROP TABLE tbltest");
+            datasource.cleanup();
+        }
+    }
+
+    @Test
+    void testTransactionInReservation() {
+        var datasource = createDatasource("reservedtransaction", 2);
+        var pool = (ConcurrentConnectionPool) datasource.getPool();
+        var manager = new DbQueryManager(datasource);
+        try {
+            manager.executeUpdate("CREATE TABLE tbltest (id INTEGER)");
+            manager.reserveConnection(new DbConnectionUser<>() {
+                public Object useConnection(DbConnection connection) {
+                    manager.inTransaction(() -> {
+                        assertSame(connection, manager.getConnection());
+                        manager.executeUpdate("INSERT INTO tbltest VALUES (1)");
+                    });
+
+                    // the reservation is still active after the transaction
+                    assertSame(connection, manager.getConnection());
+                    assertEquals(1, pool.getActiveCount());
+                    assertEquals(0, pool.getIdleCount());
+
+                    // other threads can't obtain the reserved connection
+                    var other = new DbConnection[1];
+                    var thread = new Thread(() -> {
+                        other[0] = datasource.getConnection();
+                        other[0].close();
+                    });
+                    thread.start();
+                    try {
+                        thread.join();
+                    } catch (InterruptedException e) {
+                        fail(e);
+                    }
+                    assertNotNull(other[0]);
+                    assertNotSame(connection, other[0]);
+
+                    assertEquals(1, manager.executeGetFirstInt(new Select(datasource).from("tbltest").field("count(*)")));
+                    return null;
+                }
+            });
+            assertEquals(0, pool.getActiveCount());
+            assertEquals(2, pool.getIdleCount());
+        } finally {
+            manager.executeUpdate("DROP TABLE tbltest");
+            datasource.cleanup();
+        }
+    }
+
+    @Test
+    void testTransactionIsolation()
+    throws Exception {
+        var datasource = createDatasource("isolation", 1);
+        var manager = new DbQueryManager(datasource);
+        try {
+            var connection = datasource.getConnection();
+            var default_isolation = connection.getMetaData().getConnection().getTransactionIsolation();
+            connection.close();
+
+            manager.inTransaction(new DbTransactionUserWithoutResult<>() {
+                public int getTransactionIsolation() {
+                    return Connection.TRANSACTION_SERIALIZABLE;
+                }
+
+                public void useTransactionWithoutResult() {
+                    try {
+                        assertEquals(Connection.TRANSACTION_SERIALIZABLE, manager.getConnection().getMetaData().getConnection().getTransactionIsolation());
+                    } catch (SQLException e) {
+                        fail(e);
+                    }
+                }
+            });
+
+            // the isolation level is restored once the transaction ended
+            connection = datasource.getConnection();
+            assertEquals(default_isolation, connection.getMetaData().getConnection().getTransactionIsolation());
+            connection.close();
+        } finally {
+            datasource.cleanup();
+        }
+    }
+
+    @Test
+    void testConcurrentUse()
+    throws Exception {
+        var datasource = createDatasource("concurrent", 4);
+        var pool = (ConcurrentConnectionPool) datasource.getPool();
+        pool.setAcquireTimeout(10000);
+        var manager = new DbQueryManager(datasource);
+        try {
+            var successes = new AtomicInteger();
+            var threads = new ArrayList<Thread>();
+            for (var i = 0; i < 64; i++) {
+                var thread = new Thread(() -> {
+                    for (var j = 0; j < 20; j++) {
+                        if (1 == manager.executeGetFirstInt(new Select(datasource).field("1"))) {
+                            successes.incrementAndGet();
+                        }
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (var thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(64 * 20, successes.get());
+            assertEquals(0, pool.getActiveCount());
+            assertTrue(pool.getIdleCount() <= 4);
+        } finally {
+            datasource.cleanup();
+        }
+    }
+
+    @Test
+    void testHousekeepingMinimumIdle() {
+        var datasource = createDatasource("minimumidle", 3);
+        var pool = (ConcurrentConnectionPool) datasource.getPool();
+        pool.setHousekeepingInterval(0);
+        pool.setMinimumIdle(2);
+        try {
+            pool.performHousekeeping(datasource);
+            assertEquals(2, pool.getIdleCount());
+            assertEquals(0, pool.getActiveCount());
+
+            var connection = datasource.getConnection();
+            assertEquals(1, pool.getIdleCount());
+            pool.performHousekeeping(datasource);
+            assertEquals(2, pool.getIdleCount());
+
+            // the pool size is never exceeded
+            var connection2 = datasource.getConnection();
+            pool.performHousekeeping(datasource);
+            assertEquals(1, pool.getIdleCount());
+
+            connection.close();
+            connection2.close();
+            assertEquals(3, pool.getIdleCount());
+        } finally {
+            datasource.cleanup();
+        }
+    }
+
+    @Test
+    void testHousekeepingIdleTimeout()
+    throws InterruptedException {
+        var datasource = createDatasource("idletimeout", 3);
+        var pool = (ConcurrentConnectionPool) datasource.getPool();
+        pool.setHousekeepingInterval(0);
+        pool.setIdleTimeout(1);
+        pool.setMinimumIdle(1);
+        try {
+            var connection1 = datasource.getConnection();
+            var connection2 = datasource.getConnection();
+            connection1.close();
+            connection2.close();
+            assertEquals(2, pool.getIdleCount());
+
+            Thread.sleep(10);
+            pool.performHousekeeping(datasource);
+            assertEquals(1, pool.getIdleCount());
+            assertTrue(connection1.isCleanedUp() || connection2.isCleanedUp());
+        } finally {
+            datasource.cleanup();
+        }
+    }
+
+    @Test
+    void testHousekeepingValidation() {
+        var datasource = createDatasource("validation", 2);
+        var pool = (ConcurrentConnectionPool) datasource.getPool();
+        pool.setHousekeepingInterval(0);
+        try {
+            var connection = datasource.getConnection();
+            assertTrue(connection.isValid(1));
+            connection.close();
+            assertEquals(1, pool.getIdleCount());
+
+            pool.performHousekeeping(datasource);
+            assertEquals(1, pool.getIdleCount());
+            assertSame(connection, datasource.getConnection());
+        } finally {
+            datasource.cleanup();
+        }
+    }
+
+    @Test
+    void testMaxLifetime()
+    throws InterruptedException {
+        var datasource = createDatasource("maxlifetime", 2);
+        var pool = (ConcurrentConnectionPool) datasource.getPool();
+        pool.setHousekeepingInterval(0);
+        pool.setMaxLifetime(1);
+        try {
+            var connection = datasource.getConnection();
+            Thread.sleep(10);
+            connection.close();
+            assertTrue(connection.isCleanedUp());
+            assertEquals(0, pool.getIdleCount());
+            assertEquals(0, pool.getActiveCount());
+
+            assertNotSame(connection, datasource.getConnection());
+        } finally {
+            datasource.cleanup();
+        }
+    }
+}
@@ -221,4 +221,56 @@ public class TestDbBeanFetcher {
 
         assertNotNull(fetcher.getBeanInstance());
     }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testFetchDifferentLayouts(Datasource datasource) {
+        var manager = new DbQueryManager(datasource);
+
+        var query_create = new CreateTable(datasource);
+        query_create.table("tmp_beanmanager")
+            .column("propertyString", String.class, 255)
+            .column("propertyInt", int.class);
+        try {
+            manager.executeUpdate(query_create);
+
+            var query_insert = new Insert(datasource);
+            query_insert.into("tmp_beanmanager")
+                .field("propertyString", "one")
+                .field("propertyInt", 1);
+            assertEquals(1, manager.executeUpdate(query_insert));
+            query_insert.clear();
+            query_insert.into("tmp_beanmanager")
+                .field("propertyString", "two")
+                .field("propertyInt", 2);
+            assertEquals(1, manager.executeUpdate(query_insert));
+
+            // the same fetcher is used for result sets with different columns
+            var fetcher = new DbBeanFetcher<>(datasource, BeanImpl.class, true);
+            manager.executeFetchAll(new Select(datasource).from("tmp_beanmanager").field("propertyString").field("propertyInt").orderBy("propertyInt"), fetcher);
+            manager.executeFetchAll(new Select(datasource).from("tmp_beanmanager").field("propertyInt").orderBy("propertyInt"), fetcher);
+
+            var beans = fetcher.getCollectedInstances();
+            assertEquals(4, beans.size());
+            assertEquals("one", beans.get(0).getPropertyString());
+            assertEquals(1, beans.get(0).getPropertyInt());
+            assertEquals("two", beans.get(1).getPropertyString());
+            assertEquals(2, beans.get(1).getPropertyInt());
+            assertNull(beans.get(2).getPropertyString());
+            assertEquals(1, beans.get(2).getPropertyInt());
+            assertNull(beans.get(3).getPropertyString());
+            assertEquals(2, beans.get(3).getPropertyInt());
+
+            // the bindings of a layout are shared by all the fetchers of a bean class
+            var other_fetcher = new DbBeanFetcher<>(datasource, BeanImpl.class, true);
+            manager.executeFetchAll(new Select(datasource).from("tmp_beanmanager").field("propertyInt").orderBy("propertyInt"), other_fetcher);
+            assertEquals(2, other_fetcher.getCollectedInstances().size());
+            assertEquals(2, other_fetcher.getCollectedInstances().get(1).getPropertyInt());
+            assertSame(fetcher.columnBindings_, other_fetcher.columnBindings_);
+        } finally {
+            var query_drop = new DropTable(datasource);
+            query_drop.table(query_create.getTable());
+            manager.executeUpdate(query_drop);
+        }
+    }
 }
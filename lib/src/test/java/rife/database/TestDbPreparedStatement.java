@@ -786,6 +786,50 @@ public class TestDbPreparedStatement {
         }
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testGetParameterIndices(Datasource datasource) {
+        setup(datasource);
+
+        try {
+            var query_select = new Select(datasource);
+            query_select
+                .from("parametersbean")
+                .whereParameter("propertyString", "=")
+                .whereParameterOr("propertyInt", "=")
+                .whereParameterOr("propertyString", "<>");
+
+            var indices = query_select.getParameters().getOrderedIndices();
+            assertSame(indices, query_select.getParameters().getOrderedIndices());
+            assertEquals(2, indices.size());
+            assertArrayEquals(new int[]{1, 3}, indices.get("propertyString"));
+            assertArrayEquals(new int[]{2}, indices.get("propertyInt"));
+
+            var statement1 = datasource.getConnection().getPreparedStatement(query_select);
+            var statement2 = datasource.getConnection().getPreparedStatement(query_select);
+            try {
+                var indices1 = statement1.getParameterIndices("propertyString");
+                assertArrayEquals(new int[]{1, 3}, indices1);
+                indices1[0] = 5;
+                assertArrayEquals(new int[]{1, 3}, statement1.getParameterIndices("propertyString"));
+                assertArrayEquals(new int[]{1, 3}, statement2.getParameterIndices("propertyString"));
+                assertArrayEquals(new int[]{2}, statement2.getParameterIndices("propertyInt"));
+            } finally {
+                statement1.close();
+                statement2.close();
+            }
+
+            // changing the query recalculates the indices
+            query_select.whereParameterOr("propertyInt", "<>");
+            assertNotSame(indices, query_select.getParameters().getOrderedIndices());
+            assertArrayEquals(new int[]{2, 4}, query_select.getParameters().getOrderedIndices().get("propertyInt"));
+        } catch (DatabaseException e) {
+            fail(ExceptionUtils.getExceptionStackTrace(e));
+        } finally {
+            tearDown(datasource);
+        }
+    }
+
     @ParameterizedTest
     @ArgumentsSource(TestDatasources.class)
     void testIllegalArgumentTypedParameters(Datasource datasource) {
@@ -7,6 +7,7 @@ package rife.database;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ArgumentsSource;
+import rife.database.exceptions.AsyncInTransactionException;
 import rife.database.exceptions.DatabaseException;
 import rife.database.queries.*;
 import rife.template.TemplateFactory;
@@ -18,8 +19,13 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static rife.database.TestDatasources.PGSQL;
@@ -442,6 +448,365 @@ public class TestDbQueryManager {
         }
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testIllegalExecuteBatch(Datasource datasource) {
+        var manager = new DbQueryManager(datasource);
+        var insert_query = new Insert(datasource).into("tbltest").fieldParameter("name");
+        BatchPreparedStatementHandler<String> handler = (statement, name) -> statement.setString("name", name);
+        assertThrows(IllegalArgumentException.class, () -> manager.executeBatch(null, List.of("me"), handler));
+        assertThrows(IllegalArgumentException.class, () -> manager.executeBatch(insert_query, null, handler));
+        assertThrows(IllegalArgumentException.class, () -> manager.executeBatch(insert_query, List.of("me"), null));
+        assertThrows(IllegalArgumentException.class, () -> manager.executeBatch(insert_query, List.of("me"), handler, 0));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testExecuteBatch(Datasource datasource) {
+        var manager = new DbQueryManager(datasource);
+        try {
+            var create_query = new CreateTable(datasource);
+            create_query.table("tbltest").column("id", int.class).column("name", String.class, 50);
+            manager.executeUpdate(create_query);
+
+            var names = new ArrayList<String>();
+            for (var i = 0; i < 25; i++) {
+                names.add("name" + i);
+            }
+
+            var insert_query = new Insert(datasource);
+            insert_query.into("tbltest")
+                .fieldParameter("id")
+                .fieldParameter("name");
+            var counts = manager.executeBatch(insert_query, names, (statement, name) -> statement
+                .setInt("id", names.indexOf(name))
+                .setString("name", name), 10);
+            assertEquals(25, counts.length);
+            for (var count : counts) {
+                assertTrue(1 == count || Statement.SUCCESS_NO_INFO == count);
+            }
+
+            var select_count = new Select(datasource).from("tbltest").field("count(*)");
+            assertEquals(25, manager.executeGetFirstInt(select_count));
+            assertEquals("name24", manager.executeGetFirstString(new Select(datasource).from("tbltest").field("name").where("id", "=", 24)));
+
+            // iterables without a known size
+            var update_query = new Update(datasource);
+            update_query.table("tbltest")
+                .fieldParameter("name")
+                .whereParameter("id", "=");
+            counts = manager.executeBatch(update_query, () -> names.subList(0, 3).iterator(), (statement, name) -> statement
+                .setString("name", name.toUpperCase())
+                .setInt("id", names.indexOf(name)));
+            assertEquals(3, counts.length);
+            assertEquals("NAME2", manager.executeGetFirstString(new Select(datasource).from("tbltest").field("name").where("id", "=", 2)));
+
+            // nothing to do
+            assertEquals(0, manager.executeBatch(update_query, List.<String>of(), (statement, name) -> fail()).length);
+        } catch (DatabaseException e) {
+            fail(ExceptionUtils.getExceptionStackTrace(e));
+        } finally {
+            tearDown(datasource);
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testExecuteBatchRollback(Datasource datasource) {
+        var manager = new DbQueryManager(datasource);
+        try {
+            var create_query = new CreateTable(datasource);
+            create_query.table("tbltest").column("name", String.class, 50);
+            manager.executeUpdate(create_query);
+
+            var insert_query = new Insert(datasource);
+            insert_query.into("tbltest")
+                .fieldParameter("name");
+            try {
+                manager.executeBatch(insert_query, List.of("one", "two", "three"), (statement, name) -> {
+                    if (name.equals("three")) {
+                        throw new IllegalStateException(name);
+                    }
+                    statement.setString("name", name);
+                }, 1);
+                fail();
+            } catch (IllegalStateException e) {
+                assertEquals("three", e.getMessage());
+            }
+
+            if (manager.getConnection().supportsTransactions()) {
+                assertEquals(0, manager.executeGetFirstInt(new Select(datasource).from("tbltest").field("count(*)")));
+            }
+        } catch (DatabaseException e) {
+            fail(ExceptionUtils.getExceptionStackTrace(e));
+        } finally {
+            tearDown(datasource);
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testExecuteFetchStream(Datasource datasource) {
+        var manager = new DbQueryManager(datasource);
+        try {
+            var create_query = new CreateTable(datasource);
+            create_query.table("tbltest").columns(BeanImplConstrained.class);
+            manager.executeUpdate(create_query);
+
+            var insert_query = new Insert(datasource);
+            for (var name : List.of("one", "two", "three", "four", "five")) {
+                var bean = BeanImplConstrained.getPopulatedBean();
+                bean.setPropertyString(name);
+                insert_query.clear();
+                insert_query.into("tbltest").fields(bean);
+                assertEquals(1, manager.executeUpdate(insert_query));
+            }
+
+            var select_query = new Select(datasource);
+            select_query.from("tbltest");
+
+            try (var beans = manager.executeFetchStream(select_query, BeanImplConstrained.class)) {
+                var strings = beans.map(BeanImplConstrained::getPropertyString).sorted().toList();
+                assertEquals(List.of("five", "four", "one", "three", "two"), strings);
+            }
+
+            select_query.whereParameter("propertyString", "=");
+            try (var beans = manager.executeFetchStream(select_query, BeanImplConstrained.class, s -> s.setString("propertyString", "three"))) {
+                var found = beans.toList();
+                assertEquals(1, found.size());
+                assertEquals("three", found.get(0).getPropertyString());
+            }
+
+            // the stream can be partially consumed and stops when the bean fetcher asks so
+            select_query.clear();
+            select_query.from("tbltest");
+            var fetcher = new DbBeanFetcher<>(datasource, BeanImplConstrained.class) {
+                int count = 0;
+
+                public boolean gotBeanInstance(BeanImplConstrained instance) {
+                    return ++count < 2;
+                }
+            };
+            try (var beans = manager.executeFetchStream(select_query, fetcher, null)) {
+                assertEquals(2, beans.count());
+            }
+            try (var beans = manager.executeFetchStream(select_query, BeanImplConstrained.class)) {
+                assertTrue(beans.findFirst().isPresent());
+            }
+
+            // the stream uses the connection of the transaction
+            manager.inTransaction(() -> {
+                var connection = manager.getConnection();
+                try (var beans = manager.executeFetchStream(select_query, BeanImplConstrained.class)) {
+                    assertEquals(5, beans.count());
+                }
+                assertFalse(connection.isClosed());
+                assertEquals(5, manager.executeGetFirstInt(new Select(datasource).from("tbltest").field("count(*)")));
+            });
+        } catch (DatabaseException e) {
+            fail(ExceptionUtils.getExceptionStackTrace(e));
+        } finally {
+            tearDown(datasource);
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testResultCache(Datasource datasource)
+    throws Exception {
+        var manager = new DbQueryManager(datasource);
+        var cache = new QueryResultCache(10);
+        try {
+            var create_query = new CreateTable(datasource);
+            create_query.table("tbltest").columns(BeanImplConstrained.class);
+            manager.executeUpdate(create_query);
+
+            var insert_query = new Insert(datasource);
+            for (var name : List.of("one", "two")) {
+                var bean = BeanImplConstrained.getPopulatedBean();
+                bean.setPropertyString(name);
+                insert_query.clear();
+                insert_query.into("tbltest").fields(bean);
+                manager.executeUpdate(insert_query);
+            }
+
+            datasource.setQueryResultCache(cache);
+            var cached = manager.withResultCache(0, "tbltest");
+
+            var count_query = new Select(datasource).from("tbltest").field("count(*)");
+            assertEquals(2, cached.executeGetFirstInt(count_query));
+            assertEquals(2, cached.executeGetFirstInt(count_query));
+            assertEquals(1, cache.getMisses());
+            assertEquals(1, cache.getHits());
+
+            // changes that don't go through a query manager aren't seen
+            var bean = BeanImplConstrained.getPopulatedBean();
+            bean.setPropertyString("three");
+            insert_query.clear();
+            insert_query.into("tbltest").fields(bean);
+            var connection = datasource.getConnection();
+            try {
+                var statement = connection.createStatement();
+                statement.executeUpdate(insert_query);
+                statement.close();
+            } finally {
+                connection.close();
+            }
+            assertEquals(2, cached.executeGetFirstInt(count_query));
+            assertEquals(3, manager.executeGetFirstInt(count_query));
+
+            // changes through a query manager invalidate the table
+            bean.setPropertyString("four");
+            insert_query.clear();
+            insert_query.into("tbltest").fields(bean);
+            manager.executeUpdate(insert_query);
+            assertEquals(4, cached.executeGetFirstInt(count_query));
+
+            // the parameter values identify the results
+            var string_query = new Select(datasource)
+                .from("tbltest")
+                .field("propertyString")
+                .whereParameter("propertyString", "=");
+            assertEquals("one", cached.executeGetFirstString(string_query, s -> s.setString("propertyString", "one")));
+            assertEquals("two", cached.executeGetFirstString(string_query, s -> s.setString("propertyString", "two")));
+            var hits = cache.getHits();
+            assertEquals("one", cached.executeGetFirstString(string_query, s -> s.setString("propertyString", "one")));
+            assertEquals(hits + 1, cache.getHits());
+
+            // the seek values identify the results too
+            var seek_query = new Select(datasource)
+                .from("tbltest")
+                .field("propertyString")
+                .orderBy("propertyString")
+                .seekAfter("four");
+            assertEquals("one", cached.executeGetFirstString(seek_query));
+            seek_query.seekAfter("one");
+            assertEquals("three", cached.executeGetFirstString(seek_query));
+
+            // cached beans are copies
+            var beans_query = new Select(datasource).from("tbltest").orderBy("propertyString");
+            var beans1 = cached.executeFetchAllBeans(beans_query, BeanImplConstrained.class);
+            assertEquals(4, beans1.size());
+            beans1.get(0).setPropertyString("modified");
+            var beans2 = cached.executeFetchAllBeans(beans_query, BeanImplConstrained.class);
+            assertNotSame(beans1, beans2);
+            assertEquals("four", beans2.get(0).getPropertyString());
+
+            // results aren't cached inside transactions
+            hits = cache.getHits();
+            cached.inTransaction(() -> assertEquals(4, cached.executeGetFirstInt(count_query)));
+            assertEquals(hits, cache.getHits());
+
+            // the parameters of beans are recorded too
+            var bean_query = new Select(datasource).from("tbltest").whereParameter("propertyString", "=");
+            var two = new BeanImplConstrained();
+            two.setPropertyString("two");
+            hits = cache.getHits();
+            assertEquals("two", cached.executeFetchFirstBean(bean_query, BeanImplConstrained.class, s -> s.setBean(two)).getPropertyString());
+            assertEquals("two", cached.executeFetchFirstBean(bean_query, BeanImplConstrained.class, s -> s.setBean(two)).getPropertyString());
+            assertEquals(hits + 1, cache.getHits());
+
+            // a result that was read before its table changed isn't stored
+            var key = new QueryResultCache.Key("SELECT 1", Collections.emptyMap(), int.class);
+            var version = cache.getVersion();
+            cache.invalidateTable("tbltest");
+            assertFalse(cache.put(key, 1, Collections.singleton("tbltest"), 0, version));
+            assertTrue(cache.put(key, 1, Collections.singleton("tblunrelated"), 0, version));
+
+            // a result that is read concurrently with a transaction isn't kept
+            // after the transaction committed its changes
+            var count = new int[1];
+            var reader = new Thread(() -> count[0] = cached.executeGetFirstInt(count_query));
+            bean.setPropertyString("five");
+            insert_query.clear();
+            insert_query.into("tbltest").fields(bean);
+            manager.inTransaction(() -> {
+                manager.executeUpdate(insert_query);
+
+                // databases that lock the table only read it after the commit
+                reader.start();
+                try {
+                    reader.join(1000);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            reader.join();
+            assertEquals(5, cached.executeGetFirstInt(count_query));
+
+            // results without tables are invalidated by changes to any table
+            manager.executeUpdate(new CreateTable(datasource).table("tblother").column("id", int.class));
+            cache.clear();
+            cached.executeGetFirstInt(count_query);
+            manager.withResultCache(0).executeGetFirstString(string_query, s -> s.setString("propertyString", "one"));
+            assertEquals(2, cache.size());
+            manager.executeUpdate(new Insert(datasource).into("tblother").field("id", 1));
+            assertEquals(1, cache.size());
+            manager.executeUpdate(new DropTable(datasource).table("tblother"));
+            assertEquals(0, cache.size());
+        } catch (DatabaseException e) {
+            fail(ExceptionUtils.getExceptionStackTrace(e));
+        } finally {
+            datasource.setQueryResultCache(null);
+            tearDown(datasource);
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testAsync(Datasource datasource) {
+        var manager = new DbQueryManager(datasource);
+        var async = manager.async();
+        try {
+            var create_query = new CreateTable(datasource);
+            create_query.table("tbltest").columns(BeanImplConstrained.class);
+            async.executeUpdate(create_query).join();
+
+            var insert_query = new Insert(datasource).into("tbltest").fieldsParameters(BeanImplConstrained.class);
+            var inserts = new ArrayList<CompletableFuture<Integer>>();
+            for (var name : List.of("one", "two", "three")) {
+                var bean = BeanImplConstrained.getPopulatedBean();
+                bean.setPropertyString(name);
+                inserts.add(async.executeUpdate(insert_query, s -> s.setBean(bean)));
+            }
+            CompletableFuture.allOf(inserts.toArray(new CompletableFuture<?>[0])).join();
+            for (var insert : inserts) {
+                assertEquals(1, (int) insert.join());
+            }
+
+            var count = async.executeGetFirstInt(new Select(datasource).from("tbltest").field("count(*)"));
+            var first = async.executeFetchFirstBean(new Select(datasource).from("tbltest").whereParameter("propertyString", "="), BeanImplConstrained.class, s -> s.setString("propertyString", "two"));
+            var all = async.executeFetchAllBeans(new Select(datasource).from("tbltest").orderBy("propertyString"), BeanImplConstrained.class);
+            assertEquals(3, (int) count.join());
+            assertEquals("two", first.join().getPropertyString());
+            assertEquals(List.of("one", "three", "two"), all.join().stream().map(BeanImplConstrained::getPropertyString).toList());
+
+            // failures complete the future exceptionally
+            var failed = async.executeGetFirstString(new Select(datasource).from("tblunknown"));
+            var exception = assertThrows(CompletionException.class, failed::join);
+            assertTrue(exception.getCause() instanceof DatabaseException);
+            var execution_exception = assertThrows(ExecutionException.class, failed::get);
+            assertTrue(execution_exception.getCause() instanceof DatabaseException);
+
+            // the original exception is provided to the failure handlers
+            var handled = async.executeGetFirstString(new Select(datasource).from("tblunknown"))
+                .exceptionally(e -> e instanceof DatabaseException ? "original" : "wrapped");
+            assertEquals("original", handled.join());
+            var update_failure = async.execute(query_manager -> query_manager.executeUpdate("DROP TABLE tblunknown"))
+                .handle((result, e) -> e);
+            assertTrue(update_failure.join() instanceof DatabaseException);
+
+            // asynchronous queries can't be part of a transaction
+            manager.inTransaction(() -> {
+                assertThrows(AsyncInTransactionException.class, () -> async.executeGetFirstInt(new Select(datasource).from("tbltest").field("count(*)")));
+            });
+        } catch (DatabaseException e) {
+            fail(ExceptionUtils.getExceptionStackTrace(e));
+        } finally {
+            tearDown(datasource);
+        }
+    }
+
     @ParameterizedTest
     @ArgumentsSource(TestDatasources.class)
     void testExecuteUpdateSimpleHandler(Datasource datasource) {
@@ -3314,6 +3679,50 @@ public class TestDbQueryManager {
         }
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testConcurrentTransactions(Datasource datasource)
+    throws InterruptedException {
+        var manager = new DbQueryManager(datasource);
+
+        var create_query = new CreateTable(datasource);
+        create_query.table("tbltest").column("id", int.class);
+        manager.executeUpdate(create_query);
+
+        try {
+            var insert = new Insert(datasource).into("tbltest").field("id", 1);
+            var select = new Select(datasource).from("tbltest").field("count(*)");
+            var threads = new ArrayList<Thread>();
+            var errors = Collections.synchronizedList(new ArrayList<Throwable>());
+            for (var i = 0; i < datasource.getPoolSize() * 4; i++) {
+                var thread = new Thread(() -> {
+                    try {
+                        for (var j = 0; j < 5; j++) {
+                            manager.inTransaction(() -> {
+                                var connection = manager.getConnection();
+                                assertTrue(connection.isTransactionValidForThread());
+                                manager.executeUpdate(insert);
+                                manager.inTransaction(() -> assertSame(connection, manager.getConnection()));
+                            });
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (var thread : threads) {
+                thread.join();
+            }
+
+            assertTrue(errors.isEmpty(), errors.toString());
+            assertEquals(datasource.getPoolSize() * 4 * 5, manager.executeGetFirstInt(select));
+        } finally {
+            tearDown(datasource);
+        }
+    }
+
     static class DbRowProcessorSuccess extends DbRowProcessor {
         private int mCounter = 0;
 
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestDbStatementCache {
+    private Datasource createDatasource(String name, int cacheSize) {
+        var datasource = new Datasource("org.h2.Driver", "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "", 1);
+        datasource.setStatementCacheSize(cacheSize);
+        return datasource;
+    }
+
+    @Test
+    void testDisabledByDefault() {
+        var datasource = new Datasource("org.h2.Driver", "jdbc:h2:mem:stmtcachedisabled;DB_CLOSE_DELAY=-1", "sa", "", 1);
+        try {
+            assertEquals(0, datasource.getStatementCacheSize());
+            var connection = datasource.getConnection();
+            connection.getPreparedStatement("SELECT 1").close();
+            connection.getPreparedStatement("SELECT 1").close();
+            assertEquals(0, connection.getStatementCacheHits());
+            assertEquals(0, connection.getStatementCacheMisses());
+            assertEquals(0, datasource.getStatementCacheHits());
+        } finally {
+            datasource.cleanup();
+        }
+    }
+
+    @Test
+    void testReuse() {
+        var datasource = createDatasource("stmtcachereuse", 10);
+        try {
+            var connection = datasource.getConnection();
+            var statement1 = connection.getPreparedStatement("SELECT ?");
+            var jdbc_statement = statement1.statement_;
+            statement1.setInt(1, 1);
+            statement1.executeQuery();
+            assertTrue(statement1.getResultSet().hasResultRows());
+            statement1.close();
+            assertEquals(0, connection.getStatementCacheHits());
+            assertEquals(1, connection.getStatementCacheMisses());
+
+            var statement2 = connection.getPreparedStatement("SELECT ?");
+            assertNotSame(statement1, statement2);
+            assertSame(jdbc_statement, statement2.statement_);
+            statement2.setInt(1, 2);
+            statement2.executeQuery();
+            assertEquals(2, statement2.getResultSet().getFirstInt());
+            statement2.close();
+            assertEquals(1, connection.getStatementCacheHits());
+            assertEquals(1, connection.getStatementCacheMisses());
+            assertEquals(1, datasource.getStatementCacheHits());
+            assertEquals(1, datasource.getStatementCacheMisses());
+        } finally {
+            datasource.cleanup();
+        }
+    }
+
+    @Test
+    void testSimultaneousUse() {
+        var datasource = createDatasource("stmtcachesimultaneous", 10);
+        try {
+            var connection = datasource.getConnection();
+            var statement1 = connection.getPreparedStatement("SELECT 1");
+            var statement2 = connection.getPreparedStatement("SELECT 1");
+            assertNotSame(statement1.statement_, statement2.statement_);
+            statement1.close();
+            statement2.close();
+            assertEquals(2, connection.getStatementCacheMisses());
+
+            connection.getPreparedStatement("SELECT 1").close();
+            assertEquals(1, connection.getStatementCacheHits());
+        } finally {
+            datasource.cleanup();
+        }
+    }
+
+    @Test
+    void testEviction() {
+        var datasource = createDatasource("stmtcacheeviction", 2);
+        try {
+            var connection = datasource.getConnection();
+            connection.getPreparedStatement("SELECT 1").close();
+            connection.getPreparedStatement("SELECT 2").close();
+            connection.getPreparedStatement("SELECT 3").close();
+            assertEquals(3, connection.getStatementCacheMisses());
+
+            connection.getPreparedStatement("SELECT 3").close();
+            connection.getPreparedStatement("SELECT 2").close();
+            assertEquals(2, connection.getStatementCacheHits());
+            connection.getPreparedStatement("SELECT 1").close();
+            assertEquals(4, connection.getStatementCacheMisses());
+        } finally {
+            datasource.cleanup();
+        }
+    }
+
+    @Test
+    void testModifiedNotCached() {
+        var datasource = createDatasource("stmtcachemodified", 10);
+        try {
+            var connection = datasource.getConnection();
+            var statement = connection.getPreparedStatement("SELECT 1");
+            statement.setMaxRows(1);
+            statement.close();
+
+            connection.getPreparedStatement("SELECT 1").close();
+            assertEquals(0, connection.getStatementCacheHits());
+            assertEquals(2, connection.getStatementCacheMisses());
+        } finally {
+            datasource.cleanup();
+        }
+    }
+}
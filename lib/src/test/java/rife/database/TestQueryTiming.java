@@ -0,0 +1,158 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database;
+
+import org.junit.jupiter.api.Test;
+import rife.config.RifeConfig;
+import rife.database.queries.CreateTable;
+import rife.database.queries.DropTable;
+import rife.database.queries.Insert;
+import rife.database.queries.Select;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestQueryTiming {
+    private Datasource createDatasource(String name) {
+        return new Datasource("org.h2.Driver", "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "", 2);
+    }
+
+    @Test
+    void testListener() {
+        var datasource = createDatasource("querytiming");
+        var timings = new ArrayList<QueryTiming>();
+        var query_managers = new ArrayList<String>();
+        QueryTimingListener listener = timing -> {
+            timings.add(timing);
+            query_managers.add(timing.getQueryManager());
+        };
+        datasource.addQueryTimingListener(listener);
+        var manager = new DbQueryManager(datasource);
+        try {
+            manager.executeUpdate(new CreateTable(datasource).table("tbltiming").column("name", String.class, 20));
+            var insert = new Insert(datasource).into("tbltiming").fieldParameter("name");
+            for (var name : List.of("one", "two", "three")) {
+                manager.executeUpdate(insert, statement -> statement.setString("name", name));
+            }
+            assertEquals(4, timings.size());
+
+            var timing = timings.get(3);
+            assertSame(datasource, timing.getDatasource());
+            assertEquals(QueryTiming.Kind.UPDATE, timing.getKind());
+            assertEquals(insert.getSql(), timing.getSql());
+            assertEquals(1, timing.getRowCount());
+            assertEquals(Map.of(1, "three"), timing.getParameterValues());
+            assertEquals(0, timing.getConsumptionNanos());
+            assertEquals(DbQueryManager.class.getName() + ".executeUpdate", query_managers.get(3));
+
+            timings.clear();
+            query_managers.clear();
+            var select = new Select(datasource).from("tbltiming").whereParameter("name", "<>");
+            var names = new ArrayList<String>();
+            manager.executeFetchAll(select, resultSet -> names.add(resultSet.getString("name")), statement -> statement.setString("name", "two"));
+            assertEquals(List.of("one", "three"), names);
+            assertEquals(1, timings.size());
+
+            timing = timings.get(0);
+            assertEquals(QueryTiming.Kind.QUERY, timing.getKind());
+            assertEquals(select.getSql(), timing.getSql());
+            assertEquals(2, timing.getRowCount());
+            assertEquals(Map.of(1, "two"), timing.getParameterValues());
+            assertTrue(timing.getExecutionNanos() > 0);
+            assertEquals(timing.getExecutionNanos() + timing.getConsumptionNanos(), timing.getTotalNanos());
+            assertEquals(DbQueryManager.class.getName() + ".executeFetchAll", query_managers.get(0));
+
+            assertTrue(datasource.removeQueryTimingListener(listener));
+            assertFalse(datasource.removeQueryTimingListener(listener));
+            timings.clear();
+            assertEquals(3, manager.executeGetFirstInt(new Select(datasource).from("tbltiming").field("count(*)")));
+            assertTrue(timings.isEmpty());
+        } finally {
+            manager.executeUpdate(new DropTable(datasource).table("tbltiming"));
+            datasource.cleanup();
+        }
+    }
+
+    @Test
+    void testBatch() {
+        var datasource = createDatasource("querytimingbatch");
+        var timings = new ArrayList<QueryTiming>();
+        datasource.addQueryTimingListener(timings::add);
+        var manager = new DbQueryManager(datasource);
+        try {
+            manager.executeUpdate(new CreateTable(datasource).table("tbltiming").column("name", String.class, 20));
+            var insert = new Insert(datasource).into("tbltiming").fieldParameter("name");
+            manager.reserveConnection(new DbConnectionUser<>() {
+                public Object useConnection(DbConnection connection) {
+                    try (var statement = connection.getPreparedStatement(insert)) {
+                        for (var name : List.of("one", "two")) {
+                            statement.setString("name", name);
+                            statement.addBatch();
+                        }
+                        timings.clear();
+                        statement.executeBatch();
+                    }
+                    return null;
+                }
+            });
+
+            assertEquals(1, timings.size());
+            assertEquals(QueryTiming.Kind.BATCH, timings.get(0).getKind());
+            assertEquals(insert.getSql(), timings.get(0).getSql());
+            assertEquals(2, timings.get(0).getRowCount());
+        } finally {
+            manager.executeUpdate(new DropTable(datasource).table("tbltiming"));
+            datasource.cleanup();
+        }
+    }
+
+    @Test
+    void testSlowQueryFormat() {
+        var datasource = createDatasource("querytimingslow");
+        var timings = new ArrayList<QueryTiming>();
+        datasource.addQueryTimingListener(timings::add);
+        var manager = new DbQueryManager(datasource);
+        try {
+            manager.executeUpdate(new CreateTable(datasource).table("tbltiming").column("name", String.class, 20));
+            var insert = new Insert(datasource).into("tbltiming").fieldParameter("name");
+            manager.executeUpdate(insert, statement -> statement.setString("name", "secret"));
+
+            var timing = timings.get(1);
+            var redacted = DbStatement.formatSlowQuery(timing, false);
+            assertTrue(redacted.startsWith("slow query "));
+            assertTrue(redacted.contains(", 1 rows) by " + DbQueryManager.class.getName() + ".executeUpdate : "));
+            assertTrue(redacted.endsWith(insert.getSql() + " [1=<String>]"));
+            assertFalse(redacted.contains("secret"));
+
+            assertTrue(DbStatement.formatSlowQuery(timing, true).endsWith(" [1=secret]"));
+        } finally {
+            manager.executeUpdate(new DropTable(datasource).table("tbltiming"));
+            datasource.cleanup();
+        }
+    }
+
+    @Test
+    void testSlowQueryThreshold() {
+        var datasource = createDatasource("querytimingthreshold");
+        var manager = new DbQueryManager(datasource);
+        try {
+            assertEquals(0, RifeConfig.database().getSlowQueryThreshold());
+            assertFalse(datasource.isTimingQueries());
+
+            RifeConfig.database().setSlowQueryThreshold(1000);
+            assertTrue(datasource.isTimingQueries());
+            assertEquals(1, manager.executeGetFirstInt(new Select(datasource).field("1")));
+        } finally {
+            RifeConfig.database().setSlowQueryThreshold(0);
+            datasource.cleanup();
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> RifeConfig.database().setSlowQueryThreshold(-1));
+        assertThrows(IllegalArgumentException.class, () -> datasource.addQueryTimingListener(null));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database;
+
+import org.junit.jupiter.api.Test;
+import rife.database.queries.CreateTable;
+import rife.database.queries.DropTable;
+import rife.database.queries.Insert;
+import rife.database.queries.Select;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestReplicatedDatasource {
+    private static String url(String name) {
+        return "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+    }
+
+    private ReplicatedDatasource createDatasource(String name) {
+        var datasource = new ReplicatedDatasource("org.h2.Driver", url(name + "primary"), "sa", "", 2);
+        datasource.addReplica(new Datasource("org.h2.Driver", url(name + "replica1"), "sa", "", 2));
+        datasource.addReplica(new Datasource("org.h2.Driver", url(name + "replica2"), "sa", "", 2));
+
+        // each database identifies itself through the content of its table
+        setupDatabase(new Datasource("org.h2.Driver", url(name + "primary"), "sa", "", 0), "primary");
+        setupDatabase(datasource.getReplicas().get(0), "replica1");
+        setupDatabase(datasource.getReplicas().get(1), "replica2");
+        return datasource;
+    }
+
+    private void setupDatabase(Datasource datasource, String name) {
+        var manager = new DbQueryManager(datasource);
+        manager.executeUpdate(new CreateTable(datasource).table("tbltest").column("name", String.class, 20));
+        manager.executeUpdate(new Insert(datasource).into("tbltest").field("name", name));
+    }
+
+    private void tearDown(ReplicatedDatasource datasource) {
+        new DbQueryManager(new Datasource("org.h2.Driver", datasource.getUrl(), "sa", "", 0)).executeUpdate(new DropTable(datasource).table("tbltest"));
+        for (var replica : datasource.getReplicas()) {
+            new DbQueryManager(replica).executeUpdate(new DropTable(replica).table("tbltest"));
+        }
+        datasource.cleanup();
+    }
+
+    @Test
+    void testRoundRobin() {
+        var datasource = createDatasource("roundrobin");
+        try {
+            assertEquals(ReplicatedDatasource.Balancing.ROUND_ROBIN, datasource.getBalancing());
+
+            var manager = new DbQueryManager(datasource);
+            var select = new Select(datasource).from("tbltest").field("name");
+            assertEquals("replica1", manager.executeGetFirstString(select));
+            assertEquals("replica2", manager.executeGetFirstString(select));
+            assertEquals("replica1", manager.executeGetFirstString(select));
+            assertEquals(0, datasource.getActiveReads(datasource.getReplicas().get(0)));
+            assertEquals(0, datasource.getActiveReads(datasource.getReplicas().get(1)));
+        } finally {
+            tearDown(datasource);
+        }
+    }
+
+    @Test
+    void testWritesAndTransactions() {
+        var datasource = createDatasource("writes");
+        try {
+            var manager = new DbQueryManager(datasource);
+            var count = new Select(datasource).from("tbltest").field("count(*)");
+            var select = new Select(datasource).from("tbltest").field("name").orderBy("name");
+
+            manager.executeUpdate(new Insert(datasource).into("tbltest").field("name", "written"));
+            assertEquals(1, manager.executeGetFirstInt(count));
+            assertEquals(1, manager.executeGetFirstInt(count));
+
+            manager.inTransaction(() -> {
+                assertEquals(2, manager.executeGetFirstInt(count));
+                assertEquals("primary", manager.executeGetFirstString(select));
+            });
+            manager.reserveConnection(new DbConnectionUser<>() {
+                public Object useConnection(DbConnection connection) {
+                    assertEquals(2, manager.executeGetFirstInt(count));
+                    return null;
+                }
+            });
+        } finally {
+            tearDown(datasource);
+        }
+    }
+
+    @Test
+    void testReadYourWrites() {
+        var datasource = createDatasource("readyourwrites");
+        try {
+            datasource.setReadYourWritesWindow(60000);
+            assertEquals(60000, datasource.getReadYourWritesWindow());
+
+            var manager = new DbQueryManager(datasource);
+            var count = new Select(datasource).from("tbltest").field("count(*)");
+            assertEquals(1, manager.executeGetFirstInt(count));
+
+            manager.executeUpdate(new Insert(datasource).into("tbltest").field("name", "written"));
+            assertEquals(2, manager.executeGetFirstInt(count));
+            assertEquals(2, manager.executeGetFirstInt(count));
+
+            datasource.resetReadYourWrites();
+            assertEquals(1, manager.executeGetFirstInt(count));
+        } finally {
+            tearDown(datasource);
+        }
+    }
+
+    @Test
+    void testLeastActive() {
+        var datasource = createDatasource("leastactive");
+        try {
+            datasource.setBalancing(ReplicatedDatasource.Balancing.LEAST_ACTIVE);
+
+            var manager = new DbQueryManager(datasource);
+            var select = new Select(datasource).from("tbltest").field("name");
+
+            var busy_connection = datasource.getReadConnection();
+            var busy_replica = busy_connection.getDatasource();
+            assertEquals(1, datasource.getActiveReads(busy_replica));
+            try {
+                var idle_name = (busy_replica == datasource.getReplicas().get(0) ? "replica2" : "replica1");
+                assertEquals(idle_name, manager.executeGetFirstString(select));
+                assertEquals(idle_name, manager.executeGetFirstString(select));
+                assertEquals(idle_name, manager.executeGetFirstString(select));
+            } finally {
+                datasource.releaseReadConnection(busy_connection);
+            }
+            assertEquals(0, datasource.getActiveReads(busy_replica));
+        } finally {
+            tearDown(datasource);
+        }
+    }
+
+    @Test
+    void testInvalidArguments() {
+        var datasource = new ReplicatedDatasource();
+        assertThrows(IllegalArgumentException.class, () -> datasource.addReplica(null));
+        assertThrows(IllegalArgumentException.class, () -> datasource.addReplica(datasource));
+        assertThrows(IllegalArgumentException.class, () -> datasource.setBalancing(null));
+        assertThrows(IllegalArgumentException.class, () -> datasource.setReadYourWritesWindow(-1));
+        assertTrue(datasource.getReplicas().isEmpty());
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database.queries;
+
+import org.junit.jupiter.api.Test;
+import rife.config.RifeConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestGeneratedSqlCache {
+    @Test
+    void testEviction()
+    throws Exception {
+        var size = RifeConfig.database().getGeneratedSqlCacheSize();
+        RifeConfig.database().setGeneratedSqlCacheSize(10);
+        GeneratedSqlCache.clear();
+        try {
+            for (var i = 0; i < 10; i++) {
+                GeneratedSqlCache.put(Arrays.asList("query", i), new GeneratedSqlCache.Entry("SQL " + i, 0));
+            }
+            assertEquals(10, GeneratedSqlCache.size());
+
+            // use all the entries except the first one
+            Thread.sleep(2);
+            for (var i = 1; i < 10; i++) {
+                assertEquals("SQL " + i, GeneratedSqlCache.get(Arrays.asList("query", i)).sql());
+            }
+
+            // keys can contain null values
+            GeneratedSqlCache.put(Arrays.asList("query", null), new GeneratedSqlCache.Entry("SQL null", 0));
+            assertEquals("SQL null", GeneratedSqlCache.get(Arrays.asList("query", null)).sql());
+
+            // the least recently used entries are evicted
+            assertTrue(GeneratedSqlCache.size() <= 10);
+            assertNull(GeneratedSqlCache.get(Arrays.asList("query", 0)));
+
+            RifeConfig.database().setGeneratedSqlCacheSize(0);
+            GeneratedSqlCache.clear();
+            GeneratedSqlCache.put(Arrays.asList("query", 0), new GeneratedSqlCache.Entry("SQL 0", 0));
+            assertEquals(0, GeneratedSqlCache.size());
+        } finally {
+            RifeConfig.database().setGeneratedSqlCacheSize(size);
+            GeneratedSqlCache.clear();
+        }
+    }
+
+    @Test
+    void testConcurrentAccess()
+    throws Exception {
+        var size = RifeConfig.database().getGeneratedSqlCacheSize();
+        RifeConfig.database().setGeneratedSqlCacheSize(100);
+        GeneratedSqlCache.clear();
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var futures = new ArrayList<Future<?>>();
+            for (var thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (var i = 0; i < 10000; i++) {
+                        var structure = Arrays.asList("query", i % 250);
+                        var entry = GeneratedSqlCache.get(structure);
+                        if (null == entry) {
+                            GeneratedSqlCache.put(structure, new GeneratedSqlCache.Entry("SQL " + (i % 250), 0));
+                        } else {
+                            assertEquals("SQL " + (i % 250), entry.sql());
+                        }
+                    }
+                }));
+            }
+            for (var future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+
+            // the next entry evicts the excess ones
+            GeneratedSqlCache.put(Arrays.asList("query", "next"), new GeneratedSqlCache.Entry("SQL next", 0));
+            assertTrue(GeneratedSqlCache.size() <= 100);
+        } finally {
+            executor.shutdownNow();
+            RifeConfig.database().setGeneratedSqlCacheSize(size);
+            GeneratedSqlCache.clear();
+        }
+    }
+}
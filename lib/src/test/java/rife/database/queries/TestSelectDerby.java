@@ -11,6 +11,7 @@ import rife.tools.Convert;
 
 import java.math.BigDecimal;
 import java.util.Calendar;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -1045,5 +1046,21 @@ public class TestSelectDerby extends TestSelect {
             }
         });
     }
-}
 
+    @DatasourceEnabledIf(TestDatasourceIdentifier.DERBY)
+    void testSeekAfterDerby() {
+        var query = new Select(DERBY);
+        query.from("tablename")
+            .where("propertyString", "=", "someotherstring")
+            .orderBy("propertyString")
+            .orderBy("propertyInt")
+            .seekAfter("someotherstring", 3);
+        assertEquals(query.getSql(), "SELECT * FROM tablename WHERE (propertyString = 'someotherstring') AND ((propertyString > ?) OR (propertyString = ? AND propertyInt > ?)) ORDER BY propertyString ASC, propertyInt ASC");
+        assertEquals(List.of("seek:0", "seek:0", "seek:1"), query.getParameters().getOrderedNames());
+        assertTrue(execute(query));
+
+        query.seekBefore("someotherstring", 5);
+        assertEquals(query.getSql(), "SELECT * FROM tablename WHERE (propertyString = 'someotherstring') AND ((propertyString < ?) OR (propertyString = ? AND propertyInt < ?)) ORDER BY propertyString DESC, propertyInt DESC");
+        assertTrue(execute(query));
+    }
+}
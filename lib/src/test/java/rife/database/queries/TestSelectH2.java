@@ -5,12 +5,14 @@
 package rife.database.queries;
 
 import rife.database.*;
+import rife.database.exceptions.SeekValuesMismatchException;
 import rife.database.exceptions.TableNameOrFieldsRequiredException;
 import rife.database.exceptions.UnsupportedSqlFeatureException;
 import rife.tools.Convert;
 
 import java.math.BigDecimal;
 import java.util.Calendar;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -1042,6 +1044,89 @@ public class TestSelectH2 extends TestSelect {
             }
         });
     }
-}
 
+    @DatasourceEnabledIf(TestDatasourceIdentifier.H2)
+    void testSeekAfterH2() {
+        var query = new Select(H2);
+        query.from("tablename")
+            .orderBy("propertyInt")
+            .seekAfter(4)
+            .limit(2);
+        assertEquals(query.getSql(), "SELECT * FROM tablename WHERE propertyInt > ? ORDER BY propertyInt ASC LIMIT 2");
+        assertEquals(List.of("seek:0"), query.getParameters().getOrderedNames());
+        assertTrue(execute(query));
+
+        // other seek values reuse the same SQL
+        query.seekAfter(5);
+        assertEquals(query.getSql(), "SELECT * FROM tablename WHERE propertyInt > ? ORDER BY propertyInt ASC LIMIT 2");
+        assertEquals(List.of(5), List.copyOf(query.getSeekParameterValues().values()));
+
+        query = new Select(H2);
+        query.from("tablename")
+            .where("propertyString", "=", "someotherstring")
+            .orderBy("propertyString")
+            .orderBy("propertyInt")
+            .seekAfter("someotherstring", 3);
+        assertEquals(query.getSql(), "SELECT * FROM tablename WHERE (propertyString = 'someotherstring') AND (propertyString, propertyInt) > (?, ?) ORDER BY propertyString ASC, propertyInt ASC");
+        assertEquals(List.of("seek:0", "seek:1"), query.getParameters().getOrderedNames());
+        assertTrue(execute(query));
+
+        // the seek parameters follow the other where parameters
+        query = new Select(H2);
+        query.from("tablename")
+            .whereParameter("propertyString", "=")
+            .orderBy("propertyString")
+            .orderBy("propertyInt")
+            .seekAfter("someotherstring", 3)
+            .limitParameter("limit");
+        assertEquals(query.getSql(), "SELECT * FROM tablename WHERE (propertyString = ?) AND (propertyString, propertyInt) > (?, ?) ORDER BY propertyString ASC, propertyInt ASC LIMIT ?");
+        assertEquals(List.of("propertyString", "seek:0", "seek:1", "limit"), query.getParameters().getOrderedNames());
+        assertTrue(execute(query, new DbPreparedStatementHandler<>() {
+            public void setParameters(DbPreparedStatement statement) {
+                statement
+                    .setString("propertyString", "someotherstring")
+                    .setInt("limit", 2);
+            }
+        }));
+
+        query = new Select(H2);
+        query.from("tablename")
+            .orderBy("propertyString")
+            .orderBy("propertyInt", Select.DESC)
+            .seekAfter("someotherstring", 5);
+        assertEquals(query.getSql(), "SELECT * FROM tablename WHERE ((propertyString > ?) OR (propertyString = ? AND propertyInt < ?)) ORDER BY propertyString ASC, propertyInt DESC");
+        assertEquals(List.of("seek:0", "seek:0", "seek:1"), query.getParameters().getOrderedNames());
+        assertTrue(execute(query));
+    }
+
+    @DatasourceEnabledIf(TestDatasourceIdentifier.H2)
+    void testSeekBeforeH2() {
+        var query = new Select(H2);
+        query.from("tablename")
+            .orderBy("propertyInt")
+            .seekBefore(5)
+            .limit(2);
+        assertEquals(query.getSql(), "SELECT * FROM tablename WHERE propertyInt < ? ORDER BY propertyInt DESC LIMIT 2");
+        assertTrue(execute(query));
+        assertEquals(query.getSeekValues(), List.of(5));
+        assertTrue(query.isSeekBefore());
+
+        // the effective order is inverted, the requested one is preserved
+        assertEquals(Select.ASC, query.getOrderBy().iterator().next().getDirection());
+        assertEquals("propertyInt", query.getEffectiveOrderBy().get(0).getColumn());
+        assertEquals(Select.DESC, query.getEffectiveOrderBy().get(0).getDirection());
+
+        query.seekAfter(5);
+        assertEquals(query.getSql(), "SELECT * FROM tablename WHERE propertyInt > ? ORDER BY propertyInt ASC LIMIT 2");
+        assertFalse(query.isSeekBefore());
+        assertEquals(Select.ASC, query.getEffectiveOrderBy().get(0).getDirection());
 
+        query.clear();
+        query.from("tablename")
+            .orderBy("propertyInt")
+            .seekAfter(1, 2);
+        assertThrows(SeekValuesMismatchException.class, query::getSql);
+        assertThrows(IllegalArgumentException.class, () -> query.seekAfter("value", null));
+        assertThrows(IllegalArgumentException.class, () -> query.seekAfter());
+    }
+}
@@ -1057,5 +1057,62 @@ public class TestSelectHsqldb extends TestSelect {
             }
         });
     }
-}
 
+    @DatasourceEnabledIf(TestDatasourceIdentifier.HSQLDB)
+    void testGeneratedSqlCacheHsqldb() {
+        var query1 = new Select(HSQLDB);
+        query1.from("tablename")
+            .whereParameter("propertyInt", "=")
+            .limit(3);
+        var query2 = new Select(HSQLDB);
+        query2.from("tablename")
+            .whereParameter("propertyInt", "=")
+            .limit(3);
+        assertEquals(query1.getSql(), "SELECT LIMIT 0 3 * FROM tablename WHERE propertyInt = ?");
+        assertEquals(query1.getSql(), query2.getSql());
+
+        query2.offset(1);
+        assertEquals(query2.getSql(), "SELECT LIMIT 1 3 * FROM tablename WHERE propertyInt = ?");
+        assertEquals(query1.getSql(), "SELECT LIMIT 0 3 * FROM tablename WHERE propertyInt = ?");
+        assertTrue(execute(query2, new DbPreparedStatementHandler<>() {
+            public void setParameters(DbPreparedStatement statement) {
+                statement.setInt("propertyInt", 3);
+            }
+        }));
+    }
+
+    @DatasourceEnabledIf(TestDatasourceIdentifier.HSQLDB)
+    void testFreezeHsqldb() {
+        var query = new Select(HSQLDB);
+        query.from("tablename")
+            .whereParameter("propertyInt", "=")
+            .limit(3);
+        var frozen = query.freeze();
+        assertEquals(frozen.getSql(), "SELECT LIMIT 0 3 * FROM tablename WHERE propertyInt = ?");
+        assertEquals(frozen.toString(), frozen.getSql());
+        assertArrayEquals(frozen.getParameters().getOrderedNamesArray(), new String[]{"propertyInt"});
+
+        query.whereAnd("propertyLong", "=", 1L);
+        assertEquals(frozen.getSql(), "SELECT LIMIT 0 3 * FROM tablename WHERE propertyInt = ?");
+        query.clear();
+        assertEquals(frozen.getSql(), "SELECT LIMIT 0 3 * FROM tablename WHERE propertyInt = ?");
+
+        try {
+            frozen.clear();
+            fail();
+        } catch (UnsupportedOperationException e) {
+            assertTrue(true);
+        }
+
+        var manager = setupQuery(HSQLDB);
+        try {
+            assertTrue(manager.executeHasResultRows(frozen, new DbPreparedStatementHandler<>() {
+                public void setParameters(DbPreparedStatement statement) {
+                    statement.setInt("propertyInt", 3);
+                }
+            }));
+        } finally {
+            cleanupQuery(manager);
+        }
+    }
+}
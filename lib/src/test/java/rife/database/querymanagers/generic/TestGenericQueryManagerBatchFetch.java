@@ -0,0 +1,160 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database.querymanagers.generic;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+import rife.database.*;
+import rife.database.querymanagers.generic.beans.MMBatchFirstBean;
+import rife.database.querymanagers.generic.beans.MMBatchSecondBean;
+import rifetestmodels.MOBatchFirstBean;
+import rifetestmodels.MOBatchSecondBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestGenericQueryManagerBatchFetch {
+    private static long countQueries(List<QueryTiming> timings, String table) {
+        return timings.stream()
+            .filter(timing -> timing.getKind() == QueryTiming.Kind.QUERY)
+            .filter(timing -> table == null || timing.getSql().contains(table))
+            .count();
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testRestoreManyToOne(Datasource datasource) {
+        var first_manager = GenericQueryManagerFactory.instance(datasource, MOBatchFirstBean.class);
+        var second_manager = GenericQueryManagerFactory.instance(datasource, MOBatchSecondBean.class);
+        second_manager.install();
+        first_manager.install();
+        var timings = new ArrayList<QueryTiming>();
+        QueryTimingListener listener = timings::add;
+        try {
+            var bean_2a = new MOBatchSecondBean();
+            bean_2a.setSecondString("MOBatchSecondBeanA");
+            var bean_2b = new MOBatchSecondBean();
+            bean_2b.setSecondString("MOBatchSecondBeanB");
+
+            for (var i = 0; i < 5; i++) {
+                var bean = new MOBatchFirstBean();
+                bean.setFirstString("first" + i);
+                if (i % 2 == 0) {
+                    bean.setSecondBean(bean_2b);
+                } else if (i == 3) {
+                    bean.setSecondBean(bean_2a);
+                }
+                first_manager.save(bean);
+            }
+
+            datasource.addQueryTimingListener(listener);
+
+            // the secondBean property is batch fetched for all the restored beans
+            var restored = first_manager.restore(first_manager.getRestoreQuery().orderBy("identifier"));
+            assertEquals(5, restored.size());
+            for (var i = 0; i < 5; i++) {
+                var bean = restored.get(i);
+                assertEquals("first" + i, bean.getFirstString());
+                if (i % 2 == 0) {
+                    assertEquals(bean_2b.getIdentifier(), bean.getSecondBean().getIdentifier());
+                    assertEquals("MOBatchSecondBeanB", bean.getSecondBean().getSecondString());
+                } else if (i == 3) {
+                    assertEquals(bean_2a.getIdentifier(), bean.getSecondBean().getIdentifier());
+                    assertEquals("MOBatchSecondBeanA", bean.getSecondBean().getSecondString());
+                } else {
+                    assertNull(bean.getSecondBean());
+                }
+            }
+
+            // the join column values are obtained from the restored rows
+            assertEquals(1, countQueries(timings, first_manager.getTable()));
+            assertEquals(1, countQueries(timings, second_manager.getTable()));
+
+            // the join column values are queried when the restore query doesn't provide them
+            timings.clear();
+            restored = first_manager.restore(first_manager.getRestoreQuery().fields("identifier", "firstString").orderBy("identifier"));
+            assertEquals(bean_2b.getIdentifier(), restored.get(0).getSecondBean().getIdentifier());
+            assertNull(restored.get(1).getSecondBean());
+            assertEquals(bean_2a.getIdentifier(), restored.get(3).getSecondBean().getIdentifier());
+            assertEquals(2, countQueries(timings, first_manager.getTable()));
+            assertEquals(1, countQueries(timings, second_manager.getTable()));
+
+            // restoring a single bean is unaffected
+            var single = first_manager.restore(restored.get(2).getIdentifier());
+            assertEquals(bean_2b.getIdentifier(), single.getSecondBean().getIdentifier());
+        } finally {
+            datasource.removeQueryTimingListener(listener);
+            first_manager.remove();
+            second_manager.remove();
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testRestoreManyToMany(Datasource datasource) {
+        var first_manager = GenericQueryManagerFactory.instance(datasource, MMBatchFirstBean.class);
+        var second_manager = GenericQueryManagerFactory.instance(datasource, MMBatchSecondBean.class);
+        second_manager.install();
+        first_manager.install();
+        var timings = new ArrayList<QueryTiming>();
+        QueryTimingListener listener = timings::add;
+        try {
+            var bean2a = new MMBatchSecondBean();
+            bean2a.setSecondString("MMBatchSecondBeanA");
+            var bean2b = new MMBatchSecondBean();
+            bean2b.setSecondString("MMBatchSecondBeanB");
+            var bean2c = new MMBatchSecondBean();
+            bean2c.setSecondString("MMBatchSecondBeanC");
+
+            var bean1a = new MMBatchFirstBean();
+            bean1a.setFirstString("MMBatchFirstBeanA");
+            bean1a.setSecondBeans(new ArrayList<>(List.of(bean2a, bean2b)));
+            first_manager.save(bean1a);
+
+            var bean1b = new MMBatchFirstBean();
+            bean1b.setFirstString("MMBatchFirstBeanB");
+            bean1b.setSecondBeans(new ArrayList<>(List.of(bean2b)));
+            first_manager.save(bean1b);
+
+            second_manager.save(bean2c);
+
+            datasource.addQueryTimingListener(listener);
+
+            // the firstBeans association is batch fetched for all the restored beans,
+            // the related beans don't batch fetch their own associations in turn
+            var restored = second_manager.restore(second_manager.getRestoreQuery().orderBy("identifier"));
+            assertEquals(3, restored.size());
+
+            var first_strings_a = restored.get(0).getFirstBeans().stream().map(MMBatchFirstBean::getFirstString).sorted().toList();
+            assertEquals(List.of("MMBatchFirstBeanA"), first_strings_a);
+            var first_strings_b = restored.get(1).getFirstBeans().stream().map(MMBatchFirstBean::getFirstString).sorted().toList();
+            assertEquals(List.of("MMBatchFirstBeanA", "MMBatchFirstBeanB"), first_strings_b);
+            assertTrue(restored.get(2).getFirstBeans().isEmpty());
+            assertEquals(3, countQueries(timings, null));
+
+            // the secondBeans property is batch fetched in the other direction
+            timings.clear();
+            var restored_first = first_manager.restore(first_manager.getRestoreQuery().orderBy("identifier"));
+            assertEquals(2, restored_first.size());
+            var second_strings_a = restored_first.get(0).getSecondBeans().stream().map(MMBatchSecondBean::getSecondString).sorted().toList();
+            assertEquals(List.of("MMBatchSecondBeanA", "MMBatchSecondBeanB"), second_strings_a);
+            var second_strings_b = restored_first.get(1).getSecondBeans().stream().map(MMBatchSecondBean::getSecondString).sorted().toList();
+            assertEquals(List.of("MMBatchSecondBeanB"), second_strings_b);
+            assertEquals(3, countQueries(timings, null));
+
+            // the batch fetched collections can still be modified and saved
+            var restored_b = restored.get(1);
+            restored_b.getFirstBeans().removeIf(first_bean -> first_bean.getFirstString().equals("MMBatchFirstBeanA"));
+            second_manager.save(restored_b);
+            assertEquals(1, second_manager.restore(restored_b.getIdentifier()).getFirstBeans().size());
+        } finally {
+            datasource.removeQueryTimingListener(listener);
+            first_manager.remove();
+            second_manager.remove();
+        }
+    }
+}
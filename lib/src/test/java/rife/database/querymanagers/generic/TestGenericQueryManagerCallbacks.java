@@ -12,6 +12,7 @@ import rife.database.querymanagers.generic.beans.*;
 import rife.tools.StringUtils;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -539,6 +540,75 @@ public class TestGenericQueryManagerCallbacks {
         }
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testInsertCollectionCallbacks(Datasource datasource) {
+        var manager = setUpCallbacksBeanManager(datasource);
+        try {
+            CallbacksBean.clearExecuteCallbacks();
+
+            var bean1 = new CallbacksBean();
+            bean1.setTestString("first");
+            var bean2 = new CallbacksBean();
+            bean2.setTestString("second");
+
+            var listener = new AggregatingCallbacksBeanListener();
+            try {
+                manager.addListener(listener);
+                var ids = manager.insert(List.of(bean1, bean2));
+                assertEquals("beforeInsert -1;first\n" +
+                             "beforeInsert -1;second\n" +
+                             "afterInsert true " + ids[0] + ";first\n" +
+                             "afterInsert true " + ids[1] + ";second", StringUtils.join(CallbacksBean.getExecutedCallbacks(), "\n"));
+
+                var history = listener.getHistory();
+                assertEquals(2, history.size());
+                assertSame(bean1, history.get("inserted0"));
+                assertSame(bean2, history.get("inserted1"));
+            } finally {
+                manager.removeListeners();
+            }
+        } finally {
+            tearDownCallbacksBean(manager);
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testSaveCollectionCallbacks(Datasource datasource) {
+        var manager = setUpCallbacksBeanManager(datasource);
+        try {
+            var existing = new CallbacksBean();
+            existing.setTestString("existing");
+            manager.save(existing);
+
+            CallbacksBean.clearExecuteCallbacks();
+
+            existing.setTestString("updated");
+            var bean1 = new CallbacksBean();
+            bean1.setTestString("first");
+            var bean2 = new CallbacksBean();
+            bean2.setTestString("second");
+
+            var ids = manager.save(List.of(existing, bean1, bean2));
+            assertEquals(existing.getId(), ids[0]);
+            assertEquals("beforeSave " + ids[0] + ";updated\n" +
+                         "beforeSave -1;first\n" +
+                         "beforeSave -1;second\n" +
+                         "beforeUpdate " + ids[0] + ";updated\n" +
+                         "afterUpdate true " + ids[0] + ";updated\n" +
+                         "beforeInsert -1;first\n" +
+                         "beforeInsert -1;second\n" +
+                         "afterInsert true " + ids[1] + ";first\n" +
+                         "afterInsert true " + ids[2] + ";second\n" +
+                         "afterSave true " + ids[0] + ";updated\n" +
+                         "afterSave true " + ids[1] + ";first\n" +
+                         "afterSave true " + ids[2] + ";second", StringUtils.join(CallbacksBean.getExecutedCallbacks(), "\n"));
+        } finally {
+            tearDownCallbacksBean(manager);
+        }
+    }
+
     @ParameterizedTest
     @ArgumentsSource(TestDatasources.class)
     void testInsertCallbacksReturns(Datasource datasource) {
@@ -667,6 +737,28 @@ public class TestGenericQueryManagerCallbacks {
         }
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testDeleteCollectionCallbacks(Datasource datasource) {
+        var manager = setUpCallbacksBeanManager(datasource);
+        try {
+            var bean = new CallbacksBean();
+            bean.setTestString("This is my test string");
+            var id1 = manager.save(bean);
+            bean.setId(-1);
+            var id2 = manager.save(bean);
+
+            CallbacksBean.clearExecuteCallbacks();
+            assertEquals(2, manager.delete(List.of(id1, id2)));
+            assertEquals("beforeDelete " + id1 + "\n" +
+                         "beforeDelete " + id2 + "\n" +
+                         "afterDelete true " + id1 + "\n" +
+                         "afterDelete true " + id2, StringUtils.join(CallbacksBean.getExecutedCallbacks(), "\n"));
+        } finally {
+            tearDownCallbacksBean(manager);
+        }
+    }
+
     @ParameterizedTest
     @ArgumentsSource(TestDatasources.class)
     void testDeleteListeners(Datasource datasource) {
@@ -6,12 +6,16 @@ package rife.database.querymanagers.generic;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 import rife.database.*;
 import rife.database.exceptions.DatabaseException;
+import rife.database.queries.Update;
 import rife.database.querymanagers.generic.beans.*;
 import rife.database.querymanagers.generic.exceptions.MissingDefaultConstructorException;
 
@@ -189,6 +193,86 @@ public class TestGenericQueryManagerSimple {
         }
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testInsertCollection(Datasource datasource) {
+        var manager = setup(datasource);
+        try {
+            var beans = new ArrayList<SimpleBean>();
+            for (var i = 0; i < 10; i++) {
+                var bean = new SimpleBean();
+                bean.setTestString("string " + i);
+                beans.add(bean);
+            }
+
+            var ids = manager.insert(beans);
+            assertEquals(10, ids.length);
+            assertEquals(10, Arrays.stream(ids).distinct().count());
+            for (var i = 0; i < 10; i++) {
+                assertEquals(ids[i], beans.get(i).getId());
+                assertEquals("string " + i, manager.restore(ids[i]).getTestString());
+            }
+            assertEquals(10, manager.count());
+
+            assertEquals(0, manager.insert(List.of()).length);
+        } finally {
+            tearDown(manager);
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testSaveCollection(Datasource datasource) {
+        var manager = setup(datasource);
+        try {
+            var existing = new SimpleBean();
+            existing.setTestString("existing");
+            var existing_id = manager.save(existing);
+            existing.setTestString("existing updated");
+
+            var bean1 = new SimpleBean();
+            bean1.setTestString("new 1");
+            var bean2 = new SimpleBean();
+            bean2.setTestString("new 2");
+
+            var ids = manager.save(List.of(bean1, existing, bean2));
+            assertEquals(3, ids.length);
+            assertEquals(existing_id, ids[1]);
+            assertEquals(ids[0], bean1.getId());
+            assertEquals(ids[2], bean2.getId());
+            assertEquals(3, manager.count());
+            assertEquals("existing updated", manager.restore(existing_id).getTestString());
+            assertEquals("new 1", manager.restore(ids[0]).getTestString());
+            assertEquals("new 2", manager.restore(ids[2]).getTestString());
+        } finally {
+            tearDown(manager);
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testDeleteCollection(Datasource datasource) {
+        var manager = setup(datasource);
+        try {
+            var ids = new ArrayList<Integer>();
+            for (var i = 0; i < 5; i++) {
+                var bean = new SimpleBean();
+                bean.setTestString("string " + i);
+                ids.add(manager.save(bean));
+            }
+
+            assertEquals(3, manager.delete(List.of(ids.get(0), ids.get(2), ids.get(4))));
+            assertEquals(2, manager.count());
+            assertNull(manager.restore(ids.get(0)));
+            assertNotNull(manager.restore(ids.get(1)));
+
+            assertEquals(1, manager.delete(List.of(ids.get(1), ids.get(2))));
+            assertEquals(1, manager.count());
+        } finally {
+            tearDown(manager);
+        }
+    }
+
     @ParameterizedTest
     @ArgumentsSource(TestDatasources.class)
     void testRestore(Datasource datasource) {
@@ -427,6 +511,162 @@ public class TestGenericQueryManagerSimple {
         }
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testRestoreStream(Datasource datasource) {
+        var manager = setup(datasource);
+        try {
+            var uuids = new ArrayList<UUID>();
+            for (var i = 1; i <= 10; i++) {
+                var bean = new SimpleBean();
+                var uuid = UUID.randomUUID();
+                uuids.add(uuid);
+                bean.setTestString("This is bean" + i);
+                bean.setUuid(uuid);
+                manager.save(bean);
+            }
+
+            try (var stream = manager.restoreStream()) {
+                var restored = stream.map(SimpleBean::getUuid).toList();
+                assertEquals(10, restored.size());
+                assertTrue(restored.containsAll(uuids));
+            }
+
+            try (var stream = manager.restoreStream(manager.getRestoreQuery().where("testString", "LIKE", "%bean2"))) {
+                var restored = stream.toList();
+                assertEquals(1, restored.size());
+                assertEquals("This is bean2", restored.get(0).getTestString());
+                assertEquals(uuids.get(1), restored.get(0).getUuid());
+            }
+
+            new DbQueryManager(datasource).inTransaction(() -> {
+                try (var stream = manager.restoreStream(manager.getRestoreQuery().orderBy("id"))) {
+                    var iterator = stream.iterator();
+                    assertTrue(iterator.hasNext());
+                    assertEquals(uuids.get(0), iterator.next().getUuid());
+                }
+                assertEquals(10, manager.count());
+            });
+        } finally {
+            tearDown(manager);
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testEntityCache(Datasource datasource) {
+        GenericQueryManagerFactory.enableEntityCache(SimpleBean.class, 2, 0);
+        var manager = setup(datasource);
+        try {
+            var cache = GenericQueryManagerFactory.getEntityCache(datasource, SimpleBean.class);
+            assertNotNull(cache);
+            assertSame(cache, ((AbstractGenericQueryManager<SimpleBean>) manager).getEntityCache());
+
+            var bean = new SimpleBean();
+            bean.setTestString("cached");
+            var id1 = manager.save(bean);
+            var id2 = manager.save(new SimpleBean());
+            var id3 = manager.save(new SimpleBean());
+
+            var restored1 = manager.restore(id1);
+            assertEquals("cached", restored1.getTestString());
+            assertEquals(0, cache.getHits());
+            assertEquals(1, cache.getMisses());
+            assertEquals(1, cache.size());
+
+            // changes outside the generic query manager aren't seen
+            new DbQueryManager(datasource).executeUpdate(new Update(datasource)
+                .table(manager.getTable())
+                .field("testString", "changed")
+                .where("id", "=", id1));
+            var restored2 = manager.restore(id1);
+            assertEquals("cached", restored2.getTestString());
+            assertEquals(1, cache.getHits());
+
+            // the cached beans are copies
+            assertNotSame(restored1, restored2);
+            restored2.setTestString("modified");
+            assertEquals("cached", manager.restore(id1).getTestString());
+
+            // saving invalidates
+            restored2.setTestString("saved");
+            manager.save(restored2);
+            assertEquals(0, cache.size());
+            assertEquals("saved", manager.restore(id1).getTestString());
+
+            // the least recently used bean is evicted
+            manager.restore(id2);
+            manager.restore(id3);
+            assertEquals(2, cache.size());
+            assertEquals(1, cache.getEvictions());
+
+            // deleting invalidates
+            manager.delete(id3);
+            assertEquals(1, cache.size());
+            assertNull(manager.restore(id3));
+        } finally {
+            tearDown(manager);
+            GenericQueryManagerFactory.disableEntityCache(SimpleBean.class);
+        }
+
+        assertNull(GenericQueryManagerFactory.getEntityCache(datasource, SimpleBean.class));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testEntityCacheConcurrentChanges(Datasource datasource)
+    throws Exception {
+        GenericQueryManagerFactory.enableEntityCache(SimpleBean.class, 10, 0);
+        var manager = setup(datasource);
+        try {
+            var cache = GenericQueryManagerFactory.getEntityCache(datasource, SimpleBean.class);
+
+            var bean = new SimpleBean();
+            bean.setTestString("original");
+            var id = manager.save(bean);
+
+            // a bean that was read before an invalidation isn't cached
+            var version = cache.getVersion();
+            var stale = manager.restore(id);
+            cache.invalidate(id);
+            assertFalse(cache.put(id, stale, version));
+            assertEquals(0, cache.size());
+            assertTrue(cache.put(id, stale, cache.getVersion()));
+            cache.clear();
+
+            // a concurrent restore during a transaction doesn't keep the
+            // previously committed bean cached after the commit
+            var restored = new SimpleBean[1];
+            var reader = new Thread(() -> restored[0] = manager.restore(id));
+            new DbQueryManager(datasource).inTransaction(() -> {
+                bean.setTestString("changed");
+                manager.save(bean);
+
+                // databases that lock the row only read it after the commit
+                reader.start();
+                try {
+                    reader.join(1000);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            reader.join();
+            assertNotNull(restored[0]);
+
+            assertEquals("changed", manager.restore(id).getTestString());
+
+            // beans that are read during a transaction aren't cached
+            cache.clear();
+            new DbQueryManager(datasource).inTransaction(() -> {
+                assertEquals("changed", manager.restore(id).getTestString());
+            });
+            assertEquals(0, cache.size());
+        } finally {
+            tearDown(manager);
+            GenericQueryManagerFactory.disableEntityCache(SimpleBean.class);
+        }
+    }
+
     @ParameterizedTest
     @ArgumentsSource(TestDatasources.class)
     void testCount(Datasource datasource) {
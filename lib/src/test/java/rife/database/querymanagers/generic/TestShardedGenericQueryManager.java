@@ -0,0 +1,293 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database.querymanagers.generic;
+
+import org.junit.jupiter.api.Test;
+import rife.database.Datasource;
+import rife.database.DbRowProcessor;
+import rife.database.queries.Select;
+import rife.database.querymanagers.generic.beans.SimpleBean;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestShardedGenericQueryManager {
+    private List<Datasource> createShards(String name) {
+        var shards = new ArrayList<Datasource>();
+        for (var i = 1; i <= 3; i++) {
+            shards.add(new Datasource("org.h2.Driver", "jdbc:h2:mem:" + name + i + ";DB_CLOSE_DELAY=-1", "sa", "", 2));
+        }
+        return shards;
+    }
+
+    private ShardedGenericQueryManager<SimpleBean> setup(List<Datasource> shards, String shardKey) {
+        var manager = new ShardedGenericQueryManager<>(shards, SimpleBean.class, null, shardKey);
+        manager.install();
+        return manager;
+    }
+
+    private void tearDown(ShardedGenericQueryManager<SimpleBean> manager, List<Datasource> shards) {
+        manager.remove();
+        for (var shard : shards) {
+            shard.cleanup();
+        }
+    }
+
+    private static SimpleBean createBean(String testString) {
+        var bean = new SimpleBean();
+        bean.setTestString(testString);
+        return bean;
+    }
+
+    @Test
+    void testSaveRestoreByIdentifier() {
+        var shards = createShards("shardedidentifier");
+        var manager = setup(shards, null);
+        try {
+            assertEquals("id", manager.getShardKey());
+
+            var ids = new HashSet<Integer>();
+            for (var i = 0; i < 6; i++) {
+                var bean = createBean("bean" + i);
+                var id = manager.save(bean);
+                assertEquals(id, bean.getId());
+                assertTrue(ids.add(id));
+                assertEquals(Math.floorMod(id, 3), manager.getShardIndex(bean));
+            }
+
+            // the beans are spread evenly over the shards
+            for (var shard : manager.getShards()) {
+                assertEquals(2, shard.count());
+            }
+            assertEquals(6, manager.count());
+
+            for (int id : ids) {
+                var restored = manager.restore(id);
+                assertNotNull(restored);
+                assertEquals(id, restored.getId());
+            }
+
+            // updates go to the shard of the bean
+            int id = ids.iterator().next();
+            var bean = manager.restore(id);
+            bean.setTestString("updated");
+            assertEquals(id, manager.save(bean));
+            assertEquals("updated", manager.restore(id).getTestString());
+            assertEquals(6, manager.count());
+
+            assertTrue(manager.delete(id));
+            assertNull(manager.restore(id));
+            assertEquals(5, manager.count());
+        } finally {
+            tearDown(manager, shards);
+        }
+    }
+
+    @Test
+    void testShardKeyProperty() {
+        var shards = createShards("shardedproperty");
+        var manager = setup(shards, "testString");
+        try {
+            var beans = new ArrayList<SimpleBean>();
+            for (var i = 0; i < 10; i++) {
+                beans.add(createBean("bean" + (i % 2)));
+            }
+            var ids = manager.save(beans);
+            assertEquals(10, ids.length);
+            for (var i = 0; i < ids.length; i++) {
+                assertEquals(ids[i], beans.get(i).getId());
+            }
+
+            // beans with the same shard key end up in the same shard
+            var shard0 = manager.getShardIndex(beans.get(0));
+            var shard1 = manager.getShardIndex(beans.get(1));
+            assertEquals(5, manager.getShards().get(shard0).count(manager.getCountQuery().where("testString", "=", "bean0")));
+            assertEquals(5, manager.getShards().get(shard1).count(manager.getCountQuery().where("testString", "=", "bean1")));
+
+            for (var bean : beans) {
+                assertEquals(bean.getTestString(), manager.restore(bean.getId()).getTestString());
+            }
+            assertEquals(10, manager.count());
+            assertEquals(5, manager.count(manager.getCountQuery().where("testString", "=", "bean0")));
+
+            var deleted = new ArrayList<Integer>();
+            deleted.add(ids[0]);
+            deleted.add(ids[1]);
+            assertEquals(2, manager.delete(deleted));
+            assertEquals(8, manager.count());
+        } finally {
+            tearDown(manager, shards);
+        }
+    }
+
+    @Test
+    void testRestoreMergesOrderAndLimit() {
+        var shards = createShards("shardedmerge");
+        var manager = setup(shards, null);
+        try {
+            for (var name : List.of("f", "c", "h", "a", "e", "g", "b", "d")) {
+                manager.save(createBean(name));
+            }
+
+            var all = manager.restore(manager.getRestoreQuery().orderBy("testString"));
+            assertEquals(List.of("a", "b", "c", "d", "e", "f", "g", "h"), all.stream().map(SimpleBean::getTestString).toList());
+
+            var page = manager.restore(manager.getRestoreQuery().orderBy("testString", Select.DESC).limit(3).offset(2));
+            assertEquals(List.of("f", "e", "d"), page.stream().map(SimpleBean::getTestString).toList());
+
+            var first = manager.restoreFirst(manager.getRestoreQuery().orderBy("testString"));
+            assertEquals("a", first.getTestString());
+
+            var fetched = new ArrayList<String>();
+            manager.restore(manager.getRestoreQuery().orderBy("testString").limit(2), bean -> fetched.add(bean.getTestString()));
+            assertEquals(List.of("a", "b"), fetched);
+
+            try (var stream = manager.restoreStream()) {
+                assertEquals(8, stream.count());
+            }
+
+            assertEquals(8, manager.restore().size());
+
+            // pages before seek values are merged in their effective order
+            var before = manager.restore(manager.getRestoreQuery().orderBy("testString").seekBefore("e").limit(2));
+            assertEquals(List.of("d", "c"), before.stream().map(SimpleBean::getTestString).toList());
+
+            // null values come last in ascending order
+            manager.save(createBean(null));
+            var with_null = manager.restore(manager.getRestoreQuery().orderBy("testString"));
+            assertNull(with_null.get(8).getTestString());
+            with_null = manager.restore(manager.getRestoreQuery().orderBy("testString", Select.DESC));
+            assertNull(with_null.get(0).getTestString());
+        } finally {
+            tearDown(manager, shards);
+        }
+    }
+
+    @Test
+    void testRestoreRowProcessor() {
+        var shards = createShards("shardedrows");
+        var manager = setup(shards, null);
+        try {
+            var ids = new HashSet<Integer>();
+            for (var name : List.of("a", "b", "c", "d")) {
+                ids.add(manager.save(createBean(name)));
+            }
+
+            // the rows carry the global identifiers
+            var restored_ids = new HashSet<Integer>();
+            var restored_objects = new HashSet<Object>();
+            manager.restore(new DbRowProcessor() {
+                public boolean processRow(ResultSet resultSet)
+                throws SQLException {
+                    restored_ids.add(resultSet.getInt("id"));
+                    restored_objects.add(resultSet.getObject(resultSet.findColumn("id")));
+                    return true;
+                }
+            });
+            assertEquals(ids, restored_ids);
+            assertEquals(ids, restored_objects);
+
+            // the rows of the shards can't be merged
+            assertThrows(IllegalArgumentException.class, () -> manager.restore(manager.getRestoreQuery().orderBy("testString"), new DbRowProcessor() {
+                public boolean processRow(ResultSet resultSet) {
+                    return true;
+                }
+            }));
+        } finally {
+            tearDown(manager, shards);
+        }
+    }
+
+    @Test
+    void testIdentifierQueries() {
+        var shards = createShards("shardedidentifierqueries");
+        var manager = setup(shards, null);
+        try {
+            var ids = new ArrayList<Integer>();
+            for (var name : List.of("a", "b", "c", "d")) {
+                ids.add(manager.save(createBean(name)));
+            }
+
+            // the identifier queries only go to the shard of the bean
+            for (var i = 0; i < ids.size(); i++) {
+                var restored = manager.restore(manager.getRestoreQuery(ids.get(i)));
+                assertEquals(1, restored.size());
+                assertEquals((int) ids.get(i), restored.get(0).getId());
+                assertEquals(List.of("a", "b", "c", "d").get(i), restored.get(0).getTestString());
+            }
+            assertEquals("b", manager.restoreFirst(manager.getRestoreQuery(ids.get(1))).getTestString());
+
+            assertTrue(manager.delete(manager.getDeleteQuery(ids.get(2))));
+            assertNull(manager.restore(ids.get(2)));
+            assertEquals(3, manager.count());
+        } finally {
+            tearDown(manager, shards);
+        }
+    }
+
+    @Test
+    void testDeleteCollection() {
+        var shards = createShards("shardeddelete");
+        var manager = setup(shards, null);
+        try {
+            var ids = new ArrayList<Integer>();
+            for (var name : List.of("a", "b", "c", "d")) {
+                ids.add(manager.save(createBean(name)));
+            }
+
+            var deleted = new ArrayList<Integer>();
+            manager.addListener(new GenericQueryManagerListener<>() {
+                public void installed() {
+                }
+
+                public void removed() {
+                }
+
+                public void inserted(SimpleBean bean) {
+                }
+
+                public void updated(SimpleBean bean) {
+                }
+
+                public void restored(SimpleBean bean) {
+                }
+
+                public void deleted(int objectId) {
+                    deleted.add(objectId);
+                }
+            });
+
+            // only the beans that existed are reported as deleted
+            var missing_id = ids.get(3) + 300;
+            assertEquals(2, manager.delete(List.of(ids.get(0), missing_id, ids.get(2))));
+            assertEquals(2, deleted.size());
+            assertEquals(Set.of(ids.get(0), ids.get(2)), new HashSet<>(deleted));
+            assertEquals(2, manager.count());
+
+            // null identifiers are rejected before anything is deleted
+            var with_null = new ArrayList<Integer>();
+            with_null.add(ids.get(1));
+            with_null.add(null);
+            assertThrows(IllegalArgumentException.class, () -> manager.delete(with_null));
+            assertEquals(2, manager.count());
+            assertEquals(2, deleted.size());
+        } finally {
+            tearDown(manager, shards);
+        }
+    }
+
+    @Test
+    void testInvalidArguments() {
+        var shards = createShards("shardedinvalid");
+        assertThrows(IllegalArgumentException.class, () -> new ShardedGenericQueryManager<>(shards, SimpleBean.class, null, "unknown"));
+        assertThrows(IllegalArgumentException.class, () -> new ShardedGenericQueryManager<>(List.of(), SimpleBean.class));
+    }
+}
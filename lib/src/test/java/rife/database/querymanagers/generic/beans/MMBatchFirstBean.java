@@ -0,0 +1,49 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.database.querymanagers.generic.beans;
+
+import rife.validation.ConstrainedProperty;
+import rife.validation.MetaData;
+
+import java.util.Collection;
+
+public class MMBatchFirstBean extends MetaData {
+    private Integer identifier_;
+    private Collection<MMBatchSecondBean> secondBeans_;
+    private String firstString_;
+
+    public MMBatchFirstBean() {
+    }
+
+    public void activateMetaData() {
+        addConstraint(new ConstrainedProperty("identifier").identifier(true));
+        addConstraint(new ConstrainedProperty("secondBeans").manyToMany().batchFetch(true));
+    }
+
+    public void setIdentifier(Integer identifier) {
+        identifier_ = identifier;
+    }
+
+    public Integer getIdentifier() {
+        return identifier_;
+    }
+
+    public void setSecondBeans(Collection<MMBatchSecondBean> secondBeans) {
+        secondBeans_ = secondBeans;
+    }
+
+    public Collection<MMBatchSecondBean> getSecondBeans() {
+        return secondBeans_;
+    }
+
+    public void setFirstString(String firstString) {
+        firstString_ = firstString;
+    }
+
+    public String getFirstString() {
+        return firstString_;
+    }
+}
+
@@ -8,9 +8,13 @@ import com.gargoylesoftware.htmlunit.*;
 import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import org.junit.jupiter.api.Test;
 import rife.config.RifeConfig;
+import rife.engine.annotations.Lifecycle;
+import rife.engine.annotations.LifecycleType;
 import rife.engine.annotations.Parameter;
 import rife.engine.exceptions.AnnotatedElementInstanceFieldException;
 import rife.engine.exceptions.EngineException;
+import rife.engine.exceptions.ReusedElementContinuationException;
+import rife.engine.exceptions.ReusedElementFieldException;
 import rife.template.TemplateFactory;
 import rife.tools.IntegerUtils;
 
@@ -19,6 +23,7 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Calendar;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -614,4 +619,144 @@ public class TestEngine {
         }
     }
 
+    @Lifecycle(LifecycleType.SINGLETON)
+    public static class SingletonElement implements Element {
+        static final AtomicInteger INSTANCES = new AtomicInteger();
+        private final int instance_ = INSTANCES.incrementAndGet();
+
+        public void process(Context c) {
+            c.print("singleton" + instance_);
+        }
+    }
+
+    @Lifecycle(value = LifecycleType.POOLED, poolSize = 2)
+    public static class PooledElement implements Element {
+        static final AtomicInteger INSTANCES = new AtomicInteger();
+        private final int instance_ = INSTANCES.incrementAndGet();
+
+        public void process(Context c) {
+            c.print("pooled" + instance_);
+        }
+    }
+
+    @Lifecycle(LifecycleType.POOLED)
+    public static class FailingPooledElement implements Element {
+        static final AtomicInteger INSTANCES = new AtomicInteger();
+        private final int instance_ = INSTANCES.incrementAndGet();
+
+        public void process(Context c) {
+            if (c.parameterBoolean("fail")) {
+                throw new RuntimeException("failed");
+            }
+            c.print("pooled" + instance_);
+        }
+    }
+
+    @Lifecycle(LifecycleType.POOLED)
+    public static class ContinuationPooledElement implements Element {
+        public void process(Context c) {
+            c.print("before");
+            c.pause();
+            c.print("after");
+        }
+    }
+
+    @Lifecycle(LifecycleType.SINGLETON)
+    public static class AnnotatedSingletonElement implements Element {
+        @Parameter String parameter;
+
+        public void process(Context c) {
+        }
+    }
+
+    @Test
+    void testReusedElements()
+    throws Exception {
+        SingletonElement.INSTANCES.set(0);
+        PooledElement.INSTANCES.set(0);
+        try (final var server = new TestServerRunner(new Site() {
+            public void setup() {
+                get("/singleton", SingletonElement.class);
+                get("/pooled", PooledElement.class);
+            }
+        })) {
+            try (final var webClient = new WebClient()) {
+                for (var i = 0; i < 3; i++) {
+                    assertEquals("singleton1", webClient.getPage("http://localhost:8181/singleton").getWebResponse().getContentAsString());
+                    assertEquals("pooled1", webClient.getPage("http://localhost:8181/pooled").getWebResponse().getContentAsString());
+                }
+                assertEquals(1, SingletonElement.INSTANCES.get());
+                assertEquals(1, PooledElement.INSTANCES.get());
+            }
+        }
+    }
+
+    @Test
+    void testPreventReusedElementAnnotations() {
+        RifeConfig.engine().setPrettyEngineExceptions(false);
+        try {
+            try (final var server = new TestServerRunner(new Site() {
+                public void setup() {
+                    get("/route", AnnotatedSingletonElement.class);
+                }
+            })) {
+                fail("Expected setup exception");
+            }
+        } catch (EngineException e) {
+            assertTrue(e.getCause() instanceof ReusedElementFieldException);
+            assertEquals("/route", ((ReusedElementFieldException) e.getCause()).getRoute().path());
+            assertEquals(LifecycleType.SINGLETON, ((ReusedElementFieldException) e.getCause()).getLifecycle());
+            assertEquals("parameter", ((ReusedElementFieldException) e.getCause()).getField());
+        } finally {
+            RifeConfig.engine().setPrettyEngineExceptions(true);
+        }
+    }
+
+    @Test
+    void testPreventReusedElementContinuations() {
+        RifeConfig.engine().setPrettyEngineExceptions(false);
+        try {
+            try (final var server = new TestServerRunner(new Site() {
+                public void setup() {
+                    get("/route", ContinuationPooledElement.class);
+                }
+            })) {
+                fail("Expected setup exception");
+            }
+        } catch (EngineException e) {
+            assertTrue(e.getCause() instanceof ReusedElementContinuationException);
+            assertEquals("/route", ((ReusedElementContinuationException) e.getCause()).getRoute().path());
+            assertEquals(LifecycleType.POOLED, ((ReusedElementContinuationException) e.getCause()).getLifecycle());
+        } finally {
+            RifeConfig.engine().setPrettyEngineExceptions(true);
+        }
+    }
+
+    @Test
+    void testFailedPooledElementsArentReused()
+    throws Exception {
+        FailingPooledElement.INSTANCES.set(0);
+        try (final var server = new TestServerRunner(new Site() {
+            public void setup() {
+                get("/failing", FailingPooledElement.class);
+            }
+        })) {
+            try (final var webClient = new WebClient()) {
+                assertEquals("pooled1", webClient.getPage("http://localhost:8181/failing").getWebResponse().getContentAsString());
+                assertEquals("pooled1", webClient.getPage("http://localhost:8181/failing").getWebResponse().getContentAsString());
+
+                try {
+                    webClient.getOptions().setPrintContentOnFailingStatusCode(false);
+                    webClient.getPage("http://localhost:8181/failing?fail=true");
+                } catch (FailingHttpStatusCodeException e) {
+                    // the element failed
+                }
+
+                // the element that failed was dropped
+                assertEquals("pooled2", webClient.getPage("http://localhost:8181/failing").getWebResponse().getContentAsString());
+                assertEquals(2, FailingPooledElement.INSTANCES.get());
+            }
+        }
+    }
+
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+import org.junit.jupiter.api.Test;
+import rife.engine.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static rife.engine.annotations.FlowDirection.IN_OUT;
+import static rife.engine.annotations.FlowDirection.OUT;
+
+public class TestInjectionPlan {
+    public static class PlanElement implements Element {
+        static String staticParam = null;
+        @Parameter String param1 = null;
+        @Parameter(value = "p2", flow = IN_OUT) int param2 = 0;
+        @Parameter(flow = OUT) String param3 = null;
+        @PathInfo String pathInfo = null;
+        @PathInfo @Header("header1") String pathInfoOrHeader = null;
+        @ActiveSite Site site = null;
+        String notAnnotated = null;
+
+        public void process(Context c) {
+        }
+    }
+
+    private static List<String> describe(InjectionPlan.FieldInjection[] injections) {
+        return Arrays.stream(injections).map(i -> i.kind() + ":" + i.name()).toList();
+    }
+
+    @Test
+    void testInjections() {
+        var plan = InjectionPlan.get(PlanElement.class);
+        assertSame(plan, InjectionPlan.get(PlanElement.class));
+
+        assertEquals(List.of("PARAMETER:param1", "PARAMETER:p2", "PATH_INFO:null", "PATH_INFO:null", "ACTIVE_SITE:null"),
+            describe(plan.injections(true)));
+        assertEquals(List.of("PARAMETER:param1", "PARAMETER:p2", "HEADER:header1", "ACTIVE_SITE:null"),
+            describe(plan.injections(false)));
+        assertEquals(List.of("PARAMETER:p2", "PARAMETER:param3"), describe(plan.outParameters()));
+        assertEquals(List.of(), describe(plan.outjections()));
+        assertEquals(Set.of("param1", "p2"), plan.inParameters());
+        assertEquals(0, plan.injections(true)[1].defaultValue());
+    }
+
+    @Test
+    void testFieldAccess()
+    throws Throwable {
+        var plan = InjectionPlan.get(AnnotationInOutSite.AnnotatedElement.class);
+        var element = new AnnotationInOutSite.AnnotatedElement();
+
+        var outjections = plan.outjections();
+        assertEquals(18, outjections.length);
+        assertEquals("BODY:null", describe(outjections).get(0));
+        assertEquals("BODY:null", describe(outjections).get(13));
+        assertEquals("REQUEST_ATTRIBUTE:requestAttr2", describe(outjections).get(15));
+
+        var string_body = outjections[0];
+        assertEquals("defaultBody", string_body.get(element));
+        string_body.set(element, "value");
+        assertEquals("value", element.stringBody);
+
+        var int_body = outjections[13];
+        assertEquals(-1, int_body.get(element));
+        int_body.set(element, 12);
+        assertEquals(12, element.intBody);
+    }
+}
@@ -4,6 +4,7 @@ import com.gargoylesoftware.htmlunit.ElementNotFoundException;
 import com.gargoylesoftware.htmlunit.WebClient;
 import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import org.junit.jupiter.api.Test;
+import rife.web.PageCursor;
 import rife.web.PagedNavigation;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -318,4 +319,47 @@ public class TestPagedNavigation {
             }
         }
     }
+
+    @Test
+    void testCursors()
+    throws Exception {
+        try (final var server = new TestServerRunner(new Site() {
+            public void setup() {
+                get("/cursors", c -> {
+                    var t = c.template("paged_navigation_norangecount");
+
+                    // thirty items with the values 0 to 29, ten on each page
+                    var cursor = PageCursor.decode(c.parameter("cursor"));
+                    var start = 0;
+                    if (cursor != null) {
+                        var value = (Integer) cursor.getValues()[0];
+                        start = cursor.isBefore() ? value - 10 : value + 1;
+                    }
+                    t.setValue("offset", start);
+                    PagedNavigation.generate(c, t,
+                        start > 0 ? PageCursor.before(start) : null,
+                        start + 10 < 30 ? PageCursor.after(start + 9) : null);
+                    c.print(t.getBlock("content"));
+                });
+            }
+        })) {
+            try (final var webClient = new WebClient()) {
+                page = webClient.getPage("http://localhost:8181/cursors");
+                var response0 = page.getWebResponse().getContentAsString();
+                assertEquals(response0, "0 : Pages: ( first prev <a href=\"http://localhost:8181/cursors?cursor=" + PageCursor.after(9).encode() + "\">next</a> last |  )");
+                page = page.getAnchorByText("next").click();
+                var response10 = page.getWebResponse().getContentAsString();
+                assertEquals(response10, "10 : Pages: ( <a href=\"http://localhost:8181/cursors\">first</a> <a href=\"http://localhost:8181/cursors?cursor=" + PageCursor.before(10).encode() + "\">prev</a> <a href=\"http://localhost:8181/cursors?cursor=" + PageCursor.after(19).encode() + "\">next</a> last |  )");
+                page = page.getAnchorByText("next").click();
+                var response20 = page.getWebResponse().getContentAsString();
+                assertEquals(response20, "20 : Pages: ( <a href=\"http://localhost:8181/cursors\">first</a> <a href=\"http://localhost:8181/cursors?cursor=" + PageCursor.before(20).encode() + "\">prev</a> next last |  )");
+                assertThrows(ElementNotFoundException.class, () -> page.getAnchorByText("next"));
+
+                page = page.getAnchorByText("prev").click();
+                assertEquals(response10, page.getWebResponse().getContentAsString());
+                page = page.getAnchorByText("first").click();
+                assertEquals(response0, page.getWebResponse().getContentAsString());
+            }
+        }
+    }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestRouteIndex {
+    private static RouteIndex deploy(Site site) {
+        site.setup();
+        site.deploy();
+        return site.routeIndex_;
+    }
+
+    private static void assertMatch(Route route, String pathInfo, RouteMatch match) {
+        assertNotNull(match);
+        assertSame(route, match.route());
+        assertEquals(pathInfo, match.pathInfo());
+    }
+
+    @Test
+    void testExactAndPathInfo() {
+        var site = new Site() {
+            Route root, one, oneTwo, capture, map, post;
+
+            public void setup() {
+                root = get("/", c -> {});
+                one = get("/one", c -> {});
+                oneTwo = get("/one/two", c -> {});
+                capture = get("/one", PathInfoHandling.CAPTURE, c -> {});
+                map = get("/one", PathInfoHandling.MAP(m -> m.t("item").s().p("id", "\\d+")), c -> {});
+                post = post("/one/two", c -> {});
+            }
+        };
+        var index = deploy(site);
+
+        assertMatch(site.root, "", index.find(RequestMethod.GET, ""));
+        assertMatch(site.root, "", index.find(RequestMethod.GET, "/"));
+        assertMatch(site.one, "", index.find(RequestMethod.GET, "/one"));
+        assertMatch(site.oneTwo, "", index.find(RequestMethod.GET, "/one/two"));
+        assertMatch(site.post, "", index.find(RequestMethod.POST, "/one/two"));
+        assertMatch(site.map, "item/12", index.find(RequestMethod.GET, "/one/item/12"));
+        assertMatch(site.capture, "item/x", index.find(RequestMethod.GET, "/one/item/x"));
+        assertMatch(site.capture, "two/three", index.find(RequestMethod.GET, "/one/two/three"));
+        assertMatch(site.capture, "three", index.find(RequestMethod.GET, "/one//three"));
+        assertNull(index.find(RequestMethod.GET, "/on"));
+        assertNull(index.find(RequestMethod.GET, "/onex"));
+        assertNull(index.find(RequestMethod.GET, "/two"));
+        assertNull(index.find(RequestMethod.POST, "/one"));
+        assertNull(index.find(RequestMethod.PUT, "/one/two"));
+    }
+
+    @Test
+    void testPathInfoMappings() {
+        var site = new Site() {
+            Route users, items, postItems, capture;
+
+            public void setup() {
+                users = get("/api", PathInfoHandling.MAP(
+                    m -> m.t("users/").p("id", "\\d+"),
+                    m -> m.t("users/").p("name").s().t("groups/").p("group", "(admin|staff)")), c -> {});
+                items = get("/api", PathInfoHandling.MAP(m -> m.t("items/").p("id", "\\d+").s().p("action")), c -> {});
+                postItems = post("/api", PathInfoHandling.MAP(m -> m.t("items/").p("id")), c -> {});
+                capture = get("/api", PathInfoHandling.CAPTURE, c -> {});
+            }
+        };
+        var index = deploy(site);
+
+        var match = index.find(RequestMethod.GET, "/api/users/12");
+        assertMatch(site.users, "users/12", match);
+        assertEquals(1, match.pathInfoParameters().size());
+        assertArrayEquals(new String[]{"12"}, match.pathInfoParameters().get("id"));
+
+        match = index.find(RequestMethod.GET, "/api/users/john/groups/staff");
+        assertMatch(site.users, "users/john/groups/staff", match);
+        assertArrayEquals(new String[]{"john"}, match.pathInfoParameters().get("name"));
+        assertArrayEquals(new String[]{"staff"}, match.pathInfoParameters().get("group"));
+
+        match = index.find(RequestMethod.GET, "/api/items/7/edit");
+        assertMatch(site.items, "items/7/edit", match);
+        assertArrayEquals(new String[]{"7"}, match.pathInfoParameters().get("id"));
+        assertArrayEquals(new String[]{"edit"}, match.pathInfoParameters().get("action"));
+
+        match = index.find(RequestMethod.POST, "/api/items/abc");
+        assertMatch(site.postItems, "items/abc", match);
+        assertArrayEquals(new String[]{"abc"}, match.pathInfoParameters().get("id"));
+
+        match = index.find(RequestMethod.GET, "/api/items/abc");
+        assertMatch(site.capture, "items/abc", match);
+        assertNull(match.pathInfoParameters());
+        assertNull(index.find(RequestMethod.POST, "/api/users/12"));
+    }
+
+    @Test
+    void testRootPathInfo() {
+        var site = new Site() {
+            Route root;
+
+            public void setup() {
+                root = get("/", PathInfoHandling.CAPTURE, c -> {});
+            }
+        };
+        var index = deploy(site);
+
+        assertMatch(site.root, "", index.find(RequestMethod.GET, "/"));
+        assertMatch(site.root, "some/path", index.find(RequestMethod.GET, "/some/path"));
+        assertNull(index.find(RequestMethod.GET, "some/path"));
+    }
+
+    @Test
+    void testFallbacks() {
+        var site = new Site() {
+            Route fallback1, fallback2, fallback3, one;
+
+            public void setup() {
+                fallback1 = fallback(c -> {});
+                one = get("/one", c -> {});
+                group("/prefix1", new Router() {
+                    public void setup() {
+                        fallback2 = fallback(c -> {});
+                        group("/prefix2", new Router() {
+                            public void setup() {
+                                fallback3 = fallback(c -> {});
+                            }
+                        });
+                    }
+                });
+            }
+        };
+        var index = deploy(site);
+
+        assertMatch(site.one, "", index.find(RequestMethod.GET, "/one"));
+        assertMatch(site.fallback1, "", index.find(RequestMethod.GET, "/one/two"));
+        assertMatch(site.fallback1, "", index.find(RequestMethod.POST, "/one"));
+        assertMatch(site.fallback1, "", index.find(RequestMethod.GET, "/prefix"));
+        assertMatch(site.fallback2, "", index.find(RequestMethod.GET, "/prefix1"));
+        assertMatch(site.fallback2, "", index.find(RequestMethod.GET, "/prefix1/other"));
+        assertMatch(site.fallback3, "", index.find(RequestMethod.GET, "/prefix1/prefix2/other"));
+    }
+
+    @Test
+    void testManyRoutes() {
+        var routes = new ArrayList<Route>();
+        var site = new Site() {
+            public void setup() {
+                for (var i = 0; i < 1000; i++) {
+                    routes.add(get("/section" + (i % 20) + "/item" + i, c -> {}));
+                    routes.add(get("/section" + (i % 20) + "/item" + i, PathInfoHandling.CAPTURE, c -> {}));
+                }
+            }
+        };
+        var index = deploy(site);
+
+        assertEquals(2000, routes.size());
+        for (var i = 0; i < 1000; i++) {
+            var url = "/section" + (i % 20) + "/item" + i;
+            assertMatch(routes.get(i * 2), "", index.find(RequestMethod.GET, url));
+            assertMatch(routes.get(i * 2 + 1), "info/" + i, index.find(RequestMethod.GET, url + "/info/" + i));
+        }
+        assertNull(index.find(RequestMethod.GET, "/section1/item"));
+        assertNull(index.find(RequestMethod.GET, "/section1/item1000"));
+    }
+}
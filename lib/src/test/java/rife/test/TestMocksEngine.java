@@ -5,13 +5,18 @@
 package rife.test;
 
 import org.junit.jupiter.api.Test;
+import rife.config.RifeConfig;
 import rife.engine.*;
 import rife.template.TemplateFactory;
 import rife.tools.IntegerUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Calendar;
 import java.util.TimeZone;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -377,4 +382,251 @@ public class TestMocksEngine {
         assertEquals("/seven", conversation.doRequest("/seven").getText());
         assertEquals("fallback1", conversation.doRequest("/sevens").getText());
     }
+
+    private static String decompress(byte[] bytes, String encoding)
+    throws IOException {
+        var in = new ByteArrayInputStream(bytes);
+        try (var decompressed = "gzip".equals(encoding) ? new GZIPInputStream(in) : new InflaterInputStream(in)) {
+            return new String(decompressed.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static MockConversation compressionConversation(String text) {
+        return new MockConversation(new Site() {
+            public void setup() {
+                get("/text", c -> {
+                    c.setContentType("text/plain");
+                    c.print(text);
+                    c.print(text);
+                });
+            }
+        });
+    }
+
+    @Test
+    void testCompressionBuffered()
+    throws IOException {
+        var text = "compressed text ".repeat(100);
+        var conversation = compressionConversation(text);
+
+        var response = conversation.doRequest("/text", new MockRequest().header("Accept-Encoding", "gzip, deflate"));
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals(response.getBytes().length, response.getContentLength());
+        assertEquals(text + text, decompress(response.getBytes(), "gzip"));
+
+        response = conversation.doRequest("/text", new MockRequest().header("Accept-Encoding", "deflate"));
+        assertEquals("deflate", response.getHeader("Content-Encoding"));
+        assertEquals(text + text, decompress(response.getBytes(), "deflate"));
+
+        // the quality values of the encodings are respected
+        response = conversation.doRequest("/text", new MockRequest().header("Accept-Encoding", "gzip;q=0.5, deflate"));
+        assertEquals("deflate", response.getHeader("Content-Encoding"));
+        assertEquals(text + text, decompress(response.getBytes(), "deflate"));
+
+        response = conversation.doRequest("/text", new MockRequest().header("Accept-Encoding", "gzip;q=0, deflate;q=0"));
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals(text + text, response.getText());
+
+        response = conversation.doRequest("/text", new MockRequest().header("Accept-Encoding", "identity, *;q=0.1"));
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+
+        response = conversation.doRequest("/text", new MockRequest().header("Accept-Encoding", "x-gzip"));
+        assertNull(response.getHeader("Content-Encoding"));
+
+        response = conversation.doRequest("/text");
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals(text + text, response.getText());
+    }
+
+    @Test
+    void testCompressionStreaming()
+    throws IOException {
+        RifeConfig.engine().setGzipCompressionStreaming(true).setGzipCompressionBufferSize(512).setGzipCompressionLevel(9);
+        try {
+            var text = "streamed text ".repeat(1000);
+            var conversation = compressionConversation(text);
+
+            var response = conversation.doRequest("/text", new MockRequest().header("Accept-Encoding", "gzip"));
+            assertEquals("gzip", response.getHeader("Content-Encoding"));
+            assertEquals(-1, response.getContentLength());
+            assertTrue(response.getBytes().length < text.length());
+            assertEquals(text + text, decompress(response.getBytes(), "gzip"));
+
+            // the deflaters are reused across responses
+            response = conversation.doRequest("/text", new MockRequest().header("Accept-Encoding", "gzip"));
+            assertEquals(text + text, decompress(response.getBytes(), "gzip"));
+        } finally {
+            RifeConfig.engine()
+                .setGzipCompressionStreaming(RifeConfig.EngineConfig.DEFAULT_GZIP_COMPRESSION_STREAMING)
+                .setGzipCompressionBufferSize(RifeConfig.EngineConfig.DEFAULT_GZIP_COMPRESSION_BUFFER_SIZE)
+                .setGzipCompressionLevel(RifeConfig.EngineConfig.DEFAULT_GZIP_COMPRESSION_LEVEL);
+        }
+    }
+
+    @Test
+    void testCompressionThreshold()
+    throws IOException {
+        RifeConfig.engine().setGzipCompressionThreshold(1000);
+        try {
+            var response = compressionConversation("small").doRequest("/text", new MockRequest().header("Accept-Encoding", "gzip"));
+            assertNull(response.getHeader("Content-Encoding"));
+            assertEquals(10, response.getContentLength());
+            assertEquals("smallsmall", response.getText());
+
+            var text = "x".repeat(600);
+            response = compressionConversation(text).doRequest("/text", new MockRequest().header("Accept-Encoding", "gzip"));
+            assertEquals("gzip", response.getHeader("Content-Encoding"));
+            assertEquals(text + text, decompress(response.getBytes(), "gzip"));
+        } finally {
+            RifeConfig.engine().setGzipCompressionThreshold(RifeConfig.EngineConfig.DEFAULT_GZIP_COMPRESSION_THRESHOLD);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> RifeConfig.engine().setGzipCompressionThreshold(-1));
+        assertThrows(IllegalArgumentException.class, () -> RifeConfig.engine().setGzipCompressionLevel(10));
+    }
+
+    private static MockConversation etagConversation() {
+        return new MockConversation(new Site() {
+            public void setup() {
+                get("/auto", c -> {
+                    c.enableAutomaticEtag(true);
+                    c.print("text" + c.parameter("v", ""));
+                });
+                post("/auto", c -> {
+                    c.enableAutomaticEtag(true);
+                    c.print("text");
+                });
+                get("/disabled", c -> c.print("text"));
+                get("/unbuffered", c -> {
+                    c.enableAutomaticEtag(true);
+                    c.enableTextBuffer(false);
+                    c.print("text");
+                });
+                get("/etag", c -> {
+                    c.etag("v" + c.parameter("v", ""));
+                    c.print("content");
+                });
+                get("/modified", c -> {
+                    c.lastModified(1672531200123L);
+                    c.print("content");
+                });
+                put("/etag", c -> {
+                    c.etag("v");
+                    c.print("updated");
+                });
+                put("/modified", c -> {
+                    c.lastModified(1672531200123L);
+                    c.print("updated");
+                });
+            }
+        });
+    }
+
+    @Test
+    void testAutomaticEtag() {
+        var conversation = etagConversation();
+
+        var response = conversation.doRequest("/auto");
+        assertEquals(200, response.getStatus());
+        assertEquals("text", response.getText());
+        var etag = response.getHeader("ETag");
+        assertNotNull(etag);
+        assertTrue(etag.startsWith("W/\""));
+
+        response = conversation.doRequest("/auto", new MockRequest().header("If-None-Match", etag));
+        assertEquals(304, response.getStatus());
+        assertEquals("", response.getText());
+        assertEquals(etag, response.getHeader("ETag"));
+
+        response = conversation.doRequest("/auto", new MockRequest().header("If-None-Match", "\"other\", " + etag));
+        assertEquals(304, response.getStatus());
+
+        response = conversation.doRequest("/auto", new MockRequest().parameter("v", "2").header("If-None-Match", etag));
+        assertEquals(200, response.getStatus());
+        assertEquals("text2", response.getText());
+        assertNotEquals(etag, response.getHeader("ETag"));
+
+        response = conversation.doRequest("/auto", new MockRequest().method(RequestMethod.POST).header("If-None-Match", etag));
+        assertEquals(200, response.getStatus());
+        assertEquals("text", response.getText());
+        assertNull(response.getHeader("ETag"));
+
+        response = conversation.doRequest("/disabled");
+        assertEquals("text", response.getText());
+        assertNull(response.getHeader("ETag"));
+
+        response = conversation.doRequest("/unbuffered");
+        assertEquals("text", response.getText());
+        assertNull(response.getHeader("ETag"));
+    }
+
+    @Test
+    void testAutomaticEtagGlobal() {
+        RifeConfig.engine().setAutomaticEtag(true);
+        try {
+            var conversation = etagConversation();
+            var response = conversation.doRequest("/disabled");
+            var etag = response.getHeader("ETag");
+            assertNotNull(etag);
+
+            response = conversation.doRequest("/disabled", new MockRequest().header("If-None-Match", etag));
+            assertEquals(304, response.getStatus());
+            assertEquals("", response.getText());
+
+            // an ETag that is set by the element isn't replaced
+            response = conversation.doRequest("/etag");
+            assertEquals("\"v\"", response.getHeader("ETag"));
+        } finally {
+            RifeConfig.engine().setAutomaticEtag(RifeConfig.EngineConfig.DEFAULT_AUTOMATIC_ETAG);
+        }
+    }
+
+    @Test
+    void testPrecomputedValidators() {
+        var conversation = etagConversation();
+
+        var response = conversation.doRequest("/etag");
+        assertEquals(200, response.getStatus());
+        assertEquals("content", response.getText());
+        assertEquals("\"v\"", response.getHeader("ETag"));
+
+        response = conversation.doRequest("/etag", new MockRequest().header("If-None-Match", "W/\"v\""));
+        assertEquals(304, response.getStatus());
+        assertEquals("", response.getText());
+
+        response = conversation.doRequest("/etag", new MockRequest().parameter("v", "2").header("If-None-Match", "\"v\""));
+        assertEquals(200, response.getStatus());
+        assertEquals("\"v2\"", response.getHeader("ETag"));
+
+        response = conversation.doRequest("/modified");
+        assertEquals(200, response.getStatus());
+        assertEquals("content", response.getText());
+        var last_modified = response.getHeader("Last-Modified");
+        assertNotNull(last_modified);
+
+        response = conversation.doRequest("/modified", new MockRequest().header("If-Modified-Since", last_modified));
+        assertEquals(304, response.getStatus());
+        assertEquals("", response.getText());
+
+        response = conversation.doRequest("/modified", new MockRequest().header("If-Modified-Since", "Sat, 31 Dec 2022 00:00:00 GMT"));
+        assertEquals(200, response.getStatus());
+        assertEquals("content", response.getText());
+
+        response = conversation.doRequest("/modified", new MockRequest().header("If-Modified-Since", last_modified).header("If-None-Match", "\"x\""));
+        assertEquals(200, response.getStatus());
+
+        // a matching ETag fails the precondition of other methods
+        response = conversation.doRequest("/etag", new MockRequest().method(RequestMethod.PUT).header("If-None-Match", "\"v\""));
+        assertEquals(412, response.getStatus());
+        assertEquals("", response.getText());
+
+        response = conversation.doRequest("/etag", new MockRequest().method(RequestMethod.PUT).header("If-None-Match", "\"x\""));
+        assertEquals(200, response.getStatus());
+        assertEquals("updated", response.getText());
+
+        // the modification date is only evaluated for GET and HEAD
+        response = conversation.doRequest("/modified", new MockRequest().method(RequestMethod.PUT).header("If-Modified-Since", last_modified));
+        assertEquals(200, response.getStatus());
+        assertEquals("updated", response.getText());
+    }
 }
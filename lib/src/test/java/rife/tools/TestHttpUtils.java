@@ -0,0 +1,68 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.tools;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestHttpUtils {
+    @Test
+    void testExtractMimeTypeFromContentType() {
+        assertEquals("text/html", HttpUtils.extractMimeTypeFromContentType("text/html;charset=UTF-8"));
+        assertEquals("text/html", HttpUtils.extractMimeTypeFromContentType("text/html; charset=UTF-8"));
+        assertEquals("text/html", HttpUtils.extractMimeTypeFromContentType("text/html"));
+    }
+
+    @Test
+    void testMatchesEtag() {
+        assertFalse(HttpUtils.matchesEtag(null, "\"abc\""));
+        assertFalse(HttpUtils.matchesEtag("\"abc\"", null));
+        assertFalse(HttpUtils.matchesEtag("", "\"abc\""));
+
+        assertTrue(HttpUtils.matchesEtag("\"abc\"", "\"abc\""));
+        assertTrue(HttpUtils.matchesEtag("W/\"abc\"", "\"abc\""));
+        assertTrue(HttpUtils.matchesEtag("\"abc\"", "W/\"abc\""));
+        assertTrue(HttpUtils.matchesEtag("W/\"abc\"", "W/\"abc\""));
+        assertTrue(HttpUtils.matchesEtag("*", "\"abc\""));
+        assertTrue(HttpUtils.matchesEtag("\"one\", W/\"abc\" ,\"two\"", "\"abc\""));
+        assertTrue(HttpUtils.matchesEtag("\"a,b\", \"c\"", "\"a,b\""));
+
+        assertFalse(HttpUtils.matchesEtag("\"abcd\"", "\"abc\""));
+        assertFalse(HttpUtils.matchesEtag("\"ab\"", "\"abc\""));
+        assertFalse(HttpUtils.matchesEtag("\"one\", \"two\"", "\"abc\""));
+        assertFalse(HttpUtils.matchesEtag("\"a,b\", \"c\"", "\"b\""));
+        assertFalse(HttpUtils.matchesEtag("\"abc", "\"abc\""));
+    }
+
+    @Test
+    void testGetAcceptQuality() {
+        assertEquals(0, HttpUtils.getAcceptQuality(null, "gzip"));
+        assertEquals(0, HttpUtils.getAcceptQuality("gzip", null));
+        assertEquals(0, HttpUtils.getAcceptQuality("", "gzip"));
+
+        assertEquals(1, HttpUtils.getAcceptQuality("gzip", "gzip"));
+        assertEquals(1, HttpUtils.getAcceptQuality("deflate, GZIP", "gzip"));
+        assertEquals(0.5, HttpUtils.getAcceptQuality("deflate, gzip;q=0.5", "gzip"));
+        assertEquals(0.8, HttpUtils.getAcceptQuality("gzip ; Q = 0.8 ", "gzip"));
+        assertEquals(0, HttpUtils.getAcceptQuality("gzip;q=0, deflate", "gzip"));
+        assertEquals(0, HttpUtils.getAcceptQuality("gzip;q=0.0", "gzip"));
+        assertEquals(1, HttpUtils.getAcceptQuality("gzip;q=0, deflate", "deflate"));
+
+        // the token must match completely
+        assertEquals(0, HttpUtils.getAcceptQuality("x-gzip", "gzip"));
+        assertEquals(0, HttpUtils.getAcceptQuality("gzipped", "gzip"));
+
+        // the wildcard applies to tokens that aren't listed
+        assertEquals(1, HttpUtils.getAcceptQuality("*", "gzip"));
+        assertEquals(0.3, HttpUtils.getAcceptQuality("deflate, *;q=0.3", "gzip"));
+        assertEquals(0, HttpUtils.getAcceptQuality("gzip;q=0, *", "gzip"));
+        assertEquals(0, HttpUtils.getAcceptQuality("*;q=0", "gzip"));
+
+        // invalid quality values aren't acceptable
+        assertEquals(0, HttpUtils.getAcceptQuality("gzip;q=abc", "gzip"));
+        assertEquals(0, HttpUtils.getAcceptQuality("gzip;q=2", "gzip"));
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPageCursor {
+    @Test
+    void testEncodeDecode() {
+        var values = new Object[]{"some:text|with\nseparators", 'c', 12, 34L, (short) 5, (byte) 6, 7.8d, 9.1f,
+            new BigDecimal("12345.6789"), true, Timestamp.from(Instant.parse("2023-01-02T03:04:05.678Z")),
+            java.sql.Date.valueOf("2023-01-02"), java.sql.Time.valueOf("03:04:05"), new Date(1672628645678L),
+            Instant.parse("2023-01-02T03:04:05.678Z"), LocalDate.of(2023, 1, 2), LocalDateTime.of(2023, 1, 2, 3, 4, 5),
+            UUID.fromString("0f8fad5b-d9cb-469f-a165-70867728950e"), ""};
+
+        var after = PageCursor.after(values);
+        assertFalse(after.isBefore());
+        var encoded = after.encode();
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+        var decoded = PageCursor.decode(encoded);
+        assertEquals(after, decoded);
+        assertArrayEquals(values, decoded.getValues());
+        assertEquals(encoded, decoded.toString());
+
+        var before = PageCursor.decode(PageCursor.before(5, "name").encode());
+        assertTrue(before.isBefore());
+        assertArrayEquals(new Object[]{5, "name"}, before.getValues());
+        assertNotEquals(PageCursor.after(5, "name"), before);
+    }
+
+    @Test
+    void testDecodeInvalid() {
+        assertNull(PageCursor.decode(null));
+        assertNull(PageCursor.decode(""));
+        assertNull(PageCursor.decode("%%%"));
+        assertNull(PageCursor.decode(encode("x")));
+        assertNull(PageCursor.decode(encode("a")));
+        assertNull(PageCursor.decode(encode("ai")));
+        assertNull(PageCursor.decode(encode("ai2:1")));
+        assertNull(PageCursor.decode(encode("ai1:x")));
+        assertNull(PageCursor.decode(encode("aq1:1")));
+        assertEquals(PageCursor.after(1), PageCursor.decode(encode("ai1:1")));
+    }
+
+    @Test
+    void testInvalidValues() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.after());
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.after((Object[]) null));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.after(1, null));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.before(new Object()));
+    }
+
+    private static String encode(String text) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes());
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rifetestmodels;
+
+import rife.validation.ConstrainedProperty;
+import rife.validation.MetaData;
+
+public class MOBatchFirstBean extends MetaData {
+    private Integer identifier_;
+    private MOBatchSecondBean secondBean_ = null;
+    private String firstString_ = null;
+
+    public MOBatchFirstBean() {
+    }
+
+    public void activateMetaData() {
+        addConstraint(new ConstrainedProperty("identifier").identifier(true));
+        addConstraint(new ConstrainedProperty("secondBean").manyToOne(MOBatchSecondBean.class, "identifier").batchFetch(true));
+    }
+
+    public void setIdentifier(Integer identifier) {
+        identifier_ = identifier;
+    }
+
+    public Integer getIdentifier() {
+        return identifier_;
+    }
+
+    public void setSecondBean(MOBatchSecondBean secondBean) {
+        secondBean_ = secondBean;
+    }
+
+    public MOBatchSecondBean getSecondBean() {
+        return secondBean_;
+    }
+
+    public void setFirstString(String firstString) {
+        firstString_ = firstString;
+    }
+
+    public String getFirstString() {
+        return firstString_;
+    }
+}
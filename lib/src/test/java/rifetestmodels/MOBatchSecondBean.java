@@ -0,0 +1,36 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rifetestmodels;
+
+import rife.validation.ConstrainedProperty;
+import rife.validation.MetaData;
+
+public class MOBatchSecondBean extends MetaData {
+    private Integer identifier_;
+    private String secondString_;
+
+    public MOBatchSecondBean() {
+    }
+
+    public void activateMetaData() {
+        addConstraint(new ConstrainedProperty("identifier").identifier(true));
+    }
+
+    public void setIdentifier(Integer identifier) {
+        identifier_ = identifier;
+    }
+
+    public Integer getIdentifier() {
+        return identifier_;
+    }
+
+    public void setSecondString(String secondString) {
+        secondString_ = secondString;
+    }
+
+    public String getSecondString() {
+        return secondString_;
+    }
+}